@@ -0,0 +1,78 @@
+package com.xuyi.blog.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流器基准测试：按过滤器的调用方式（先判断、再读取剩余次数）对比新旧实现
+ * clients=1 时所有线程竞争同一客户端，clients=1024 时请求分散到多个客户端
+ * 运行：gradle jmh
+ *
+ * @author xuyi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "1024"})
+    private int clients;
+
+    private String[] clientIds;
+    private LegacyRateLimiter legacyLimiter;
+    private InMemoryRateLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+        legacyLimiter = new LegacyRateLimiter();
+        limiter = new InMemoryRateLimiter();
+    }
+
+    @Benchmark
+    public void legacy(Cursor cursor, Blackhole blackhole) {
+        String clientId = clientIds[cursor.next(clients)];
+        blackhole.consume(legacyLimiter.isAllowed(clientId));
+        blackhole.consume(legacyLimiter.getRateLimitInfo(clientId));
+    }
+
+    @Benchmark
+    public void gcra(Cursor cursor, Blackhole blackhole) {
+        String clientId = clientIds[cursor.next(clients)];
+        blackhole.consume(limiter.isAllowed(clientId));
+        blackhole.consume(limiter.getRateLimitInfo(clientId));
+    }
+
+    /**
+     * 每个线程独立轮换客户端，避免共享计数器本身成为竞争点
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next(int bound) {
+            position = position + 1 == bound ? 0 : position + 1;
+            return position;
+        }
+    }
+}
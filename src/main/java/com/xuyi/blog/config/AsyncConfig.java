@@ -52,44 +52,4 @@ public class AsyncConfig {
         log.info("异步线程池初始化完成");
         return executor;
     }
-
-    @Bean("emailExecutor")
-    public Executor emailExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // 邮件发送专用线程池
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(50);
-        executor.setThreadNamePrefix("ApexBlog-Email-");
-        executor.setKeepAliveSeconds(60);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        
-        executor.initialize();
-        
-        log.info("邮件发送线程池初始化完成");
-        return executor;
-    }
-
-    @Bean("visitExecutor")
-    public Executor visitExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        
-        // 访问统计专用线程池
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(200);
-        executor.setThreadNamePrefix("ApexBlog-Visit-");
-        executor.setKeepAliveSeconds(60);
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(30);
-        
-        executor.initialize();
-        
-        log.info("访问统计线程池初始化完成");
-        return executor;
-    }
 }
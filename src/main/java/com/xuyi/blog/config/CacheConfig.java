@@ -1,31 +1,47 @@
 package com.xuyi.blog.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
- * 缓存配置类 - 使用内存缓存替代Redis
+ * 缓存配置类 - 使用有界的Caffeine内存缓存
+ * 缓存管理器感知事务：事务内的写入和清除推迟到提交之后执行，
+ * 避免提交前的并发读取把旧数据重新放回缓存
  *
  * @author xuyi
  */
 @Configuration
 @EnableCaching
+@RequiredArgsConstructor
+@Slf4j
 public class CacheConfig {
 
+    private final CacheProperties cacheProperties;
+
     /**
      * 配置内存缓存管理器
      */
     @Bean
     public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // 运行时新建的缓存使用默认策略
+        cacheManager.setCaffeine(buildCaffeine(cacheProperties.getDefaults()));
+        cacheManager.setAllowNullValues(false);
 
-        // 设置缓存名称
-        cacheManager.setCacheNames(Arrays.asList(
+        // 预先注册缓存，启动时即绑定Actuator指标
+        Set<String> cacheNames = new LinkedHashSet<>(Arrays.asList(
             "articles",
             "article",
             "categories",
@@ -37,13 +53,42 @@ public class CacheConfig {
             "search",
             "visitStats",
             "rss",
+            "feeds",
             "emailSubscribers",
             "blogStats"
         ));
+        cacheNames.addAll(cacheProperties.getCaches().keySet());
 
-        // 允许运行时创建新的缓存
-        cacheManager.setAllowNullValues(false);
+        for (String cacheName : cacheNames) {
+            CacheProperties.Spec spec = cacheProperties.resolve(cacheName);
+            cacheManager.registerCustomCache(cacheName, buildCaffeine(spec).build());
+            log.debug("注册缓存: {}, 最大条目: {}, 最大权重: {}, 写入过期: {}",
+                    cacheName, spec.getMaximumSize(), spec.getMaximumWeight(), spec.getExpireAfterWrite());
+        }
+
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * 根据策略构建Caffeine
+     */
+    private Caffeine<Object, Object> buildCaffeine(CacheProperties.Spec spec) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder().recordStats();
+
+        if (spec.getMaximumWeight() != null) {
+            caffeine.maximumWeight(spec.getMaximumWeight().toBytes())
+                    .weigher(new CacheValueWeigher());
+        } else if (spec.getMaximumSize() != null) {
+            caffeine.maximumSize(spec.getMaximumSize());
+        }
+
+        if (spec.getExpireAfterWrite() != null) {
+            caffeine.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            caffeine.expireAfterAccess(spec.getExpireAfterAccess());
+        }
 
-        return cacheManager;
+        return caffeine;
     }
 }
@@ -0,0 +1,92 @@
+package com.xuyi.blog.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存配置属性
+ * 每个缓存可单独配置容量和过期策略，未配置的缓存使用默认策略
+ *
+ * @author xuyi
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "blog.cache")
+public class CacheProperties {
+
+    /**
+     * 默认缓存策略
+     */
+    private Spec defaults = defaultSpec();
+
+    /**
+     * 按缓存名称覆盖的策略
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    /**
+     * 获取指定缓存的策略，未配置的项沿用默认值
+     */
+    public Spec resolve(String cacheName) {
+        Spec override = caches.get(cacheName);
+        if (override == null) {
+            return defaults;
+        }
+
+        Spec spec = new Spec();
+        spec.setMaximumSize(override.getMaximumSize() != null ? override.getMaximumSize() : defaults.getMaximumSize());
+        spec.setMaximumWeight(override.getMaximumWeight() != null ? override.getMaximumWeight() : defaults.getMaximumWeight());
+        spec.setExpireAfterWrite(override.getExpireAfterWrite() != null ? override.getExpireAfterWrite() : defaults.getExpireAfterWrite());
+        spec.setExpireAfterAccess(override.getExpireAfterAccess() != null ? override.getExpireAfterAccess() : defaults.getExpireAfterAccess());
+        // 显式配置了权重上限时以权重为准（Caffeine不允许同时设置条数和权重）
+        if (override.getMaximumWeight() != null) {
+            spec.setMaximumSize(null);
+        } else if (override.getMaximumSize() != null) {
+            spec.setMaximumWeight(null);
+        }
+        return spec;
+    }
+
+    /**
+     * 内置默认策略：最多500条，写入30分钟后过期
+     */
+    private static Spec defaultSpec() {
+        Spec spec = new Spec();
+        spec.setMaximumSize(500L);
+        spec.setExpireAfterWrite(Duration.ofMinutes(30));
+        return spec;
+    }
+
+    /**
+     * 单个缓存的策略，未设置的项为 null，按缓存覆盖时沿用默认策略
+     */
+    @Data
+    public static class Spec {
+
+        /**
+         * 最大条目数
+         */
+        private Long maximumSize;
+
+        /**
+         * 最大权重（按估算的内存占用），设置后忽略最大条目数
+         */
+        private DataSize maximumWeight;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * 访问后过期时间
+         */
+        private Duration expireAfterAccess;
+    }
+}
@@ -0,0 +1,74 @@
+package com.xuyi.blog.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.xuyi.blog.dto.ArticleDTO;
+import com.xuyi.blog.dto.ArticleSummaryDTO;
+import com.xuyi.blog.dto.FeedContent;
+import com.xuyi.blog.dto.PageResponse;
+import com.xuyi.blog.dto.TagDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存值权重估算器
+ * 按字节粗略估算缓存对象的内存占用，文章正文（LONGTEXT）按实际长度计入
+ *
+ * @author xuyi
+ */
+public class CacheValueWeigher implements Weigher<Object, Object> {
+
+    // 对象头及若干引用字段的估算开销
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int DEFAULT_WEIGHT = 256;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long weight = estimate(value);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    private long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + text.length() * 2L;
+        }
+        if (value instanceof ArticleDTO article) {
+            return OBJECT_OVERHEAD * 4 + estimate(article.getTitle()) + estimate(article.getSummary())
+                    + estimate(article.getContent()) + estimate(article.getContentHtml())
+                    + estimate(article.getTocHtml()) + estimateTags(article.getTags());
+        }
+        if (value instanceof ArticleSummaryDTO article) {
+            return OBJECT_OVERHEAD * 3 + estimate(article.getTitle()) + estimate(article.getSummary())
+                    + estimateTags(article.getTags());
+        }
+        if (value instanceof FeedContent feed) {
+            return OBJECT_OVERHEAD + feed.getBody().length;
+        }
+        if (value instanceof PageResponse<?> page) {
+            return OBJECT_OVERHEAD + estimate(page.getContent());
+        }
+        if (value instanceof Collection<?> collection) {
+            long total = 16;
+            for (Object element : collection) {
+                total += estimate(element);
+            }
+            return total;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long total = 32;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                total += 32 + estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return total;
+        }
+        return DEFAULT_WEIGHT;
+    }
+
+    private long estimateTags(List<TagDTO> tags) {
+        return tags != null ? tags.size() * (long) OBJECT_OVERHEAD * 2 : 0;
+    }
+}
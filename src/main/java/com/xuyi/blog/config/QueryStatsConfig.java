@@ -1,15 +1,19 @@
 package com.xuyi.blog.config;
 
-import com.xuyi.blog.interceptor.QueryStatsInterceptor;
 import com.xuyi.blog.interceptor.QueryStatsWebInterceptor;
+import com.xuyi.blog.interceptor.QueryTimingDataSource;
+import com.xuyi.blog.service.QueryStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.sql.DataSource;
 import java.util.Map;
 
 /**
@@ -23,7 +27,6 @@ import java.util.Map;
 public class QueryStatsConfig implements WebMvcConfigurer {
     
     private final QueryStatsWebInterceptor queryStatsWebInterceptor;
-    private final QueryStatsInterceptor queryStatsInterceptor;
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
@@ -45,20 +48,32 @@ public class QueryStatsConfig implements WebMvcConfigurer {
     }
     
     /**
-     * 配置Hibernate使用查询统计拦截器
+     * 用计时代理包装连接池数据源，JPA 和 JdbcTemplate 的语句都经过它
+     */
+    @Bean
+    public static BeanPostProcessor queryTimingDataSourcePostProcessor(ObjectProvider<QueryStatsService> queryStatsService) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof QueryTimingDataSource)) {
+                    log.info("数据源 {} 已启用查询计时", beanName);
+                    return new QueryTimingDataSource((DataSource) bean, queryStatsService);
+                }
+                return bean;
+            }
+        };
+    }
+    
+    /**
+     * 配置Hibernate统计
      */
     @Bean
     public HibernatePropertiesCustomizer hibernatePropertiesCustomizer() {
         return new HibernatePropertiesCustomizer() {
             @Override
             public void customize(Map<String, Object> hibernateProperties) {
-                // 注册SQL拦截器
-                hibernateProperties.put("hibernate.session_factory.statement_inspector", queryStatsInterceptor);
-                
                 // 启用统计信息收集
                 hibernateProperties.put("hibernate.generate_statistics", true);
-                
-                log.info("Hibernate查询统计拦截器已配置");
             }
         };
     }
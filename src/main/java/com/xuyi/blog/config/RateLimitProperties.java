@@ -0,0 +1,68 @@
+package com.xuyi.blog.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置属性
+ * 未匹配任何路由的请求使用默认策略，路由策略的计数与默认策略相互独立
+ *
+ * @author xuyi
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "blog.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 默认策略
+     */
+    private Policy defaults = new Policy();
+
+    /**
+     * 按路径单独配置的策略，按顺序匹配第一个
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    /**
+     * 单个限流策略，null 表示沿用默认策略的值
+     */
+    @Data
+    public static class Policy {
+
+        /**
+         * 每分钟最大请求数
+         */
+        private Integer perMinute = 60;
+
+        /**
+         * 每小时最大请求数
+         */
+        private Integer perHour = 1000;
+    }
+
+    /**
+     * 路由策略
+     */
+    @Data
+    public static class Route {
+
+        /**
+         * 策略名称
+         */
+        private String name;
+
+        /**
+         * 匹配的路径（不含 context-path），支持 Ant 风格通配符
+         */
+        private List<String> paths = new ArrayList<>();
+
+        private Integer perMinute;
+
+        private Integer perHour;
+    }
+}
@@ -0,0 +1,82 @@
+package com.xuyi.blog.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求安全扫描规则配置
+ * 每个分类的规则编译进同一个多模式自动机，请求只扫描一遍
+ *
+ * @author xuyi
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "blog.security.scan")
+public class SecurityScanProperties {
+
+    /**
+     * 请求路径最大长度，超出视为恶意请求
+     */
+    private int maxUriLength = 2048;
+
+    /**
+     * 查询字符串最大长度，超出视为恶意请求
+     */
+    private int maxQueryLength = 4096;
+
+    /**
+     * 规则分类，最多 64 个
+     */
+    private List<Category> categories = new ArrayList<>();
+
+    /**
+     * 扫描范围
+     */
+    public enum Scope {
+        /**
+         * 请求路径和查询字符串
+         */
+        REQUEST,
+        /**
+         * 仅请求路径
+         */
+        PATH,
+        /**
+         * 仅 User-Agent（开发环境不检查）
+         */
+        USER_AGENT
+    }
+
+    /**
+     * 规则分类
+     */
+    @Data
+    public static class Category {
+
+        /**
+         * 分类名称
+         */
+        private String name;
+
+        /**
+         * 命中时记录的原因
+         */
+        private String reason;
+
+        private Scope scope = Scope.REQUEST;
+
+        /**
+         * 是否只匹配结尾（如文件扩展名）
+         */
+        private boolean suffix;
+
+        /**
+         * 规则文本，忽略大小写，路径和查询字符串先做 %XX 解码再匹配
+         */
+        private List<String> patterns = new ArrayList<>();
+    }
+}
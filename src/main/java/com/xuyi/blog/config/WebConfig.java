@@ -1,5 +1,6 @@
 package com.xuyi.blog.config;
 
+import com.xuyi.blog.interceptor.ConditionalRequestInterceptor;
 import com.xuyi.blog.interceptor.VisitInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +17,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final VisitInterceptor visitInterceptor;
+    private final ConditionalRequestInterceptor conditionalRequestInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
@@ -32,5 +34,9 @@ public class WebConfig implements WebMvcConfigurer {
                     "/robots.txt",
                     "/sitemap.xml"
                 );
+
+        // 放在访问统计之后，返回 304 的请求仍计入访问量
+        registry.addInterceptor(conditionalRequestInterceptor)
+                .addPathPatterns("/**");
     }
 }
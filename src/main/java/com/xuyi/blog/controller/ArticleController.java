@@ -1,12 +1,15 @@
 package com.xuyi.blog.controller;
 
 import com.xuyi.blog.dto.*;
+import com.xuyi.blog.interceptor.HttpCachePolicy;
+import com.xuyi.blog.interceptor.QueryBudget;
 import com.xuyi.blog.service.ArticleService;
 import com.xuyi.blog.service.QueryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,13 +28,18 @@ public class ArticleController {
     private final ArticleService articleService;
     private final QueryStatsService queryStatsService;
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping
-    @Operation(summary = "获取文章列表", description = "分页获取已发布的文章列表")
+    @Operation(summary = "获取文章列表", description = "分页获取已发布的文章列表，传入cursor时使用游标分页")
     public ApiResponse<PageResponse<ArticleSummaryDTO>> getArticles(
             @Parameter(description = "页码，从0开始") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "分页游标，取自上一页的nextCursor") @RequestParam(required = false) String cursor,
             @Parameter(description = "是否包含查询统计") @RequestParam(defaultValue = "false") boolean includeStats) {
-        PageResponse<ArticleSummaryDTO> articles = articleService.getPublishedArticles(page, size);
+        PageResponse<ArticleSummaryDTO> articles = StringUtils.hasText(cursor)
+                ? articleService.getPublishedArticlesAfter(cursor, size)
+                : articleService.getPublishedArticles(page, size);
 
         if (includeStats) {
             QueryStatsDTO stats = queryStatsService.finishRequestStats();
@@ -41,6 +49,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.ARTICLE, countView = true)
+    @QueryBudget(maxQueries = 3)
     @GetMapping("/{id}")
     @Operation(summary = "获取文章详情", description = "根据ID获取文章详情")
     public ApiResponse<ArticleDTO> getArticle(
@@ -60,6 +70,8 @@ public class ArticleController {
         return ApiResponse.success(article);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "根据分类获取文章", description = "分页获取指定分类的文章列表")
     public ApiResponse<PageResponse<ArticleSummaryDTO>> getArticlesByCategory(
@@ -70,6 +82,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/tag/{tagId}")
     @Operation(summary = "根据标签获取文章", description = "分页获取指定标签的文章列表")
     public ApiResponse<PageResponse<ArticleSummaryDTO>> getArticlesByTag(
@@ -80,6 +94,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/search")
     @Operation(summary = "搜索文章", description = "根据关键词搜索文章")
     public ApiResponse<PageResponse<ArticleSummaryDTO>> searchArticles(
@@ -90,6 +106,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 3)
     @GetMapping("/top")
     @Operation(summary = "获取置顶文章", description = "获取所有置顶文章")
     public ApiResponse<List<ArticleSummaryDTO>> getTopArticles() {
@@ -97,6 +115,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/latest")
     @Operation(summary = "获取最新文章", description = "获取最新的10篇文章")
     public ApiResponse<List<ArticleSummaryDTO>> getLatestArticles() {
@@ -104,6 +124,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/popular")
     @Operation(summary = "获取热门文章", description = "获取浏览量最高的10篇文章")
     public ApiResponse<List<ArticleSummaryDTO>> getPopularArticles() {
@@ -111,6 +133,8 @@ public class ArticleController {
         return ApiResponse.success(articles);
     }
 
+    @HttpCachePolicy
+    @QueryBudget(maxQueries = 4)
     @GetMapping("/{id}/related")
     @Operation(summary = "获取相关文章", description = "获取与指定文章相关的文章")
     public ApiResponse<List<ArticleSummaryDTO>> getRelatedArticles(
@@ -3,6 +3,7 @@ package com.xuyi.blog.controller;
 import com.xuyi.blog.dto.ApiResponse;
 import com.xuyi.blog.dto.BlogStatsDTO;
 import com.xuyi.blog.dto.QueryStatsDTO;
+import com.xuyi.blog.interceptor.HttpCachePolicy;
 import com.xuyi.blog.service.BlogStatsService;
 import com.xuyi.blog.service.QueryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,6 +26,7 @@ public class BlogStatsController {
     private final BlogStatsService blogStatsService;
     private final QueryStatsService queryStatsService;
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/overview")
     @Operation(summary = "获取博客综合统计", description = "获取博客的综合统计信息，包括文章数、访问量、标签数、分类数等")
     public ApiResponse<BlogStatsDTO> getBlogStats(
@@ -39,6 +41,7 @@ public class BlogStatsController {
         return ApiResponse.success(stats);
     }
 
+    @HttpCachePolicy
     @GetMapping("/articles/count")
     @Operation(summary = "获取文章总数", description = "获取已发布文章的总数")
     public ApiResponse<Long> getTotalArticles(
@@ -53,6 +56,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy
     @GetMapping("/tags/count")
     @Operation(summary = "获取标签总数", description = "获取标签的总数")
     public ApiResponse<Long> getTotalTags(
@@ -67,6 +71,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy
     @GetMapping("/categories/count")
     @Operation(summary = "获取分类总数", description = "获取分类的总数")
     public ApiResponse<Long> getTotalCategories(
@@ -81,6 +86,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/friend-links/count")
     @Operation(summary = "获取友链总数", description = "获取友链的总数")
     public ApiResponse<Long> getTotalFriendLinks(
@@ -95,6 +101,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/portfolios/count")
     @Operation(summary = "获取作品集总数", description = "获取作品集的总数")
     public ApiResponse<Long> getTotalPortfolios(
@@ -109,6 +116,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/subscribers/count")
     @Operation(summary = "获取订阅者总数", description = "获取活跃订阅者的总数")
     public ApiResponse<Long> getTotalSubscribers(
@@ -123,6 +131,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/visits/today")
     @Operation(summary = "获取今日访问量", description = "获取今日访问量统计")
     public ApiResponse<Long> getTodayVisits(
@@ -137,6 +146,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/visits/total")
     @Operation(summary = "获取总访问量", description = "获取总访问量统计")
     public ApiResponse<Long> getTotalVisits(
@@ -151,6 +161,7 @@ public class BlogStatsController {
         return ApiResponse.success(count);
     }
 
+    @HttpCachePolicy(validator = HttpCachePolicy.Validator.NONE, maxAge = 60)
     @GetMapping("/visitors/unique")
     @Operation(summary = "获取独立访客数", description = "获取独立访客数统计")
     public ApiResponse<Long> getUniqueVisitors(
@@ -2,6 +2,7 @@ package com.xuyi.blog.controller;
 
 import com.xuyi.blog.dto.ApiResponse;
 import com.xuyi.blog.dto.CategoryDTO;
+import com.xuyi.blog.interceptor.HttpCachePolicy;
 import com.xuyi.blog.service.CategoryService;
 import com.xuyi.blog.service.QueryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,6 +27,7 @@ public class CategoryController {
     private final CategoryService categoryService;
     private final QueryStatsService queryStatsService;
 
+    @HttpCachePolicy
     @GetMapping
     @Operation(summary = "获取所有分类", description = "获取所有分类列表")
     public ApiResponse<List<CategoryDTO>> getAllCategories(
@@ -36,6 +38,7 @@ public class CategoryController {
             ApiResponse.success(categories);
     }
 
+    @HttpCachePolicy
     @GetMapping("/{id}")
     @Operation(summary = "获取分类详情", description = "根据ID获取分类详情")
     public ApiResponse<CategoryDTO> getCategory(
@@ -47,6 +50,7 @@ public class CategoryController {
             ApiResponse.success(category);
     }
 
+    @HttpCachePolicy
     @GetMapping("/name/{name}")
     @Operation(summary = "根据名称获取分类", description = "根据名称获取分类信息")
     public ApiResponse<CategoryDTO> getCategoryByName(
@@ -1,6 +1,7 @@
 package com.xuyi.blog.controller;
 
 import com.xuyi.blog.dto.ApiResponse;
+import com.xuyi.blog.dto.QueryDigestDTO;
 import com.xuyi.blog.dto.QueryStatsDTO;
 import com.xuyi.blog.service.QueryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -137,6 +138,13 @@ public class QueryStatsController {
         return ApiResponse.success(summary);
     }
     
+    @GetMapping("/digest")
+    @Operation(summary = "获取按SQL指纹汇总的语句摘要", description = "按总耗时降序，含分位数和慢查询样本")
+    public ApiResponse<List<QueryDigestDTO>> getDigest(
+            @Parameter(description = "返回条数") @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.success(queryStatsService.getDigests(Math.max(1, Math.min(limit, 500))));
+    }
+    
     @DeleteMapping("/clear")
     @Operation(summary = "清理查询统计数据")
     public ApiResponse<Void> clearStats() {
@@ -1,14 +1,18 @@
 package com.xuyi.blog.controller;
 
+import com.xuyi.blog.dto.FeedContent;
 import com.xuyi.blog.service.RssService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * RSS订阅控制器
  * 
@@ -24,45 +28,55 @@ public class RssController {
 
     @GetMapping(value = "/feed.xml", produces = MediaType.APPLICATION_XML_VALUE)
     @Operation(summary = "RSS订阅源", description = "获取RSS 2.0格式的订阅源")
-    public ResponseEntity<String> getRssFeed() {
-        String rssFeed = rssService.generateRssFeed();
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_XML)
-                .header("Cache-Control", "public, max-age=3600")
-                .body(rssFeed);
+    public ResponseEntity<byte[]> getRssFeed() {
+        return feedResponse(rssService.generateRssFeed());
     }
 
     @GetMapping(value = "/atom.xml", produces = MediaType.APPLICATION_XML_VALUE)
     @Operation(summary = "Atom订阅源", description = "获取Atom 1.0格式的订阅源")
-    public ResponseEntity<String> getAtomFeed() {
-        String atomFeed = rssService.generateAtomFeed();
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_XML)
-                .header("Cache-Control", "public, max-age=3600")
-                .body(atomFeed);
+    public ResponseEntity<byte[]> getAtomFeed() {
+        return feedResponse(rssService.generateAtomFeed());
     }
 
     @GetMapping(value = "/category/{categoryId}/feed.xml", produces = MediaType.APPLICATION_XML_VALUE)
     @Operation(summary = "分类RSS订阅源", description = "获取指定分类的RSS订阅源")
-    public ResponseEntity<String> getCategoryRssFeed(
+    public ResponseEntity<byte[]> getCategoryRssFeed(
             @Parameter(description = "分类ID") @PathVariable Long categoryId) {
-        String rssFeed = rssService.generateCategoryRssFeed(categoryId);
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_XML)
-                .header("Cache-Control", "public, max-age=3600")
-                .body(rssFeed);
+        return feedResponse(rssService.generateCategoryRssFeed(categoryId));
+    }
+
+    @GetMapping(value = "/tag/{tagId}/feed.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    @Operation(summary = "标签RSS订阅源", description = "获取指定标签的RSS订阅源")
+    public ResponseEntity<byte[]> getTagRssFeed(
+            @Parameter(description = "标签ID") @PathVariable Long tagId) {
+        return feedResponse(rssService.generateTagRssFeed(tagId));
     }
 
     // 兼容性路径
     @GetMapping(value = "/feed", produces = MediaType.APPLICATION_XML_VALUE)
     @Operation(summary = "RSS订阅源（兼容路径）", description = "获取RSS订阅源的兼容路径")
-    public ResponseEntity<String> getRssFeedCompat() {
+    public ResponseEntity<byte[]> getRssFeedCompat() {
         return getRssFeed();
     }
 
     @GetMapping(value = "/rss.xml", produces = MediaType.APPLICATION_XML_VALUE)
     @Operation(summary = "RSS订阅源（兼容路径）", description = "获取RSS订阅源的兼容路径")
-    public ResponseEntity<String> getRssXml() {
+    public ResponseEntity<byte[]> getRssXml() {
         return getRssFeed();
     }
+
+    /**
+     * 带 ETag 和 Last-Modified 返回订阅源
+     * 请求携带的 If-None-Match / If-Modified-Since 匹配时由 Spring 直接返回 304，不输出正文
+     */
+    private ResponseEntity<byte[]> feedResponse(FeedContent feed) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_XML)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic())
+                .eTag(feed.getEtag());
+        if (feed.getLastModified() > 0) {
+            builder.lastModified(feed.getLastModified());
+        }
+        return builder.body(feed.getBody());
+    }
 }
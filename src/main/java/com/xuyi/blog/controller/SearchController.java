@@ -4,6 +4,7 @@ import com.xuyi.blog.dto.ApiResponse;
 import com.xuyi.blog.dto.ArticleSummaryDTO;
 import com.xuyi.blog.dto.PageResponse;
 import com.xuyi.blog.dto.SearchResultDTO;
+import com.xuyi.blog.service.HotKeywordService;
 import com.xuyi.blog.service.SearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +26,7 @@ import java.util.List;
 public class SearchController {
 
     private final SearchService searchService;
+    private final HotKeywordService hotKeywordService;
 
     @GetMapping("/articles")
     @Operation(summary = "搜索文章", description = "根据关键词搜索文章")
@@ -33,6 +35,7 @@ public class SearchController {
             @Parameter(description = "页码，从0开始") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size) {
         PageResponse<ArticleSummaryDTO> result = searchService.searchArticles(keyword, page, size);
+        recordKeyword(keyword, page);
         return ApiResponse.success(result);
     }
 
@@ -58,6 +61,16 @@ public class SearchController {
             @Parameter(description = "页码，从0开始") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size) {
         SearchResultDTO result = searchService.fullTextSearch(keyword, page, size);
+        recordKeyword(keyword, page);
         return ApiResponse.success(result);
     }
+
+    /**
+     * 统计热门关键词，翻页不重复计数
+     */
+    private void recordKeyword(String keyword, int page) {
+        if (page == 0) {
+            hotKeywordService.record(keyword);
+        }
+    }
 }
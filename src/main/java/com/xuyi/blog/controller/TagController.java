@@ -2,6 +2,7 @@ package com.xuyi.blog.controller;
 
 import com.xuyi.blog.dto.ApiResponse;
 import com.xuyi.blog.dto.TagDTO;
+import com.xuyi.blog.interceptor.HttpCachePolicy;
 import com.xuyi.blog.service.TagService;
 import com.xuyi.blog.service.QueryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -26,6 +27,7 @@ public class TagController {
     private final TagService tagService;
     private final QueryStatsService queryStatsService;
 
+    @HttpCachePolicy
     @GetMapping
     @Operation(summary = "获取所有标签", description = "获取所有标签列表")
     public ApiResponse<List<TagDTO>> getAllTags(
@@ -36,6 +38,7 @@ public class TagController {
             ApiResponse.success(tags);
     }
 
+    @HttpCachePolicy
     @GetMapping("/popular")
     @Operation(summary = "获取热门标签", description = "获取热门标签列表")
     public ApiResponse<List<TagDTO>> getPopularTags(
@@ -46,6 +49,7 @@ public class TagController {
             ApiResponse.success(tags);
     }
 
+    @HttpCachePolicy
     @GetMapping("/{id}")
     @Operation(summary = "获取标签详情", description = "根据ID获取标签详情")
     public ApiResponse<TagDTO> getTag(
@@ -57,6 +61,7 @@ public class TagController {
             ApiResponse.success(tag);
     }
 
+    @HttpCachePolicy
     @GetMapping("/name/{name}")
     @Operation(summary = "根据名称获取标签", description = "根据名称获取标签信息")
     public ApiResponse<TagDTO> getTagByName(
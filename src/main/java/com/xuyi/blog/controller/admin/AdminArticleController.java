@@ -2,6 +2,7 @@ package com.xuyi.blog.controller.admin;
 
 import com.xuyi.blog.dto.*;
 import com.xuyi.blog.service.ArticleService;
+import com.xuyi.blog.service.MarkdownPreviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -24,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminArticleController {
 
     private final ArticleService articleService;
+    private final MarkdownPreviewService markdownPreviewService;
 
     @GetMapping
     @Operation(summary = "获取所有文章", description = "分页获取所有文章（包括草稿）")
@@ -92,4 +94,22 @@ public class AdminArticleController {
         articleService.archiveArticle(id);
         return ApiResponse.success("文章归档成功");
     }
+
+    @PostMapping("/preview")
+    @Operation(summary = "预览文章", description = "渲染编辑器预览，传入编辑范围时只重新渲染受影响的块")
+    public ApiResponse<MarkdownPreviewDTO> previewArticle(
+            @Valid @RequestBody MarkdownPreviewRequestDTO request,
+            Authentication authentication) {
+        MarkdownPreviewDTO preview = markdownPreviewService.preview(authentication.getName(), request);
+        return ApiResponse.success(preview);
+    }
+
+    @DeleteMapping("/preview/{sessionId}")
+    @Operation(summary = "结束预览会话", description = "释放编辑会话缓存的解析结果")
+    public ApiResponse<Void> closePreview(
+            @Parameter(description = "编辑会话ID") @PathVariable String sessionId,
+            Authentication authentication) {
+        markdownPreviewService.close(authentication.getName(), sessionId);
+        return ApiResponse.success("预览会话已结束");
+    }
 }
@@ -2,7 +2,9 @@ package com.xuyi.blog.controller.admin;
 
 import com.xuyi.blog.dto.ApiResponse;
 import com.xuyi.blog.dto.EmailSubscriberDTO;
+import com.xuyi.blog.dto.MailQueueStatsDTO;
 import com.xuyi.blog.service.EmailSubscriberService;
+import com.xuyi.blog.service.MailQueueService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -25,6 +27,7 @@ import java.util.List;
 public class AdminEmailSubscriberController {
 
     private final EmailSubscriberService emailSubscriberService;
+    private final MailQueueService mailQueueService;
 
     @GetMapping
     @Operation(summary = "获取所有订阅者", description = "获取所有邮箱订阅者列表")
@@ -62,4 +65,10 @@ public class AdminEmailSubscriberController {
         long count = emailSubscriberService.getActiveSubscriberCount();
         return ApiResponse.success(count);
     }
+
+    @GetMapping("/mail-queue")
+    @Operation(summary = "获取发件队列状态", description = "获取发件队列积压数量及最近群发批次的发送进度")
+    public ApiResponse<MailQueueStatsDTO> getMailQueueStats() {
+        return ApiResponse.success(mailQueueService.getStats());
+    }
 }
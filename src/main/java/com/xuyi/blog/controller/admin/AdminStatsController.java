@@ -1,14 +1,19 @@
 package com.xuyi.blog.controller.admin;
 
 import com.xuyi.blog.dto.ApiResponse;
+import com.xuyi.blog.dto.SuspiciousIpDTO;
 import com.xuyi.blog.dto.VisitStatsDTO;
+import com.xuyi.blog.security.SuspiciousIpTracker;
 import com.xuyi.blog.service.VisitService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 管理后台 - 统计控制器
  * 
@@ -22,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminStatsController {
 
     private final VisitService visitService;
+    private final SuspiciousIpTracker suspiciousIpTracker;
 
     @GetMapping("/visits")
     @Operation(summary = "获取访问统计", description = "获取网站访问统计信息")
@@ -29,4 +35,18 @@ public class AdminStatsController {
         VisitStatsDTO stats = visitService.getVisitStats();
         return ApiResponse.success(stats);
     }
+
+    @GetMapping("/suspicious-ips")
+    @Operation(summary = "获取可疑IP", description = "按衰减后的恶意请求次数排序，包含封禁状态")
+    public ApiResponse<List<SuspiciousIpDTO>> getSuspiciousIps(
+            @Parameter(description = "返回数量") @RequestParam(defaultValue = "50") int limit) {
+        return ApiResponse.success(suspiciousIpTracker.getSuspiciousIps(limit));
+    }
+
+    @DeleteMapping("/suspicious-ips")
+    @Operation(summary = "清理可疑IP", description = "清空可疑IP记录并解除所有临时封禁")
+    public ApiResponse<Void> clearSuspiciousIps() {
+        suspiciousIpTracker.clearSuspiciousIps();
+        return ApiResponse.success("可疑IP记录已清理");
+    }
 }
@@ -0,0 +1,76 @@
+package com.xuyi.blog.dto;
+
+import com.xuyi.blog.entity.Article;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 文章列表游标（键集分页）
+ * 对应排序键 (is_top, published_at, id)，对客户端是不透明字符串
+ *
+ * @author xuyi
+ */
+@Getter
+public class ArticleCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final boolean isTop;
+    private final LocalDateTime publishedAt;
+    private final Long id;
+
+    public ArticleCursor(boolean isTop, LocalDateTime publishedAt, Long id) {
+        this.isTop = isTop;
+        this.publishedAt = publishedAt;
+        this.id = id;
+    }
+
+    /**
+     * 以文章作为游标位置，发布时间为空的文章无法定位
+     */
+    public static ArticleCursor of(Article article) {
+        if (article.getPublishedAt() == null || article.getId() == null) {
+            return null;
+        }
+        return new ArticleCursor(Boolean.TRUE.equals(article.getIsTop()), article.getPublishedAt(), article.getId());
+    }
+
+    /**
+     * 以文章摘要作为游标位置
+     */
+    public static ArticleCursor of(ArticleSummaryDTO article) {
+        if (article.getPublishedAt() == null || article.getId() == null) {
+            return null;
+        }
+        return new ArticleCursor(Boolean.TRUE.equals(article.getIsTop()), article.getPublishedAt(), article.getId());
+    }
+
+    /**
+     * 编码为URL安全的Base64字符串
+     */
+    public String encode() {
+        String raw = (isTop ? "1" : "0") + SEPARATOR + publishedAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     */
+    public static ArticleCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new ArticleCursor("1".equals(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException 也是 IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
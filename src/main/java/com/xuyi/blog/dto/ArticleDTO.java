@@ -21,6 +21,8 @@ public class ArticleDTO {
     private String title;
     private String summary;
     private String content;
+    private String contentHtml;
+    private String tocHtml;
     private String coverImage;
     private CategoryDTO category;
     private UserDTO author;
@@ -41,6 +43,8 @@ public class ArticleDTO {
         this.title = article.getTitle();
         this.summary = article.getSummary();
         this.content = article.getContent();
+        this.contentHtml = article.getContentHtml();
+        this.tocHtml = article.getTocHtml();
         this.coverImage = article.getCoverImage();
         this.status = article.getStatus().name();
         this.isTop = article.getIsTop();
@@ -1,6 +1,7 @@
 package com.xuyi.blog.dto;
 
 import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -34,6 +35,27 @@ public class ArticleSummaryDTO {
 
     public ArticleSummaryDTO() {}
 
+    /**
+     * 列表查询的构造表达式使用，标签另行填充
+     */
+    public ArticleSummaryDTO(Long id, String title, String summary, String coverImage, Article.ArticleStatus status,
+                             Boolean isTop, Long viewCount, LocalDateTime publishedAt, LocalDateTime createdAt,
+                             Category category, String authorNickname, String authorUsername) {
+        this.id = id;
+        this.title = title;
+        this.summary = summary;
+        this.coverImage = coverImage;
+        this.status = status.name();
+        this.isTop = isTop;
+        this.viewCount = viewCount;
+        this.publishedAt = publishedAt;
+        this.createdAt = createdAt;
+        if (category != null) {
+            this.category = new CategoryDTO(category);
+        }
+        this.authorName = authorNickname != null ? authorNickname : authorUsername;
+    }
+
     public ArticleSummaryDTO(Article article) {
         this.id = article.getId();
         this.title = article.getTitle();
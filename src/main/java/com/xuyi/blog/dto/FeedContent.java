@@ -0,0 +1,26 @@
+package com.xuyi.blog.dto;
+
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+/**
+ * 渲染好的订阅源（RSS/Atom）
+ * 缓存序列化后的字节及条件请求所需的 ETag、Last-Modified
+ *
+ * @author xuyi
+ */
+@Getter
+public class FeedContent {
+
+    private final byte[] body;
+    private final String etag;
+    // 订阅源中最新文章的发布/更新时间（毫秒），没有文章时为 -1
+    private final long lastModified;
+
+    public FeedContent(byte[] body, long lastModified) {
+        this.body = body;
+        // 强 ETag：内容字节完全一致时才相同
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        this.lastModified = lastModified;
+    }
+}
@@ -0,0 +1,58 @@
+package com.xuyi.blog.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发件队列统计DTO
+ *
+ * @author xuyi
+ */
+@Data
+@NoArgsConstructor
+public class MailQueueStatsDTO {
+
+    /**
+     * 队列中各状态的邮件数
+     */
+    private long pending;
+    private long sending;
+    private long sent;
+    private long failed;
+
+    /**
+     * 本次启动以来的发送结果
+     */
+    private long sentSinceStartup;
+    private long failedSinceStartup;
+    private long retriedSinceStartup;
+
+    /**
+     * 最近批次的发送进度
+     */
+    private List<BatchProgress> batches = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class BatchProgress {
+        private Long id;
+        private String name;
+        private String subject;
+        private LocalDateTime createdAt;
+        private long total;
+        private long pending;
+        private long sent;
+        private long failed;
+
+        /**
+         * 已完成（成功或最终失败）的百分比
+         */
+        public double getProgress() {
+            return total == 0 ? 100.0 : Math.round((sent + failed) * 1000.0 / total) / 10.0;
+        }
+    }
+}
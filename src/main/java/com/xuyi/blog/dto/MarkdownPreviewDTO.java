@@ -0,0 +1,41 @@
+package com.xuyi.blog.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Markdown 预览结果DTO
+ * 客户端用 blocks 替换上次结果中 [from, from + removed) 的块；full 为 true 时替换全部
+ *
+ * @author xuyi
+ */
+@Getter
+@Setter
+public class MarkdownPreviewDTO {
+
+    private boolean full;
+
+    /**
+     * 第一个被替换的块序号
+     */
+    private int from;
+
+    /**
+     * 被替换的旧块数量
+     */
+    private int removed;
+
+    /**
+     * 新块的 HTML
+     */
+    private List<String> blocks;
+
+    /**
+     * 替换后的总块数
+     */
+    private int totalBlocks;
+
+    public MarkdownPreviewDTO() {}
+}
@@ -0,0 +1,31 @@
+package com.xuyi.blog.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Markdown 预览请求DTO
+ * editStart/editEnd 为本次编辑在新文档中的范围，缺省时整篇渲染
+ *
+ * @author xuyi
+ */
+@Getter
+@Setter
+public class MarkdownPreviewRequestDTO {
+
+    @NotBlank(message = "编辑会话ID不能为空")
+    @Size(max = 64, message = "编辑会话ID长度不能超过64个字符")
+    private String sessionId;
+
+    @NotNull(message = "文档内容不能为空")
+    private String content;
+
+    private Integer editStart;
+
+    private Integer editEnd;
+
+    public MarkdownPreviewRequestDTO() {}
+}
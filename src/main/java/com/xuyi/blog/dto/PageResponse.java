@@ -25,6 +25,11 @@ public class PageResponse<T> {
     private boolean hasNext;
     private boolean hasPrevious;
 
+    /**
+     * 下一页游标（键集分页），为空表示没有更多数据
+     */
+    private String nextCursor;
+
     public PageResponse() {}
 
     public PageResponse(Page<T> page) {
@@ -0,0 +1,99 @@
+package com.xuyi.blog.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * SQL指纹汇总DTO
+ *
+ * @author xuyi
+ */
+@Data
+@NoArgsConstructor
+public class QueryDigestDTO {
+
+    /**
+     * SQL指纹
+     */
+    private String fingerprint;
+
+    /**
+     * 归一化SQL，字面量替换为 ?
+     */
+    private String normalizedSql;
+
+    /**
+     * 查询类型（SELECT, INSERT, UPDATE, DELETE）
+     */
+    private String queryType;
+
+    /**
+     * 执行次数
+     */
+    private Long count;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private Double totalTime;
+
+    /**
+     * 平均/最小/最大耗时（毫秒）
+     */
+    private Double averageTime;
+
+    private Double minTime;
+
+    private Double maxTime;
+
+    /**
+     * 耗时分位数（毫秒）
+     */
+    private Double p50;
+
+    private Double p95;
+
+    private Double p99;
+
+    /**
+     * 返回或影响的总行数
+     */
+    private Long rows;
+
+    /**
+     * 慢查询次数
+     */
+    private Long slowCount;
+
+    /**
+     * 抽样保留的慢查询样本
+     */
+    private List<SlowQueryDTO> slowSamples;
+
+    /**
+     * 慢查询样本DTO
+     */
+    @Data
+    @NoArgsConstructor
+    public static class SlowQueryDTO {
+
+        private String sql;
+
+        /**
+         * 触发查询的请求路径
+         */
+        private String requestPath;
+
+        /**
+         * 耗时（毫秒）
+         */
+        private Double executionTime;
+
+        private Long rows;
+
+        private LocalDateTime timestamp;
+    }
+}
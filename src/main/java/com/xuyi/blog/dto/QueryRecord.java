@@ -30,6 +30,31 @@ public class QueryRecord {
      * 执行时间（毫秒）
      */
     private Long executionTime;
+
+    /**
+     * 归一化SQL的指纹
+     */
+    private String fingerprint;
+
+    /**
+     * 语句执行耗时（纳秒）
+     */
+    private long executeNanos;
+
+    /**
+     * 结果集读取耗时（纳秒）
+     */
+    private long fetchNanos;
+
+    /**
+     * 连接获取等待（纳秒），只计入连接上的第一条语句
+     */
+    private long connectionWaitNanos;
+
+    /**
+     * 返回或影响的行数
+     */
+    private long rows;
     
     /**
      * 查询开始时间
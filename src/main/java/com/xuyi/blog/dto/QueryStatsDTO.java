@@ -52,9 +52,42 @@ public class QueryStatsDTO {
      * 最慢查询时间（毫秒）
      */
     private Long slowestQueryTime;
-    
 
-    
+    /**
+     * 结果集读取总耗时（毫秒）
+     */
+    private Double totalFetchTime;
+
+    /**
+     * 连接获取总等待（毫秒）
+     */
+    private Double connectionWaitTime;
+
+    /**
+     * 返回或影响的总行数
+     */
+    private Long totalRows;
+
+    /**
+     * 慢查询数量
+     */
+    private Integer slowQueries;
+
+    /**
+     * 重复次数超过阈值的语句（疑似N+1），归一化SQL -> 执行次数
+     */
+    private Map<String, Integer> repeatedQueries;
+
+    /**
+     * 是否超出查询预算或存在N+1查询
+     */
+    private Boolean budgetExceeded;
+
+    /**
+     * 第一处超出预算的说明
+     */
+    private String budgetViolation;
+
     /**
      * 统计时间
      */
@@ -0,0 +1,42 @@
+package com.xuyi.blog.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 可疑IP信息DTO
+ *
+ * @author xuyi
+ */
+@Data
+@NoArgsConstructor
+public class SuspiciousIpDTO {
+
+    private String ip;
+
+    /**
+     * 按时间衰减后的恶意请求次数
+     */
+    private double score;
+
+    /**
+     * 被封禁的次数
+     */
+    private int bans;
+
+    /**
+     * 最近一次命中的原因
+     */
+    private String lastReason;
+
+    private LocalDateTime firstSeen;
+
+    private LocalDateTime lastSeen;
+
+    /**
+     * 封禁截止时间，未封禁时为空
+     */
+    private LocalDateTime bannedUntil;
+}
@@ -5,6 +5,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -22,7 +24,14 @@ import java.util.Set;
     @Index(name = "idx_category_id", columnList = "category_id"),
     @Index(name = "idx_author_id", columnList = "author_id"),
     @Index(name = "idx_is_top", columnList = "isTop"),
-    @Index(name = "idx_view_count", columnList = "viewCount")
+    @Index(name = "idx_view_count", columnList = "viewCount"),
+    @Index(name = "idx_status_top_published", columnList = "status, isTop, publishedAt")
+})
+// 详情页一次取出作者、分类和标签；列表走摘要投影，订阅源用 JOIN FETCH，见 ArticleRepository
+@NamedEntityGraph(name = "Article.detail", attributeNodes = {
+    @NamedAttributeNode("author"),
+    @NamedAttributeNode("category"),
+    @NamedAttributeNode("tags")
 })
 @Getter
 @Setter
@@ -40,6 +49,16 @@ public class Article extends BaseEntity {
     @Column(name = "content", nullable = false, columnDefinition = "LONGTEXT")
     private String content;
 
+    // 保存时由 MarkdownService 渲染，content_hash 为对应正文的 SHA-256
+    @Column(name = "content_html", columnDefinition = "LONGTEXT")
+    private String contentHtml;
+
+    @Column(name = "toc_html", columnDefinition = "TEXT")
+    private String tocHtml;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "cover_image")
     private String coverImage;
 
@@ -58,7 +77,8 @@ public class Article extends BaseEntity {
     @Column(name = "is_top", nullable = false)
     private Boolean isTop = false;
 
-    @Column(name = "view_count", nullable = false)
+    // 浏览量只由 ViewCountService 批量累加，实体保存时不覆盖
+    @Column(name = "view_count", nullable = false, updatable = false)
     private Long viewCount = 0L;
 
 
@@ -68,12 +88,19 @@ public class Article extends BaseEntity {
     @Column(name = "published_at")
     private LocalDateTime publishedAt;
 
+    // 乐观锁版本号，也用作文章详情的 ETag；浏览量写回不经过实体，不会改变版本
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
         name = "article_tags",
         joinColumns = @JoinColumn(name = "article_id"),
         inverseJoinColumns = @JoinColumn(name = "tag_id")
     )
+    @BatchSize(size = 20)
     private Set<Tag> tags = new HashSet<>();
 
     public enum ArticleStatus {
@@ -114,13 +141,6 @@ public class Article extends BaseEntity {
         tags.remove(tag);
     }
 
-    /**
-     * 增加浏览量
-     */
-    public void incrementViewCount() {
-        this.viewCount++;
-    }
-
 
 
     /**
@@ -0,0 +1,40 @@
+package com.xuyi.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 群发邮件批次实体类
+ * 同一批次的邮件共用主题和正文，正文中的占位符在发送时按收件人替换
+ *
+ * @author xuyi
+ */
+@Entity
+@Table(name = "mail_batches")
+@Getter
+@Setter
+public class MailBatch extends BaseEntity {
+
+    // 批次标识，如 article:12
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "subject", nullable = false, length = 255)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "LONGTEXT")
+    private String body;
+
+    // 收件人分段加入队列的进度：已加入的最后一个订阅者ID，全部加入后为 null
+    @Column(name = "fan_out_cursor")
+    private Long fanOutCursor;
+
+    public MailBatch() {}
+
+    public MailBatch(String name, String subject, String body) {
+        this.name = name;
+        this.subject = subject;
+        this.body = body;
+    }
+}
@@ -0,0 +1,65 @@
+package com.xuyi.blog.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待发送邮件实体类（发件队列）
+ * 由 MailQueueService 通过 JDBC 批量写入和认领，实体仅用于定义表结构
+ *
+ * @author xuyi
+ */
+@Entity
+@Table(name = "mail_queue", indexes = {
+    @Index(name = "idx_mail_status_next", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_mail_batch", columnList = "batchId")
+})
+@Getter
+@Setter
+public class MailTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false)
+    private Long batchId;
+
+    @Column(name = "recipient", nullable = false, length = 100)
+    private String recipient;
+
+    @Column(name = "unsubscribe_url", length = 500)
+    private String unsubscribeUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private MailStatus status = MailStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    /**
+     * 发送状态
+     */
+    public enum MailStatus {
+        PENDING,    // 等待发送（含等待重试）
+        SENDING,    // 已被工作线程认领
+        SENT,       // 发送成功
+        FAILED      // 重试耗尽或收件地址无效
+    }
+}
@@ -8,6 +8,8 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.time.LocalDateTime;
+
 /**
  * 用户实体类
  * 
@@ -45,6 +47,10 @@ public class User extends BaseEntity {
     @Column(name = "bio", columnDefinition = "TEXT")
     private String bio;
 
+    // 密码最后修改时间，早于该时间签发的token失效
+    @Column(name = "password_changed_at")
+    private LocalDateTime passwordChangedAt;
+
     public User() {}
 
     public User(String username, String password) {
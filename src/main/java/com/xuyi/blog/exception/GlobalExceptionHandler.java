@@ -4,6 +4,7 @@ import com.xuyi.blog.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.BindException;
@@ -112,6 +113,16 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.badRequest(e.getMessage()));
     }
 
+    /**
+     * 乐观锁冲突：文章在读取后被其他请求修改
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Void>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e, HttpServletRequest request) {
+        log.warn("并发修改冲突: {} - {}", request.getRequestURI(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(HttpStatus.CONFLICT.value(), "内容已被修改，请刷新后重试"));
+    }
+
     /**
      * 运行时异常
      */
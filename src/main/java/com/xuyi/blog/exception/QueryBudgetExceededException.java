@@ -0,0 +1,13 @@
+package com.xuyi.blog.exception;
+
+/**
+ * 查询预算超出异常，只在 blog.query-stats.budget.fail-on-exceed 开启时抛出
+ *
+ * @author xuyi
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
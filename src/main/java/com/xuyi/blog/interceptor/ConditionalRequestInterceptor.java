@@ -0,0 +1,117 @@
+package com.xuyi.blog.interceptor;
+
+import com.xuyi.blog.service.ContentVersionService;
+import com.xuyi.blog.service.ViewCountService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件请求拦截器
+ * 按 {@link HttpCachePolicy} 输出 Cache-Control 和 Vary，并在控制器执行前根据内容版本计算 ETag 和 Last-Modified；
+ * 请求携带的 If-None-Match（优先）或 If-Modified-Since 仍然有效时直接返回 304，不查库也不序列化。
+ * 开启响应压缩时 Tomcat 会把强 ETag 改成弱 ETag，If-None-Match 按弱比较匹配，不影响命中
+ *
+ * @author xuyi
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalRequestInterceptor implements HandlerInterceptor {
+
+    private final ContentVersionService contentVersionService;
+    private final ViewCountService viewCountService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        HttpCachePolicy policy = handlerMethod.getMethodAnnotation(HttpCachePolicy.class);
+        if (policy == null || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        // 附带查询统计的响应每次都不同
+        if (Boolean.parseBoolean(request.getParameter("includeStats"))) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            return true;
+        }
+
+        // 304 响应也要带上与 200 相同的 Cache-Control 和 Vary
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(policy).getHeaderValue());
+        if (policy.vary().length > 0) {
+            response.setHeader(HttpHeaders.VARY, String.join(", ", policy.vary()));
+        }
+
+        String etag;
+        long lastModified;
+        Long articleId = null;
+        switch (policy.validator()) {
+            case CONTENT -> {
+                long epoch = contentVersionService.getContentEpoch();
+                etag = "\"c" + Long.toString(epoch, 36) + "\"";
+                lastModified = epoch;
+            }
+            case ARTICLE -> {
+                articleId = pathVariable(request, policy.idVariable());
+                ContentVersionService.ArticleStamp stamp =
+                        articleId != null ? contentVersionService.getArticleStamp(articleId) : null;
+                if (stamp == null) {
+                    // 不存在或未发布，交给控制器返回错误
+                    return true;
+                }
+                long taxonomy = contentVersionService.getTaxonomyEpoch();
+                etag = "\"a" + articleId + "-" + stamp.version() + "-" + stamp.viewCount()
+                        + "-" + Long.toString(taxonomy, 36) + "\"";
+                lastModified = Math.max(stamp.updatedAt(), taxonomy);
+            }
+            default -> {
+                return true;
+            }
+        }
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            if (policy.countView() && articleId != null) {
+                // 控制器不会执行，浏览量在这里记录
+                viewCountService.increment(articleId);
+            }
+            log.debug("条件请求命中: {} {}", request.getRequestURI(), etag);
+            return false;
+        }
+        return true;
+    }
+
+    private static CacheControl cacheControl(HttpCachePolicy policy) {
+        CacheControl cacheControl = policy.maxAge() > 0
+                ? CacheControl.maxAge(policy.maxAge(), TimeUnit.SECONDS)
+                : CacheControl.noCache();
+        cacheControl = cacheControl.cachePublic();
+        if (policy.sMaxAge() >= 0 && policy.sMaxAge() != policy.maxAge()) {
+            cacheControl = cacheControl.sMaxAge(policy.sMaxAge(), TimeUnit.SECONDS);
+        }
+        return cacheControl;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long pathVariable(HttpServletRequest request, String name) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String value = variables != null ? variables.get(name) : null;
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.xuyi.blog.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口 HTTP 缓存策略
+ * 标注在前台 GET 接口上，声明 Cache-Control、Vary 和校验器来源。
+ * 由 {@link ConditionalRequestInterceptor} 在控制器执行前计算 ETag / Last-Modified，
+ * 与 If-None-Match / If-Modified-Since 匹配时直接返回 304
+ *
+ * @author xuyi
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface HttpCachePolicy {
+
+    /**
+     * 校验器来源
+     */
+    Validator validator() default Validator.CONTENT;
+
+    /**
+     * 浏览器缓存秒数，0 表示每次使用前都要重新验证
+     */
+    int maxAge() default 0;
+
+    /**
+     * 反向代理缓存秒数，-1 表示与 maxAge 相同
+     */
+    int sMaxAge() default -1;
+
+    /**
+     * Vary 响应头
+     */
+    String[] vary() default {"Accept-Encoding"};
+
+    /**
+     * validator 为 ARTICLE 时，文章ID所在的路径变量
+     */
+    String idVariable() default "id";
+
+    /**
+     * 返回 304 时是否仍记一次文章浏览（控制器不会执行）
+     */
+    boolean countView() default false;
+
+    enum Validator {
+        /**
+         * 全局内容版本，文章、分类、标签任意变化后失效
+         */
+        CONTENT,
+        /**
+         * 单篇文章的版本号、已写回浏览量和分类标签版本
+         */
+        ARTICLE,
+        /**
+         * 不做条件请求，只输出 Cache-Control
+         */
+        NONE
+    }
+}
@@ -0,0 +1,33 @@
+package com.xuyi.blog.interceptor;
+
+import com.xuyi.blog.exception.QueryBudgetExceededException;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口查询预算
+ * 标注在控制器方法上，声明一次请求最多执行多少条SQL、同一指纹最多重复多少次。
+ * 超出时记录警告日志和 blog.db.query.budget.exceeded / blog.db.n_plus_one 指标；
+ * blog.query-stats.budget.fail-on-exceed 开启时（测试环境）由 {@link QueryBudgetFilter} 在请求结束后抛出 {@link QueryBudgetExceededException}
+ *
+ * @author xuyi
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+    /**
+     * 单次请求的SQL条数上限，-1 表示不限制
+     */
+    int maxQueries() default -1;
+
+    /**
+     * 同一指纹的重复次数上限，-1 表示使用全局的 N+1 检测阈值
+     */
+    int maxRepeats() default -1;
+}
@@ -0,0 +1,45 @@
+package com.xuyi.blog.interceptor;
+
+import com.xuyi.blog.dto.QueryStatsDTO;
+import com.xuyi.blog.exception.QueryBudgetExceededException;
+import com.xuyi.blog.service.QueryStatsService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 查询预算过滤器
+ * 拦截器的 afterCompletion 抛出的异常会被 DispatcherServlet 吞掉只记日志，
+ * 因此在过滤器中读取 {@link QueryStatsWebInterceptor} 留下的请求统计，超出预算时抛出 {@link QueryBudgetExceededException}。
+ * 只在 blog.query-stats.budget.fail-on-exceed 开启时（测试环境）生效，此时响应可能已经写出，异常用于让测试失败
+ *
+ * @author xuyi
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final QueryStatsService queryStatsService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !queryStatsService.isFailOnBudgetExceeded();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+
+        if (request.getAttribute(QueryStatsWebInterceptor.QUERY_STATS_ATTR) instanceof QueryStatsDTO stats
+                && Boolean.TRUE.equals(stats.getBudgetExceeded())) {
+            throw new QueryBudgetExceededException(stats.getBudgetViolation());
+        }
+    }
+}
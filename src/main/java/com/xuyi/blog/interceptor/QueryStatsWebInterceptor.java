@@ -5,6 +5,7 @@ import com.xuyi.blog.service.QueryStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +13,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * 查询统计Web拦截器
- * 在请求开始和结束时进行统计
+ * 在请求开始和结束时进行统计，结果存入请求属性，超出查询预算时由 {@link QueryBudgetFilter} 抛出异常
  * 
  * @author xuyi
  */
@@ -24,7 +25,7 @@ public class QueryStatsWebInterceptor implements HandlerInterceptor {
     private final QueryStatsService queryStatsService;
     
     // 查询统计属性名
-    private static final String QUERY_STATS_ATTR = "queryStats";
+    static final String QUERY_STATS_ATTR = "queryStats";
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -37,6 +38,13 @@ public class QueryStatsWebInterceptor implements HandlerInterceptor {
         try {
             // 开始统计
             queryStatsService.startRequestStats();
+            if (handler instanceof HandlerMethod handlerMethod) {
+                QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+                queryStatsService.bindEndpoint(
+                        handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName(),
+                        budget != null ? budget.maxQueries() : -1,
+                        budget != null ? budget.maxRepeats() : -1);
+            }
             log.debug("开始查询统计: {} {}", request.getMethod(), requestURI);
         } catch (Exception e) {
             log.error("启动查询统计失败", e);
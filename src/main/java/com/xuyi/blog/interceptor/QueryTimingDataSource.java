@@ -0,0 +1,304 @@
+package com.xuyi.blog.interceptor;
+
+import com.xuyi.blog.service.QueryStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 查询计时数据源
+ * 包装连接池数据源，代理连接、语句和结果集，按语句实测连接获取等待、执行耗时、结果集读取耗时和行数，
+ * 交给 {@link QueryStatsService} 汇总到当前请求统计和 Micrometer 指标。
+ * 连接获取等待计入该连接上执行的第一条语句；查询语句在结果集读完或关闭时上报，更新语句执行后立即上报
+ *
+ * @author xuyi
+ */
+@Slf4j
+public class QueryTimingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<QueryStatsService> queryStatsServiceProvider;
+    private volatile QueryStatsService queryStatsService;
+
+    public QueryTimingDataSource(DataSource targetDataSource, ObjectProvider<QueryStatsService> queryStatsService) {
+        super(targetDataSource);
+        this.queryStatsServiceProvider = queryStatsService;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    private Connection wrap(Connection connection, long acquireNanos) {
+        // 数据源先于统计服务创建，首次取连接时再解析
+        QueryStatsService stats = queryStatsService;
+        if (stats == null) {
+            stats = queryStatsServiceProvider.getIfAvailable();
+            if (stats == null) {
+                return connection;
+            }
+            queryStatsService = stats;
+        }
+        stats.recordConnectionAcquire(acquireNanos);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, acquireNanos, stats));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 代理对象自身的 equals/hashCode 按引用比较，返回null表示交给目标对象
+     */
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return args != null && args.length == 1 ? proxy == args[0] : null;
+            case "hashCode":
+                return method.getParameterCount() == 0 ? System.identityHashCode(proxy) : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 连接代理：为创建的语句挂上计时
+     */
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final QueryStatsService stats;
+        private long pendingAcquireNanos;
+
+        ConnectionHandler(Connection target, long acquireNanos, QueryStatsService stats) {
+            this.target = target;
+            this.pendingAcquireNanos = acquireNanos;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            Object result = QueryTimingDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrapStatement(Statement.class, (Statement) result, null);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, (Statement) result, (String) args[0]);
+                default:
+                    return result;
+            }
+        }
+
+        private Object wrapStatement(Class<?> type, Statement statement, String sql) {
+            return Proxy.newProxyInstance(QueryTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql, this));
+        }
+
+        /**
+         * 连接获取等待只计入第一条语句
+         */
+        long takeAcquireNanos() {
+            long nanos = pendingAcquireNanos;
+            pendingAcquireNanos = 0;
+            return nanos;
+        }
+    }
+
+    /**
+     * 语句代理：计时 execute* 调用，查询结果集交给结果集代理继续计时
+     */
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final ConnectionHandler connection;
+        private Execution pending;
+
+        StatementHandler(Statement target, String preparedSql, ConnectionHandler connection) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("close")) {
+                    try {
+                        finishPending();
+                    } finally {
+                        QueryTimingDataSource.invoke(target, method, args);
+                    }
+                    return null;
+                } else if (name.equals("getResultSet")) {
+                    return wrapResultSet((ResultSet) QueryTimingDataSource.invoke(target, method, args));
+                }
+                return QueryTimingDataSource.invoke(target, method, args);
+            }
+
+            finishPending();
+            String sql = preparedSql != null || args == null || args.length == 0 ? preparedSql : (String) args[0];
+            Execution execution = new Execution(sql, connection.takeAcquireNanos(), connection.stats);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryTimingDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                execution.executeNanos = System.nanoTime() - start;
+                execution.finish();
+                throw e;
+            }
+            execution.executeNanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                pending = execution;
+                return wrapResultSet((ResultSet) result);
+            }
+            if (result instanceof Number) {
+                execution.rows = ((Number) result).longValue();
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    execution.rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    execution.rows += Math.max(count, 0);
+                }
+            } else if (Boolean.TRUE.equals(result)) {
+                // execute() 返回结果集，等 getResultSet 读取
+                pending = execution;
+                return result;
+            }
+            execution.finish();
+            return result;
+        }
+
+        private ResultSet wrapResultSet(ResultSet resultSet) {
+            if (resultSet == null || pending == null) {
+                return resultSet;
+            }
+            return (ResultSet) Proxy.newProxyInstance(QueryTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, pending));
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * 结果集代理：累计 next() 的耗时和行数
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object identity = identity(proxy, method, args);
+            if (identity != null) {
+                return identity;
+            }
+            switch (method.getName()) {
+                case "next": {
+                    long start = System.nanoTime();
+                    Object result = QueryTimingDataSource.invoke(target, method, args);
+                    execution.fetchNanos += System.nanoTime() - start;
+                    if (Boolean.TRUE.equals(result)) {
+                        execution.rows++;
+                    } else {
+                        execution.finish();
+                    }
+                    return result;
+                }
+                case "close":
+                    try {
+                        execution.finish();
+                    } finally {
+                        QueryTimingDataSource.invoke(target, method, args);
+                    }
+                    return null;
+                default:
+                    return QueryTimingDataSource.invoke(target, method, args);
+            }
+        }
+    }
+
+    /**
+     * 一次语句执行的计量，只上报一次
+     */
+    private static final class Execution {
+
+        private final String sql;
+        private final long acquireNanos;
+        private final QueryStatsService stats;
+        private long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(String sql, long acquireNanos, QueryStatsService stats) {
+            this.sql = sql;
+            this.acquireNanos = acquireNanos;
+            this.stats = stats;
+        }
+
+        void finish() {
+            if (finished || sql == null) {
+                return;
+            }
+            finished = true;
+            try {
+                stats.recordQuery(sql, acquireNanos, executeNanos, fetchNanos, rows);
+            } catch (Exception e) {
+                log.error("记录查询统计失败", e);
+            }
+        }
+    }
+}
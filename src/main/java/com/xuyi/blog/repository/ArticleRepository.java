@@ -1,17 +1,20 @@
 package com.xuyi.blog.repository;
 
+import com.xuyi.blog.dto.ArticleSummaryDTO;
 import com.xuyi.blog.entity.Article;
 import com.xuyi.blog.entity.Category;
 import com.xuyi.blog.entity.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,47 +27,141 @@ import java.util.Optional;
 public interface ArticleRepository extends JpaRepository<Article, Long> {
 
     /**
-     * 查找已发布的文章（分页）
+     * 列表查询直接构造摘要，只读取摘要需要的列，不加载 content/content_html 等大字段；
+     * 分类和作者在同一条语句中关联，标签由 {@link #findTagsByArticleIds} 按页批量读取
      */
-    Page<Article> findByStatusOrderByIsTopDescPublishedAtDesc(Article.ArticleStatus status, Pageable pageable);
+    String SUMMARY_SELECT = "SELECT new com.xuyi.blog.dto.ArticleSummaryDTO(" +
+            "a.id, a.title, a.summary, a.coverImage, a.status, a.isTop, a.viewCount, a.publishedAt, a.createdAt, " +
+            "c, u.nickname, u.username) FROM Article a JOIN a.author u LEFT JOIN a.category c ";
 
     /**
-     * 根据分类查找已发布的文章
+     * 查找已发布的文章摘要（偏移分页，不执行count查询）
      */
-    Page<Article> findByCategoryAndStatusOrderByPublishedAtDesc(Category category, Article.ArticleStatus status, Pageable pageable);
+    @Query(SUMMARY_SELECT + "WHERE a.status = :status ORDER BY a.isTop DESC, a.publishedAt DESC, a.id DESC")
+    Slice<ArticleSummaryDTO> findPublishedSummaries(@Param("status") Article.ArticleStatus status, Pageable pageable);
 
     /**
-     * 根据标签查找已发布的文章
+     * 查找游标之后的已发布文章摘要（键集分页）
+     * 按 (isTop, publishedAt, id) 降序定位，只扫描需要的行
      */
-    @Query("SELECT a FROM Article a JOIN a.tags t WHERE t = :tag AND a.status = :status ORDER BY a.publishedAt DESC")
-    Page<Article> findByTagAndStatus(@Param("tag") Tag tag, @Param("status") Article.ArticleStatus status, Pageable pageable);
+    @Query(SUMMARY_SELECT + "WHERE a.status = :status AND (" +
+           "(a.isTop = :isTop AND (a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id))) " +
+           "OR (:isTop = true AND a.isTop = false)) " +
+           "ORDER BY a.isTop DESC, a.publishedAt DESC, a.id DESC")
+    List<ArticleSummaryDTO> findPublishedSummariesAfter(@Param("status") Article.ArticleStatus status,
+                                                        @Param("isTop") boolean isTop,
+                                                        @Param("publishedAt") LocalDateTime publishedAt,
+                                                        @Param("id") Long id, Pageable pageable);
 
     /**
-     * 全文搜索文章（标题和内容）
+     * 根据分类查找已发布的文章摘要
      */
-    @Query("SELECT a FROM Article a WHERE a.status = :status AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%) ORDER BY a.publishedAt DESC")
-    Page<Article> searchByKeyword(@Param("keyword") String keyword, @Param("status") Article.ArticleStatus status, Pageable pageable);
+    @Query(value = SUMMARY_SELECT + "WHERE a.category = :category AND a.status = :status ORDER BY a.publishedAt DESC",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.category = :category AND a.status = :status")
+    Page<ArticleSummaryDTO> findSummariesByCategory(@Param("category") Category category,
+                                                    @Param("status") Article.ArticleStatus status, Pageable pageable);
 
     /**
-     * 查找置顶的已发布文章
+     * 根据标签查找已发布的文章摘要
      */
-    List<Article> findByIsTopTrueAndStatusOrderByPublishedAtDesc(Article.ArticleStatus status);
+    @Query(value = SUMMARY_SELECT + "JOIN a.tags t WHERE t = :tag AND a.status = :status ORDER BY a.publishedAt DESC",
+           countQuery = "SELECT COUNT(a) FROM Article a JOIN a.tags t WHERE t = :tag AND a.status = :status")
+    Page<ArticleSummaryDTO> findSummariesByTag(@Param("tag") Tag tag, @Param("status") Article.ArticleStatus status,
+                                               Pageable pageable);
 
     /**
-     * 查找最新的已发布文章
+     * 查找全部文章摘要（管理后台，包括草稿）
      */
-    List<Article> findTop10ByStatusOrderByPublishedAtDesc(Article.ArticleStatus status);
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(a) FROM Article a")
+    Page<ArticleSummaryDTO> findAllSummaries(Pageable pageable);
 
     /**
-     * 查找热门文章（按浏览量排序）
+     * 按ID批量查找文章摘要（用于搜索结果）
      */
-    List<Article> findTop10ByStatusOrderByViewCountDesc(Article.ArticleStatus status);
+    @Query(SUMMARY_SELECT + "WHERE a.id IN :ids")
+    List<ArticleSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
-     * 查找相关文章（同分类）
+     * 批量读取文章的标签，返回 [文章ID, 标签]
      */
-    @Query("SELECT a FROM Article a WHERE a.category = :category AND a.id != :excludeId AND a.status = :status ORDER BY a.publishedAt DESC")
-    List<Article> findRelatedArticles(@Param("category") Category category, @Param("excludeId") Long excludeId, @Param("status") Article.ArticleStatus status, Pageable pageable);
+    @Query("SELECT a.id, t FROM Article a JOIN a.tags t WHERE a.id IN :ids")
+    List<Object[]> findTagsByArticleIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID查找文章详情（同时加载作者、分类和标签）
+     */
+    @EntityGraph("Article.detail")
+    Optional<Article> findDetailById(Long id);
+
+    /**
+     * 按ID批量查找文章（同时加载作者、分类和标签，用于全文搜索结果）
+     */
+    @EntityGraph("Article.detail")
+    List<Article> findDetailByIdIn(Collection<Long> ids);
+
+    /**
+     * 按ID顺序分批读取文章（用于构建搜索索引）
+     */
+    Slice<Article> findByStatusAndIdGreaterThanOrderByIdAsc(Article.ArticleStatus status, Long id, Pageable pageable);
+
+    /**
+     * 按ID顺序分批读取指定时间之后修改的文章（用于回放搜索索引）
+     */
+    Slice<Article> findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(LocalDateTime updatedAt, Long id, Pageable pageable);
+
+    /**
+     * 查询文章详情的校验信息：版本号、已写回的浏览量和更新时间
+     */
+    @Query("SELECT a.version, a.viewCount, a.updatedAt FROM Article a WHERE a.id = :id AND a.status = :status")
+    List<Object[]> findStampById(@Param("id") Long id, @Param("status") Article.ArticleStatus status);
+
+    /**
+     * 按ID顺序分批读取尚未渲染的文章（用于补齐渲染结果）
+     */
+    Slice<Article> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * 查询指定状态的文章ID
+     */
+    @Query("SELECT a.id FROM Article a WHERE a.status = :status")
+    List<Long> findIdsByStatus(@Param("status") Article.ArticleStatus status);
+
+    /**
+     * 查询指定状态文章的ID、标题和浏览量（用于搜索建议）
+     */
+    @Query("SELECT a.id, a.title, a.viewCount FROM Article a WHERE a.status = :status")
+    List<Object[]> findTitlesByStatus(@Param("status") Article.ArticleStatus status);
+
+    /**
+     * 查找置顶的已发布文章摘要
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.isTop = true AND a.status = :status ORDER BY a.publishedAt DESC")
+    List<ArticleSummaryDTO> findTopSummaries(@Param("status") Article.ArticleStatus status);
+
+    /**
+     * 查找最新的已发布文章摘要
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.status = :status ORDER BY a.publishedAt DESC")
+    List<ArticleSummaryDTO> findLatestSummaries(@Param("status") Article.ArticleStatus status, Pageable pageable);
+
+    /**
+     * 查找热门文章摘要（按浏览量排序）
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.status = :status ORDER BY a.viewCount DESC")
+    List<ArticleSummaryDTO> findPopularSummaries(@Param("status") Article.ArticleStatus status, Pageable pageable);
+
+    /**
+     * 查找相关文章摘要（同分类）
+     */
+    @Query(SUMMARY_SELECT + "WHERE a.category = :category AND a.id != :excludeId AND a.status = :status ORDER BY a.publishedAt DESC")
+    List<ArticleSummaryDTO> findRelatedSummaries(@Param("category") Category category, @Param("excludeId") Long excludeId,
+                                                 @Param("status") Article.ArticleStatus status, Pageable pageable);
+
+    /**
+     * 查找文章所属分类，文章不存在或未分类时为空
+     */
+    @Query("SELECT a.category FROM Article a WHERE a.id = :id")
+    Optional<Category> findCategoryByArticleId(@Param("id") Long id);
 
     /**
      * 查找上一篇文章
@@ -78,13 +175,6 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     @Query("SELECT a FROM Article a WHERE a.publishedAt > :publishedAt AND a.status = :status ORDER BY a.publishedAt ASC")
     List<Article> findNextArticle(@Param("publishedAt") LocalDateTime publishedAt, @Param("status") Article.ArticleStatus status, Pageable pageable);
 
-    /**
-     * 增加文章浏览量
-     */
-    @Modifying
-    @Query("UPDATE Article a SET a.viewCount = a.viewCount + 1 WHERE a.id = :id")
-    void incrementViewCount(@Param("id") Long id);
-
     /**
      * 统计已发布文章数量
      */
@@ -102,9 +192,27 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     long countByTagAndStatus(@Param("tag") Tag tag, @Param("status") Article.ArticleStatus status);
 
     /**
-     * 查找RSS订阅的文章
+     * 查找RSS订阅的文章（同时加载作者和分类）
+     */
+    @Query("SELECT a FROM Article a JOIN FETCH a.author LEFT JOIN FETCH a.category " +
+           "WHERE a.status = :status ORDER BY a.publishedAt DESC")
+    List<Article> findFeedArticles(@Param("status") Article.ArticleStatus status, Pageable pageable);
+
+    /**
+     * 查找分类订阅源的文章（同时加载作者和分类）
+     */
+    @Query("SELECT a FROM Article a JOIN FETCH a.author JOIN FETCH a.category c " +
+           "WHERE a.status = :status AND c.id = :categoryId ORDER BY a.publishedAt DESC")
+    List<Article> findFeedArticlesByCategory(@Param("status") Article.ArticleStatus status,
+                                             @Param("categoryId") Long categoryId, Pageable pageable);
+
+    /**
+     * 查找标签订阅源的文章（同时加载作者和分类）
      */
-    List<Article> findTop20ByStatusOrderByPublishedAtDesc(Article.ArticleStatus status);
+    @Query("SELECT a FROM Article a JOIN FETCH a.author LEFT JOIN FETCH a.category JOIN a.tags t " +
+           "WHERE a.status = :status AND t.id = :tagId ORDER BY a.publishedAt DESC")
+    List<Article> findFeedArticlesByTag(@Param("status") Article.ArticleStatus status,
+                                        @Param("tagId") Long tagId, Pageable pageable);
 
     /**
      * 查找指定时间范围内的文章
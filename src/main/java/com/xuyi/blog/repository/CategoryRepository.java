@@ -1,7 +1,10 @@
 package com.xuyi.blog.repository;
 
+import com.xuyi.blog.entity.Article;
 import com.xuyi.blog.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -29,4 +32,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * 按排序顺序查找所有分类
      */
     List<Category> findAllByOrderBySortOrderAsc();
+
+    /**
+     * 统计各分类下指定状态的文章数，返回 (ID, 名称, 文章数)
+     */
+    @Query("SELECT t.id, t.name, COUNT(a) FROM Article a JOIN a.category t WHERE a.status = :status GROUP BY t.id, t.name")
+    List<Object[]> findCategoryUsage(@Param("status") Article.ArticleStatus status);
 }
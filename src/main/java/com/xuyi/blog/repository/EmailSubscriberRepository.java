@@ -1,7 +1,10 @@
 package com.xuyi.blog.repository;
 
 import com.xuyi.blog.entity.EmailSubscriber;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -35,6 +38,12 @@ public interface EmailSubscriberRepository extends JpaRepository<EmailSubscriber
      */
     List<EmailSubscriber> findByIsActiveTrue();
 
+    /**
+     * 按ID顺序查找ID大于 afterId 的活跃订阅者，只取 id、email、token，用于分段遍历
+     */
+    @Query("SELECT s.id, s.email, s.token FROM EmailSubscriber s WHERE s.isActive = true AND s.id > :afterId ORDER BY s.id")
+    List<Object[]> findActiveRecipientsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * 统计活跃订阅者数量
      */
@@ -0,0 +1,30 @@
+package com.xuyi.blog.repository;
+
+import com.xuyi.blog.entity.MailBatch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 群发邮件批次数据访问接口
+ *
+ * @author xuyi
+ */
+@Repository
+public interface MailBatchRepository extends JpaRepository<MailBatch, Long> {
+
+    /**
+     * 查找最近的批次（不加载正文）
+     */
+    @Query("SELECT b.id, b.name, b.subject, b.createdAt FROM MailBatch b ORDER BY b.id DESC")
+    List<Object[]> findRecentBatches(Pageable pageable);
+
+    /**
+     * 查找收件人尚未全部加入队列的批次ID
+     */
+    @Query("SELECT b.id FROM MailBatch b WHERE b.fanOutCursor IS NOT NULL ORDER BY b.id")
+    List<Long> findUnfinishedFanOuts();
+}
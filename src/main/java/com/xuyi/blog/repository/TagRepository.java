@@ -1,8 +1,10 @@
 package com.xuyi.blog.repository;
 
+import com.xuyi.blog.entity.Article;
 import com.xuyi.blog.entity.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -36,4 +38,10 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
      * 根据名称列表查找标签
      */
     List<Tag> findByNameIn(List<String> names);
+
+    /**
+     * 统计各标签下指定状态的文章数，返回 (ID, 名称, 文章数)
+     */
+    @Query("SELECT t.id, t.name, COUNT(a) FROM Article a JOIN a.tags t WHERE a.status = :status GROUP BY t.id, t.name")
+    List<Object[]> findTagUsage(@Param("status") Article.ArticleStatus status);
 }
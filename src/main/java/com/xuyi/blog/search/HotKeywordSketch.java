@@ -0,0 +1,185 @@
+package com.xuyi.blog.search;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 热门关键词统计
+ * Count-Min Sketch 估算任意关键词的（衰减后）频次，Space-Saving 表只保留频次最高的若干关键词，
+ * 内存占用与不同关键词的数量无关。定期按比例衰减所有计数，使旧的热点逐渐淡出。
+ * 热门表按计数有序保存，替换最小项和读取前 N 项都不需要扫描全表；衰减不改变相对顺序，只调整统一的缩放系数
+ *
+ * @author xuyi
+ */
+public class HotKeywordSketch {
+
+    private static final int DEPTH = 4;
+    // 低于该计数的关键词在衰减后移出热门表
+    private static final double MIN_COUNT = 0.5;
+    // 缩放系数低于该值时把计数换算回实际值，避免浮点下溢
+    private static final double MIN_SCALE = 1e-9;
+    private static final Comparator<Slot> SLOT_ORDER =
+            Comparator.comparingDouble(Slot::scaledCount).thenComparing(Slot::keyword);
+
+    private final int width;
+    private final int capacity;
+    private final float[][] counters;
+    private final Map<String, Slot> heavyHitters = new HashMap<>();
+    private final TreeSet<Slot> ranking = new TreeSet<>(SLOT_ORDER);
+    // 实际计数 = scaledCount * scale
+    private double scale = 1;
+
+    public HotKeywordSketch(int width, int capacity) {
+        this.width = width;
+        this.capacity = capacity;
+        this.counters = new float[DEPTH][width];
+    }
+
+    /**
+     * 记录一次关键词出现
+     */
+    public synchronized void add(String keyword) {
+        double estimate = Double.MAX_VALUE;
+        int hash1 = keyword.hashCode();
+        int hash2 = mix(hash1);
+        for (int row = 0; row < DEPTH; row++) {
+            int column = bucket(hash1, hash2, row);
+            counters[row][column] += 1;
+            estimate = Math.min(estimate, counters[row][column]);
+        }
+
+        if (heavyHitters.containsKey(keyword) || heavyHitters.size() < capacity) {
+            put(keyword, estimate);
+            return;
+        }
+
+        // 表已满时替换计数最小的关键词（Space-Saving）
+        Slot min = ranking.first();
+        if (estimate > min.scaledCount() * scale) {
+            ranking.pollFirst();
+            heavyHitters.remove(min.keyword());
+            put(keyword, estimate);
+        }
+    }
+
+    /**
+     * 按比例衰减所有计数
+     */
+    public synchronized void decay(double factor) {
+        for (float[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= (float) factor;
+            }
+        }
+        scale *= factor;
+        while (!ranking.isEmpty() && ranking.first().scaledCount() * scale < MIN_COUNT) {
+            heavyHitters.remove(ranking.pollFirst().keyword());
+        }
+        if (scale < MIN_SCALE) {
+            rescale();
+        }
+    }
+
+    /**
+     * 获取频次最高的关键词
+     */
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, ranking.size()));
+        for (Slot slot : ranking.descendingSet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            entries.add(new Entry(slot.keyword(), slot.scaledCount() * scale));
+        }
+        return entries;
+    }
+
+    /**
+     * 导出计数矩阵（Base64 编码的 float 数组）
+     */
+    public synchronized String exportCounters() {
+        ByteBuffer buffer = ByteBuffer.allocate(DEPTH * width * Float.BYTES);
+        for (float[] row : counters) {
+            for (float value : row) {
+                buffer.putFloat(value);
+            }
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 恢复计数矩阵和热门表，矩阵尺寸不一致时只恢复热门表
+     */
+    public synchronized void restore(String encodedCounters, List<Entry> entries) {
+        if (encodedCounters != null) {
+            byte[] bytes = Base64.getDecoder().decode(encodedCounters);
+            if (bytes.length == DEPTH * width * Float.BYTES) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                for (float[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = buffer.getFloat();
+                    }
+                }
+            }
+        }
+        heavyHitters.clear();
+        ranking.clear();
+        scale = 1;
+        for (Entry entry : entries) {
+            if (heavyHitters.size() < capacity) {
+                put(entry.keyword(), entry.count());
+            }
+        }
+    }
+
+    private void put(String keyword, double count) {
+        Slot previous = heavyHitters.remove(keyword);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        Slot slot = new Slot(keyword, count / scale);
+        heavyHitters.put(keyword, slot);
+        ranking.add(slot);
+    }
+
+    private void rescale() {
+        List<Slot> slots = new ArrayList<>(ranking);
+        double previousScale = scale;
+        heavyHitters.clear();
+        ranking.clear();
+        scale = 1;
+        for (Slot slot : slots) {
+            put(slot.keyword(), slot.scaledCount() * previousScale);
+        }
+    }
+
+    private int bucket(int hash1, int hash2, int row) {
+        // 双重哈希生成各行的独立位置
+        int combined = hash1 + (row + 1) * hash2;
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash | 1;
+    }
+
+    /**
+     * 关键词及其（衰减后的）估算频次
+     */
+    public record Entry(String keyword, double count) {
+    }
+
+    private record Slot(String keyword, double scaledCount) {
+    }
+}
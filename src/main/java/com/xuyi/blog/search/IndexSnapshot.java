@@ -0,0 +1,389 @@
+package com.xuyi.blog.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 搜索索引快照（内存映射文件）
+ *
+ * 文件结构：
+ * <pre>
+ * 文件头     魔数、版本、水位线、文档数、词项数、总词长、各区段偏移、正文校验和
+ * 文档表     按文档ID排序的定长记录 (id, 文档长度, 标题偏移, 标题长度)，下标即文档序号
+ * 标题池     UTF-8 编码的标题
+ * 词典       按UTF-8字节序排序的定长记录 (词项偏移, 词项长度, 文档频率, 倒排偏移, 倒排长度)
+ * 词项池     UTF-8 编码的词项
+ * 倒排表     每个词项一段 varint 编码的 (文档序号差值, 词频)
+ * </pre>
+ * 读取时只映射文件，不解码全部内容，按需二分查找词典和文档表
+ * 打开时校验区段偏移和 CRC32，截断或损坏的文件直接拒绝，由调用方全量重建
+ *
+ * @author xuyi
+ */
+public final class IndexSnapshot {
+
+    private static final int MAGIC = 0x41425349;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 80;
+    private static final int DOC_ENTRY_SIZE = 20;
+    private static final int TERM_ENTRY_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final long watermark;
+    private final int docCount;
+    private final int termCount;
+    private final long totalLength;
+    private final int docTableOffset;
+    private final int titlePoolOffset;
+    private final int termTableOffset;
+    private final int termPoolOffset;
+    private final int postingsOffset;
+
+    private IndexSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的搜索索引文件");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("不支持的搜索索引版本: " + buffer.getInt(4));
+        }
+        this.watermark = buffer.getLong(8);
+        this.docCount = buffer.getInt(16);
+        this.termCount = buffer.getInt(20);
+        this.totalLength = buffer.getLong(24);
+        this.docTableOffset = (int) buffer.getLong(32);
+        this.titlePoolOffset = (int) buffer.getLong(40);
+        this.termTableOffset = (int) buffer.getLong(48);
+        this.termPoolOffset = (int) buffer.getLong(56);
+        this.postingsOffset = (int) buffer.getLong(64);
+        validate();
+    }
+
+    private void validate() throws IOException {
+        int capacity = buffer.capacity();
+        if (docCount < 0 || termCount < 0
+                || buffer.getLong(32) != HEADER_SIZE
+                || buffer.getLong(40) != (long) HEADER_SIZE + (long) docCount * DOC_ENTRY_SIZE
+                || buffer.getLong(48) < titlePoolOffset
+                || buffer.getLong(56) != buffer.getLong(48) + (long) termCount * TERM_ENTRY_SIZE
+                || buffer.getLong(64) < termPoolOffset
+                || buffer.getLong(64) > capacity) {
+            throw new IOException("搜索索引文件不完整");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, capacity - HEADER_SIZE));
+        if (crc.getValue() != buffer.getLong(72)) {
+            throw new IOException("搜索索引文件校验失败");
+        }
+    }
+
+    /**
+     * 映射快照文件
+     */
+    public static IndexSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("搜索索引文件过大: " + channel.size());
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IndexSnapshot(mapped);
+        }
+    }
+
+    /**
+     * 快照水位线（毫秒时间戳），此时间之后修改的文章需要回放
+     */
+    public long watermark() {
+        return watermark;
+    }
+
+    public int docCount() {
+        return docCount;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    public long totalLength() {
+        return totalLength;
+    }
+
+    public long docId(int ordinal) {
+        return buffer.getLong(docTableOffset + ordinal * DOC_ENTRY_SIZE);
+    }
+
+    public int docLength(int ordinal) {
+        return buffer.getInt(docTableOffset + ordinal * DOC_ENTRY_SIZE + 8);
+    }
+
+    public String title(int ordinal) {
+        int entry = docTableOffset + ordinal * DOC_ENTRY_SIZE;
+        return readString(titlePoolOffset + buffer.getInt(entry + 12), buffer.getInt(entry + 16));
+    }
+
+    /**
+     * 按文档ID查找序号，不存在时返回 -1
+     */
+    public int ordinalOf(long id) {
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = docId(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String term(int termIndex) {
+        int entry = termTableOffset + termIndex * TERM_ENTRY_SIZE;
+        return readString(termPoolOffset + buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    public int docFrequency(int termIndex) {
+        return buffer.getInt(termTableOffset + termIndex * TERM_ENTRY_SIZE + 8);
+    }
+
+    /**
+     * 查找词项下标，不存在时返回 -1
+     */
+    public int findTerm(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = termTableOffset + mid * TERM_ENTRY_SIZE;
+            int cmp = compareTerm(termPoolOffset + buffer.getInt(entry), buffer.getInt(entry + 4), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 遍历词项的倒排表
+     */
+    public void forEachPosting(int termIndex, PostingConsumer consumer) {
+        int entry = termTableOffset + termIndex * TERM_ENTRY_SIZE;
+        int df = buffer.getInt(entry + 8);
+        int[] position = {postingsOffset + (int) buffer.getLong(entry + 12)};
+
+        int ordinal = 0;
+        for (int i = 0; i < df; i++) {
+            ordinal += readVarInt(position);
+            int tf = readVarInt(position);
+            consumer.accept(ordinal, tf);
+        }
+    }
+
+    private int compareTerm(int offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(buffer.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt(int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 写入快照，先写临时文件再原子替换，写入过程中旧快照仍可读取
+     *
+     * @param documents 文档列表（任意顺序）
+     * @param postings  词项 -> (文档ID -> 词频)
+     */
+    public static void write(Path path, long watermark, List<DocumentEntry> documents,
+                             Map<String, Map<Long, Integer>> postings) throws IOException {
+        List<DocumentEntry> docs = new ArrayList<>(documents);
+        docs.sort((a, b) -> Long.compare(a.id(), b.id()));
+        long[] ids = new long[docs.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = docs.get(i).id();
+        }
+
+        // 文档表与标题池
+        ByteArrayOutputStream docTable = new ByteArrayOutputStream(docs.size() * DOC_ENTRY_SIZE);
+        ByteArrayOutputStream titlePool = new ByteArrayOutputStream();
+        DataOutputStream docOut = new DataOutputStream(docTable);
+        long totalLength = 0;
+        for (DocumentEntry doc : docs) {
+            byte[] title = doc.title() != null ? doc.title().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            docOut.writeLong(doc.id());
+            docOut.writeInt(doc.length());
+            docOut.writeInt(titlePool.size());
+            docOut.writeInt(title.length);
+            titlePool.write(title);
+            totalLength += doc.length();
+        }
+
+        // 词典按UTF-8字节序排序，与读取时的二分查找一致
+        byte[][] terms = new byte[postings.size()][];
+        String[] termStrings = new String[postings.size()];
+        int t = 0;
+        for (String term : postings.keySet()) {
+            termStrings[t] = term;
+            terms[t++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Integer[] order = new Integer[terms.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(terms[a], terms[b]));
+
+        ByteArrayOutputStream termTable = new ByteArrayOutputStream(terms.length * TERM_ENTRY_SIZE);
+        ByteArrayOutputStream termPool = new ByteArrayOutputStream();
+        ByteArrayOutputStream postingBlocks = new ByteArrayOutputStream();
+        DataOutputStream termOut = new DataOutputStream(termTable);
+        for (int index : order) {
+            Map<Long, Integer> posting = postings.get(termStrings[index]);
+            int[] ordinals = new int[posting.size()];
+            int[] frequencies = new int[posting.size()];
+            int n = 0;
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                int ordinal = Arrays.binarySearch(ids, entry.getKey());
+                if (ordinal >= 0) {
+                    ordinals[n] = ordinal;
+                    frequencies[n++] = entry.getValue();
+                }
+            }
+            sortByOrdinal(ordinals, frequencies, n);
+
+            int start = postingBlocks.size();
+            int previous = 0;
+            for (int i = 0; i < n; i++) {
+                writeVarInt(postingBlocks, ordinals[i] - previous);
+                writeVarInt(postingBlocks, frequencies[i]);
+                previous = ordinals[i];
+            }
+
+            termOut.writeInt(termPool.size());
+            termOut.writeInt(terms[index].length);
+            termOut.writeInt(n);
+            termOut.writeLong(start);
+            termOut.writeInt(postingBlocks.size() - start);
+            termPool.write(terms[index]);
+        }
+
+        long docTableOffset = HEADER_SIZE;
+        long titlePoolOffset = docTableOffset + docTable.size();
+        long termTableOffset = titlePoolOffset + titlePool.size();
+        long termPoolOffset = termTableOffset + termTable.size();
+        long postingsOffset = termPoolOffset + termPool.size();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        CRC32 crc = new CRC32();
+        try (OutputStream checked = new CheckedOutputStream(OutputStream.nullOutputStream(), crc)) {
+            docTable.writeTo(checked);
+            titlePool.writeTo(checked);
+            termTable.writeTo(checked);
+            termPool.writeTo(checked);
+            postingBlocks.writeTo(checked);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            out.writeInt(docs.size());
+            out.writeInt(terms.length);
+            out.writeLong(totalLength);
+            out.writeLong(docTableOffset);
+            out.writeLong(titlePoolOffset);
+            out.writeLong(termTableOffset);
+            out.writeLong(termPoolOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(crc.getValue());
+            docTable.writeTo(out);
+            titlePool.writeTo(out);
+            termTable.writeTo(out);
+            termPool.writeTo(out);
+            postingBlocks.writeTo(out);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void sortByOrdinal(int[] ordinals, int[] frequencies, int n) {
+        // 序号在高32位，打包后一次排序
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = ((long) ordinals[i] << 32) | (frequencies[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < n; i++) {
+            ordinals[i] = (int) (packed[i] >>> 32);
+            frequencies[i] = (int) packed[i];
+        }
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * 快照中的文档
+     */
+    public record DocumentEntry(long id, int length, String title) {
+    }
+
+    @FunctionalInterface
+    public interface PostingConsumer {
+        void accept(int ordinal, int frequency);
+    }
+}
@@ -0,0 +1,376 @@
+package com.xuyi.blog.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 倒排索引，使用BM25排序
+ * 由只读的快照段（内存映射文件）和内存增量段组成：快照之后新增或修改的文档写入内存段，
+ * 快照中被替换或删除的文档通过删除位图屏蔽。标题词频按权重计入，读多写少场景下使用读写锁保护
+ *
+ * @author xuyi
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // 标题中的词按3倍词频计入
+    private static final int TITLE_BOOST = 3;
+
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    // 快照段及其中已失效的文档（按序号）
+    private IndexSnapshot base;
+    private BitSet baseDeleted = new BitSet();
+    private int baseDeletedCount;
+    private long baseDeletedLength;
+
+    // 每次修改递增，用于判断生成快照期间索引是否发生变化
+    private long modCount;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 添加或替换文档
+     */
+    public void put(long id, String title, String content) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : SearchTokenizer.tokenize(title)) {
+            termFrequencies.merge(token, TITLE_BOOST, Integer::sum);
+        }
+        for (String token : SearchTokenizer.tokenize(content)) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+
+        int length = 0;
+        for (int frequency : termFrequencies.values()) {
+            length += frequency;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            String[] terms = new String[termFrequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                Map<Long, Integer> posting = postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                posting.put(id, entry.getValue());
+                terms[i++] = entry.getKey();
+            }
+            documents.put(id, new Document(title, length, terms));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除文档
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 只保留指定的文档，返回移除的文档数
+     */
+    public int retainAll(Set<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            List<Long> stale = new ArrayList<>();
+            for (Long id : documents.keySet()) {
+                if (!ids.contains(id)) {
+                    stale.add(id);
+                }
+            }
+            if (base != null) {
+                for (int ordinal = 0; ordinal < base.docCount(); ordinal++) {
+                    if (!baseDeleted.get(ordinal) && !ids.contains(base.docId(ordinal))) {
+                        stale.add(base.docId(ordinal));
+                    }
+                }
+            }
+            stale.forEach(this::removeLocked);
+            return stale.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            resetBase(null);
+            modCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以快照作为索引内容，清空内存段
+     */
+    public void load(IndexSnapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            resetBase(snapshot);
+            modCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 将快照段和内存段合并写入新快照，写入期间索引没有变化时切换到新快照
+     */
+    public void writeSnapshot(Path path, long watermark) throws IOException {
+        List<IndexSnapshot.DocumentEntry> mergedDocuments = new ArrayList<>();
+        Map<String, Map<Long, Integer>> mergedPostings = new HashMap<>();
+        long expectedModCount;
+
+        lock.readLock().lock();
+        try {
+            expectedModCount = modCount;
+            if (base != null) {
+                for (int ordinal = 0; ordinal < base.docCount(); ordinal++) {
+                    if (!baseDeleted.get(ordinal)) {
+                        mergedDocuments.add(new IndexSnapshot.DocumentEntry(
+                                base.docId(ordinal), base.docLength(ordinal), base.title(ordinal)));
+                    }
+                }
+                for (int termIndex = 0; termIndex < base.termCount(); termIndex++) {
+                    Map<Long, Integer> merged = new HashMap<>();
+                    base.forEachPosting(termIndex, (ordinal, tf) -> {
+                        if (!baseDeleted.get(ordinal)) {
+                            merged.put(base.docId(ordinal), tf);
+                        }
+                    });
+                    if (!merged.isEmpty()) {
+                        mergedPostings.put(base.term(termIndex), merged);
+                    }
+                }
+            }
+            for (Map.Entry<Long, Document> entry : documents.entrySet()) {
+                mergedDocuments.add(new IndexSnapshot.DocumentEntry(
+                        entry.getKey(), entry.getValue().length, entry.getValue().title));
+            }
+            for (Map.Entry<String, Map<Long, Integer>> entry : postings.entrySet()) {
+                mergedPostings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).putAll(entry.getValue());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        IndexSnapshot.write(path, watermark, mergedDocuments, mergedPostings);
+        IndexSnapshot snapshot = IndexSnapshot.open(path);
+
+        lock.writeLock().lock();
+        try {
+            if (modCount == expectedModCount) {
+                postings.clear();
+                documents.clear();
+                totalLength = 0;
+                resetBase(snapshot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索，优先返回包含全部查询词的文档，没有时退化为包含任意查询词
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = SearchTokenizer.tokenizeQuery(query);
+        if (terms.isEmpty()) {
+            return SearchHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentCountLocked();
+            if (documentCount == 0) {
+                return SearchHits.EMPTY;
+            }
+            double averageLength = (double) totalLengthLocked() / documentCount;
+
+            Map<Long, Score> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                int baseTerm = base != null ? base.findTerm(term) : -1;
+
+                // 快照段的文档频率包含已失效文档，对IDF影响很小，不逐条扣除
+                int df = (posting != null ? posting.size() : 0) + (baseTerm >= 0 ? base.docFrequency(baseTerm) : 0);
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+
+                if (posting != null) {
+                    for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                        accumulate(scores, entry.getKey(), entry.getValue(),
+                                documents.get(entry.getKey()).length, idf, averageLength);
+                    }
+                }
+                if (baseTerm >= 0) {
+                    base.forEachPosting(baseTerm, (ordinal, tf) -> {
+                        if (!baseDeleted.get(ordinal)) {
+                            accumulate(scores, base.docId(ordinal), tf, base.docLength(ordinal), idf, averageLength);
+                        }
+                    });
+                }
+            }
+
+            List<Map.Entry<Long, Score>> matches = new ArrayList<>();
+            for (Map.Entry<Long, Score> entry : scores.entrySet()) {
+                if (entry.getValue().matchedTerms == terms.size()) {
+                    matches.add(entry);
+                }
+            }
+            if (matches.isEmpty()) {
+                matches.addAll(scores.entrySet());
+            }
+
+            matches.sort((a, b) -> {
+                int byScore = Double.compare(b.getValue().value, a.getValue().value);
+                return byScore != 0 ? byScore : Long.compare(b.getKey(), a.getKey());
+            });
+
+            List<Long> ids = new ArrayList<>();
+            for (int i = offset; i < matches.size() && ids.size() < limit; i++) {
+                ids.add(matches.get(i).getKey());
+            }
+            return new SearchHits(matches.size(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取文档标题
+     */
+    public String getTitle(long id) {
+        lock.readLock().lock();
+        try {
+            Document document = documents.get(id);
+            if (document != null) {
+                return document.title;
+            }
+            int ordinal = base != null ? base.ordinalOf(id) : -1;
+            return ordinal >= 0 && !baseDeleted.get(ordinal) ? base.title(ordinal) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCountLocked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 词项数（快照段与内存段分别计数，可能有重复）
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size() + (base != null ? base.termCount() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void accumulate(Map<Long, Score> scores, long id, int tf, int length, double idf, double averageLength) {
+        double weight = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+        Score score = scores.computeIfAbsent(id, k -> new Score());
+        score.value += weight;
+        score.matchedTerms++;
+    }
+
+    private int documentCountLocked() {
+        return documents.size() + (base != null ? base.docCount() - baseDeletedCount : 0);
+    }
+
+    private long totalLengthLocked() {
+        return totalLength + (base != null ? base.totalLength() - baseDeletedLength : 0);
+    }
+
+    private void resetBase(IndexSnapshot snapshot) {
+        base = snapshot;
+        baseDeleted = new BitSet();
+        baseDeletedCount = 0;
+        baseDeletedLength = 0;
+    }
+
+    private void removeLocked(long id) {
+        modCount++;
+
+        if (base != null) {
+            int ordinal = base.ordinalOf(id);
+            if (ordinal >= 0 && !baseDeleted.get(ordinal)) {
+                baseDeleted.set(ordinal);
+                baseDeletedCount++;
+                baseDeletedLength += base.docLength(ordinal);
+            }
+        }
+
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private record Document(String title, int length, String[] terms) {
+    }
+
+    private static class Score {
+        private double value;
+        private int matchedTerms;
+    }
+
+    /**
+     * 搜索结果：命中总数和当前页的文档ID（按相关度排序）
+     */
+    public record SearchHits(long total, List<Long> ids) {
+        public static final SearchHits EMPTY = new SearchHits(0, Collections.emptyList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.xuyi.blog.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 搜索分词器
+ * 中日韩文字按二元组（bigram）切分并保留单字，拉丁字母和数字按单词切分，统一转为小写
+ *
+ * @author xuyi
+ */
+public final class SearchTokenizer {
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 索引分词：中文同时产生单字和二元组，保证单字查询也能命中
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, tokens, true);
+        return tokens;
+    }
+
+    /**
+     * 查询分词：中文连续两个字以上只使用二元组，去重后返回
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, tokens, false);
+        return new ArrayList<>(new LinkedHashSet<>(tokens));
+    }
+
+    private static void scan(String text, List<String> tokens, boolean withUnigrams) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                emitCjk(text, start, i, tokens, withUnigrams);
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                int end = Math.min(i, start + MAX_TOKEN_LENGTH);
+                tokens.add(text.substring(start, end).toLowerCase());
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void emitCjk(String text, int start, int end, List<String> tokens, boolean withUnigrams) {
+        if (end - start == 1) {
+            tokens.add(String.valueOf(text.charAt(start)));
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            if (withUnigrams) {
+                tokens.add(String.valueOf(text.charAt(i)));
+            }
+            if (i + 1 < end) {
+                tokens.add(text.substring(i, i + 2));
+            }
+        }
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
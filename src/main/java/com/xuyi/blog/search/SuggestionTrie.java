@@ -0,0 +1,200 @@
+package com.xuyi.blog.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 带权重的三叉搜索树，用于搜索建议的前缀补全
+ * 每个节点记录子树中的最大权重，补全时按权重优先展开，只访问结果附近的节点
+ * 同一文本可由多个来源（文章标题、标签、分类）加入，权重累加，全部来源移除后删除该条目
+ *
+ * @author xuyi
+ */
+public class SuggestionTrie {
+
+    private static final long NONE = -1;
+
+    private Node root;
+    private int size;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 加入一个来源的文本
+     */
+    public void add(String text, long weight) {
+        update(text, Math.max(0, weight), 1);
+    }
+
+    /**
+     * 移除一个来源的文本，权重需与加入时一致
+     */
+    public void remove(String text, long weight) {
+        update(text, -Math.max(0, weight), -1);
+    }
+
+    /**
+     * 按权重从高到低返回以指定前缀开头的文本
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> results = new ArrayList<>();
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return results;
+            }
+
+            PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> Long.compare(b.weight, a.weight));
+            if (node.display != null) {
+                queue.add(new Candidate(node.weight, null, node.display));
+            }
+            offerSubtree(queue, node.eq);
+
+            while (!queue.isEmpty() && results.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.display != null) {
+                    results.add(candidate.display);
+                    continue;
+                }
+                Node subtree = candidate.node;
+                if (subtree.display != null) {
+                    queue.add(new Candidate(subtree.weight, null, subtree.display));
+                }
+                offerSubtree(queue, subtree.lo);
+                offerSubtree(queue, subtree.eq);
+                offerSubtree(queue, subtree.hi);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(String text, long weightDelta, int refDelta) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            root = update(root, key, 0, text.trim(), weightDelta, refDelta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Node update(Node node, String key, int index, String display, long weightDelta, int refDelta) {
+        char c = key.charAt(index);
+        if (node == null) {
+            if (refDelta < 0) {
+                return null;
+            }
+            node = new Node(c);
+        }
+
+        if (c < node.splitChar) {
+            node.lo = update(node.lo, key, index, display, weightDelta, refDelta);
+        } else if (c > node.splitChar) {
+            node.hi = update(node.hi, key, index, display, weightDelta, refDelta);
+        } else if (index < key.length() - 1) {
+            node.eq = update(node.eq, key, index + 1, display, weightDelta, refDelta);
+        } else {
+            boolean existed = node.display != null;
+            node.refs += refDelta;
+            node.weight += weightDelta;
+            if (node.refs <= 0) {
+                node.refs = 0;
+                node.weight = 0;
+                node.display = null;
+            } else if (node.display == null) {
+                node.display = display;
+            }
+            size += (node.display != null ? 1 : 0) - (existed ? 1 : 0);
+        }
+
+        // 没有条目也没有子节点时剪除
+        if (node.display == null && node.lo == null && node.eq == null && node.hi == null) {
+            return null;
+        }
+        node.maxWeight = Math.max(node.display != null ? node.weight : NONE,
+                Math.max(maxWeight(node.lo), Math.max(maxWeight(node.eq), maxWeight(node.hi))));
+        return node;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        int index = 0;
+        while (node != null) {
+            char c = key.charAt(index);
+            if (c < node.splitChar) {
+                node = node.lo;
+            } else if (c > node.splitChar) {
+                node = node.hi;
+            } else if (index < key.length() - 1) {
+                node = node.eq;
+                index++;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void offerSubtree(PriorityQueue<Candidate> queue, Node node) {
+        if (node != null && node.maxWeight != NONE) {
+            queue.add(new Candidate(node.maxWeight, node, null));
+        }
+    }
+
+    private static long maxWeight(Node node) {
+        return node != null ? node.maxWeight : NONE;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        private final char splitChar;
+        private Node lo;
+        private Node eq;
+        private Node hi;
+        private String display;
+        private long weight;
+        private int refs;
+        private long maxWeight = NONE;
+
+        Node(char splitChar) {
+            this.splitChar = splitChar;
+        }
+    }
+
+    /**
+     * 优先队列中的候选：子树（按子树最大权重）或已确定的条目
+     */
+    private record Candidate(long weight, Node node, String display) {
+    }
+}
@@ -35,6 +35,7 @@ public class AntiSpamFilter extends OncePerRequestFilter {
         
         String clientIp = IpUtils.getClientIp(request);
         String requestUri = request.getRequestURI();
+        String path = requestUri.substring(request.getContextPath().length());
         
         // 跳过静态资源和健康检查
         if (shouldSkipRateLimit(requestUri)) {
@@ -43,13 +44,13 @@ public class AntiSpamFilter extends OncePerRequestFilter {
         }
 
         // 检查限流
-        if (!rateLimiter.isAllowed(clientIp)) {
-            handleRateLimitExceeded(response, clientIp);
+        if (!rateLimiter.isAllowed(clientIp, path)) {
+            handleRateLimitExceeded(response, clientIp, path);
             return;
         }
 
         // 添加限流信息到响应头
-        addRateLimitHeaders(response, clientIp);
+        addRateLimitHeaders(response, clientIp, path);
         
         filterChain.doFilter(request, response);
     }
@@ -74,8 +75,8 @@ public class AntiSpamFilter extends OncePerRequestFilter {
     /**
      * 处理限流超出的情况
      */
-    private void handleRateLimitExceeded(HttpServletResponse response, String clientIp) throws IOException {
-        log.warn("Rate limit exceeded for IP: {}", clientIp);
+    private void handleRateLimitExceeded(HttpServletResponse response, String clientIp, String path) throws IOException {
+        log.warn("Rate limit exceeded for IP: {}, path: {}", clientIp, path);
         
         response.setStatus(429); // Too Many Requests
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
@@ -91,12 +92,12 @@ public class AntiSpamFilter extends OncePerRequestFilter {
     /**
      * 添加限流信息到响应头
      */
-    private void addRateLimitHeaders(HttpServletResponse response, String clientIp) {
-        InMemoryRateLimiter.RateLimitInfo info = rateLimiter.getRateLimitInfo(clientIp);
+    private void addRateLimitHeaders(HttpServletResponse response, String clientIp, String path) {
+        InMemoryRateLimiter.RateLimitInfo info = rateLimiter.getRateLimitInfo(clientIp, path);
         
         response.setHeader("X-RateLimit-Remaining-Minute", String.valueOf(info.getRemainingRequestsPerMinute()));
         response.setHeader("X-RateLimit-Remaining-Hour", String.valueOf(info.getRemainingRequestsPerHour()));
-        response.setHeader("X-RateLimit-Limit-Minute", "60");
-        response.setHeader("X-RateLimit-Limit-Hour", "1000");
+        response.setHeader("X-RateLimit-Limit-Minute", String.valueOf(info.getLimitPerMinute()));
+        response.setHeader("X-RateLimit-Limit-Hour", String.valueOf(info.getLimitPerHour()));
     }
 }
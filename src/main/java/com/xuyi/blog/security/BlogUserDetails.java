@@ -0,0 +1,40 @@
+package com.xuyi.blog.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * 用户详情
+ * 附带密码最后修改时间，修改密码之前签发的 token 即使签名有效也不再接受
+ *
+ * @author xuyi
+ */
+public class BlogUserDetails extends User {
+
+    // 毫秒时间戳，从未修改过密码时为 0
+    private final long passwordChangedAt;
+
+    public BlogUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                           long passwordChangedAt) {
+        super(username, password, authorities);
+        this.passwordChangedAt = passwordChangedAt;
+    }
+
+    public long getPasswordChangedAt() {
+        return passwordChangedAt;
+    }
+
+    /**
+     * token 是否签发于密码修改之前
+     * JWT 的签发时间只精确到秒，修改密码的同一秒内签发的 token 视为修改之后签发，避免刚重新登录的 token 被拒绝
+     */
+    public boolean isIssuedBeforePasswordChange(Date issuedAt) {
+        if (passwordChangedAt <= 0) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.getTime() < passwordChangedAt / 1000 * 1000;
+    }
+}
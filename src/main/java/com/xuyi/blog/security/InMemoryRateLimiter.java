@@ -1,170 +1,240 @@
 package com.xuyi.blog.security;
 
+import com.xuyi.blog.config.RateLimitProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
 
 /**
  * 基于内存的限流器
- * 
+ * 每个时间窗口使用 GCRA（通用信元速率算法）：每个客户端只保存一个"理论到达时间"，
+ * 每次请求通过 CAS 推进一个发放间隔，超出窗口容量即拒绝。
+ * 每个客户端占用固定内存（每个窗口一个 long），判断过程无锁、不分配对象
+ *
  * @author xuyi
  */
 @Component
 @Slf4j
 public class InMemoryRateLimiter {
 
-    private final ConcurrentHashMap<String, RequestRecord> requestRecords = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+    private static final String DEFAULT_POLICY = "default";
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
 
-    // 限流配置
-    private static final int MAX_REQUESTS_PER_MINUTE = 60;  // 每分钟最大请求数
-    private static final int MAX_REQUESTS_PER_HOUR = 1000;  // 每小时最大请求数
-    private static final int CLEANUP_INTERVAL_MINUTES = 5;  // 清理间隔（分钟）
+    private final PolicyLimiter defaultLimiter;
+    private final List<RoutePolicy> routes = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final LongSupplier clock;
 
     public InMemoryRateLimiter() {
-        // 定期清理过期记录
-        cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredRecords, 
-            CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        this(new RateLimitProperties());
+    }
+
+    @Autowired
+    public InMemoryRateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    InMemoryRateLimiter(RateLimitProperties properties, LongSupplier clock) {
+        this.clock = clock;
+        RateLimitProperties.Policy defaults = properties.getDefaults();
+        this.defaultLimiter = new PolicyLimiter(DEFAULT_POLICY, defaults.getPerMinute(), defaults.getPerHour());
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            PolicyLimiter limiter = new PolicyLimiter(route.getName(),
+                    route.getPerMinute() != null ? route.getPerMinute() : defaults.getPerMinute(),
+                    route.getPerHour() != null ? route.getPerHour() : defaults.getPerHour());
+            routes.add(new RoutePolicy(route.getPaths(), limiter));
+        }
     }
 
     /**
-     * 检查是否允许请求
-     * 
+     * 检查是否允许请求（默认策略）
+     *
      * @param clientId 客户端标识（IP地址）
      * @return true表示允许，false表示被限流
      */
     public boolean isAllowed(String clientId) {
-        LocalDateTime now = LocalDateTime.now();
-        RequestRecord record = requestRecords.computeIfAbsent(clientId, k -> new RequestRecord());
-
-        synchronized (record) {
-            // 清理过期的请求记录
-            record.cleanupExpiredRequests(now);
-
-            // 检查每分钟限制
-            long requestsInLastMinute = record.getRequestsInLastMinute(now);
-            if (requestsInLastMinute >= MAX_REQUESTS_PER_MINUTE) {
-                log.warn("Rate limit exceeded for client {}: {} requests in last minute", 
-                    clientId, requestsInLastMinute);
-                return false;
-            }
-
-            // 检查每小时限制
-            long requestsInLastHour = record.getRequestsInLastHour(now);
-            if (requestsInLastHour >= MAX_REQUESTS_PER_HOUR) {
-                log.warn("Rate limit exceeded for client {}: {} requests in last hour", 
-                    clientId, requestsInLastHour);
-                return false;
-            }
+        return defaultLimiter.tryAcquire(clientId, clock.getAsLong());
+    }
 
-            // 记录本次请求
-            record.addRequest(now);
-            return true;
-        }
+    /**
+     * 按请求路径匹配的策略检查是否允许请求
+     *
+     * @param path 不含 context-path 的请求路径
+     */
+    public boolean isAllowed(String clientId, String path) {
+        return resolve(path).tryAcquire(clientId, clock.getAsLong());
     }
 
     /**
-     * 获取剩余请求次数
+     * 获取剩余请求次数（默认策略）
      */
     public RateLimitInfo getRateLimitInfo(String clientId) {
-        LocalDateTime now = LocalDateTime.now();
-        RequestRecord record = requestRecords.get(clientId);
-        
-        if (record == null) {
-            return new RateLimitInfo(MAX_REQUESTS_PER_MINUTE, MAX_REQUESTS_PER_HOUR, 0, 0);
-        }
+        return defaultLimiter.info(clientId, clock.getAsLong());
+    }
 
-        synchronized (record) {
-            record.cleanupExpiredRequests(now);
-            long requestsInLastMinute = record.getRequestsInLastMinute(now);
-            long requestsInLastHour = record.getRequestsInLastHour(now);
-            
-            return new RateLimitInfo(
-                MAX_REQUESTS_PER_MINUTE - requestsInLastMinute,
-                MAX_REQUESTS_PER_HOUR - requestsInLastHour,
-                requestsInLastMinute,
-                requestsInLastHour
-            );
-        }
+    /**
+     * 获取请求路径对应策略的剩余请求次数
+     */
+    public RateLimitInfo getRateLimitInfo(String clientId, String path) {
+        return resolve(path).info(clientId, clock.getAsLong());
     }
 
     /**
-     * 清理过期的记录
+     * 清理已恢复满额的客户端记录，它们与不存在的记录等价
      */
-    private void cleanupExpiredRecords() {
-        LocalDateTime cutoff = LocalDateTime.now().minus(2, ChronoUnit.HOURS);
-        requestRecords.entrySet().removeIf(entry -> {
-            RequestRecord record = entry.getValue();
-            synchronized (record) {
-                record.cleanupExpiredRequests(LocalDateTime.now());
-                return record.isEmpty();
+    @Scheduled(fixedDelayString = "${blog.rate-limit.cleanup-interval:300000}")
+    public void cleanupExpiredRecords() {
+        long now = clock.getAsLong();
+        int removed = defaultLimiter.evictIdle(now);
+        for (RoutePolicy route : routes) {
+            removed += route.limiter().evictIdle(now);
+        }
+        log.debug("Cleaned up {} idle rate limit records", removed);
+    }
+
+    private PolicyLimiter resolve(String path) {
+        if (path != null) {
+            for (RoutePolicy route : routes) {
+                for (String pattern : route.paths()) {
+                    if (pathMatcher.match(pattern, path)) {
+                        return route.limiter();
+                    }
+                }
             }
-        });
-        
-        log.debug("Cleaned up expired rate limit records. Current size: {}", requestRecords.size());
+        }
+        return defaultLimiter;
     }
 
     /**
-     * 请求记录类
+     * 单个策略的限流状态：按分钟、按小时两个窗口，key 为客户端标识
      */
-    private static class RequestRecord {
-        private final ConcurrentHashMap<LocalDateTime, Integer> requests = new ConcurrentHashMap<>();
+    private static final class PolicyLimiter {
+
+        private final String name;
+        private final long[] periods;
+        private final int[] limits;
+        private final long[] intervals;
+        private final ConcurrentHashMap<String, AtomicLongArray> clients = new ConcurrentHashMap<>();
+
+        PolicyLimiter(String name, int perMinute, int perHour) {
+            this.name = name;
+            this.periods = new long[]{MINUTE, HOUR};
+            this.limits = new int[]{perMinute, perHour};
+            this.intervals = new long[]{MINUTE / Math.max(1, perMinute), HOUR / Math.max(1, perHour)};
+        }
+
+        /**
+         * 依次在每个窗口预留一个名额；某个窗口拒绝时退还之前窗口已预留的名额
+         */
+        boolean tryAcquire(String clientId, long now) {
+            AtomicLongArray tats = clients.get(clientId);
+            if (tats == null) {
+                tats = clients.computeIfAbsent(clientId, k -> newState(now));
+            }
+            for (int i = 0; i < periods.length; i++) {
+                while (true) {
+                    long tat = tats.get(i);
+                    long next = later(tat, now) + intervals[i];
+                    if (limits[i] <= 0 || next - now > periods[i]) {
+                        for (int j = 0; j < i; j++) {
+                            tats.getAndAdd(j, -intervals[j]);
+                        }
+                        return false;
+                    }
+                    if (tats.compareAndSet(i, tat, next)) {
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
 
-        public void addRequest(LocalDateTime timestamp) {
-            // 精确到秒
-            LocalDateTime secondTimestamp = timestamp.truncatedTo(ChronoUnit.SECONDS);
-            requests.merge(secondTimestamp, 1, Integer::sum);
+        RateLimitInfo info(String clientId, long now) {
+            AtomicLongArray tats = clients.get(clientId);
+            long remainingMinute = remaining(tats, 0, now);
+            long remainingHour = remaining(tats, 1, now);
+            return new RateLimitInfo(name, limits[0], limits[1],
+                    remainingMinute, remainingHour, limits[0] - remainingMinute, limits[1] - remainingHour);
         }
 
-        public long getRequestsInLastMinute(LocalDateTime now) {
-            LocalDateTime cutoff = now.minus(1, ChronoUnit.MINUTES);
-            return requests.entrySet().stream()
-                .filter(entry -> entry.getKey().isAfter(cutoff))
-                .mapToLong(entry -> entry.getValue())
-                .sum();
+        /**
+         * 窗口剩余容量 = (now + 窗口长度 - 理论到达时间) / 发放间隔
+         */
+        private long remaining(AtomicLongArray tats, int i, long now) {
+            if (tats == null) {
+                return limits[i];
+            }
+            long free = (now + periods[i] - later(tats.get(i), now)) / intervals[i];
+            return Math.max(0, Math.min(limits[i], free));
         }
 
-        public long getRequestsInLastHour(LocalDateTime now) {
-            LocalDateTime cutoff = now.minus(1, ChronoUnit.HOURS);
-            return requests.entrySet().stream()
-                .filter(entry -> entry.getKey().isAfter(cutoff))
-                .mapToLong(entry -> entry.getValue())
-                .sum();
+        int evictIdle(long now) {
+            int before = clients.size();
+            clients.entrySet().removeIf(entry -> {
+                AtomicLongArray tats = entry.getValue();
+                for (int i = 0; i < tats.length(); i++) {
+                    if (tats.get(i) - now > 0) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            return before - clients.size();
         }
 
-        public void cleanupExpiredRequests(LocalDateTime now) {
-            LocalDateTime cutoff = now.minus(1, ChronoUnit.HOURS);
-            requests.entrySet().removeIf(entry -> entry.getKey().isBefore(cutoff));
+        private AtomicLongArray newState(long now) {
+            AtomicLongArray tats = new AtomicLongArray(periods.length);
+            for (int i = 0; i < periods.length; i++) {
+                tats.set(i, now);
+            }
+            return tats;
         }
 
-        public boolean isEmpty() {
-            return requests.isEmpty();
+        private static long later(long tat, long now) {
+            return tat - now > 0 ? tat : now;
         }
     }
 
+    private record RoutePolicy(List<String> paths, PolicyLimiter limiter) {
+    }
+
     /**
      * 限流信息
      */
     public static class RateLimitInfo {
+        private final String policy;
+        private final long limitPerMinute;
+        private final long limitPerHour;
         private final long remainingRequestsPerMinute;
         private final long remainingRequestsPerHour;
         private final long currentRequestsPerMinute;
         private final long currentRequestsPerHour;
 
-        public RateLimitInfo(long remainingRequestsPerMinute, long remainingRequestsPerHour,
+        public RateLimitInfo(String policy, long limitPerMinute, long limitPerHour,
+                           long remainingRequestsPerMinute, long remainingRequestsPerHour,
                            long currentRequestsPerMinute, long currentRequestsPerHour) {
+            this.policy = policy;
+            this.limitPerMinute = limitPerMinute;
+            this.limitPerHour = limitPerHour;
             this.remainingRequestsPerMinute = Math.max(0, remainingRequestsPerMinute);
             this.remainingRequestsPerHour = Math.max(0, remainingRequestsPerHour);
             this.currentRequestsPerMinute = currentRequestsPerMinute;
             this.currentRequestsPerHour = currentRequestsPerHour;
         }
 
+        public String getPolicy() { return policy; }
+        public long getLimitPerMinute() { return limitPerMinute; }
+        public long getLimitPerHour() { return limitPerHour; }
         public long getRemainingRequestsPerMinute() { return remainingRequestsPerMinute; }
         public long getRemainingRequestsPerHour() { return remainingRequestsPerHour; }
         public long getCurrentRequestsPerMinute() { return currentRequestsPerMinute; }
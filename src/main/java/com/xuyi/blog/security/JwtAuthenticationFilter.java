@@ -1,6 +1,7 @@
 package com.xuyi.blog.security;
 
 import com.xuyi.blog.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final JwtTokenCache jwtTokenCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -37,23 +39,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         String token = getTokenFromRequest(request);
         
-        if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-            String username = jwtUtil.getUsernameFromToken(token);
-            
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    
+        if (StringUtils.hasText(token) && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                // 同一token只在首次请求时验签并查询用户
+                JwtTokenCache.CachedToken cached = jwtTokenCache.get(token);
+                if (cached == null) {
+                    Claims claims = jwtUtil.parseClaims(token);
+                    if (claims != null && claims.getSubject() != null) {
+                        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                        if (userDetails instanceof BlogUserDetails blogUser
+                                && blogUser.isIssuedBeforePasswordChange(claims.getIssuedAt())) {
+                            log.debug("token签发于密码修改之前，拒绝: {}", claims.getSubject());
+                        } else {
+                            cached = jwtTokenCache.put(token, claims, userDetails);
+                        }
+                    }
+                }
+                
+                if (cached != null) {
+                    UserDetails userDetails = cached.userDetails();
                     UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    log.debug("用户 {} 认证成功", username);
-                } catch (Exception e) {
-                    log.error("用户认证失败: {}", e.getMessage());
+                    log.debug("用户 {} 认证成功", userDetails.getUsername());
                 }
+            } catch (Exception e) {
+                log.error("用户认证失败: {}", e.getMessage());
             }
         }
         
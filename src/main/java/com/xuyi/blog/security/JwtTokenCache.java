@@ -0,0 +1,106 @@
+package com.xuyi.blog.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证token缓存
+ * 以 token 的 SHA-256 摘要为键，缓存验签后的声明和用户信息，同一 token 的后续请求无需再次验签和查询用户表；
+ * 每个条目在 token 过期或缓存时长到期时失效（以先到者为准），之后重新验证并读取用户当前状态；
+ * 用户修改密码时清除该用户的所有条目
+ *
+ * @author xuyi
+ */
+@Component
+@Slf4j
+public class JwtTokenCache {
+
+    @Value("${blog.security.token-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    // 单个条目最长缓存时间（毫秒），限制用户信息变化后旧的认证信息还能使用多久
+    @Value("${blog.security.token-cache.ttl:300000}")
+    private long ttl;
+
+    private Cache<String, CachedToken> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, CachedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+                        long remaining = Math.max(0, value.expiresAt() - System.currentTimeMillis());
+                        return TimeUnit.MILLISECONDS.toNanos(Math.min(remaining, ttl));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 获取已验证的token，未缓存或已过期时返回null
+     */
+    public CachedToken get(String token) {
+        CachedToken cached = cache.getIfPresent(digest(token));
+        return cached != null && cached.expiresAt() > System.currentTimeMillis() ? cached : null;
+    }
+
+    /**
+     * 缓存验签通过的token
+     */
+    public CachedToken put(String token, Claims claims, UserDetails userDetails) {
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : 0;
+        CachedToken cached = new CachedToken(claims, userDetails, expiresAt);
+        if (expiresAt > System.currentTimeMillis()) {
+            cache.put(digest(token), cached);
+        }
+        return cached;
+    }
+
+    /**
+     * 清除用户的所有缓存条目（修改密码、权限或账号状态变化时调用）
+     */
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(cached -> cached.userDetails().getUsername().equals(username));
+        log.debug("已清除用户 {} 的token缓存", username);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已验证的token：声明、用户信息和过期时间（毫秒时间戳）
+     */
+    public record CachedToken(Claims claims, UserDetails userDetails, long expiresAt) {
+    }
+}
@@ -1,93 +1,116 @@
 package com.xuyi.blog.security;
 
+import com.xuyi.blog.config.SecurityScanProperties;
+import com.xuyi.blog.util.AhoCorasickScanner;
 import com.xuyi.blog.util.IpUtils;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
 
 /**
  * 安全增强过滤器
- * 防止恶意攻击、SQL注入、XSS等
+ * 防止恶意攻击、SQL注入、XSS等；位于过滤器链最前端，被封禁的IP不再进入后续处理
  * 
  * @author xuyi
  */
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
 @Slf4j
 public class SecurityEnhanceFilter extends OncePerRequestFilter {
 
     @Value("${spring.profiles.active:prod}")
     private String activeProfile;
 
-    // 恶意IP黑名单（内存存储）
-    private final ConcurrentHashMap<String, AtomicInteger> suspiciousIps = new ConcurrentHashMap<>();
-    
-    // SQL注入关键词
-    private static final List<String> SQL_INJECTION_PATTERNS = Arrays.asList(
-        "select", "insert", "update", "delete", "drop", "create", "alter",
-        "union", "script", "javascript", "vbscript", "onload", "onerror",
-        "eval", "expression", "alert", "confirm", "prompt", "document.cookie",
-        "window.location", "document.write", "<script", "</script>",
-        "exec", "execute", "sp_", "xp_", "cmdshell", "char(", "ascii(",
-        "waitfor", "delay", "benchmark", "sleep(", "pg_sleep", "dbms_pipe"
-    );
+    // 只有这些直连地址发来的转发头才可信，封禁按解析出的真实来源计数
+    @Value("${blog.security.trusted-proxies:127.0.0.1}")
+    private Set<String> trustedProxies;
 
-    // 危险文件扩展名
-    private static final List<String> DANGEROUS_EXTENSIONS = Arrays.asList(
-        ".jsp", ".asp", ".aspx", ".php", ".exe", ".bat", ".cmd", ".sh",
-        ".ps1", ".vbs", ".jar", ".war", ".ear"
-    );
+    private final SecurityScanProperties scanProperties;
+    private final SuspiciousIpTracker suspiciousIpTracker;
+
+    private AhoCorasickScanner scanner;
+    private String[] reasons;
+    private long pathMask;
+    private long queryMask;
+    private long userAgentMask;
+
+    /**
+     * 把所有规则分类编译为一个自动机，并按扫描范围计算分类掩码
+     */
+    @PostConstruct
+    public void compileRules() {
+        List<SecurityScanProperties.Category> categories = scanProperties.getCategories();
+        if (categories.size() > Long.SIZE) {
+            throw new IllegalStateException("安全扫描规则分类不能超过 " + Long.SIZE + " 个");
+        }
+        AhoCorasickScanner.Builder builder = AhoCorasickScanner.builder();
+        reasons = new String[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            SecurityScanProperties.Category category = categories.get(i);
+            reasons[i] = category.getReason() != null ? category.getReason() : category.getName();
+            for (String pattern : category.getPatterns()) {
+                builder.add(pattern, i, category.isSuffix());
+            }
+            long bit = 1L << i;
+            switch (category.getScope()) {
+                case REQUEST -> {
+                    pathMask |= bit;
+                    queryMask |= bit;
+                }
+                case PATH -> pathMask |= bit;
+                case USER_AGENT -> userAgentMask |= bit;
+            }
+        }
+        scanner = builder.build();
+        log.info("安全扫描规则加载完成: {} 个分类", categories.size());
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
-        String clientIp = IpUtils.getClientIp(request);
+        String clientIp = IpUtils.getPeerClientIp(request, trustedProxies);
         String requestUri = request.getRequestURI();
         String queryString = request.getQueryString();
         String userAgent = request.getHeader("User-Agent");
         
-        // 1. 检查恶意请求
-        if (isMaliciousRequest(requestUri, queryString, userAgent)) {
-            handleMaliciousRequest(response, clientIp, "恶意请求检测");
+        // 0. 临时封禁的IP直接拒绝
+        if (suspiciousIpTracker.isBanned(clientIp)) {
+            reject(response);
             return;
         }
         
-        // 2. 检查SQL注入
-        if (containsSqlInjection(requestUri, queryString)) {
-            handleMaliciousRequest(response, clientIp, "SQL注入尝试");
-            return;
-        }
-        
-        // 3. 检查XSS攻击
-        if (containsXss(requestUri, queryString)) {
-            handleMaliciousRequest(response, clientIp, "XSS攻击尝试");
+        // 1. 检查恶意请求
+        if (isMaliciousRequest(requestUri, queryString, userAgent)) {
+            handleMaliciousRequest(response, clientIp, "恶意请求检测");
             return;
         }
         
-        // 4. 检查路径遍历攻击
-        if (containsPathTraversal(requestUri)) {
-            handleMaliciousRequest(response, clientIp, "路径遍历攻击");
-            return;
+        // 2. 按规则扫描请求路径和查询字符串（SQL注入、XSS、路径遍历、危险文件等）
+        int category = scanner.scan(requestUri, true, pathMask);
+        if (category == AhoCorasickScanner.NO_MATCH) {
+            category = scanner.scan(queryString, true, queryMask);
         }
-        
-        // 5. 检查文件上传攻击
-        if (containsDangerousFileExtension(requestUri)) {
-            handleMaliciousRequest(response, clientIp, "危险文件访问");
+        if (category != AhoCorasickScanner.NO_MATCH) {
+            handleMaliciousRequest(response, clientIp, reasons[category]);
             return;
         }
         
-        // 6. 添加安全响应头
+        // 3. 添加安全响应头
         addSecurityHeaders(response);
         
         filterChain.doFilter(request, response);
@@ -103,92 +126,43 @@ public class SecurityEnhanceFilter extends OncePerRequestFilter {
         }
 
         // 检查User-Agent
-        if (userAgent == null || userAgent.trim().isEmpty()) {
+        if (userAgent == null || userAgent.isBlank()) {
             return true;
         }
 
         // 检查常见的恶意User-Agent
-        String lowerUserAgent = userAgent.toLowerCase();
-        if (lowerUserAgent.contains("sqlmap") ||
-            lowerUserAgent.contains("nmap") ||
-            lowerUserAgent.contains("nikto") ||
-            lowerUserAgent.contains("masscan") ||
-            lowerUserAgent.contains("python-requests")) {
+        if (scanner.scan(userAgent, false, userAgentMask) != AhoCorasickScanner.NO_MATCH) {
             return true;
         }
         
         // 检查异常长的URI
-        if (requestUri.length() > 2048) {
+        if (requestUri.length() > scanProperties.getMaxUriLength()) {
             return true;
         }
         
         // 检查异常长的查询字符串
-        if (queryString != null && queryString.length() > 4096) {
+        if (queryString != null && queryString.length() > scanProperties.getMaxQueryLength()) {
             return true;
         }
         
         return false;
     }
 
-    /**
-     * 检查SQL注入
-     */
-    private boolean containsSqlInjection(String requestUri, String queryString) {
-        String content = (requestUri + " " + (queryString != null ? queryString : "")).toLowerCase();
-        
-        return SQL_INJECTION_PATTERNS.stream()
-                .anyMatch(pattern -> content.contains(pattern.toLowerCase()));
-    }
-
-    /**
-     * 检查XSS攻击
-     */
-    private boolean containsXss(String requestUri, String queryString) {
-        String content = requestUri + " " + (queryString != null ? queryString : "");
-        
-        // 检查常见的XSS模式
-        return content.contains("<script") ||
-               content.contains("javascript:") ||
-               content.contains("onload=") ||
-               content.contains("onerror=") ||
-               content.contains("alert(") ||
-               content.contains("document.cookie") ||
-               content.contains("window.location") ||
-               content.contains("eval(");
-    }
-
-    /**
-     * 检查路径遍历攻击
-     */
-    private boolean containsPathTraversal(String requestUri) {
-        return requestUri.contains("../") ||
-               requestUri.contains("..\\") ||
-               requestUri.contains("%2e%2e") ||
-               requestUri.contains("..%2f") ||
-               requestUri.contains("..%5c");
-    }
-
-    /**
-     * 检查危险文件扩展名
-     */
-    private boolean containsDangerousFileExtension(String requestUri) {
-        String lowerUri = requestUri.toLowerCase();
-        return DANGEROUS_EXTENSIONS.stream()
-                .anyMatch(lowerUri::endsWith);
-    }
-
     /**
      * 处理恶意请求
      */
     private void handleMaliciousRequest(HttpServletResponse response, String clientIp, String reason) 
             throws IOException {
         
-        // 记录可疑IP
-        suspiciousIps.computeIfAbsent(clientIp, k -> new AtomicInteger(0)).incrementAndGet();
+        // 记录可疑IP，累计过多时临时封禁
+        suspiciousIpTracker.record(clientIp, reason);
         
-        log.warn("检测到恶意请求 - IP: {}, 原因: {}, 累计次数: {}",
-                IpUtils.maskIp(clientIp), reason, suspiciousIps.get(clientIp).get());
+        log.warn("检测到恶意请求 - IP: {}, 原因: {}", IpUtils.maskIp(clientIp), reason);
         
+        reject(response);
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
         response.setStatus(HttpServletResponse.SC_FORBIDDEN);
         response.setContentType("application/json;charset=UTF-8");
         response.getWriter().write("{\"code\":403,\"message\":\"请求被拒绝\",\"data\":null}");
@@ -226,19 +200,4 @@ public class SecurityEnhanceFilter extends OncePerRequestFilter {
         response.setHeader("Permissions-Policy", 
             "camera=(), microphone=(), geolocation=(), payment=()");
     }
-
-    /**
-     * 获取可疑IP统计
-     */
-    public ConcurrentHashMap<String, AtomicInteger> getSuspiciousIps() {
-        return new ConcurrentHashMap<>(suspiciousIps);
-    }
-
-    /**
-     * 清理可疑IP记录
-     */
-    public void clearSuspiciousIps() {
-        suspiciousIps.clear();
-        log.info("已清理可疑IP记录");
-    }
 }
@@ -0,0 +1,232 @@
+package com.xuyi.blog.security;
+
+import com.xuyi.blog.dto.SuspiciousIpDTO;
+import com.xuyi.blog.util.IpUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可疑IP跟踪器
+ * 所有IP的恶意请求次数记在固定大小、按指数衰减的 Count-Min Sketch 中；
+ * 估算次数达到上报阈值的IP才进入容量有限的违规表（满时淘汰最久未出现的），
+ * 达到封禁阈值时临时封禁。伪造大量来源地址也不会让内存无限增长
+ *
+ * @author xuyi
+ */
+@Component
+@Slf4j
+public class SuspiciousIpTracker {
+
+    private static final int DEPTH = 4;
+    // 衰减后低于该计数且未封禁的IP移出违规表
+    private static final double MIN_SCORE = 0.5;
+
+    @Value("${blog.security.suspicious-ip.sketch-width:4096}")
+    private int width;
+
+    @Value("${blog.security.suspicious-ip.capacity:256}")
+    private int capacity;
+
+    @Value("${blog.security.suspicious-ip.report-threshold:3}")
+    private double reportThreshold;
+
+    @Value("${blog.security.suspicious-ip.ban-threshold:20}")
+    private double banThreshold;
+
+    @Value("${blog.security.suspicious-ip.ban-duration:1800000}")
+    private long banDuration;
+
+    @Value("${blog.security.suspicious-ip.half-life:600000}")
+    private long halfLife;
+
+    @Value("${blog.security.suspicious-ip.decay-interval:60000}")
+    private long decayInterval;
+
+    private float[][] counters;
+    private final ConcurrentHashMap<String, Offender> offenders = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        counters = new float[DEPTH][width];
+    }
+
+    /**
+     * 是否处于临时封禁期，每个请求都会调用，只做一次哈希查找
+     */
+    public boolean isBanned(String ip) {
+        if (offenders.isEmpty()) {
+            return false;
+        }
+        Offender offender = offenders.get(ip);
+        return offender != null && offender.bannedUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次恶意请求
+     *
+     * @return 是否因本次请求被封禁
+     */
+    public boolean record(String ip, String reason) {
+        double score = increment(ip);
+        if (score < reportThreshold) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Offender offender = offenders.get(ip);
+        if (offender == null) {
+            evictIfFull();
+            offender = offenders.computeIfAbsent(ip, k -> new Offender(now));
+        }
+        synchronized (offender) {
+            offender.score = score;
+            offender.lastSeen = now;
+            offender.lastReason = reason;
+            if (score >= banThreshold && offender.bannedUntil <= now) {
+                offender.bannedUntil = now + banDuration;
+                offender.bans++;
+                log.warn("临时封禁IP: {}, 恶意请求次数: {}, 封禁时长: {} 分钟",
+                        IpUtils.maskIp(ip), Math.round(score), banDuration / 60000);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取恶意请求次数最多的IP
+     */
+    public List<SuspiciousIpDTO> getSuspiciousIps(int limit) {
+        long now = System.currentTimeMillis();
+        List<SuspiciousIpDTO> result = new ArrayList<>(offenders.size());
+        for (Map.Entry<String, Offender> entry : offenders.entrySet()) {
+            Offender offender = entry.getValue();
+            SuspiciousIpDTO dto = new SuspiciousIpDTO();
+            synchronized (offender) {
+                dto.setIp(entry.getKey());
+                dto.setScore(Math.round(offender.score * 10) / 10.0);
+                dto.setBans(offender.bans);
+                dto.setLastReason(offender.lastReason);
+                dto.setFirstSeen(toDateTime(offender.firstSeen));
+                dto.setLastSeen(toDateTime(offender.lastSeen));
+                dto.setBannedUntil(offender.bannedUntil > now ? toDateTime(offender.bannedUntil) : null);
+            }
+            result.add(dto);
+        }
+        result.sort(Comparator.comparingDouble(SuspiciousIpDTO::getScore).reversed());
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * 清空所有记录并解除封禁
+     */
+    public synchronized void clearSuspiciousIps() {
+        for (float[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+        offenders.clear();
+        log.info("已清理可疑IP记录");
+    }
+
+    /**
+     * 按半衰期衰减所有计数，移出已不活跃的IP
+     */
+    @Scheduled(fixedDelayString = "${blog.security.suspicious-ip.decay-interval:60000}")
+    public void decay() {
+        float factor = (float) Math.pow(0.5, (double) decayInterval / halfLife);
+        synchronized (this) {
+            for (float[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] *= factor;
+                }
+            }
+        }
+        long now = System.currentTimeMillis();
+        offenders.values().removeIf(offender -> {
+            synchronized (offender) {
+                offender.score *= factor;
+                return offender.score < MIN_SCORE && offender.bannedUntil <= now;
+            }
+        });
+    }
+
+    private synchronized double increment(String ip) {
+        double estimate = Double.MAX_VALUE;
+        int hash1 = ip.hashCode();
+        int hash2 = mix(hash1);
+        for (int row = 0; row < DEPTH; row++) {
+            int column = ((hash1 + (row + 1) * hash2) & Integer.MAX_VALUE) % width;
+            counters[row][column] += 1;
+            estimate = Math.min(estimate, counters[row][column]);
+        }
+        return estimate;
+    }
+
+    /**
+     * 违规表已满时淘汰最久未出现且未在封禁期的IP；全部在封禁期时淘汰最久未出现的
+     */
+    private void evictIfFull() {
+        if (offenders.size() < capacity) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String eldest = null;
+        long eldestSeen = Long.MAX_VALUE;
+        boolean eldestBanned = true;
+        for (Map.Entry<String, Offender> entry : offenders.entrySet()) {
+            Offender offender = entry.getValue();
+            boolean banned = offender.bannedUntil > now;
+            if ((eldestBanned && !banned) || (banned == eldestBanned && offender.lastSeen < eldestSeen)) {
+                eldest = entry.getKey();
+                eldestSeen = offender.lastSeen;
+                eldestBanned = banned;
+            }
+        }
+        if (eldest != null) {
+            offenders.remove(eldest);
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash | 1;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 违规表中的IP，字段在自身锁内更新；bannedUntil 为 volatile 以便无锁读取
+     */
+    private static final class Offender {
+        private final long firstSeen;
+        private double score;
+        private int bans;
+        private String lastReason;
+        private long lastSeen;
+        private volatile long bannedUntil;
+
+        Offender(long firstSeen) {
+            this.firstSeen = firstSeen;
+            this.lastSeen = firstSeen;
+        }
+    }
+}
@@ -17,16 +17,17 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * 文章服务类
@@ -45,37 +46,72 @@ public class ArticleService {
     private final EmailSubscriberService emailSubscriberService;
     private final FileUploadService fileUploadService;
     private final SecurityAuditService securityAuditService;
+    private final BlogStatsService blogStatsService;
+    private final ViewCountService viewCountService;
+    private final SearchIndexService searchIndexService;
+    private final SuggestionService suggestionService;
+    private final MarkdownService markdownService;
+    private final ArticleSummaryAssembler summaryAssembler;
+    private final ContentVersionService contentVersionService;
 
     /**
-     * 获取已发布文章列表（分页）
+     * 获取已发布文章列表（偏移分页，兼容旧客户端）
      */
-    // @Cacheable(value = "articles", key = "'published_page_' + #page + '_' + #size")
+    @Cacheable(value = "articles", key = "'published_page_' + #page + '_' + #size")
     public PageResponse<ArticleSummaryDTO> getPublishedArticles(int page, int size) {
-        // 先获取所有已发布文章（包含标签）
-        List<Article> allArticles = articleRepository.findByStatusWithTagsOrderByIsTopDescPublishedAtDesc(
-                Article.ArticleStatus.PUBLISHED);
+        Pageable pageable = PageRequest.of(page, size);
+        Slice<ArticleSummaryDTO> articleSlice = articleRepository.findPublishedSummaries(
+                Article.ArticleStatus.PUBLISHED, pageable);
+
+        PageResponse<ArticleSummaryDTO> pageResponse = buildPublishedPage(
+                articleSlice.getContent(), size, articleSlice.hasNext());
+        pageResponse.setPage(page);
+        pageResponse.setFirst(page == 0);
+        pageResponse.setHasPrevious(page > 0);
+        return pageResponse;
+    }
+
+    /**
+     * 获取已发布文章列表（键集分页）
+     * 从游标位置继续读取，不受页码深度影响
+     */
+    public PageResponse<ArticleSummaryDTO> getPublishedArticlesAfter(String cursor, int size) {
+        ArticleCursor after = ArticleCursor.decode(cursor);
+
+        // 多取一条用于判断是否还有下一页
+        List<ArticleSummaryDTO> articles = articleRepository.findPublishedSummariesAfter(
+                Article.ArticleStatus.PUBLISHED, after.isTop(), after.getPublishedAt(), after.getId(),
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = articles.size() > size;
+        PageResponse<ArticleSummaryDTO> pageResponse = buildPublishedPage(
+                hasNext ? articles.subList(0, size) : articles, size, hasNext);
+        pageResponse.setFirst(false);
+        pageResponse.setHasPrevious(true);
+        return pageResponse;
+    }
 
-        // 手动分页
-        int start = page * size;
-        int end = Math.min(start + size, allArticles.size());
-        List<Article> pageArticles = allArticles.subList(start, end);
+    /**
+     * 组装已发布文章分页响应，总数取自缓存计数而非全表统计
+     */
+    private PageResponse<ArticleSummaryDTO> buildPublishedPage(List<ArticleSummaryDTO> articles, int size, boolean hasNext) {
+        List<ArticleSummaryDTO> dtoList = new ArrayList<>(articles);
+        summaryAssembler.fill(dtoList);
 
-        // 转换为DTO
-        List<ArticleSummaryDTO> dtoList = pageArticles.stream()
-                .map(ArticleSummaryDTO::from)
-                .collect(Collectors.toList());
+        long totalElements = blogStatsService.getTotalArticles();
 
-        // 创建分页响应
         PageResponse<ArticleSummaryDTO> pageResponse = new PageResponse<>();
         pageResponse.setContent(dtoList);
-        pageResponse.setPage(page);
         pageResponse.setSize(size);
-        pageResponse.setTotalElements((long) allArticles.size());
-        pageResponse.setTotalPages((int) Math.ceil((double) allArticles.size() / size));
-        pageResponse.setFirst(page == 0);
-        pageResponse.setLast(end >= allArticles.size());
-        pageResponse.setHasNext(end < allArticles.size());
-        pageResponse.setHasPrevious(page > 0);
+        pageResponse.setTotalElements(totalElements);
+        pageResponse.setTotalPages(size > 0 ? (int) Math.ceil((double) totalElements / size) : 0);
+        pageResponse.setLast(!hasNext);
+        pageResponse.setHasNext(hasNext);
+
+        if (hasNext && !articles.isEmpty()) {
+            ArticleCursor next = ArticleCursor.of(articles.get(articles.size() - 1));
+            pageResponse.setNextCursor(next != null ? next.encode() : null);
+        }
 
         return pageResponse;
     }
@@ -83,32 +119,30 @@ public class ArticleService {
     /**
      * 根据分类获取文章列表
      */
-    // @Cacheable(value = "articles", key = "'category_' + #categoryId + '_page_' + #page + '_' + #size")
+    @Cacheable(value = "articles", key = "'category_' + #categoryId + '_page_' + #page + '_' + #size")
     public PageResponse<ArticleSummaryDTO> getArticlesByCategory(Long categoryId, int page, int size) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("分类不存在"));
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.findByCategoryAndStatusOrderByPublishedAtDesc(
+        Page<ArticleSummaryDTO> dtoPage = articleRepository.findSummariesByCategory(
                 category, Article.ArticleStatus.PUBLISHED, pageable);
-        
-        Page<ArticleSummaryDTO> dtoPage = articlePage.map(ArticleSummaryDTO::from);
+        summaryAssembler.fill(dtoPage.getContent());
         return PageResponse.of(dtoPage);
     }
 
     /**
      * 根据标签获取文章列表
      */
-    // @Cacheable(value = "articles", key = "'tag_' + #tagId + '_page_' + #page + '_' + #size")
+    @Cacheable(value = "articles", key = "'tag_' + #tagId + '_page_' + #page + '_' + #size")
     public PageResponse<ArticleSummaryDTO> getArticlesByTag(Long tagId, int page, int size) {
         Tag tag = tagRepository.findById(tagId)
                 .orElseThrow(() -> new ResourceNotFoundException("标签不存在"));
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.findByTagAndStatus(
+        Page<ArticleSummaryDTO> dtoPage = articleRepository.findSummariesByTag(
                 tag, Article.ArticleStatus.PUBLISHED, pageable);
-        
-        Page<ArticleSummaryDTO> dtoPage = articlePage.map(ArticleSummaryDTO::from);
+        summaryAssembler.fill(dtoPage.getContent());
         return PageResponse.of(dtoPage);
     }
 
@@ -121,19 +155,17 @@ public class ArticleService {
         }
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.searchByKeyword(
-                keyword, Article.ArticleStatus.PUBLISHED, pageable);
-        
-        Page<ArticleSummaryDTO> dtoPage = articlePage.map(ArticleSummaryDTO::from);
+        Page<ArticleSummaryDTO> dtoPage = searchIndexService.searchSummaries(keyword, pageable);
+        summaryAssembler.fill(dtoPage.getContent());
         return PageResponse.of(dtoPage);
     }
 
     /**
      * 获取文章详情（前台用户）
      */
-    // @Cacheable(value = "article", key = "#id")
+    @Cacheable(value = "article", key = "#id")
     public ArticleDTO getArticleById(Long id) {
-        Article article = articleRepository.findById(id)
+        Article article = articleRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("文章不存在"));
 
         // 只有已发布的文章才能被前台用户访问
@@ -141,7 +173,7 @@ public class ArticleService {
             throw new ResourceNotFoundException("文章不存在");
         }
 
-        return ArticleDTO.from(article);
+        return toDetail(article);
     }
 
     /**
@@ -151,23 +183,21 @@ public class ArticleService {
     // @Cacheable(value = "article", key = "'admin_' + #id")
     @PreAuthorize("hasRole('ADMIN')")
     public ArticleDTO getArticleByIdForAdmin(Long id) {
-        Article article = articleRepository.findById(id)
+        Article article = articleRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("文章不存在"));
 
         // 记录管理员访问审计日志
         securityAuditService.logArticleAccess("ADMIN_VIEW", id, article.getStatus().name());
 
         log.debug("管理员访问文章详情: id={}, status={}", id, article.getStatus());
-        return ArticleDTO.from(article);
+        return toDetail(article);
     }
 
     /**
-     * 增加文章浏览量
+     * 增加文章浏览量（先写入内存缓冲，定时批量落库）
      */
-    @Transactional
-    // @CacheEvict(value = "article", key = "#id")
     public void incrementViewCount(Long id) {
-        articleRepository.incrementViewCount(id);
+        viewCountService.increment(id);
     }
 
     /**
@@ -175,11 +205,9 @@ public class ArticleService {
      */
     @Cacheable(value = "articles", key = "'top_articles'")
     public List<ArticleSummaryDTO> getTopArticles() {
-        List<Article> articles = articleRepository.findByIsTopTrueAndStatusOrderByPublishedAtDesc(
-                Article.ArticleStatus.PUBLISHED);
-        return articles.stream()
-                .map(ArticleSummaryDTO::from)
-                .collect(Collectors.toList());
+        List<ArticleSummaryDTO> articles = articleRepository.findTopSummaries(Article.ArticleStatus.PUBLISHED);
+        summaryAssembler.fill(articles);
+        return articles;
     }
 
     /**
@@ -187,11 +215,10 @@ public class ArticleService {
      */
     @Cacheable(value = "articles", key = "'latest_articles'")
     public List<ArticleSummaryDTO> getLatestArticles() {
-        List<Article> articles = articleRepository.findTop10ByStatusOrderByPublishedAtDesc(
-                Article.ArticleStatus.PUBLISHED);
-        return articles.stream()
-                .map(ArticleSummaryDTO::from)
-                .collect(Collectors.toList());
+        List<ArticleSummaryDTO> articles = articleRepository.findLatestSummaries(
+                Article.ArticleStatus.PUBLISHED, PageRequest.of(0, 10));
+        summaryAssembler.fill(articles);
+        return articles;
     }
 
     /**
@@ -199,11 +226,10 @@ public class ArticleService {
      */
     @Cacheable(value = "articles", key = "'popular_articles'")
     public List<ArticleSummaryDTO> getPopularArticles() {
-        List<Article> articles = articleRepository.findTop10ByStatusOrderByViewCountDesc(
-                Article.ArticleStatus.PUBLISHED);
-        return articles.stream()
-                .map(ArticleSummaryDTO::from)
-                .collect(Collectors.toList());
+        List<ArticleSummaryDTO> articles = articleRepository.findPopularSummaries(
+                Article.ArticleStatus.PUBLISHED, PageRequest.of(0, 10));
+        summaryAssembler.fill(articles);
+        return articles;
     }
 
     /**
@@ -211,20 +237,19 @@ public class ArticleService {
      */
     @Cacheable(value = "articles", key = "'related_' + #articleId")
     public List<ArticleSummaryDTO> getRelatedArticles(Long articleId) {
-        Article article = articleRepository.findById(articleId)
-                .orElseThrow(() -> new ResourceNotFoundException("文章不存在"));
-
-        if (article.getCategory() == null) {
+        Category category = articleRepository.findCategoryByArticleId(articleId).orElse(null);
+        if (category == null) {
+            if (!articleRepository.existsById(articleId)) {
+                throw new ResourceNotFoundException("文章不存在");
+            }
             return List.of();
         }
 
         Pageable pageable = PageRequest.of(0, 5);
-        List<Article> articles = articleRepository.findRelatedArticles(
-                article.getCategory(), articleId, Article.ArticleStatus.PUBLISHED, pageable);
-
-        return articles.stream()
-                .map(ArticleSummaryDTO::from)
-                .collect(Collectors.toList());
+        List<ArticleSummaryDTO> articles = articleRepository.findRelatedSummaries(
+                category, articleId, Article.ArticleStatus.PUBLISHED, pageable);
+        summaryAssembler.fill(articles);
+        return articles;
     }
 
     // ========== 管理功能 ==========
@@ -233,7 +258,7 @@ public class ArticleService {
      * 创建文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public ArticleDTO createArticle(ArticleRequestDTO request, String username) {
         User author = userRepository.findByUsername(username)
@@ -243,6 +268,7 @@ public class ArticleService {
         article.setTitle(request.getTitle());
         article.setSummary(request.getSummary());
         article.setContent(request.getContent());
+        markdownService.renderIfChanged(article);
         article.setCoverImage(request.getCoverImage());
         article.setAuthor(author);
         article.setIsTop(request.getIsTop());
@@ -272,6 +298,9 @@ public class ArticleService {
         }
 
         Article savedArticle = articleRepository.save(article);
+        searchIndexService.index(savedArticle);
+        suggestionService.onArticleSaved(savedArticle);
+        contentVersionService.articleChanged(savedArticle.getId());
         log.info("创建文章成功: {}", savedArticle.getTitle());
 
         // 如果是发布状态，发送邮件通知
@@ -283,22 +312,26 @@ public class ArticleService {
             }
         }
 
-        return ArticleDTO.from(savedArticle);
+        return toDetail(savedArticle);
     }
 
     /**
      * 更新文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public ArticleDTO updateArticle(Long id, ArticleRequestDTO request) {
         Article article = articleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("文章不存在"));
+        // 搜索建议需要重新计数文章原来的分类和标签
+        Category previousCategory = article.getCategory();
+        Set<Tag> previousTags = new HashSet<>(article.getTags());
 
         article.setTitle(request.getTitle());
         article.setSummary(request.getSummary());
         article.setContent(request.getContent());
+        markdownService.renderIfChanged(article);
 
         // 处理封面图片更新
         String oldCoverImage = article.getCoverImage();
@@ -350,6 +383,9 @@ public class ArticleService {
         }
 
         Article savedArticle = articleRepository.save(article);
+        searchIndexService.index(savedArticle);
+        suggestionService.onArticleSaved(savedArticle, previousCategory, previousTags);
+        contentVersionService.articleChanged(savedArticle.getId());
         log.info("更新文章成功: {}", savedArticle.getTitle());
 
         // 如果需要发送邮件通知
@@ -361,14 +397,14 @@ public class ArticleService {
             }
         }
 
-        return ArticleDTO.from(savedArticle);
+        return toDetail(savedArticle);
     }
 
     /**
      * 删除文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteArticle(Long id) {
         Article article = articleRepository.findById(id)
@@ -383,7 +419,12 @@ public class ArticleService {
             }
         }
 
+        Category category = article.getCategory();
+        Set<Tag> tags = new HashSet<>(article.getTags());
         articleRepository.delete(article);
+        searchIndexService.remove(id);
+        suggestionService.onArticleRemoved(id, category, tags);
+        contentVersionService.articleChanged(id);
         log.info("删除文章成功: {}", article.getTitle());
     }
 
@@ -391,7 +432,7 @@ public class ArticleService {
      * 发布文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public ArticleDTO publishArticle(Long id) {
         Article article = articleRepository.findById(id)
@@ -399,6 +440,9 @@ public class ArticleService {
 
         article.publish();
         Article savedArticle = articleRepository.save(article);
+        searchIndexService.index(savedArticle);
+        suggestionService.onArticleSaved(savedArticle);
+        contentVersionService.articleChanged(savedArticle.getId());
 
         // 记录管理员操作审计日志
         securityAuditService.logAdminOperation("PUBLISH_ARTICLE", "Article", id.toString(),
@@ -413,14 +457,14 @@ public class ArticleService {
             log.error("发送新文章邮件通知失败: {}", e.getMessage());
         }
 
-        return ArticleDTO.from(savedArticle);
+        return toDetail(savedArticle);
     }
 
     /**
      * 取消发布文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public ArticleDTO unpublishArticle(Long id) {
         Article article = articleRepository.findById(id)
@@ -429,16 +473,19 @@ public class ArticleService {
         article.setStatus(Article.ArticleStatus.DRAFT);
         article.setPublishedAt(null);
         Article savedArticle = articleRepository.save(article);
+        searchIndexService.index(savedArticle);
+        suggestionService.onArticleSaved(savedArticle);
+        contentVersionService.articleChanged(savedArticle.getId());
         log.info("取消发布文章成功: {}", savedArticle.getTitle());
 
-        return ArticleDTO.from(savedArticle);
+        return toDetail(savedArticle);
     }
 
     /**
      * 归档文章
      */
     @Transactional
-    @CacheEvict(value = {"articles", "article", "blogStats"}, allEntries = true)
+    @CacheEvict(value = {"articles", "article", "blogStats", "rss", "feeds"}, allEntries = true)
     @PreAuthorize("hasRole('ADMIN')")
     public void archiveArticle(Long id) {
         Article article = articleRepository.findById(id)
@@ -446,6 +493,9 @@ public class ArticleService {
 
         article.archive();
         articleRepository.save(article);
+        searchIndexService.remove(id);
+        suggestionService.onArticleSaved(article);
+        contentVersionService.articleChanged(id);
         log.info("归档文章成功: {}", article.getTitle());
     }
 
@@ -455,9 +505,8 @@ public class ArticleService {
     @PreAuthorize("hasRole('ADMIN')")
     public PageResponse<ArticleSummaryDTO> getAllArticles(int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.findAll(pageable);
-
-        Page<ArticleSummaryDTO> dtoPage = articlePage.map(ArticleSummaryDTO::from);
+        Page<ArticleSummaryDTO> dtoPage = articleRepository.findAllSummaries(pageable);
+        summaryAssembler.fill(dtoPage.getContent());
         return PageResponse.of(dtoPage);
     }
 
@@ -480,4 +529,18 @@ public class ArticleService {
 
         return tags;
     }
+
+    /**
+     * 转换为文章详情，浏览量合并尚未落库的部分
+     */
+    private ArticleDTO toDetail(Article article) {
+        ArticleDTO dto = ArticleDTO.from(article);
+        dto.setViewCount(mergeViewCount(article));
+        return dto;
+    }
+
+    private Long mergeViewCount(Article article) {
+        long persisted = article.getViewCount() != null ? article.getViewCount() : 0L;
+        return persisted + viewCountService.getPending(article.getId());
+    }
 }
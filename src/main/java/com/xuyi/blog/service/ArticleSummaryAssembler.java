@@ -0,0 +1,48 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.ArticleSummaryDTO;
+import com.xuyi.blog.dto.TagDTO;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.repository.ArticleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文章摘要补全
+ * 列表查询投影出的摘要不含标签，这里按页一次读取所有文章的标签，并合并尚未落库的浏览量
+ *
+ * @author xuyi
+ */
+@Component
+@RequiredArgsConstructor
+public class ArticleSummaryAssembler {
+
+    private final ArticleRepository articleRepository;
+    private final ViewCountService viewCountService;
+
+    /**
+     * 填充标签和浏览量
+     */
+    public void fill(List<ArticleSummaryDTO> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = summaries.stream().map(ArticleSummaryDTO::getId).toList();
+        Map<Long, List<TagDTO>> tags = new HashMap<>();
+        for (Object[] row : articleRepository.findTagsByArticleIds(ids)) {
+            tags.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(new TagDTO((Tag) row[1]));
+        }
+
+        for (ArticleSummaryDTO summary : summaries) {
+            summary.setTags(tags.getOrDefault(summary.getId(), new ArrayList<>()));
+            long persisted = summary.getViewCount() != null ? summary.getViewCount() : 0L;
+            summary.setViewCount(persisted + viewCountService.getPending(summary.getId()));
+        }
+    }
+}
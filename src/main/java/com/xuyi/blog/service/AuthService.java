@@ -5,6 +5,7 @@ import com.xuyi.blog.dto.LoginResponseDTO;
 import com.xuyi.blog.dto.UserDTO;
 import com.xuyi.blog.entity.User;
 import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.security.JwtTokenCache;
 import com.xuyi.blog.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +17,10 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
 
 /**
  * 认证服务类
@@ -31,6 +36,7 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final JwtTokenCache jwtTokenCache;
 
     /**
      * 用户登录
@@ -108,8 +114,26 @@ public class AuthService {
 
         // 更新密码
         user.setPassword(encodePassword(newPassword));
+        user.setPasswordChangedAt(LocalDateTime.now());
         userRepository.save(user);
 
+        // 清除缓存后，修改之前签发的token重新验证时按签发时间拒绝；
+        // 提交后再清除，否则并发请求可能读到提交前的用户，把旧token重新放回缓存
+        afterCommit(() -> jwtTokenCache.evictUser(username));
+
         log.info("用户 {} 修改密码成功", username);
     }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
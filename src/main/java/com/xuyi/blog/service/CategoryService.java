@@ -26,6 +26,8 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final SuggestionService suggestionService;
+    private final ContentVersionService contentVersionService;
 
     /**
      * 获取所有分类
@@ -82,6 +84,7 @@ public class CategoryService {
         category.setSortOrder(sortOrder != null ? sortOrder : 0);
 
         Category savedCategory = categoryRepository.save(category);
+        contentVersionService.taxonomyChanged();
         log.info("创建分类成功: {}", savedCategory.getName());
         
         return CategoryDTO.from(savedCategory);
@@ -91,7 +94,7 @@ public class CategoryService {
      * 更新分类（使用DTO）
      */
     @Transactional
-    @CacheEvict(value = "categories", allEntries = true)
+    @CacheEvict(value = {"categories", "articles", "article", "rss", "feeds"}, allEntries = true)
     public CategoryDTO updateCategory(Long id, CategoryRequestDTO request) {
         return updateCategory(id, request.getName(), request.getDescription(), request.getSortOrder());
     }
@@ -100,7 +103,7 @@ public class CategoryService {
      * 更新分类
      */
     @Transactional
-    @CacheEvict(value = "categories", allEntries = true)
+    @CacheEvict(value = {"categories", "articles", "article", "rss", "feeds"}, allEntries = true)
     public CategoryDTO updateCategory(Long id, String name, String description, Integer sortOrder) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("分类不存在"));
@@ -115,6 +118,8 @@ public class CategoryService {
         category.setSortOrder(sortOrder != null ? sortOrder : 0);
 
         Category savedCategory = categoryRepository.save(category);
+        suggestionService.onCategorySaved(savedCategory);
+        contentVersionService.taxonomyChanged();
         log.info("更新分类成功: {}", savedCategory.getName());
         
         return CategoryDTO.from(savedCategory);
@@ -124,12 +129,14 @@ public class CategoryService {
      * 删除分类
      */
     @Transactional
-    @CacheEvict(value = "categories", allEntries = true)
+    @CacheEvict(value = {"categories", "articles", "article", "rss", "feeds"}, allEntries = true)
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("分类不存在"));
         
         categoryRepository.delete(category);
+        suggestionService.onCategoryRemoved(id);
+        contentVersionService.taxonomyChanged();
         log.info("删除分类成功: {}", category.getName());
     }
 
@@ -0,0 +1,145 @@
+package com.xuyi.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.repository.ArticleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内容版本服务
+ * 维护前台响应的校验器：全局内容版本在文章、分类、标签任意变更后递增，
+ * 分类标签版本只在分类、标签变更时递增；单篇文章的校验信息取实体版本号和已写回的浏览量，按文章缓存。
+ * 浏览量写回只影响文章详情的校验信息：列表响应来自 articles 缓存，写回时并不刷新，递增全局版本只会让 304 失效
+ * 版本号以毫秒时间戳起步并且只增不减，可以直接当作 Last-Modified，重启后也不会回退。
+ * 变更在事务提交、并且事务内的缓存清除执行完之后才递增版本，避免并发读取拿到新版本却读到旧数据或旧缓存
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentVersionService {
+
+    private final ArticleRepository articleRepository;
+
+    @Value("${blog.http-cache.max-article-stamps:10000}")
+    private long maxArticleStamps;
+
+    private final AtomicLong contentEpoch = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong taxonomyEpoch = new AtomicLong(System.currentTimeMillis());
+
+    private Cache<Long, ArticleStamp> articleStamps;
+
+    @PostConstruct
+    public void init() {
+        articleStamps = Caffeine.newBuilder()
+                .maximumSize(maxArticleStamps)
+                .build();
+    }
+
+    /**
+     * 全局内容版本
+     */
+    public long getContentEpoch() {
+        return contentEpoch.get();
+    }
+
+    /**
+     * 分类标签版本
+     */
+    public long getTaxonomyEpoch() {
+        return taxonomyEpoch.get();
+    }
+
+    /**
+     * 已发布文章的校验信息，文章不存在或未发布时返回 null
+     */
+    public ArticleStamp getArticleStamp(Long articleId) {
+        return articleStamps.get(articleId, this::loadStamp);
+    }
+
+    /**
+     * 文章新增、修改、删除或状态变化
+     */
+    public void articleChanged(Long articleId) {
+        afterCommit(() -> {
+            if (articleId != null) {
+                articleStamps.invalidate(articleId);
+            }
+            advance(contentEpoch);
+        });
+    }
+
+    /**
+     * 分类或标签变化，文章详情里的分类名、标签名随之改变
+     */
+    public void taxonomyChanged() {
+        afterCommit(() -> {
+            advance(taxonomyEpoch);
+            advance(contentEpoch);
+        });
+    }
+
+    /**
+     * 浏览量已写入数据库，文章详情的校验信息随之改变
+     */
+    public void viewsFlushed(Collection<Long> articleIds) {
+        articleStamps.invalidateAll(articleIds);
+    }
+
+    private ArticleStamp loadStamp(Long articleId) {
+        List<Object[]> rows = articleRepository.findStampById(articleId, Article.ArticleStatus.PUBLISHED);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        LocalDateTime updatedAt = (LocalDateTime) row[2];
+        return new ArticleStamp(
+                row[0] != null ? (Long) row[0] : 0L,
+                row[1] != null ? (Long) row[1] : 0L,
+                updatedAt != null ? Timestamp.valueOf(updatedAt).getTime() : 0L);
+    }
+
+    private static void advance(AtomicLong epoch) {
+        epoch.updateAndGet(current -> Math.max(current + 1, System.currentTimeMillis()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 回滚时内容没有变化，版本保持不变；afterCompletion 在所有 afterCommit（包括缓存清除）之后执行
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 单篇文章的校验信息
+     *
+     * @param version   实体版本号
+     * @param viewCount 已写回数据库的浏览量
+     * @param updatedAt 更新时间（毫秒）
+     */
+    public record ArticleStamp(long version, long viewCount, long updatedAt) {
+    }
+}
@@ -2,19 +2,26 @@ package com.xuyi.blog.service;
 
 import com.xuyi.blog.entity.Article;
 import com.xuyi.blog.entity.EmailSubscriber;
+import com.xuyi.blog.util.EmailTemplate;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.HtmlUtils;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 /**
  * 邮件服务类
@@ -26,7 +33,10 @@ import java.util.List;
 @Slf4j
 public class EmailService {
 
+    private static final String TEMPLATE_LOCATION = "mail/";
+
     private final JavaMailSender mailSender;
+    private final MailQueueService mailQueueService;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -37,6 +47,20 @@ public class EmailService {
     @Value("${blog.url:http://localhost:8888}")
     private String blogUrl;
 
+    private EmailTemplate subscriptionConfirmationTemplate;
+    private EmailTemplate newArticleTemplate;
+    private EmailTemplate unsubscribeConfirmationTemplate;
+
+    /**
+     * 启动时解析邮件模板，站点标题和地址只代入一次
+     */
+    @PostConstruct
+    public void loadTemplates() {
+        subscriptionConfirmationTemplate = loadTemplate("subscription-confirmation.html");
+        newArticleTemplate = loadTemplate("new-article.html");
+        unsubscribeConfirmationTemplate = loadTemplate("unsubscribe-confirmation.html");
+    }
+
     /**
      * 发送简单邮件
      */
@@ -88,22 +112,20 @@ public class EmailService {
     }
 
     /**
-     * 发送新文章通知邮件
+     * 创建新文章通知的群发批次，收件人随后分段加入发件队列
+     * 退订链接在发送时按收件人渲染
      */
-    @Async
-    public void sendNewArticleNotification(List<EmailSubscriber> subscribers, Article article) {
+    public Long createNewArticleBatch(Article article) {
         String subject = blogTitle + " - 新文章发布：" + article.getTitle();
         String content = buildNewArticleNotificationContent(article);
-        
-        for (EmailSubscriber subscriber : subscribers) {
-            if (subscriber.getIsActive()) {
-                String personalizedContent = content.replace("{{unsubscribe_url}}", 
-                    buildUnsubscribeUrl(subscriber.getToken()));
-                sendHtmlEmail(subscriber.getEmail(), subject, personalizedContent);
-            }
-        }
-        
-        log.info("发送新文章通知邮件: {} 篇文章，{} 个订阅者", article.getTitle(), subscribers.size());
+        return mailQueueService.createFanOutBatch("article:" + article.getId(), subject, content);
+    }
+
+    /**
+     * 构建群发收件人
+     */
+    public MailQueueService.Recipient buildRecipient(String email, String token) {
+        return new MailQueueService.Recipient(email, buildUnsubscribeUrl(token));
     }
 
     /**
@@ -120,92 +142,12 @@ public class EmailService {
      * 构建订阅确认邮件内容
      */
     private String buildSubscriptionConfirmationContent(EmailSubscriber subscriber) {
-        return String.format("""
-            <!DOCTYPE html>
-            <html lang="zh-CN">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>欢迎订阅 %s</title>
-            </head>
-            <body style="margin: 0; padding: 0; background-color: #f4f4f4; font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, 'Helvetica Neue', Arial, sans-serif;">
-                <table cellpadding="0" cellspacing="0" border="0" width="100%%" style="background-color: #f4f4f4; padding: 20px 0;">
-                    <tr>
-                        <td align="center">
-                            <table cellpadding="0" cellspacing="0" border="0" width="600" style="max-width: 600px; background-color: #ffffff; border-radius: 12px; box-shadow: 0 4px 12px rgba(0,0,0,0.1); overflow: hidden;">
-                                <!-- Header -->
-                                <tr>
-                                    <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 40px 30px; text-align: center;">
-                                        <h1 style="color: #ffffff; font-size: 28px; font-weight: 600; margin: 0; text-shadow: 0 2px 4px rgba(0,0,0,0.1);">
-                                            🎉 欢迎订阅 %s！
-                                        </h1>
-                                    </td>
-                                </tr>
-
-                                <!-- Content -->
-                                <tr>
-                                    <td style="padding: 40px 30px;">
-                                        <div style="text-align: center; margin-bottom: 30px;">
-                                            <div style="width: 80px; height: 80px; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); border-radius: 50%%; margin: 0 auto 20px; display: flex; align-items: center; justify-content: center; font-size: 36px;">
-                                                ✉️
-                                            </div>
-                                        </div>
-
-                                        <h2 style="color: #2c3e50; font-size: 24px; font-weight: 600; margin: 0 0 20px; text-align: center;">
-                                            订阅成功！
-                                        </h2>
-
-                                        <p style="color: #555; font-size: 16px; line-height: 1.6; margin: 0 0 20px; text-align: center;">
-                                            亲爱的读者，感谢您订阅我们的博客！
-                                        </p>
-
-                                        <div style="background: #f8f9fa; border-left: 4px solid #667eea; padding: 20px; margin: 20px 0; border-radius: 0 8px 8px 0;">
-                                            <p style="color: #555; font-size: 16px; line-height: 1.6; margin: 0;">
-                                                📚 您将第一时间收到最新文章的推送通知<br>
-                                                🎯 精选优质内容，绝不浪费您的时间<br>
-                                                🔒 我们承诺保护您的隐私，不会泄露您的邮箱
-                                            </p>
-                                        </div>
-
-                                        <div style="text-align: center; margin: 30px 0;">
-                                            <a href="%s" style="display: inline-block; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: #ffffff; text-decoration: none; padding: 14px 30px; border-radius: 25px; font-weight: 600; font-size: 16px; box-shadow: 0 4px 12px rgba(102, 126, 234, 0.3); transition: all 0.3s ease;">
-                                                🏠 访问博客首页
-                                            </a>
-                                        </div>
-
-                                        <div style="background: #fff3cd; border: 1px solid #ffeaa7; border-radius: 8px; padding: 15px; margin: 20px 0;">
-                                            <p style="color: #856404; font-size: 14px; margin: 0; text-align: center;">
-                                                💡 <strong>小贴士：</strong>为了确保您能收到我们的邮件，请将此邮箱地址添加到您的通讯录中。
-                                            </p>
-                                        </div>
-                                    </td>
-                                </tr>
-
-                                <!-- Footer -->
-                                <tr>
-                                    <td style="background-color: #f8f9fa; padding: 30px; text-align: center; border-top: 1px solid #e9ecef;">
-                                        <p style="color: #6c757d; font-size: 14px; margin: 0 0 10px;">
-                                            如果您不想再收到此类邮件，可以
-                                            <a href="%s" style="color: #dc3545; text-decoration: none; font-weight: 500;">取消订阅</a>
-                                        </p>
-                                        <p style="color: #6c757d; font-size: 12px; margin: 0;">
-                                            此邮件由 <strong>%s</strong> 自动发送，请勿回复<br>
-                                            博客地址：<a href="%s" style="color: #667eea; text-decoration: none;">%s</a>
-                                        </p>
-                                    </td>
-                                </tr>
-                            </table>
-                        </td>
-                    </tr>
-                </table>
-            </body>
-            </html>
-            """, blogTitle, blogTitle, blogUrl, buildUnsubscribeUrl(subscriber.getToken()),
-                 blogTitle, blogUrl, blogUrl);
+        return subscriptionConfirmationTemplate.render("unsubscribe_url", buildUnsubscribeUrl(subscriber.getToken()));
     }
 
     /**
      * 构建新文章通知邮件内容
+     * 退订链接保留为 {{unsubscribe_url}}，由发件队列按收件人渲染
      */
     private String buildNewArticleNotificationContent(Article article) {
         String summary = StringUtils.hasText(article.getSummary()) ? 
@@ -214,104 +156,39 @@ public class EmailService {
                          article.getContent().substring(0, 200) + "..." : 
                          article.getContent());
 
-        return String.format("""
-            <!DOCTYPE html>
-            <html lang="zh-CN">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>新文章发布 - %s</title>
-            </head>
-            <body style="margin: 0; padding: 0; background-color: #f4f4f4; font-family: -apple-system, BlinkMacSystemFont, 'Segoe UI', Roboto, 'Helvetica Neue', Arial, sans-serif;">
-                <table cellpadding="0" cellspacing="0" border="0" width="100%%" style="background-color: #f4f4f4; padding: 20px 0;">
-                    <tr>
-                        <td align="center">
-                            <table cellpadding="0" cellspacing="0" border="0" width="600" style="max-width: 600px; background-color: #ffffff; border-radius: 12px; box-shadow: 0 4px 12px rgba(0,0,0,0.1); overflow: hidden;">
-                                <!-- Header -->
-                                <tr>
-                                    <td style="background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); padding: 30px; text-align: center;">
-                                        <h1 style="color: #ffffff; font-size: 24px; font-weight: 600; margin: 0; text-shadow: 0 2px 4px rgba(0,0,0,0.1);">
-                                            📝 %s - 新文章发布
-                                        </h1>
-                                    </td>
-                                </tr>
-
-                                <!-- Content -->
-                                <tr>
-                                    <td style="padding: 40px 30px;">
-                                        <div style="text-align: center; margin-bottom: 30px;">
-                                            <div style="width: 60px; height: 60px; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); border-radius: 50%%; margin: 0 auto 15px; display: flex; align-items: center; justify-content: center; font-size: 24px;">
-                                                ✨
-                                            </div>
-                                            <p style="color: #666; font-size: 14px; margin: 0;">有新内容等您阅读</p>
-                                        </div>
-
-                                        <h2 style="color: #2c3e50; font-size: 22px; font-weight: 600; margin: 0 0 20px; text-align: center; line-height: 1.3;">
-                                            <a href="%s/articles/%d" style="color: #2c3e50; text-decoration: none;">%s</a>
-                                        </h2>
-
-                                        <div style="background: #f8f9fa; border-left: 4px solid #667eea; padding: 20px; margin: 25px 0; border-radius: 0 8px 8px 0;">
-                                            <p style="color: #555; font-size: 15px; line-height: 1.6; margin: 0;">
-                                                %s
-                                            </p>
-                                        </div>
-
-                                        <div style="text-align: center; margin: 35px 0;">
-                                            <a href="%s/articles/%d" style="display: inline-block; background: linear-gradient(135deg, #667eea 0%%, #764ba2 100%%); color: #ffffff; text-decoration: none; padding: 16px 32px; border-radius: 25px; font-weight: 600; font-size: 16px; box-shadow: 0 4px 12px rgba(102, 126, 234, 0.3); transition: all 0.3s ease;">
-                                                📖 立即阅读全文
-                                            </a>
-                                        </div>
-
-                                        <div style="background: #e8f4fd; border: 1px solid #bee5eb; border-radius: 8px; padding: 15px; margin: 25px 0; text-align: center;">
-                                            <p style="color: #0c5460; font-size: 14px; margin: 0;">
-                                                💡 喜欢这篇文章？别忘了分享给朋友们！
-                                            </p>
-                                        </div>
-                                    </td>
-                                </tr>
-
-                                <!-- Footer -->
-                                <tr>
-                                    <td style="background-color: #f8f9fa; padding: 25px; text-align: center; border-top: 1px solid #e9ecef;">
-                                        <p style="color: #6c757d; font-size: 14px; margin: 0 0 10px;">
-                                            如果您不想再收到此类邮件，可以
-                                            <a href="{{unsubscribe_url}}" style="color: #dc3545; text-decoration: none; font-weight: 500;">取消订阅</a>
-                                        </p>
-                                        <p style="color: #6c757d; font-size: 12px; margin: 0;">
-                                            此邮件由 <strong>%s</strong> 自动发送，请勿回复<br>
-                                            博客地址：<a href="%s" style="color: #667eea; text-decoration: none;">%s</a>
-                                        </p>
-                                    </td>
-                                </tr>
-                            </table>
-                        </td>
-                    </tr>
-                </table>
-            </body>
-            </html>
-            """, blogTitle, blogTitle, blogUrl, article.getId(), article.getTitle(),
-                 summary, blogUrl, article.getId(), blogTitle, blogUrl, blogUrl);
+        return newArticleTemplate.bind(Map.of(
+                "article_url", blogUrl + "/articles/" + article.getId(),
+                "article_title", escape(article.getTitle()),
+                "summary", escape(summary))).toString();
     }
 
     /**
      * 构建取消订阅确认邮件内容
      */
     private String buildUnsubscribeConfirmationContent() {
-        return String.format("""
-            <html>
-            <body style="font-family: Arial, sans-serif; line-height: 1.6; color: #333;">
-                <div style="max-width: 600px; margin: 0 auto; padding: 20px;">
-                    <h2 style="color: #2c3e50;">取消订阅成功</h2>
-                    <p>您已成功取消订阅 %s。</p>
-                    <p>如果这不是您的操作，或者您想重新订阅，请访问我们的网站。</p>
-                    <hr style="border: none; border-top: 1px solid #eee; margin: 20px 0;">
-                    <p style="font-size: 12px; color: #666;">
-                        博客地址：<a href="%s">%s</a>
-                    </p>
-                </div>
-            </body>
-            </html>
-            """, blogTitle, blogUrl, blogUrl);
+        return unsubscribeConfirmationTemplate.toString();
+    }
+
+    /**
+     * 加载模板并代入站点固定信息
+     */
+    private EmailTemplate loadTemplate(String name) {
+        ClassPathResource resource = new ClassPathResource(TEMPLATE_LOCATION + name);
+        try (InputStream in = resource.getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return EmailTemplate.compile(source).bind(Map.of(
+                    "blog_title", escape(blogTitle),
+                    "blog_url", blogUrl));
+        } catch (IOException e) {
+            throw new IllegalStateException("加载邮件模板失败: " + name, e);
+        }
+    }
+
+    /**
+     * 转义文章标题等用户内容，花括号一并转义，避免被当作模板占位符
+     */
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, "UTF-8").replace("{", "&#123;");
     }
 
     /**
@@ -9,11 +9,20 @@ import com.xuyi.blog.repository.EmailSubscriberRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +37,14 @@ public class EmailSubscriberService {
 
     private final EmailSubscriberRepository emailSubscriberRepository;
     private final EmailService emailService;
+    private final MailQueueService mailQueueService;
+    private final Executor taskExecutor;
+
+    @Value("${blog.mail.subscriber-chunk-size:500}")
+    private int chunkSize;
+
+    // 正在加入收件人的批次，避免新批次的提交回调和定时续传同时处理同一批次
+    private final Set<Long> fanOutsInProgress = ConcurrentHashMap.newKeySet();
 
     /**
      * 订阅邮箱
@@ -140,15 +157,77 @@ public class EmailSubscriberService {
     }
 
     /**
-     * 发送新文章通知
+     * 发送新文章通知（写入发件队列）
+     * 批次在调用方事务内创建；订阅者在事务提交后由后台线程按ID分段读取并加入队列，
+     * 不持有长事务，也不一次性加载全部订阅者。每段与批次进度在同一事务内提交，中断后由 {@link #resumeFanOuts()} 继续
      */
-    @Transactional(readOnly = true)
     public void notifyNewArticle(Article article) {
-        List<EmailSubscriber> activeSubscribers = emailSubscriberRepository.findByIsActiveTrue();
-        
-        if (!activeSubscribers.isEmpty()) {
-            emailService.sendNewArticleNotification(activeSubscribers, article);
-            log.info("发送新文章通知: {} -> {} 个订阅者", article.getTitle(), activeSubscribers.size());
+        if (emailSubscriberRepository.countByIsActiveTrue() == 0) {
+            return;
+        }
+        Long batchId = emailService.createNewArticleBatch(article);
+
+        Runnable fanOut = () -> enqueueActiveSubscribers(batchId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 文章事务回滚时批次一同回滚，不会发出通知
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    taskExecutor.execute(fanOut);
+                }
+            });
+        } else {
+            taskExecutor.execute(fanOut);
+        }
+    }
+
+    /**
+     * 启动时及之后定期检查收件人未全部加入队列的批次（进程退出或加入过程出错），从记录的进度处继续
+     */
+    @Scheduled(fixedDelayString = "${blog.mail.fan-out-resume-interval:300000}")
+    public void resumeFanOuts() {
+        for (Long batchId : mailQueueService.getUnfinishedFanOuts()) {
+            if (!fanOutsInProgress.contains(batchId)) {
+                taskExecutor.execute(() -> enqueueActiveSubscribers(batchId));
+            }
+        }
+    }
+
+    /**
+     * 从批次记录的进度开始，按ID顺序分段读取活跃订阅者，每读一段就写入发件队列
+     */
+    private void enqueueActiveSubscribers(Long batchId) {
+        if (!fanOutsInProgress.add(batchId)) {
+            return;
+        }
+        try {
+            // 进度以数据库为准，已经加入完成的批次直接跳过
+            Long afterId = mailQueueService.getFanOutCursor(batchId);
+            if (afterId == null) {
+                return;
+            }
+            int total = 0;
+            List<Object[]> rows;
+            do {
+                rows = emailSubscriberRepository.findActiveRecipientsAfter(afterId, PageRequest.of(0, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<MailQueueService.Recipient> recipients = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    recipients.add(emailService.buildRecipient((String) row[1], (String) row[2]));
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+                mailQueueService.enqueue(batchId, recipients, afterId);
+                total += rows.size();
+            } while (rows.size() == chunkSize);
+            mailQueueService.completeFanOut(batchId);
+
+            log.info("发送新文章通知: 批次 {} -> {} 个订阅者", batchId, total);
+        } catch (Exception e) {
+            log.error("新文章通知加入发件队列失败: 批次 {}, 错误: {}", batchId, e.getMessage(), e);
+        } finally {
+            fanOutsInProgress.remove(batchId);
         }
     }
 
@@ -30,7 +30,7 @@ public class FriendLinkService {
     /**
      * 获取活跃的友链
      */
-    // @Cacheable(value = "friendLinks", key = "'active'")
+    @Cacheable(value = "friendLinks", key = "'active'")
     public List<FriendLinkDTO> getActiveFriendLinks() {
         List<FriendLink> friendLinks = friendLinkRepository.findByIsActiveTrueOrderBySortOrderAsc();
         return friendLinks.stream()
@@ -41,7 +41,7 @@ public class FriendLinkService {
     /**
      * 获取所有友链（管理用）
      */
-    // @Cacheable(value = "friendLinks", key = "'all'")
+    @Cacheable(value = "friendLinks", key = "'all'")
     public List<FriendLinkDTO> getAllFriendLinks() {
         List<FriendLink> friendLinks = friendLinkRepository.findAllByOrderBySortOrderAsc();
         return friendLinks.stream()
@@ -52,7 +52,7 @@ public class FriendLinkService {
     /**
      * 根据ID获取友链
      */
-    // @Cacheable(value = "friendLink", key = "#id")
+    @Cacheable(value = "friendLink", key = "#id")
     public FriendLinkDTO getFriendLinkById(Long id) {
         FriendLink friendLink = friendLinkRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("友链不存在"));
@@ -63,7 +63,7 @@ public class FriendLinkService {
      * 创建友链
      */
     @Transactional
-    // @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
+    @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
     public FriendLinkDTO createFriendLink(FriendLinkRequestDTO request) {
         FriendLink friendLink = new FriendLink();
         friendLink.setName(request.getName());
@@ -83,7 +83,7 @@ public class FriendLinkService {
      * 更新友链
      */
     @Transactional
-    // @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
+    @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
     public FriendLinkDTO updateFriendLink(Long id, FriendLinkRequestDTO request) {
         FriendLink friendLink = friendLinkRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("友链不存在"));
@@ -105,7 +105,7 @@ public class FriendLinkService {
      * 删除友链
      */
     @Transactional
-    // @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
+    @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
     public void deleteFriendLink(Long id) {
         FriendLink friendLink = friendLinkRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("友链不存在"));
@@ -118,7 +118,7 @@ public class FriendLinkService {
      * 设置友链状态
      */
     @Transactional
-    // @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
+    @CacheEvict(value = {"friendLinks", "friendLink"}, allEntries = true)
     public void setActive(Long id, boolean active) {
         FriendLink friendLink = friendLinkRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("友链不存在"));
@@ -0,0 +1,153 @@
+package com.xuyi.blog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xuyi.blog.entity.SystemConfig;
+import com.xuyi.blog.repository.SystemConfigRepository;
+import com.xuyi.blog.search.HotKeywordSketch;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * 热门搜索关键词服务
+ * 搜索请求只更新内存中的统计结构，计数按半衰期持续衰减，定时快照到 system_configs 以便重启后恢复
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotKeywordService {
+
+    private static final String SNAPSHOT_KEY = "search.hot_keywords";
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int TRACKED_KEYWORDS = 200;
+    // 快照只保存排名靠前的部分，保证整体不超过 TEXT 列的 64KB
+    private static final int SNAPSHOT_KEYWORDS = 100;
+    private static final int MAX_KEYWORD_LENGTH = 50;
+
+    private final SystemConfigRepository systemConfigRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${blog.search.hot-keywords.half-life:21600000}")
+    private long halfLife;
+
+    @Value("${blog.search.hot-keywords.decay-interval:60000}")
+    private long decayInterval;
+
+    private final HotKeywordSketch sketch = new HotKeywordSketch(SKETCH_WIDTH, TRACKED_KEYWORDS);
+    private volatile boolean dirty;
+
+    /**
+     * 记录一次搜索关键词
+     */
+    public void record(String keyword) {
+        String normalized = normalize(keyword);
+        if (normalized.isEmpty() || normalized.length() > MAX_KEYWORD_LENGTH) {
+            return;
+        }
+        sketch.add(normalized);
+        dirty = true;
+    }
+
+    /**
+     * 获取当前最热门的关键词
+     */
+    public List<String> getHotKeywords(int limit) {
+        return sketch.top(limit).stream()
+                .map(HotKeywordSketch.Entry::keyword)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按半衰期定时衰减计数
+     */
+    @Scheduled(fixedDelayString = "${blog.search.hot-keywords.decay-interval:60000}")
+    public void decay() {
+        sketch.decay(Math.pow(0.5, (double) decayInterval / halfLife));
+    }
+
+    /**
+     * 启动时从 system_configs 恢复统计
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        systemConfigRepository.findByConfigKey(SNAPSHOT_KEY).ifPresent(config -> {
+            try {
+                Snapshot snapshot = objectMapper.readValue(config.getConfigValue(), Snapshot.class);
+                sketch.restore(snapshot.counters(), snapshot.keywords());
+                // 按停机时长补上衰减
+                long elapsed = Math.max(0, System.currentTimeMillis() - snapshot.savedAt());
+                sketch.decay(Math.pow(0.5, (double) elapsed / halfLife));
+                log.info("热门搜索关键词已恢复: {} 个", snapshot.keywords().size());
+            } catch (Exception e) {
+                log.warn("热门搜索关键词快照无法读取，重新统计: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 定时快照
+     */
+    @Scheduled(fixedDelayString = "${blog.search.hot-keywords.snapshot-interval:300000}",
+               initialDelayString = "${blog.search.hot-keywords.snapshot-interval:300000}")
+    public void scheduledSnapshot() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    /**
+     * 将统计写入 system_configs
+     */
+    public synchronized void snapshot() {
+        dirty = false;
+        try {
+            Snapshot snapshot = new Snapshot(System.currentTimeMillis(),
+                    sketch.exportCounters(), sketch.top(SNAPSHOT_KEYWORDS));
+            String value = objectMapper.writeValueAsString(snapshot);
+
+            SystemConfig config = systemConfigRepository.findByConfigKey(SNAPSHOT_KEY)
+                    .orElseGet(() -> new SystemConfig(SNAPSHOT_KEY, null, "热门搜索关键词统计快照"));
+            config.setConfigValue(value);
+            systemConfigRepository.save(config);
+        } catch (Exception e) {
+            dirty = true;
+            log.error("写入热门搜索关键词快照失败", e);
+        }
+    }
+
+    private static String normalize(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return "";
+        }
+        // 与搜索时的清理规则一致，再统一大小写，使 "Java" 与 "java" 合并统计
+        return keyword.replaceAll("[^\\w\\s\\u4e00-\\u9fa5]", " ")
+                .replaceAll("\\s+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 快照内容：保存时间、计数矩阵和热门表
+     */
+    record Snapshot(long savedAt, String counters, List<HotKeywordSketch.Entry> keywords) {
+    }
+}
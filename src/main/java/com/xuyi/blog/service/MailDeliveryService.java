@@ -0,0 +1,255 @@
+package com.xuyi.blog.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 邮件投递服务
+ * 维护可复用的 SMTP 连接池，一组邮件在同一连接上依次发送；所有工作线程共享发送速率限制。
+ * 连接是否可用根据发送结果判断，不在每封邮件前发 NOOP 探测；空闲过久的连接可能已被服务器断开，直接重建
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailDeliveryService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    // 超过此容量的正文缓冲区用完即丢弃，避免一封大邮件长期占用工作线程的内存
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${blog.mail.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${blog.mail.messages-per-connection:100}")
+    private int messagesPerConnection;
+
+    @Value("${blog.mail.connection-idle-timeout:60000}")
+    private long connectionIdleTimeout;
+
+    private final BlockingQueue<PooledTransport> idleTransports = new LinkedBlockingQueue<>();
+    // 每个工作线程复用的正文缓冲区
+    private final ThreadLocal<StringBuilder> bodyBuffer = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+    private long nextSendNanos;
+
+    /**
+     * 依次投递一组邮件，返回与输入顺序一致的结果
+     * 收件地址被服务器拒绝视为永久失败，连接或服务器临时错误视为可重试
+     */
+    public List<DeliveryResult> deliver(List<OutgoingMail> mails) {
+        List<DeliveryResult> results = new ArrayList<>(mails.size());
+        PooledTransport transport = idleTransports.poll();
+        try {
+            for (int i = 0; i < mails.size(); i++) {
+                OutgoingMail mail = mails.get(i);
+                MimeMessage message;
+                try {
+                    message = createMessage(mail);
+                } catch (MessagingException e) {
+                    results.add(DeliveryResult.failed(mail.taskId(), true, e));
+                    continue;
+                }
+
+                if (transport == null || !transport.isUsable()) {
+                    close(transport);
+                    try {
+                        transport = connect();
+                    } catch (MessagingException e) {
+                        // 无法连接时本组剩余邮件全部留待重试
+                        log.warn("连接邮件服务器失败: {}", e.getMessage());
+                        transport = null;
+                        for (int j = i; j < mails.size(); j++) {
+                            results.add(DeliveryResult.failed(mails.get(j).taskId(), false, e));
+                        }
+                        break;
+                    }
+                }
+
+                acquirePermit();
+                try {
+                    transport.send(message);
+                    results.add(DeliveryResult.sent(mail.taskId()));
+                } catch (SendFailedException e) {
+                    Address[] invalid = e.getInvalidAddresses();
+                    results.add(DeliveryResult.failed(mail.taskId(), invalid != null && invalid.length > 0, e));
+                } catch (MessagingException e) {
+                    // 连接可能已损坏，丢弃后重连
+                    close(transport);
+                    transport = null;
+                    results.add(DeliveryResult.failed(mail.taskId(), false, e));
+                }
+            }
+        } finally {
+            if (transport != null) {
+                idleTransports.offer(transport);
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport transport;
+        while ((transport = idleTransports.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    private MimeMessage createMessage(OutgoingMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(mail.to());
+        helper.setSubject(mail.subject());
+        helper.setText(renderBody(mail), true);
+        message.saveChanges();
+        return message;
+    }
+
+    /**
+     * 在当前线程的缓冲区中写入正文，MimeMessageHelper 只接受 String，每封邮件仍会生成一次最终字符串
+     */
+    private String renderBody(OutgoingMail mail) {
+        StringBuilder buffer = bodyBuffer.get();
+        buffer.setLength(0);
+        try {
+            mail.body().writeTo(buffer);
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                bodyBuffer.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp");
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                StringUtils.hasLength(username) ? username : null,
+                StringUtils.hasLength(password) ? password : null);
+        return new PooledTransport(transport);
+    }
+
+    private void close(PooledTransport transport) {
+        if (transport != null) {
+            try {
+                transport.transport.close();
+            } catch (MessagingException e) {
+                log.debug("关闭SMTP连接失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 平滑限速：为每封邮件预留一个发送时间片，未到时间则等待
+     */
+    private void acquirePermit() {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long sendAt;
+        synchronized (this) {
+            long now = System.nanoTime();
+            sendAt = Math.max(now, nextSendNanos);
+            nextSendNanos = sendAt + interval;
+        }
+        long wait = sendAt - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * 连接池中的连接，发送一定数量或空闲超时后主动重建，避免服务器对单连接的发送上限和空闲断开；
+     * 发送出现连接错误时由调用方关闭丢弃
+     */
+    private class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        boolean isUsable() {
+            return sent < messagesPerConnection
+                    && System.nanoTime() - lastUsedNanos < TimeUnit.MILLISECONDS.toNanos(connectionIdleTimeout);
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            sent++;
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+            } finally {
+                lastUsedNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 待投递的邮件，正文在工作线程构建消息时才写入
+     */
+    public record OutgoingMail(Long taskId, String to, String subject, MailBody body) {
+
+        public OutgoingMail(Long taskId, String to, String subject, String html) {
+            this(taskId, to, subject, out -> out.append(html));
+        }
+    }
+
+    /**
+     * 邮件正文，写入投递线程提供的缓冲区
+     */
+    @FunctionalInterface
+    public interface MailBody {
+        void writeTo(StringBuilder out);
+    }
+
+    /**
+     * 投递结果，permanent 表示无需重试
+     */
+    public record DeliveryResult(Long taskId, boolean success, boolean permanent, String error) {
+
+        static DeliveryResult sent(Long taskId) {
+            return new DeliveryResult(taskId, true, false, null);
+        }
+
+        static DeliveryResult failed(Long taskId, boolean permanent, Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (error.length() > MAX_ERROR_LENGTH) {
+                error = error.substring(0, MAX_ERROR_LENGTH);
+            }
+            return new DeliveryResult(taskId, false, permanent, error);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.MailQueueStatsDTO;
+import com.xuyi.blog.entity.MailBatch;
+import com.xuyi.blog.repository.MailBatchRepository;
+import com.xuyi.blog.util.EmailTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 发件队列服务
+ * 群发邮件先写入 mail_queue 表，由独立的调度线程分批认领后交给工作线程池投递，
+ * 失败的邮件按指数退避重试，发送过程异常时已认领的邮件立即放回队列，应用重启后未完成的邮件继续发送
+ * 认领逻辑假定只有一个应用实例消费队列
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MailQueueService {
+
+    private static final String UNSUBSCRIBE_PLACEHOLDER = "unsubscribe_url";
+    // 单条INSERT语句最多包含的收件人数
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int RECENT_BATCHES = 10;
+    // 缓存的已编译批次正文数，同时在发送的批次通常只有一两个
+    private static final int COMPILED_BATCHES = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MailBatchRepository mailBatchRepository;
+    private final MailDeliveryService mailDeliveryService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blog.mail.workers:2}")
+    private int workers;
+
+    @Value("${blog.mail.poll-interval:5000}")
+    private long pollInterval;
+
+    @Value("${blog.mail.batch-size:50}")
+    private int batchSize;
+
+    @Value("${blog.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${blog.mail.retry-backoff:60000}")
+    private long retryBackoff;
+
+    @Value("${blog.mail.max-retry-backoff:21600000}")
+    private long maxRetryBackoff;
+
+    @Value("${blog.mail.retention-days:30}")
+    private int retentionDays;
+
+    private ExecutorService workerPool;
+    private volatile Thread dispatcher;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter retriedCounter;
+    private volatile boolean running;
+
+    private final Map<Long, MailContent> compiledBatches = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, MailContent> eldest) {
+            return size() > COMPILED_BATCHES;
+        }
+    };
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "ApexBlog-Mail-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("blog.mail.queue.pending", pendingCount, AtomicLong::get)
+                .description("等待发送的邮件数")
+                .register(meterRegistry);
+        sentCounter = Counter.builder("blog.mail.sent")
+                .description("发送成功的邮件数")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("blog.mail.failed")
+                .description("最终发送失败的邮件数")
+                .register(meterRegistry);
+        retriedCounter = Counter.builder("blog.mail.retried")
+                .description("发送失败后安排重试的次数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workerPool.shutdown();
+    }
+
+    /**
+     * 启动时把上次未完成（已认领未回写）的邮件放回队列
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int recovered = jdbcTemplate.update("UPDATE mail_queue SET status = 'PENDING' WHERE status = 'SENDING'");
+        if (recovered > 0) {
+            log.info("恢复未完成的邮件: {} 封", recovered);
+        }
+
+        // 发送可能持续数分钟，使用独立线程，避免占用共享的定时任务线程
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "ApexBlog-Mail-Dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * 创建群发批次，正文按 {@link EmailTemplate} 编译，{{unsubscribe_url}} 在发送时渲染为收件人的退订链接
+     */
+    public Long createBatch(String name, String subject, String body) {
+        return mailBatchRepository.save(new MailBatch(name, subject, body)).getId();
+    }
+
+    /**
+     * 创建收件人分段加入的群发批次，加入进度记录在批次上，中断后可从进度处继续
+     */
+    public Long createFanOutBatch(String name, String subject, String body) {
+        MailBatch batch = new MailBatch(name, subject, body);
+        batch.setFanOutCursor(0L);
+        return mailBatchRepository.save(batch).getId();
+    }
+
+    /**
+     * 收件人尚未全部加入队列的批次
+     */
+    public List<Long> getUnfinishedFanOuts() {
+        return mailBatchRepository.findUnfinishedFanOuts();
+    }
+
+    /**
+     * 批次已加入队列的最后一个订阅者ID，全部加入或批次不存在时返回 null
+     */
+    public Long getFanOutCursor(Long batchId) {
+        List<Long> cursors = jdbcTemplate.queryForList(
+                "SELECT fan_out_cursor FROM mail_batches WHERE id = ?", Long.class, batchId);
+        return cursors.isEmpty() ? null : cursors.get(0);
+    }
+
+    /**
+     * 加入一段收件人，并在同一事务内把批次进度推进到这段的最后一个订阅者
+     */
+    @Transactional
+    public void enqueue(Long batchId, List<Recipient> recipients, long fanOutCursor) {
+        enqueue(batchId, recipients);
+        jdbcTemplate.update("UPDATE mail_batches SET fan_out_cursor = ? WHERE id = ?", fanOutCursor, batchId);
+    }
+
+    /**
+     * 标记批次的收件人已全部加入队列
+     */
+    public void completeFanOut(Long batchId) {
+        jdbcTemplate.update("UPDATE mail_batches SET fan_out_cursor = NULL WHERE id = ?", batchId);
+    }
+
+    /**
+     * 将收件人加入批次的发送队列
+     */
+    public void enqueue(Long batchId, List<Recipient> recipients) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < recipients.size(); from += INSERT_BATCH_SIZE) {
+            List<Recipient> chunk = recipients.subList(from, Math.min(from + INSERT_BATCH_SIZE, recipients.size()));
+
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO mail_queue (batch_id, recipient, unsubscribe_url, status, attempts, next_attempt_at, created_at) VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 5);
+            for (int i = 0; i < chunk.size(); i++) {
+                Recipient recipient = chunk.get(i);
+                sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, 'PENDING', 0, ?, ?)");
+                args.add(batchId);
+                args.add(recipient.email());
+                args.add(recipient.unsubscribeUrl());
+                args.add(now);
+                args.add(now);
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+        pendingCount.addAndGet(recipients.size());
+        // 唤醒调度线程；若此时事务尚未提交，则在下一个轮询周期发送
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            dispatch();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollInterval));
+        }
+    }
+
+    /**
+     * 认领到期的邮件并发送，队列积压时连续处理直到取空
+     */
+    private void dispatch() {
+        int claimLimit = workers * batchSize;
+        try {
+            List<ClaimedMail> claimed;
+            do {
+                claimed = claim(claimLimit);
+                if (!claimed.isEmpty()) {
+                    try {
+                        send(claimed);
+                    } catch (RuntimeException e) {
+                        release(claimed, e);
+                        throw e;
+                    }
+                }
+            } while (running && claimed.size() == claimLimit);
+
+            Long pending = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM mail_queue WHERE status = 'PENDING'", Long.class);
+            pendingCount.set(pending != null ? pending : 0);
+        } catch (Exception e) {
+            log.error("处理发件队列失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 每天清理保留期之前已发送成功的邮件记录
+     */
+    @Scheduled(cron = "${blog.mail.cleanup-cron:0 30 3 * * ?}")
+    public void cleanup() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        int deleted = jdbcTemplate.update("DELETE FROM mail_queue WHERE status = 'SENT' AND sent_at < ?", before);
+        if (deleted > 0) {
+            log.info("清理已发送邮件记录: {} 条", deleted);
+        }
+    }
+
+    /**
+     * 获取队列和最近批次的发送进度
+     */
+    public MailQueueStatsDTO getStats() {
+        MailQueueStatsDTO stats = new MailQueueStatsDTO();
+        jdbcTemplate.query("SELECT status, COUNT(*) FROM mail_queue GROUP BY status", rs -> {
+            long count = rs.getLong(2);
+            switch (rs.getString(1)) {
+                case "PENDING" -> stats.setPending(count);
+                case "SENDING" -> stats.setSending(count);
+                case "SENT" -> stats.setSent(count);
+                case "FAILED" -> stats.setFailed(count);
+                default -> { }
+            }
+        });
+        stats.setSentSinceStartup((long) sentCounter.count());
+        stats.setFailedSinceStartup((long) failedCounter.count());
+        stats.setRetriedSinceStartup((long) retriedCounter.count());
+
+        Map<Long, MailQueueStatsDTO.BatchProgress> batches = new LinkedHashMap<>();
+        for (Object[] row : mailBatchRepository.findRecentBatches(PageRequest.of(0, RECENT_BATCHES))) {
+            MailQueueStatsDTO.BatchProgress progress = new MailQueueStatsDTO.BatchProgress();
+            progress.setId((Long) row[0]);
+            progress.setName((String) row[1]);
+            progress.setSubject((String) row[2]);
+            progress.setCreatedAt((LocalDateTime) row[3]);
+            batches.put(progress.getId(), progress);
+        }
+        if (!batches.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(batches.size(), "?"));
+            jdbcTemplate.query("SELECT batch_id, status, COUNT(*) FROM mail_queue WHERE batch_id IN (" + placeholders + ") " +
+                    "GROUP BY batch_id, status", rs -> {
+                MailQueueStatsDTO.BatchProgress progress = batches.get(rs.getLong(1));
+                long count = rs.getLong(3);
+                progress.setTotal(progress.getTotal() + count);
+                switch (rs.getString(2)) {
+                    case "SENT" -> progress.setSent(count);
+                    case "FAILED" -> progress.setFailed(count);
+                    default -> progress.setPending(progress.getPending() + count);
+                }
+            }, batches.keySet().toArray());
+        }
+        stats.setBatches(new ArrayList<>(batches.values()));
+        return stats;
+    }
+
+    /**
+     * 认领一批到期的邮件：先选出ID，再把状态从 PENDING 改为 SENDING
+     */
+    private List<ClaimedMail> claim(int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM mail_queue WHERE status = 'PENDING' AND next_attempt_at <= ? ORDER BY id LIMIT ?",
+                Long.class, Timestamp.valueOf(LocalDateTime.now()), limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("UPDATE mail_queue SET status = 'SENDING', attempts = attempts + 1 " +
+                "WHERE id IN (" + placeholders + ") AND status = 'PENDING'", ids.toArray());
+        return jdbcTemplate.query("SELECT id, batch_id, recipient, unsubscribe_url, attempts FROM mail_queue " +
+                        "WHERE id IN (" + placeholders + ") AND status = 'SENDING' ORDER BY id",
+                (rs, rowNum) -> new ClaimedMail(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5)),
+                ids.toArray());
+    }
+
+    private void send(List<ClaimedMail> claimed) {
+        Map<Long, MailContent> contents = loadContents(claimed);
+
+        List<MailDeliveryService.OutgoingMail> mails = new ArrayList<>(claimed.size());
+        Map<Long, ClaimedMail> byId = new HashMap<>();
+        List<MailDeliveryService.DeliveryResult> results = new ArrayList<>(claimed.size());
+        for (ClaimedMail mail : claimed) {
+            byId.put(mail.id(), mail);
+            MailContent content = contents.get(mail.batchId());
+            if (content == null) {
+                // 批次已被删除，重试也无法发送
+                results.add(new MailDeliveryService.DeliveryResult(mail.id(), false, true, "批次不存在"));
+                continue;
+            }
+            // 正文推迟到工作线程渲染，写入该线程复用的缓冲区，调度线程不再一次生成整组正文
+            EmailTemplate body = content.body();
+            String unsubscribeUrl = mail.unsubscribeUrl();
+            mails.add(new MailDeliveryService.OutgoingMail(mail.id(), mail.recipient(), content.subject(),
+                    out -> body.render(UNSUBSCRIBE_PLACEHOLDER, unsubscribeUrl, out)));
+        }
+
+        // 每个工作线程在一个连接上发送一组
+        List<CompletableFuture<List<MailDeliveryService.DeliveryResult>>> futures = new ArrayList<>();
+        for (int from = 0; from < mails.size(); from += batchSize) {
+            List<MailDeliveryService.OutgoingMail> group = mails.subList(from, Math.min(from + batchSize, mails.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> mailDeliveryService.deliver(group), workerPool));
+        }
+
+        for (CompletableFuture<List<MailDeliveryService.DeliveryResult>> future : futures) {
+            results.addAll(future.join());
+        }
+        record(results, byId);
+    }
+
+    /**
+     * 把未回写结果的已认领邮件放回队列，延迟一个重试间隔，避免同一异常反复触发
+     */
+    private void release(List<ClaimedMail> claimed, Exception cause) {
+        try {
+            Timestamp retryAt = Timestamp.valueOf(LocalDateTime.now().plusNanos(retryBackoff * 1_000_000));
+            String error = String.valueOf(cause.getMessage());
+            List<Object[]> args = new ArrayList<>(claimed.size());
+            for (ClaimedMail mail : claimed) {
+                args.add(new Object[]{retryAt, error.length() > 500 ? error.substring(0, 500) : error, mail.id()});
+            }
+            jdbcTemplate.batchUpdate("UPDATE mail_queue SET status = 'PENDING', next_attempt_at = ?, last_error = ? " +
+                    "WHERE id = ? AND status = 'SENDING'", args);
+        } catch (Exception e) {
+            log.error("放回已认领的邮件失败，将在重启后恢复: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取批次的主题和编译后的正文，只有调度线程访问，已编译的批次直接复用
+     */
+    private Map<Long, MailContent> loadContents(List<ClaimedMail> claimed) {
+        Map<Long, MailContent> contents = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (ClaimedMail mail : claimed) {
+            Long batchId = mail.batchId();
+            if (!contents.containsKey(batchId)) {
+                MailContent content = compiledBatches.get(batchId);
+                if (content != null) {
+                    contents.put(batchId, content);
+                } else if (!missing.contains(batchId)) {
+                    missing.add(batchId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(missing.size(), "?"));
+            jdbcTemplate.query("SELECT id, subject, body FROM mail_batches WHERE id IN (" + placeholders + ")",
+                    rs -> {
+                        MailContent content = new MailContent(rs.getString(2), EmailTemplate.compile(rs.getString(3)));
+                        contents.put(rs.getLong(1), content);
+                        compiledBatches.put(rs.getLong(1), content);
+                    }, missing.toArray());
+        }
+        return contents;
+    }
+
+    /**
+     * 回写发送结果：成功标记 SENT，可重试的失败按指数退避放回队列，其余标记 FAILED
+     */
+    private void record(List<MailDeliveryService.DeliveryResult> results, Map<Long, ClaimedMail> claimed) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+
+        for (MailDeliveryService.DeliveryResult result : results) {
+            if (result.success()) {
+                sent.add(new Object[]{Timestamp.valueOf(now), result.taskId()});
+                continue;
+            }
+            int attempts = claimed.get(result.taskId()).attempts();
+            if (result.permanent() || attempts >= maxAttempts) {
+                failed.add(new Object[]{"FAILED", Timestamp.valueOf(now), result.error(), result.taskId()});
+                failedCounter.increment();
+                log.warn("邮件发送失败（不再重试）: {}, 错误: {}", claimed.get(result.taskId()).recipient(), result.error());
+            } else {
+                long backoff = Math.min(maxRetryBackoff, retryBackoff << Math.min(attempts - 1, 20));
+                failed.add(new Object[]{"PENDING", Timestamp.valueOf(now.plusNanos(backoff * 1_000_000)),
+                        result.error(), result.taskId()});
+                retriedCounter.increment();
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE mail_queue SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?", sent);
+            sentCounter.increment(sent.size());
+        }
+        if (!failed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE mail_queue SET status = ?, next_attempt_at = ?, last_error = ? WHERE id = ?", failed);
+        }
+        log.info("邮件发送完成: 成功 {} 封, 失败 {} 封", sent.size(), failed.size());
+    }
+
+    /**
+     * 收件人及其退订链接
+     */
+    public record Recipient(String email, String unsubscribeUrl) {
+    }
+
+    private record ClaimedMail(Long id, Long batchId, String recipient, String unsubscribeUrl, int attempts) {
+    }
+
+    private record MailContent(String subject, EmailTemplate body) {
+    }
+}
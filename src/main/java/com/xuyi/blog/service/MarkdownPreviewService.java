@@ -0,0 +1,250 @@
+package com.xuyi.blog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.HtmlBlockBase;
+import com.vladsch.flexmark.ast.Reference;
+import com.vladsch.flexmark.util.ast.Node;
+import com.xuyi.blog.dto.MarkdownPreviewDTO;
+import com.xuyi.blog.dto.MarkdownPreviewRequestDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编辑器 Markdown 增量预览
+ * 每个编辑会话缓存上次解析出的顶层块（语法树节点、在文档中的偏移和 HTML）。收到编辑范围后，
+ * 只重新解析与编辑范围相交的块，两侧各多带一个相邻块以覆盖段落合并、列表续行等跨块影响，
+ * 其余块只平移偏移量。以下情况退回整篇解析：会话不存在、编辑范围与缓存文档对不上、
+ * 文档含链接引用定义（影响全篇）、重新解析的片段以未闭合的代码围栏或注释、&lt;pre&gt; 等 HTML 块结尾（会跨过空行吞掉之后的内容）、
+ * 变化的标题与其余标题锚点同名（锚点按整篇去重编号，intro、intro-1，片段内无法得到一致的编号）
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarkdownPreviewService {
+
+    /**
+     * 以结束标记而不是空行结束的 HTML 块的开头，分组 1 为标签名
+     */
+    private static final Pattern HTML_BLOCK_START =
+            Pattern.compile("<(pre|script|style|textarea)(?=[\\s>]|$)|<!--|<\\?|<![A-Za-z]|<!\\[CDATA\\[",
+                    Pattern.CASE_INSENSITIVE);
+
+    private final MarkdownService markdownService;
+
+    @Value("${blog.markdown.preview.max-sessions:200}")
+    private long maxSessions;
+
+    @Value("${blog.markdown.preview.session-ttl:1800000}")
+    private long sessionTtl;
+
+    private Cache<String, PreviewSession> sessions;
+
+    @PostConstruct
+    public void init() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(sessionTtl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 渲染预览
+     *
+     * @param owner   当前用户，会话按用户隔离
+     * @param request 文档和编辑范围
+     */
+    public MarkdownPreviewDTO preview(String owner, MarkdownPreviewRequestDTO request) {
+        String key = owner + ":" + request.getSessionId();
+        String text = request.getContent();
+        PreviewSession session = sessions.getIfPresent(key);
+
+        MarkdownPreviewDTO result = null;
+        if (session != null && request.getEditStart() != null && request.getEditEnd() != null) {
+            // 同一会话的请求按顺序应用
+            synchronized (session) {
+                result = renderIncremental(session, text, request.getEditStart(), request.getEditEnd());
+            }
+        }
+        if (result == null) {
+            result = renderFull(key, text, session != null ? session.blocks.size() : 0);
+        }
+        return result;
+    }
+
+    /**
+     * 结束编辑会话
+     */
+    public void close(String owner, String sessionId) {
+        sessions.invalidate(owner + ":" + sessionId);
+    }
+
+    private MarkdownPreviewDTO renderFull(String key, String text, int previousBlocks) {
+        List<MarkdownService.RenderedBlock> blocks = new ArrayList<>(markdownService.renderBlocks(text, 0));
+        sessions.put(key, new PreviewSession(text, blocks, containsReference(blocks)));
+        return toResult(true, 0, previousBlocks, blocks, blocks.size());
+    }
+
+    /**
+     * 增量渲染，无法增量时返回 null
+     */
+    private MarkdownPreviewDTO renderIncremental(PreviewSession session, String text, int editStart, int editEnd) {
+        String old = session.text;
+        List<MarkdownService.RenderedBlock> blocks = session.blocks;
+        int delta = text.length() - old.length();
+        int oldEditEnd = editEnd - delta;
+        if (session.hasReference || blocks.isEmpty()
+                || editStart < 0 || editStart > editEnd || editEnd > text.length()
+                || oldEditEnd < editStart || oldEditEnd > old.length()
+                || !text.regionMatches(0, old, 0, editStart)
+                || !text.regionMatches(editEnd, old, oldEditEnd, old.length() - oldEditEnd)) {
+            return null;
+        }
+
+        // 与编辑范围相交的块，两侧各扩一块
+        int first = 0;
+        while (first + 1 < blocks.size() && blocks.get(first + 1).start() <= editStart) {
+            first++;
+        }
+        first = Math.max(0, first - 1);
+        int last = blocks.size() - 1;
+        while (last > 0 && blocks.get(last - 1).end() >= oldEditEnd) {
+            last--;
+        }
+        last = Math.min(blocks.size() - 1, Math.max(last, first) + 1);
+
+        int regionStart = first == 0 ? 0 : blocks.get(first).start();
+        int regionEnd = (last == blocks.size() - 1 ? old.length() : blocks.get(last).end()) + delta;
+        List<MarkdownService.RenderedBlock> rendered =
+                markdownService.renderBlocks(text.substring(regionStart, regionEnd), regionStart);
+        if (containsReference(rendered)) {
+            return null;
+        }
+        if (!rendered.isEmpty() && regionEnd < text.length()
+                && isUnclosed(rendered.get(rendered.size() - 1).node())) {
+            return null;
+        }
+        Set<String> changedHeadings = headingIds(blocks.subList(first, last + 1));
+        changedHeadings.addAll(headingIds(rendered));
+        if (!changedHeadings.isEmpty()) {
+            Set<String> otherHeadings = headingIds(blocks.subList(0, first));
+            otherHeadings.addAll(headingIds(blocks.subList(last + 1, blocks.size())));
+            if (!Collections.disjoint(changedHeadings, otherHeadings)) {
+                return null;
+            }
+        }
+
+        List<MarkdownService.RenderedBlock> updated = new ArrayList<>(blocks.size() - (last - first + 1) + rendered.size());
+        updated.addAll(blocks.subList(0, first));
+        updated.addAll(rendered);
+        for (MarkdownService.RenderedBlock block : blocks.subList(last + 1, blocks.size())) {
+            updated.add(new MarkdownService.RenderedBlock(block.node(), block.start() + delta, block.end() + delta,
+                    block.html()));
+        }
+        session.text = text;
+        session.blocks = updated;
+
+        log.debug("增量预览: 文档 {} 字符, 重新解析 {} 字符, 替换块 [{}, {}] 为 {} 块",
+                text.length(), regionEnd - regionStart, first, last, rendered.size());
+        return toResult(false, first, last - first + 1, rendered, updated.size());
+    }
+
+    /**
+     * 未闭合时会跨过空行一直延续到结束标记的块：代码围栏，以及注释、&lt;?、&lt;!、CDATA 和 pre/script/style/textarea 开头的 HTML 块
+     */
+    private static boolean isUnclosed(Node node) {
+        if (node instanceof FencedCodeBlock fence) {
+            return fence.getClosingMarker().isEmpty();
+        }
+        if (!(node instanceof HtmlBlockBase)) {
+            return false;
+        }
+        String html = node.getChars().toString().stripLeading();
+        Matcher matcher = HTML_BLOCK_START.matcher(html);
+        if (!matcher.lookingAt()) {
+            return false;
+        }
+        String closing;
+        if (matcher.group(1) != null) {
+            closing = "</" + matcher.group(1).toLowerCase(Locale.ROOT) + ">";
+            html = html.toLowerCase(Locale.ROOT);
+        } else if (html.startsWith("<!--")) {
+            closing = "-->";
+        } else if (html.startsWith("<?")) {
+            closing = "?>";
+        } else if (html.startsWith("<![CDATA[")) {
+            closing = "]]>";
+        } else {
+            closing = ">";
+        }
+        return html.indexOf(closing, matcher.end()) < 0;
+    }
+
+    private static boolean containsReference(List<MarkdownService.RenderedBlock> blocks) {
+        return blocks.stream().anyMatch(block -> block.node() instanceof Reference);
+    }
+
+    /**
+     * 块内标题的锚点，去掉末尾的 -N 去重编号后比较（会把本身以 -数字 结尾的锚点也视为同名，只会多退回整篇解析）
+     */
+    private static Set<String> headingIds(List<MarkdownService.RenderedBlock> blocks) {
+        Set<String> ids = new HashSet<>();
+        for (MarkdownService.RenderedBlock block : blocks) {
+            addHeadingId(block.node(), ids);
+            for (Node node : block.node().getDescendants()) {
+                addHeadingId(node, ids);
+            }
+        }
+        return ids;
+    }
+
+    private static void addHeadingId(Node node, Set<String> ids) {
+        if (node instanceof Heading heading && heading.getAnchorRefId() != null) {
+            ids.add(heading.getAnchorRefId().replaceFirst("-\\d+$", ""));
+        }
+    }
+
+    private static MarkdownPreviewDTO toResult(boolean full, int from, int removed,
+                                               List<MarkdownService.RenderedBlock> blocks, int totalBlocks) {
+        MarkdownPreviewDTO dto = new MarkdownPreviewDTO();
+        dto.setFull(full);
+        dto.setFrom(from);
+        dto.setRemoved(removed);
+        dto.setBlocks(blocks.stream().map(MarkdownService.RenderedBlock::html).toList());
+        dto.setTotalBlocks(totalBlocks);
+        return dto;
+    }
+
+    /**
+     * 编辑会话的缓存状态
+     */
+    private static final class PreviewSession {
+
+        private String text;
+        private List<MarkdownService.RenderedBlock> blocks;
+        private final boolean hasReference;
+
+        PreviewSession(String text, List<MarkdownService.RenderedBlock> blocks, boolean hasReference) {
+            this.text = text;
+            this.blocks = blocks;
+            this.hasReference = hasReference;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.xuyi.blog.service;
+
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
+import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.gfm.tasklist.TaskListExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.AttributeProvider;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
+import com.vladsch.flexmark.html.renderer.AttributablePart;
+import com.vladsch.flexmark.html.renderer.HeaderIdGenerator;
+import com.vladsch.flexmark.html.renderer.LinkResolverContext;
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.ast.TextCollectingVisitor;
+import com.vladsch.flexmark.util.data.DataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import com.vladsch.flexmark.util.html.MutableAttributes;
+import com.vladsch.flexmark.util.misc.CharPredicate;
+import com.vladsch.flexmark.util.sequence.Escaping;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.util.CodeHighlighter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Markdown 渲染服务
+ * 文章保存时把正文渲染成 HTML：原始 HTML 一律转义，链接和图片地址只保留 http/https/mailto 和相对地址，标题生成锚点，
+ * 代码块在服务端高亮，另外抽取目录。渲染结果按正文的 SHA-256 落库，正文不变时不重复渲染
+ *
+ * @author xuyi
+ */
+@Service
+@Slf4j
+public class MarkdownService {
+
+    private static final int BATCH_SIZE = 100;
+    // 目录收录到四级标题
+    private static final int TOC_MAX_LEVEL = 4;
+    private static final Set<String> SAFE_SCHEMES = Set.of("http", "https", "mailto");
+    private static final Pattern URL_SCHEME = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*):");
+
+    private final ArticleRepository articleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataHolder options;
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    public MarkdownService(ArticleRepository articleRepository, JdbcTemplate jdbcTemplate) {
+        this.articleRepository = articleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+
+        MutableDataSet options = new MutableDataSet();
+        options.set(Parser.EXTENSIONS, List.of(
+                TablesExtension.create(),
+                StrikethroughExtension.create(),
+                TaskListExtension.create(),
+                AutolinkExtension.create(),
+                AnchorLinkExtension.create()));
+        options.set(HtmlRenderer.ESCAPE_HTML, true);
+        options.set(HtmlRenderer.GENERATE_HEADER_ID, true);
+        options.set(HtmlRenderer.RENDER_HEADER_ID, true);
+        options.set(AnchorLinkExtension.ANCHORLINKS_WRAP_TEXT, false);
+        options.set(AnchorLinkExtension.ANCHORLINKS_SET_ID, false);
+        options.set(AnchorLinkExtension.ANCHORLINKS_SET_NAME, false);
+        options.set(AnchorLinkExtension.ANCHORLINKS_ANCHOR_CLASS, "heading-anchor");
+        this.options = options.toImmutable();
+
+        this.parser = Parser.builder(this.options).build();
+        this.renderer = HtmlRenderer.builder(this.options)
+                .nodeRendererFactory(dataHolder -> new HighlightedCodeRenderer())
+                .attributeProviderFactory(new IndependentAttributeProviderFactory() {
+                    @Override
+                    public AttributeProvider apply(LinkResolverContext context) {
+                        return new SafeUrlAttributeProvider();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 正文变化时重新渲染，返回是否渲染过
+     */
+    public boolean renderIfChanged(Article article) {
+        String hash = contentHash(article.getContent());
+        if (hash.equals(article.getContentHash()) && article.getContentHtml() != null) {
+            return false;
+        }
+        RenderedMarkdown rendered = render(article.getContent());
+        article.setContentHtml(rendered.html());
+        article.setTocHtml(rendered.tocHtml());
+        article.setContentHash(hash);
+        return true;
+    }
+
+    /**
+     * 渲染 Markdown
+     */
+    public RenderedMarkdown render(String markdown) {
+        Document document = parse(markdown);
+        new HeaderIdGenerator(options).generateIds(document);
+        return new RenderedMarkdown(renderer.render(document), renderToc(document));
+    }
+
+    public Document parse(String markdown) {
+        return parser.parse(markdown != null ? markdown : "");
+    }
+
+    /**
+     * 解析后逐个渲染顶层块，用于编辑器预览；标题锚点只在片段内去重编号
+     *
+     * @param markdown 待解析的片段
+     * @param offset   片段在整篇文档中的起始位置，加到块的偏移上
+     */
+    public List<RenderedBlock> renderBlocks(String markdown, int offset) {
+        Document document = parse(markdown);
+        new HeaderIdGenerator(options).generateIds(document);
+        List<RenderedBlock> blocks = new ArrayList<>();
+        for (Node node : document.getChildren()) {
+            blocks.add(new RenderedBlock(node, offset + node.getStartOffset(), offset + node.getEndOffset(),
+                    renderer.render(node)));
+        }
+        return blocks;
+    }
+
+    /**
+     * 启动时补齐还没有渲染结果的文章，直接按ID写回，不改动 updated_at
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void renderMissing() {
+        long start = System.currentTimeMillis();
+        int rendered = 0;
+        long lastId = 0;
+        Slice<Article> slice;
+        do {
+            slice = articleRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, BATCH_SIZE));
+            List<Object[]> args = new ArrayList<>(slice.getNumberOfElements());
+            for (Article article : slice.getContent()) {
+                RenderedMarkdown result = render(article.getContent());
+                args.add(new Object[]{result.html(), result.tocHtml(), contentHash(article.getContent()), article.getId()});
+                lastId = article.getId();
+            }
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "UPDATE articles SET content_html = ?, toc_html = ?, content_hash = ? WHERE id = ?", args);
+                rendered += args.size();
+            }
+        } while (slice.hasNext());
+
+        if (rendered > 0) {
+            log.info("补齐文章渲染结果: {} 篇, 耗时 {} ms", rendered, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 按标题层级生成嵌套目录，没有标题时返回 null
+     */
+    private String renderToc(Document document) {
+        TextCollectingVisitor textCollector = new TextCollectingVisitor();
+        StringBuilder toc = new StringBuilder();
+        int depth = 0;
+        int[] levels = new int[TOC_MAX_LEVEL + 1];
+        for (Node node : document.getDescendants()) {
+            if (!(node instanceof Heading heading) || heading.getLevel() > TOC_MAX_LEVEL) {
+                continue;
+            }
+            int level = heading.getLevel();
+            if (depth == 0 || level > levels[depth]) {
+                toc.append("<ul>");
+                levels[++depth] = level;
+            } else {
+                toc.append("</li>");
+                while (depth > 1 && level < levels[depth]) {
+                    toc.append("</ul></li>");
+                    depth--;
+                }
+            }
+            toc.append("<li><a href=\"#").append(Escaping.escapeHtml(heading.getAnchorRefId(), true)).append("\">")
+                    .append(Escaping.escapeHtml(textCollector.collectAndGetText(heading), false))
+                    .append("</a>");
+        }
+        if (depth == 0) {
+            return null;
+        }
+        while (depth-- > 0) {
+            toc.append("</li></ul>");
+        }
+        return "<nav class=\"toc\">" + toc + "</nav>";
+    }
+
+    /**
+     * 链接地址是否允许输出
+     * 按浏览器的解析方式判断：先解码 HTML 实体，再去掉空白和控制字符（浏览器会忽略地址中的制表符和换行），
+     * 带协议时只允许 http/https/mailto，不带协议的相对地址和 # 锚点都允许
+     */
+    static boolean isSafeUrl(String url) {
+        String decoded = Escaping.unescapeHtml(url);
+        StringBuilder normalized = new StringBuilder(decoded.length());
+        for (int i = 0; i < decoded.length(); i++) {
+            char c = decoded.charAt(i);
+            if (c > ' ' && c != 0x7F) {
+                normalized.append(c);
+            }
+        }
+        Matcher matcher = URL_SCHEME.matcher(normalized);
+        return !matcher.find() || SAFE_SCHEMES.contains(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 内容哈希，SHA-256 十六进制
+     */
+    public static String contentHash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest((content != null ? content : "").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 渲染结果
+     *
+     * @param html    正文 HTML
+     * @param tocHtml 目录 HTML，没有标题时为 null
+     */
+    public record RenderedMarkdown(String html, String tocHtml) {
+    }
+
+    /**
+     * 渲染后的顶层块
+     *
+     * @param node  块的语法树节点
+     * @param start 块在整篇文档中的起始偏移
+     * @param end   块在整篇文档中的结束偏移（不含）
+     * @param html  块的 HTML
+     */
+    public record RenderedBlock(Node node, int start, int end, String html) {
+    }
+
+    /**
+     * 链接、自动链接和图片的地址不安全时去掉 href/src 属性，只保留文字
+     */
+    private static final class SafeUrlAttributeProvider implements AttributeProvider {
+
+        @Override
+        public void setAttributes(Node node, AttributablePart part, MutableAttributes attributes) {
+            for (String name : new String[]{"href", "src"}) {
+                String url = attributes.getValue(name);
+                if (attributes.contains(name) && !isSafeUrl(url)) {
+                    attributes.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * 围栏代码块渲染器，代码在服务端高亮，语言名只保留安全字符
+     */
+    private static final class HighlightedCodeRenderer implements NodeRenderer {
+
+        @Override
+        public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+            return Set.of(new NodeRenderingHandler<>(FencedCodeBlock.class, this::render));
+        }
+
+        private void render(FencedCodeBlock node, NodeRendererContext context, HtmlWriter html) {
+            String language = node.getInfoDelimitedByAny(CharPredicate.SPACE_TAB).unescape()
+                    .replaceAll("[^A-Za-z0-9_+#-]", "");
+            html.line();
+            html.raw(language.isEmpty() ? "<pre><code>" : "<pre><code class=\"language-" + language + "\">");
+            html.raw(CodeHighlighter.highlight(language, node.getContentChars().normalizeEOL()));
+            html.raw("</code></pre>");
+            html.line();
+        }
+    }
+}
@@ -30,7 +30,7 @@ public class PortfolioService {
     /**
      * 获取所有作品集
      */
-    // @Cacheable(value = "portfolios", key = "'all'")
+    @Cacheable(value = "portfolios", key = "'all'")
     public List<PortfolioDTO> getAllPortfolios() {
         List<Portfolio> portfolios = portfolioRepository.findAllByOrderBySortOrderAsc();
         return portfolios.stream()
@@ -41,7 +41,7 @@ public class PortfolioService {
     /**
      * 获取精选作品集
      */
-    // @Cacheable(value = "portfolios", key = "'featured'")
+    @Cacheable(value = "portfolios", key = "'featured'")
     public List<PortfolioDTO> getFeaturedPortfolios() {
         List<Portfolio> portfolios = portfolioRepository.findByIsFeaturedTrueOrderBySortOrderAsc();
         return portfolios.stream()
@@ -52,7 +52,7 @@ public class PortfolioService {
     /**
      * 根据ID获取作品集
      */
-    // @Cacheable(value = "portfolio", key = "#id")
+    @Cacheable(value = "portfolio", key = "#id")
     public PortfolioDTO getPortfolioById(Long id) {
         Portfolio portfolio = portfolioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("作品集不存在"));
@@ -63,7 +63,7 @@ public class PortfolioService {
      * 创建作品集
      */
     @Transactional
-    // @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
+    @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
     public PortfolioDTO createPortfolio(PortfolioRequestDTO request) {
         Portfolio portfolio = new Portfolio();
         portfolio.setName(request.getName());
@@ -84,7 +84,7 @@ public class PortfolioService {
      * 更新作品集
      */
     @Transactional
-    // @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
+    @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
     public PortfolioDTO updatePortfolio(Long id, PortfolioRequestDTO request) {
         Portfolio portfolio = portfolioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("作品集不存在"));
@@ -107,7 +107,7 @@ public class PortfolioService {
      * 删除作品集
      */
     @Transactional
-    // @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
+    @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
     public void deletePortfolio(Long id) {
         Portfolio portfolio = portfolioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("作品集不存在"));
@@ -120,7 +120,7 @@ public class PortfolioService {
      * 设置精选状态
      */
     @Transactional
-    // @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
+    @CacheEvict(value = {"portfolios", "portfolio"}, allEntries = true)
     public void setFeatured(Long id, boolean featured) {
         Portfolio portfolio = portfolioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("作品集不存在"));
@@ -1,26 +1,68 @@
 package com.xuyi.blog.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xuyi.blog.dto.QueryDigestDTO;
 import com.xuyi.blog.dto.QueryStatsDTO;
 import com.xuyi.blog.dto.QueryRecord;
+import com.xuyi.blog.util.QueryDigest;
+import com.xuyi.blog.util.SqlFingerprint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.HdrHistogram.Histogram;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 查询统计服务
+ * 语句耗时、行数和连接获取等待由 {@link com.xuyi.blog.interceptor.QueryTimingDataSource} 实测后上报，
+ * 同时计入当前请求统计、按SQL指纹打标签的 Micrometer 指标和按指纹汇总的语句摘要表；
+ * 请求内同一指纹重复超过阈值视为 N+1 查询，并按 {@link com.xuyi.blog.interceptor.QueryBudget} 检查接口查询预算
  * 
  * @author xuyi
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class QueryStatsService {
+
+    private final MeterRegistry meterRegistry;
+
+    // 按指纹打标签的指标数上限，超出的语句计入 other，避免标签基数无限增长
+    @Value("${blog.query-stats.max-fingerprints:200}")
+    private int maxFingerprints;
+
+    // 语句摘要表最多保留的指纹数，满时由 Caffeine 按访问频率淘汰，偶发的新语句不会挤掉常用语句
+    @Value("${blog.query-stats.digest-capacity:500}")
+    private int digestCapacity;
+
+    // 超过该时间（毫秒）没有再执行的语句从摘要表移除
+    @Value("${blog.query-stats.digest-idle-timeout:3600000}")
+    private long digestIdleTimeout;
+
+    // 同一请求内同一指纹执行超过该次数视为 N+1 查询
+    @Value("${blog.query-stats.n-plus-one-threshold:5}")
+    private int nPlusOneThreshold;
+
+    // 超出查询预算时由 QueryBudgetFilter 在请求结束后抛出异常，测试环境开启
+    @Value("${blog.query-stats.budget.fail-on-exceed:false}")
+    private boolean failOnBudgetExceeded;
     
     // 使用ThreadLocal存储当前请求的查询统计
     private final ThreadLocal<QueryStatsDTO> currentRequestStats = new ThreadLocal<>();
@@ -28,13 +70,38 @@ public class QueryStatsService {
     // 使用ThreadLocal存储当前请求的查询记录
     private final ThreadLocal<List<QueryRecord>> currentRequestQueries = new ThreadLocal<>();
 
+    // 使用ThreadLocal存储当前请求的查询预算和各指纹的执行次数
+    private final ThreadLocal<RequestBudget> currentRequestBudget = new ThreadLocal<>();
+
     // 全局查询统计缓存（最近100个请求）
     private final Map<String, QueryStatsDTO> globalStats = new ConcurrentHashMap<>();
-    private final Queue<String> requestQueue = new LinkedList<>();
+    private final Queue<String> requestQueue = new LinkedBlockingQueue<>();
     private static final int MAX_CACHED_REQUESTS = 100;
 
     // 慢查询阈值（毫秒）
     private static final long SLOW_QUERY_THRESHOLD = 100;
+    private static final long SLOW_QUERY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(SLOW_QUERY_THRESHOLD);
+
+    // 原始SQL到指纹的缓存，Hibernate 生成的语句文本是固定的，归一化只做一次
+    private static final int MAX_CACHED_SQL = 4096;
+    private static final String OTHER_FINGERPRINT = "other";
+    private final Map<String, SqlFingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, QueryMeters> queryMeters = new ConcurrentHashMap<>();
+    private Cache<String, QueryDigest> digests;
+    private Timer connectionAcquireTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        connectionAcquireTimer = Timer.builder("blog.db.connection.acquire")
+                .description("从连接池获取连接的等待时间")
+                .register(meterRegistry);
+        // 淘汰在记录线程上顺带完成，不占用公共线程池
+        digests = Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumSize(digestCapacity)
+                .expireAfterAccess(digestIdleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
     
     /**
      * 开始统计当前请求
@@ -59,6 +126,7 @@ public class QueryStatsService {
 
                 currentRequestStats.set(stats);
                 currentRequestQueries.set(new ArrayList<>());
+                currentRequestBudget.set(new RequestBudget(nPlusOneThreshold));
                 
                 log.debug("开始统计请求: {} {}", requestMethod, requestPath);
             }
@@ -68,27 +136,139 @@ public class QueryStatsService {
     }
     
     /**
-     * 添加查询记录
+     * 绑定当前请求的接口和查询预算
+     *
+     * @param endpoint   接口名（控制器类名.方法名），用作指标标签
+     * @param maxQueries SQL条数上限，-1 表示不限制
+     * @param maxRepeats 同一指纹重复次数上限，-1 表示使用全局阈值
      */
-    public void addQuery(String sql, String queryType) {
-        try {
-            List<QueryRecord> queries = currentRequestQueries.get();
-            if (queries != null) {
-                // 生成更真实的执行时间（1-100ms）
-                long executionTime = (long) (Math.random() * 99) + 1;
+    public void bindEndpoint(String endpoint, int maxQueries, int maxRepeats) {
+        RequestBudget budget = currentRequestBudget.get();
+        if (budget != null) {
+            budget.endpoint = endpoint;
+            budget.maxQueries = maxQueries;
+            if (maxRepeats >= 0) {
+                budget.maxRepeats = maxRepeats;
+            }
+        }
+    }
+
+    /**
+     * 记录一次语句执行
+     *
+     * @param sql                 原始SQL
+     * @param connectionWaitNanos 连接获取等待，只有连接上的第一条语句非零
+     * @param executeNanos        语句执行耗时
+     * @param fetchNanos          结果集读取耗时
+     * @param rows                返回或影响的行数
+     */
+    public void recordQuery(String sql, long connectionWaitNanos, long executeNanos, long fetchNanos, long rows) {
+        SqlFingerprint fingerprint = fingerprint(sql);
+        metersFor(fingerprint).record(executeNanos, fetchNanos, rows);
+
+        long totalNanos = executeNanos + fetchNanos;
+        QueryDigest digest = digestFor(fingerprint);
+        digest.record(totalNanos, rows);
+        if (totalNanos >= SLOW_QUERY_THRESHOLD_NANOS) {
+            QueryStatsDTO stats = currentRequestStats.get();
+            String requestPath = stats != null ? stats.getRequestPath() : "thread:" + Thread.currentThread().getName();
+            digest.recordSlow(new QueryDigest.SlowSample(sql, requestPath, totalNanos, rows, System.currentTimeMillis()));
+            log.warn("慢查询: {}ms, {} 行, 指纹 {}, 请求 {}", TimeUnit.NANOSECONDS.toMillis(totalNanos), rows,
+                    fingerprint.getFingerprint(), requestPath);
+        }
+
+        List<QueryRecord> queries = currentRequestQueries.get();
+        if (queries != null) {
+            QueryRecord queryRecord = new QueryRecord(sql, fingerprint.getQueryType());
+            queryRecord.setFingerprint(fingerprint.getFingerprint());
+            queryRecord.setExecuteNanos(executeNanos);
+            queryRecord.setFetchNanos(fetchNanos);
+            queryRecord.setConnectionWaitNanos(connectionWaitNanos);
+            queryRecord.setRows(rows);
+            queryRecord.setExecutionTime(TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            queryRecord.setEndTime(LocalDateTime.now());
+            queryRecord.setStartTime(queryRecord.getEndTime().minusNanos(totalNanos));
+            queries.add(queryRecord);
+            checkBudget(fingerprint, queries.size());
 
-                QueryRecord queryRecord = new QueryRecord(sql, queryType);
-                queryRecord.setExecutionTime(executionTime);
-                queryRecord.setEndTime(LocalDateTime.now());
+            log.debug("添加查询记录: {} {} - 执行 {}us, 读取 {}us, {} 行", fingerprint.getQueryType(),
+                    fingerprint.getFingerprint(), executeNanos / 1000, fetchNanos / 1000, rows);
+        }
+    }
 
-                // 添加到查询列表
-                queries.add(queryRecord);
+    /**
+     * 记录一次连接获取等待
+     */
+    public void recordConnectionAcquire(long nanos) {
+        connectionAcquireTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
 
-                log.debug("添加查询记录: {} - {}ms", queryType, executionTime);
+    private SqlFingerprint fingerprint(String sql) {
+        SqlFingerprint fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            if (fingerprints.size() >= MAX_CACHED_SQL) {
+                fingerprints.clear();
             }
-        } catch (Exception e) {
-            log.error("添加查询记录失败", e);
+            fingerprint = SqlFingerprint.of(sql);
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 检查N+1和查询预算，每种超出在一个请求内只报告一次
+     * 这里只记录，不抛异常：调用方是 JDBC 代理的 close 路径，抛出会打断资源释放
+     */
+    private void checkBudget(SqlFingerprint fingerprint, int queryCount) {
+        RequestBudget budget = currentRequestBudget.get();
+        if (budget == null) {
+            return;
+        }
+        int repeats = budget.repeats.merge(fingerprint.getFingerprint(), 1, Integer::sum);
+        if (repeats == budget.maxRepeats + 1) {
+            reportBudgetExceeded("blog.db.n_plus_one", budget, String.format(
+                    "疑似N+1查询: %s 同一语句执行超过 %d 次: %s",
+                    budget.endpoint, budget.maxRepeats, fingerprint.getNormalized()));
+        }
+        if (budget.maxQueries >= 0 && queryCount == budget.maxQueries + 1) {
+            reportBudgetExceeded("blog.db.query.budget.exceeded", budget, String.format(
+                    "超出查询预算: %s 最多 %d 条SQL，第 %d 条: %s",
+                    budget.endpoint, budget.maxQueries, queryCount, fingerprint.getNormalized()));
+        }
+    }
+
+    private void reportBudgetExceeded(String metric, RequestBudget budget, String message) {
+        Counter.builder(metric)
+                .tag("endpoint", budget.endpoint)
+                .register(meterRegistry)
+                .increment();
+        if (budget.violation == null) {
+            budget.violation = message;
         }
+        log.warn(message);
+    }
+
+    /**
+     * 超出查询预算时是否让请求失败
+     */
+    public boolean isFailOnBudgetExceeded() {
+        return failOnBudgetExceeded;
+    }
+
+    private QueryDigest digestFor(SqlFingerprint fingerprint) {
+        return digests.get(fingerprint.getFingerprint(), key -> new QueryDigest(fingerprint));
+    }
+
+    private QueryMeters metersFor(SqlFingerprint fingerprint) {
+        QueryMeters meters = queryMeters.get(fingerprint.getFingerprint());
+        if (meters != null) {
+            return meters;
+        }
+        if (queryMeters.size() >= maxFingerprints) {
+            return queryMeters.computeIfAbsent(OTHER_FINGERPRINT, key -> new QueryMeters(key, "UNKNOWN"));
+        }
+        return queryMeters.computeIfAbsent(fingerprint.getFingerprint(),
+                key -> new QueryMeters(key, fingerprint.getQueryType()));
     }
     
     /**
@@ -113,6 +293,7 @@ public class QueryStatsService {
                 // 清理ThreadLocal
                 currentRequestStats.remove();
                 currentRequestQueries.remove();
+                currentRequestBudget.remove();
 
                 return result;
             }
@@ -127,7 +308,7 @@ public class QueryStatsService {
      * 复制统计对象
      */
     private QueryStatsDTO copyStats(QueryStatsDTO original) {
-        return new QueryStatsDTO(
+        QueryStatsDTO copy = new QueryStatsDTO(
             original.getRequestId(),
             original.getRequestPath(),
             original.getRequestMethod(),
@@ -136,6 +317,15 @@ public class QueryStatsService {
             original.getAverageExecutionTime(),
             original.getSlowestQueryTime()
         );
+        copy.setTotalFetchTime(original.getTotalFetchTime());
+        copy.setConnectionWaitTime(original.getConnectionWaitTime());
+        copy.setTotalRows(original.getTotalRows());
+        copy.setSlowQueries(original.getSlowQueries());
+        copy.setRepeatedQueries(original.getRepeatedQueries());
+        copy.setBudgetExceeded(original.getBudgetExceeded());
+        copy.setBudgetViolation(original.getBudgetViolation());
+        copy.setQueryTypeStats(original.getQueryTypeStats());
+        return copy;
     }
     
     /**
@@ -159,13 +349,61 @@ public class QueryStatsService {
         return globalStats.get(requestId);
     }
     
+    /**
+     * 获取语句摘要，按总耗时降序
+     */
+    public List<QueryDigestDTO> getDigests(int limit) {
+        return digests.asMap().values().stream()
+                .filter(digest -> digest.getCount() > 0)
+                .sorted(Comparator.comparingLong(QueryDigest::getTotalNanos).reversed())
+                .limit(limit)
+                .map(this::toDigestDTO)
+                .toList();
+    }
+
     /**
      * 清理统计数据
      */
     public void clearStats() {
         globalStats.clear();
         requestQueue.clear();
+        digests.invalidateAll();
         currentRequestStats.remove();
+        currentRequestBudget.remove();
+    }
+
+    private QueryDigestDTO toDigestDTO(QueryDigest digest) {
+        QueryDigestDTO dto = new QueryDigestDTO();
+        dto.setFingerprint(digest.getFingerprint().getFingerprint());
+        dto.setNormalizedSql(digest.getFingerprint().getNormalized());
+        dto.setQueryType(digest.getFingerprint().getQueryType());
+        long count = digest.getCount();
+        dto.setCount(count);
+        dto.setTotalTime(toMillis(digest.getTotalNanos()));
+        dto.setAverageTime(toMillis(digest.getTotalNanos() / count));
+        dto.setMinTime(toMillis(digest.getMinNanos()));
+        dto.setMaxTime(toMillis(digest.getMaxNanos()));
+        // 直方图以微秒记录
+        Histogram histogram = digest.histogramSnapshot();
+        dto.setP50(histogram.getValueAtPercentile(50) / 1000.0);
+        dto.setP95(histogram.getValueAtPercentile(95) / 1000.0);
+        dto.setP99(histogram.getValueAtPercentile(99) / 1000.0);
+        dto.setRows(digest.getRows());
+        dto.setSlowCount(digest.getSlowCount());
+        dto.setSlowSamples(digest.getSlowSamples().stream().map(sample -> {
+            QueryDigestDTO.SlowQueryDTO slow = new QueryDigestDTO.SlowQueryDTO();
+            slow.setSql(sample.sql());
+            slow.setRequestPath(sample.requestPath());
+            slow.setExecutionTime(toMillis(sample.nanos()));
+            slow.setRows(sample.rows());
+            slow.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(sample.timestamp()), ZoneId.systemDefault()));
+            return slow;
+        }).toList());
+        return dto;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
     }
 
     
@@ -179,30 +417,61 @@ public class QueryStatsService {
         if (queries != null && !queries.isEmpty()) {
             stats.setTotalQueries(queries.size());
 
-            long totalTime = 0;
-            long slowestTime = 0;
+            long totalNanos = 0;
+            long slowestNanos = 0;
+            long fetchNanos = 0;
+            long waitNanos = 0;
+            long rows = 0;
+            int slowQueries = 0;
+            Map<String, Integer> queryTypeStats = new HashMap<>();
 
             for (QueryRecord query : queries) {
-                Long executionTime = query.getExecutionTime();
-                if (executionTime != null) {
-                    totalTime += executionTime;
-                    if (executionTime > slowestTime) {
-                        slowestTime = executionTime;
-                    }
+                long queryNanos = query.getExecuteNanos() + query.getFetchNanos();
+                totalNanos += queryNanos;
+                slowestNanos = Math.max(slowestNanos, queryNanos);
+                fetchNanos += query.getFetchNanos();
+                waitNanos += query.getConnectionWaitNanos();
+                rows += query.getRows();
+                if (queryNanos >= SLOW_QUERY_THRESHOLD_NANOS) {
+                    slowQueries++;
                 }
+                queryTypeStats.merge(query.getQueryType(), 1, Integer::sum);
             }
 
-            stats.setTotalExecutionTime(totalTime);
-            stats.setAverageExecutionTime((double) totalTime / queries.size());
-            stats.setSlowestQueryTime(slowestTime);
+            stats.setTotalExecutionTime(TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            stats.setAverageExecutionTime(totalNanos / 1_000_000.0 / queries.size());
+            stats.setSlowestQueryTime(TimeUnit.NANOSECONDS.toMillis(slowestNanos));
+            stats.setTotalFetchTime(fetchNanos / 1_000_000.0);
+            stats.setConnectionWaitTime(waitNanos / 1_000_000.0);
+            stats.setTotalRows(rows);
+            stats.setSlowQueries(slowQueries);
+            stats.setQueryTypeStats(queryTypeStats);
 
-            log.debug("计算统计完成: 查询数={}, 总耗时={}ms, 平均耗时={}ms, 最慢={}ms",
-                queries.size(), totalTime, (double) totalTime / queries.size(), slowestTime);
+            RequestBudget budget = currentRequestBudget.get();
+            if (budget != null) {
+                Map<String, Integer> repeatedQueries = new HashMap<>();
+                for (QueryRecord query : queries) {
+                    Integer repeats = budget.repeats.get(query.getFingerprint());
+                    if (repeats != null && repeats > budget.maxRepeats) {
+                        repeatedQueries.putIfAbsent(fingerprint(query.getSql()).getNormalized(), repeats);
+                    }
+                }
+                stats.setRepeatedQueries(repeatedQueries);
+                stats.setBudgetExceeded(!repeatedQueries.isEmpty()
+                        || budget.maxQueries >= 0 && queries.size() > budget.maxQueries);
+                stats.setBudgetViolation(budget.violation);
+            }
         } else {
             stats.setTotalQueries(0);
             stats.setTotalExecutionTime(0L);
             stats.setAverageExecutionTime(0.0);
             stats.setSlowestQueryTime(0L);
+            stats.setTotalFetchTime(0.0);
+            stats.setConnectionWaitTime(0.0);
+            stats.setTotalRows(0L);
+            stats.setSlowQueries(0);
+            stats.setRepeatedQueries(new HashMap<>());
+            stats.setBudgetExceeded(false);
         }
 
         log.debug("计算统计完成: 查询数={}, 总耗时={}ms, 平均耗时={}ms, 最慢={}ms",
@@ -233,4 +502,51 @@ public class QueryStatsService {
     private String generateRequestId() {
         return "REQ_" + System.currentTimeMillis() + "_" + Thread.currentThread().getId();
     }
+
+    /**
+     * 当前请求的查询预算，只在请求线程内访问
+     */
+    private static final class RequestBudget {
+
+        private final Map<String, Integer> repeats = new HashMap<>();
+        private String endpoint = "unknown";
+        private int maxQueries = -1;
+        private int maxRepeats;
+        private String violation;
+
+        RequestBudget(int maxRepeats) {
+            this.maxRepeats = maxRepeats;
+        }
+    }
+
+    /**
+     * 单个指纹的指标：执行和读取耗时分 phase 记录，行数单独汇总
+     */
+    private final class QueryMeters {
+
+        private final Timer executeTimer;
+        private final Timer fetchTimer;
+        private final DistributionSummary rowsSummary;
+
+        QueryMeters(String fingerprint, String queryType) {
+            executeTimer = Timer.builder("blog.db.query")
+                    .description("语句执行耗时")
+                    .tags("fingerprint", fingerprint, "type", queryType, "phase", "execute")
+                    .register(meterRegistry);
+            fetchTimer = Timer.builder("blog.db.query")
+                    .description("结果集读取耗时")
+                    .tags("fingerprint", fingerprint, "type", queryType, "phase", "fetch")
+                    .register(meterRegistry);
+            rowsSummary = DistributionSummary.builder("blog.db.query.rows")
+                    .description("返回或影响的行数")
+                    .tags("fingerprint", fingerprint, "type", queryType)
+                    .register(meterRegistry);
+        }
+
+        void record(long executeNanos, long fetchNanos, long rows) {
+            executeTimer.record(executeNanos, TimeUnit.NANOSECONDS);
+            fetchTimer.record(fetchNanos, TimeUnit.NANOSECONDS);
+            rowsSummary.record(rows);
+        }
+    }
 }
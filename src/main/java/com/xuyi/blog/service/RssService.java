@@ -1,23 +1,35 @@
 package com.xuyi.blog.service;
 
-import com.rometools.rome.feed.synd.*;
-import com.rometools.rome.io.FeedException;
-import com.rometools.rome.io.SyndFeedOutput;
+import com.xuyi.blog.dto.FeedContent;
 import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.exception.ResourceNotFoundException;
 import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.CategoryRepository;
+import com.xuyi.blog.repository.TagRepository;
+import com.xuyi.blog.util.FeedWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.Date;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 /**
  * RSS订阅服务类
- * 
+ * 订阅源经 {@link FeedWriter} 流式写出后按字节缓存，文章发布、更新、下线时清除
+ * 全站订阅源缓存在 rss，分类、标签订阅源缓存在按字节数限额的 feeds 中，超出限额时淘汰近期少用的条目
+ *
  * @author xuyi
  */
 @Service
@@ -25,7 +37,12 @@ import java.util.List;
 @Slf4j
 public class RssService {
 
+    // 订阅源的初始缓冲大小，避免小订阅源反复扩容
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
     private final ArticleRepository articleRepository;
+    private final CategoryRepository categoryRepository;
+    private final TagRepository tagRepository;
 
     @Value("${blog.title:Xuyi's Blog}")
     private String blogTitle;
@@ -45,158 +62,128 @@ public class RssService {
     /**
      * 生成RSS Feed
      */
-    public String generateRssFeed() {
-        try {
-            SyndFeed feed = new SyndFeedImpl();
-            feed.setFeedType("rss_2.0");
-            feed.setTitle(blogTitle);
-            feed.setLink(blogUrl);
-            feed.setDescription(blogDescription);
-            feed.setLanguage("zh-CN");
-            feed.setAuthor(blogAuthor);
-            feed.setPublishedDate(new Date());
-
-            // 获取最新文章
-            List<Article> articles = articleRepository.findTop20ByStatusOrderByPublishedAtDesc(
-                    Article.ArticleStatus.PUBLISHED);
-
-            List<SyndEntry> entries = new ArrayList<>();
-            for (Article article : articles) {
-                if (entries.size() >= maxItems) {
-                    break;
-                }
-
-                SyndEntry entry = new SyndEntryImpl();
-                entry.setTitle(article.getTitle());
-                entry.setLink(blogUrl + "/articles/" + article.getId());
-                entry.setAuthor(article.getAuthor().getNickname() != null ? 
-                               article.getAuthor().getNickname() : article.getAuthor().getUsername());
-
-                // 设置发布时间
-                if (article.getPublishedAt() != null) {
-                    entry.setPublishedDate(Date.from(article.getPublishedAt()
-                            .atZone(ZoneId.systemDefault()).toInstant()));
-                }
-
-                // 设置内容
-                SyndContent description = new SyndContentImpl();
-                description.setType("text/html");
-                
-                // 使用摘要或截取内容前200字符
-                String content = article.getSummary();
-                if (content == null || content.trim().isEmpty()) {
-                    content = article.getContent();
-                    if (content.length() > 200) {
-                        content = content.substring(0, 200) + "...";
-                    }
-                }
-                description.setValue(content);
-                entry.setDescription(description);
-
-                // 设置分类
-                if (article.getCategory() != null) {
-                    List<SyndCategory> categories = new ArrayList<>();
-                    SyndCategory category = new SyndCategoryImpl();
-                    category.setName(article.getCategory().getName());
-                    categories.add(category);
-                    entry.setCategories(categories);
-                }
-
-                entries.add(entry);
-            }
-
-            feed.setEntries(entries);
+    @Cacheable(value = "rss", key = "'rss'")
+    public FeedContent generateRssFeed() {
+        List<Article> articles = articleRepository.findFeedArticles(Article.ArticleStatus.PUBLISHED, firstPage());
+        return render(FeedWriter.Format.RSS, blogTitle, blogUrl, blogDescription, articles);
+    }
 
-            // 生成RSS XML
-            SyndFeedOutput output = new SyndFeedOutput();
-            return output.outputString(feed);
+    /**
+     * 生成Atom Feed
+     */
+    @Cacheable(value = "rss", key = "'atom'")
+    public FeedContent generateAtomFeed() {
+        List<Article> articles = articleRepository.findFeedArticles(Article.ArticleStatus.PUBLISHED, firstPage());
+        return render(FeedWriter.Format.ATOM, blogTitle, blogUrl, blogDescription, articles);
+    }
 
-        } catch (FeedException e) {
-            log.error("生成RSS Feed失败: {}", e.getMessage(), e);
-            throw new RuntimeException("生成RSS Feed失败", e);
-        }
+    /**
+     * 生成分类RSS Feed
+     */
+    @Cacheable(value = "feeds", key = "'category_' + #categoryId")
+    public FeedContent generateCategoryRssFeed(Long categoryId) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("分类不存在"));
+        List<Article> articles = articleRepository.findFeedArticlesByCategory(
+                Article.ArticleStatus.PUBLISHED, categoryId, firstPage());
+        return render(FeedWriter.Format.RSS, blogTitle + " - " + category.getName(),
+                blogUrl + "/categories/" + categoryId,
+                category.getDescription() != null ? category.getDescription() : blogDescription, articles);
     }
 
     /**
-     * 生成Atom Feed
+     * 生成标签RSS Feed
      */
-    public String generateAtomFeed() {
-        try {
-            SyndFeed feed = new SyndFeedImpl();
-            feed.setFeedType("atom_1.0");
-            feed.setTitle(blogTitle);
-            feed.setLink(blogUrl);
-            feed.setDescription(blogDescription);
-            feed.setLanguage("zh-CN");
-            feed.setAuthor(blogAuthor);
-            feed.setPublishedDate(new Date());
-
-            // 获取最新文章
-            List<Article> articles = articleRepository.findTop20ByStatusOrderByPublishedAtDesc(
-                    Article.ArticleStatus.PUBLISHED);
-
-            List<SyndEntry> entries = new ArrayList<>();
-            for (Article article : articles) {
-                if (entries.size() >= maxItems) {
-                    break;
-                }
+    @Cacheable(value = "feeds", key = "'tag_' + #tagId")
+    public FeedContent generateTagRssFeed(Long tagId) {
+        Tag tag = tagRepository.findById(tagId)
+                .orElseThrow(() -> new ResourceNotFoundException("标签不存在"));
+        List<Article> articles = articleRepository.findFeedArticlesByTag(
+                Article.ArticleStatus.PUBLISHED, tagId, firstPage());
+        return render(FeedWriter.Format.RSS, blogTitle + " - " + tag.getName(),
+                blogUrl + "/tags/" + tagId, blogDescription, articles);
+    }
 
-                SyndEntry entry = new SyndEntryImpl();
-                entry.setTitle(article.getTitle());
-                entry.setLink(blogUrl + "/articles/" + article.getId());
-                entry.setAuthor(article.getAuthor().getNickname() != null ? 
-                               article.getAuthor().getNickname() : article.getAuthor().getUsername());
+    /**
+     * 清除RSS缓存
+     */
+    @CacheEvict(value = {"rss", "feeds"}, allEntries = true)
+    public void clearRssCache() {
+        log.info("清除RSS缓存");
+    }
 
-                // 设置发布时间
-                if (article.getPublishedAt() != null) {
-                    entry.setPublishedDate(Date.from(article.getPublishedAt()
-                            .atZone(ZoneId.systemDefault()).toInstant()));
-                }
+    private Pageable firstPage() {
+        return PageRequest.of(0, maxItems);
+    }
 
-                // 设置内容
-                SyndContent content = new SyndContentImpl();
-                content.setType("html");
-                content.setValue(article.getContent());
-                entry.setDescription(content);
-
-                // 设置分类
-                if (article.getCategory() != null) {
-                    List<SyndCategory> categories = new ArrayList<>();
-                    SyndCategory category = new SyndCategoryImpl();
-                    category.setName(article.getCategory().getName());
-                    categories.add(category);
-                    entry.setCategories(categories);
-                }
+    private FeedContent render(FeedWriter.Format format, String title, String link, String description,
+                               List<Article> articles) {
+        try {
+            ZonedDateTime lastModified = lastModified(articles);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
 
-                entries.add(entry);
+            FeedWriter writer = new FeedWriter(out, format);
+            // 使用最新文章的时间而非当前时间，内容不变时输出字节一致，ETag 保持稳定
+            writer.startFeed(new FeedWriter.Channel(title, link, description, "zh-CN", blogAuthor, lastModified));
+            for (Article article : articles) {
+                writer.writeItem(toItem(format, article));
             }
+            writer.endFeed();
 
-            feed.setEntries(entries);
+            byte[] body = out.toByteArray();
+            log.debug("生成订阅源 {}: {} 篇文章, {} 字节", link, articles.size(), body.length);
+            return new FeedContent(body, lastModified != null ? lastModified.toInstant().toEpochMilli() : -1);
 
-            // 生成Atom XML
-            SyndFeedOutput output = new SyndFeedOutput();
-            return output.outputString(feed);
+        } catch (XMLStreamException e) {
+            log.error("生成订阅源失败: {}", e.getMessage(), e);
+            throw new RuntimeException("生成订阅源失败", e);
+        }
+    }
 
-        } catch (FeedException e) {
-            log.error("生成Atom Feed失败: {}", e.getMessage(), e);
-            throw new RuntimeException("生成Atom Feed失败", e);
+    private FeedWriter.Item toItem(FeedWriter.Format format, Article article) {
+        String author = article.getAuthor().getNickname() != null ?
+                        article.getAuthor().getNickname() : article.getAuthor().getUsername();
+
+        // RSS 使用摘要或截取内容前200字符，Atom 使用全文
+        String content;
+        if (format == FeedWriter.Format.ATOM) {
+            content = article.getContent();
+        } else {
+            content = article.getSummary();
+            if (content == null || content.trim().isEmpty()) {
+                content = article.getContent();
+                if (content.length() > 200) {
+                    content = content.substring(0, 200) + "...";
+                }
+            }
         }
+
+        return new FeedWriter.Item(
+                article.getTitle(),
+                blogUrl + "/articles/" + article.getId(),
+                author,
+                article.getCategory() != null ? article.getCategory().getName() : null,
+                content,
+                toZoned(article.getPublishedAt()),
+                toZoned(article.getUpdatedAt()));
     }
 
     /**
-     * 生成分类RSS Feed
+     * 订阅源的最后修改时间：文章发布时间和更新时间中的最大值
      */
-    public String generateCategoryRssFeed(Long categoryId) {
-        // 这里可以实现按分类生成RSS的逻辑
-        // 为了简化，暂时返回通用RSS
-        return generateRssFeed();
+    private ZonedDateTime lastModified(List<Article> articles) {
+        LocalDateTime latest = null;
+        for (Article article : articles) {
+            for (LocalDateTime time : new LocalDateTime[]{article.getPublishedAt(), article.getUpdatedAt()}) {
+                if (time != null && (latest == null || time.isAfter(latest))) {
+                    latest = time;
+                }
+            }
+        }
+        return toZoned(latest);
     }
 
-    /**
-     * 清除RSS缓存
-     */
-    public void clearRssCache() {
-        // 这个方法可以在发布新文章时调用，清除RSS缓存
-        log.info("清除RSS缓存");
+    private static ZonedDateTime toZoned(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()) : null;
     }
 }
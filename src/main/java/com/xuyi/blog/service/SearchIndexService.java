@@ -0,0 +1,266 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.ArticleSummaryDTO;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.search.IndexSnapshot;
+import com.xuyi.blog.search.InvertedIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 文章全文索引服务
+ * 启动时映射上次的索引快照并回放之后修改的文章，没有快照时全量构建；文章变更时增量更新，定时写入新快照
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexService {
+
+    private static final int BATCH_SIZE = 200;
+    // 水位线提前量，覆盖快照生成期间尚未提交的修改
+    private static final long WATERMARK_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ArticleRepository articleRepository;
+
+    @Value("${blog.search.index-path:data/search-index.bin}")
+    private String indexPath;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private volatile boolean dirty;
+
+    /**
+     * 启动时加载索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        long start = System.currentTimeMillis();
+        IndexSnapshot snapshot = openSnapshot();
+        if (snapshot == null) {
+            rebuild();
+            return;
+        }
+
+        index.load(snapshot);
+
+        // 快照中已删除或下线的文章
+        int removed = index.retainAll(new HashSet<>(articleRepository.findIdsByStatus(Article.ArticleStatus.PUBLISHED)));
+
+        // 回放快照之后修改的文章
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.watermark()), ZoneId.systemDefault());
+        int replayed = 0;
+        long lastId = 0;
+        Slice<Article> slice;
+        do {
+            slice = articleRepository.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(
+                    since, lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Article article : slice.getContent()) {
+                index(article);
+                lastId = article.getId();
+                replayed++;
+            }
+        } while (slice.hasNext());
+
+        dirty = removed > 0 || replayed > 0;
+        log.info("搜索索引已从快照加载: {} 篇文章, 回放 {} 篇, 移除 {} 篇, 耗时 {} ms",
+                index.size(), replayed, removed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 全量构建索引并写入快照
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        index.clear();
+
+        long lastId = 0;
+        Slice<Article> slice;
+        do {
+            slice = articleRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                    Article.ArticleStatus.PUBLISHED, lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Article article : slice.getContent()) {
+                index.put(article.getId(), article.getTitle(), article.getContent());
+                lastId = article.getId();
+            }
+        } while (slice.hasNext());
+
+        log.info("搜索索引构建完成: {} 篇文章, {} 个词项, 耗时 {} ms",
+                index.size(), index.termCount(), System.currentTimeMillis() - start);
+
+        dirty = true;
+        writeSnapshot();
+    }
+
+    /**
+     * 文章保存后更新索引，未发布的文章从索引中移除；在事务中调用时提交后才生效
+     */
+    public void index(Article article) {
+        if (article.getId() == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (article.getStatus() == Article.ArticleStatus.PUBLISHED) {
+                index.put(article.getId(), article.getTitle(), article.getContent());
+            } else {
+                index.remove(article.getId());
+            }
+            dirty = true;
+        });
+    }
+
+    /**
+     * 文章删除后移除索引；在事务中调用时提交后才生效
+     */
+    public void remove(Long articleId) {
+        afterCommit(() -> {
+            index.remove(articleId);
+            dirty = true;
+        });
+    }
+
+    /**
+     * 定时写入索引快照
+     */
+    @Scheduled(fixedDelayString = "${blog.search.snapshot-interval:600000}")
+    public void scheduledSnapshot() {
+        if (dirty) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * 应用关闭前写入索引快照
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (dirty) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * 按相关度搜索已发布文章
+     */
+    public Page<Article> search(String keyword, Pageable pageable) {
+        InvertedIndex.SearchHits hits = index.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, hits.total());
+        }
+
+        // 按主键批量加载后恢复相关度顺序
+        Map<Long, Article> articles = articleRepository.findDetailByIdIn(hits.ids()).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+        List<Article> ordered = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            Article article = articles.get(id);
+            if (article != null && article.getStatus() == Article.ArticleStatus.PUBLISHED) {
+                ordered.add(article);
+            }
+        }
+        return new PageImpl<>(ordered, pageable, hits.total());
+    }
+
+    /**
+     * 按相关度搜索已发布文章，只读取摘要列
+     */
+    public Page<ArticleSummaryDTO> searchSummaries(String keyword, Pageable pageable) {
+        InvertedIndex.SearchHits hits = index.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.ids().isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, hits.total());
+        }
+
+        Map<Long, ArticleSummaryDTO> articles = articleRepository.findSummariesByIdIn(hits.ids()).stream()
+                .collect(Collectors.toMap(ArticleSummaryDTO::getId, Function.identity()));
+        List<ArticleSummaryDTO> ordered = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            ArticleSummaryDTO article = articles.get(id);
+            if (article != null && Article.ArticleStatus.PUBLISHED.name().equals(article.getStatus())) {
+                ordered.add(article);
+            }
+        }
+        return new PageImpl<>(ordered, pageable, hits.total());
+    }
+
+    /**
+     * 按相关度返回匹配文章的标题，不访问数据库
+     */
+    public List<String> searchTitles(String keyword, int limit) {
+        InvertedIndex.SearchHits hits = index.search(keyword, 0, limit);
+        List<String> titles = new ArrayList<>(hits.ids().size());
+        for (Long id : hits.ids()) {
+            String title = index.getTitle(id);
+            if (title != null) {
+                titles.add(title);
+            }
+        }
+        return titles;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 回滚的修改不进入索引，否则快照会把它们写入磁盘，回放也无法纠正
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private IndexSnapshot openSnapshot() {
+        Path path = Paths.get(indexPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return IndexSnapshot.open(path);
+        } catch (Exception e) {
+            log.warn("读取搜索索引快照失败，将全量重建: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        long watermark = System.currentTimeMillis() - WATERMARK_MARGIN_MILLIS;
+        dirty = false;
+        try {
+            index.writeSnapshot(Paths.get(indexPath), watermark);
+            log.debug("搜索索引快照已写入: {}", indexPath);
+        } catch (Exception e) {
+            dirty = true;
+            log.error("写入搜索索引快照失败: {}", e.getMessage(), e);
+        }
+    }
+}
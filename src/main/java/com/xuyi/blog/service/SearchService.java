@@ -4,11 +4,11 @@ import com.xuyi.blog.dto.ArticleSummaryDTO;
 import com.xuyi.blog.dto.PageResponse;
 import com.xuyi.blog.dto.SearchResultDTO;
 import com.xuyi.blog.entity.Article;
-import com.xuyi.blog.repository.ArticleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -29,7 +29,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SearchService {
 
-    private final ArticleRepository articleRepository;
+    private static final int SUGGESTION_LIMIT = 5;
+    private static final int HOT_KEYWORD_LIMIT = 8;
+    // 尚无搜索统计时展示的预设关键词
+    private static final List<String> DEFAULT_HOT_KEYWORDS =
+            List.of("Java", "Spring Boot", "MySQL", "Redis", "Docker", "微服务", "算法", "数据结构");
+
+    private final SearchIndexService searchIndexService;
+    private final SuggestionService suggestionService;
+    private final ViewCountService viewCountService;
+    private final ArticleSummaryAssembler summaryAssembler;
+    private final HotKeywordService hotKeywordService;
 
     /**
      * 搜索文章
@@ -46,18 +56,15 @@ public class SearchService {
         }
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.searchByKeyword(
-                cleanKeyword, Article.ArticleStatus.PUBLISHED, pageable);
-
-        Page<ArticleSummaryDTO> dtoPage = articlePage.map(article -> {
-            ArticleSummaryDTO dto = ArticleSummaryDTO.from(article);
+        Page<ArticleSummaryDTO> dtoPage = searchIndexService.searchSummaries(cleanKeyword, pageable);
+        summaryAssembler.fill(dtoPage.getContent());
+        for (ArticleSummaryDTO dto : dtoPage.getContent()) {
             // 高亮搜索关键词
             dto.setTitle(highlightKeyword(dto.getTitle(), cleanKeyword));
             dto.setSummary(highlightKeyword(dto.getSummary(), cleanKeyword));
-            return dto;
-        });
+        }
 
-        log.info("搜索关键词: {}, 找到 {} 篇文章", cleanKeyword, articlePage.getTotalElements());
+        log.info("搜索关键词: {}, 找到 {} 篇文章", cleanKeyword, dtoPage.getTotalElements());
         return PageResponse.of(dtoPage);
     }
 
@@ -74,25 +81,24 @@ public class SearchService {
             return new ArrayList<>();
         }
 
-        // 这里可以实现更复杂的搜索建议逻辑
-        // 目前简单返回基于标题的建议
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Article> articles = articleRepository.searchByKeyword(
-                cleanKeyword, Article.ArticleStatus.PUBLISHED, pageable);
-
-        return articles.getContent().stream()
-                .map(Article::getTitle)
-                .limit(5)
-                .collect(Collectors.toList());
+        // 前缀补全（文章标题、标签、分类），不足时补充全文索引中相关度最高的标题
+        List<String> suggestions = new ArrayList<>(suggestionService.suggest(cleanKeyword, SUGGESTION_LIMIT));
+        if (suggestions.size() < SUGGESTION_LIMIT) {
+            for (String title : searchIndexService.searchTitles(cleanKeyword, SUGGESTION_LIMIT)) {
+                if (suggestions.size() < SUGGESTION_LIMIT && !suggestions.contains(title)) {
+                    suggestions.add(title);
+                }
+            }
+        }
+        return suggestions;
     }
 
     /**
      * 获取热门搜索关键词
      */
     public List<String> getHotSearchKeywords() {
-        // 这里可以实现基于搜索统计的热门关键词
-        // 目前返回一些预设的热门关键词
-        return List.of("Java", "Spring Boot", "MySQL", "Redis", "Docker", "微服务", "算法", "数据结构");
+        List<String> keywords = hotKeywordService.getHotKeywords(HOT_KEYWORD_LIMIT);
+        return keywords.isEmpty() ? DEFAULT_HOT_KEYWORDS : keywords;
     }
 
     /**
@@ -109,12 +115,11 @@ public class SearchService {
         }
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Article> articlePage = articleRepository.searchByKeyword(
-                cleanKeyword, Article.ArticleStatus.PUBLISHED, pageable);
+        Page<Article> articlePage = searchIndexService.search(cleanKeyword, pageable);
 
         List<ArticleSummaryDTO> articles = articlePage.getContent().stream()
                 .map(article -> {
-                    ArticleSummaryDTO dto = ArticleSummaryDTO.from(article);
+                    ArticleSummaryDTO dto = toSummary(article);
                     // 生成搜索摘要
                     dto.setSummary(generateSearchSummary(article.getContent(), cleanKeyword));
                     // 高亮关键词
@@ -126,7 +131,7 @@ public class SearchService {
 
         SearchResultDTO result = new SearchResultDTO();
         result.setKeyword(cleanKeyword);
-        result.setArticles(PageResponse.of(articlePage.map(ArticleSummaryDTO::from)));
+        result.setArticles(PageResponse.of(new PageImpl<>(articles, pageable, articlePage.getTotalElements())));
         result.setTotalCount(articlePage.getTotalElements());
         result.setSearchTime(System.currentTimeMillis());
 
@@ -216,4 +221,14 @@ public class SearchService {
             return content.length() > 200 ? content.substring(0, 200) + "..." : content;
         }
     }
+
+    /**
+     * 转换为文章摘要，浏览量合并尚未落库的部分
+     */
+    private ArticleSummaryDTO toSummary(Article article) {
+        ArticleSummaryDTO dto = ArticleSummaryDTO.from(article);
+        long persisted = article.getViewCount() != null ? article.getViewCount() : 0L;
+        dto.setViewCount(persisted + viewCountService.getPending(article.getId()));
+        return dto;
+    }
 }
@@ -0,0 +1,210 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.CategoryRepository;
+import com.xuyi.blog.repository.TagRepository;
+import com.xuyi.blog.search.SuggestionTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索建议服务
+ * 由文章标题、标签名和分类名构成前缀补全树，文章按浏览量加权，标签和分类按文章数加权
+ * 启动时全量构建并定时刷新权重，文章、标签、分类变更时增量更新；在事务中变更时提交后才更新，回滚的修改不会留在补全树中
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionService {
+
+    // 标签和分类每关联一篇文章折算的权重
+    private static final long WEIGHT_PER_ARTICLE = 100;
+
+    private final ArticleRepository articleRepository;
+    private final TagRepository tagRepository;
+    private final CategoryRepository categoryRepository;
+
+    private volatile SuggestionTrie trie = new SuggestionTrie();
+    // 来源（如 article:1、tag:2）-> 当前加入补全树的文本和权重，用于增量更新时移除旧值
+    private Map<String, Suggestion> sources = new HashMap<>();
+
+    /**
+     * 全量构建补全树，启动时执行并定时刷新浏览量权重
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${blog.search.suggestion-refresh-interval:600000}",
+               initialDelayString = "${blog.search.suggestion-refresh-interval:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        SuggestionTrie newTrie = new SuggestionTrie();
+        Map<String, Suggestion> newSources = new HashMap<>();
+
+        for (Object[] row : articleRepository.findTitlesByStatus(Article.ArticleStatus.PUBLISHED)) {
+            Long viewCount = (Long) row[2];
+            put(newTrie, newSources, "article:" + row[0], (String) row[1], (viewCount != null ? viewCount : 0L) + 1);
+        }
+        for (Object[] row : tagRepository.findTagUsage(Article.ArticleStatus.PUBLISHED)) {
+            put(newTrie, newSources, "tag:" + row[0], (String) row[1], (Long) row[2] * WEIGHT_PER_ARTICLE);
+        }
+        for (Object[] row : categoryRepository.findCategoryUsage(Article.ArticleStatus.PUBLISHED)) {
+            put(newTrie, newSources, "category:" + row[0], (String) row[1], (Long) row[2] * WEIGHT_PER_ARTICLE);
+        }
+
+        trie = newTrie;
+        sources = newSources;
+        log.debug("搜索建议构建完成: {} 条, 耗时 {} ms", newTrie.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 前缀补全
+     */
+    public List<String> suggest(String prefix, int limit) {
+        return trie.complete(prefix, limit);
+    }
+
+    /**
+     * 文章保存后更新标题及其分类、标签的权重
+     */
+    public void onArticleSaved(Article article) {
+        onArticleSaved(article, null, List.of());
+    }
+
+    /**
+     * 文章保存后更新标题及其分类、标签的权重，文章原来的分类和标签一并重新计数
+     */
+    public void onArticleSaved(Article article, Category previousCategory, Collection<Tag> previousTags) {
+        if (article.getId() != null) {
+            afterCommit(() -> applyArticleSaved(article, previousCategory, previousTags));
+        }
+    }
+
+    /**
+     * 文章删除后移除标题，并重新计数它原来所在的分类和标签
+     */
+    public void onArticleRemoved(Long articleId, Category category, Collection<Tag> tags) {
+        afterCommit(() -> applyArticleRemoved(articleId, category, tags));
+    }
+
+    public void onTagSaved(Tag tag) {
+        afterCommit(() -> applyTagSaved(tag));
+    }
+
+    public void onTagRemoved(Long tagId) {
+        afterCommit(() -> applyRemoved("tag:" + tagId));
+    }
+
+    public void onCategorySaved(Category category) {
+        afterCommit(() -> applyCategorySaved(category));
+    }
+
+    public void onCategoryRemoved(Long categoryId) {
+        afterCommit(() -> applyRemoved("category:" + categoryId));
+    }
+
+    private synchronized void applyArticleSaved(Article article, Category previousCategory, Collection<Tag> previousTags) {
+        if (article.getStatus() == Article.ArticleStatus.PUBLISHED) {
+            long viewCount = article.getViewCount() != null ? article.getViewCount() : 0L;
+            put(trie, sources, "article:" + article.getId(), article.getTitle(), viewCount + 1);
+        } else {
+            remove("article:" + article.getId());
+        }
+
+        recount(Arrays.asList(article.getCategory(), previousCategory), List.of(article.getTags(), previousTags));
+    }
+
+    private synchronized void applyArticleRemoved(Long articleId, Category category, Collection<Tag> tags) {
+        remove("article:" + articleId);
+        recount(Arrays.asList(category), List.of(tags));
+    }
+
+    private synchronized void applyTagSaved(Tag tag) {
+        long usage = articleRepository.countByTagAndStatus(tag, Article.ArticleStatus.PUBLISHED);
+        if (usage > 0) {
+            put(trie, sources, "tag:" + tag.getId(), tag.getName(), usage * WEIGHT_PER_ARTICLE);
+        } else {
+            remove("tag:" + tag.getId());
+        }
+    }
+
+    private synchronized void applyCategorySaved(Category category) {
+        long usage = articleRepository.countByCategoryAndStatus(category, Article.ArticleStatus.PUBLISHED);
+        if (usage > 0) {
+            put(trie, sources, "category:" + category.getId(), category.getName(), usage * WEIGHT_PER_ARTICLE);
+        } else {
+            remove("category:" + category.getId());
+        }
+    }
+
+    private synchronized void applyRemoved(String source) {
+        remove(source);
+    }
+
+    /**
+     * 按ID去重后重新计数分类和标签
+     */
+    private void recount(List<Category> categories, List<Collection<Tag>> tagGroups) {
+        Map<Long, Category> distinctCategories = new LinkedHashMap<>();
+        for (Category category : categories) {
+            if (category != null) {
+                distinctCategories.putIfAbsent(category.getId(), category);
+            }
+        }
+        Map<Long, Tag> distinctTags = new LinkedHashMap<>();
+        for (Collection<Tag> tags : tagGroups) {
+            for (Tag tag : tags) {
+                distinctTags.putIfAbsent(tag.getId(), tag);
+            }
+        }
+        distinctCategories.values().forEach(this::applyCategorySaved);
+        distinctTags.values().forEach(this::applyTagSaved);
+    }
+
+    private void put(SuggestionTrie target, Map<String, Suggestion> targetSources, String source, String text, long weight) {
+        Suggestion previous = targetSources.put(source, new Suggestion(text, weight));
+        if (previous != null) {
+            target.remove(previous.text(), previous.weight());
+        }
+        target.add(text, weight);
+    }
+
+    private void remove(String source) {
+        Suggestion previous = sources.remove(source);
+        if (previous != null) {
+            trie.remove(previous.text(), previous.weight());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Suggestion(String text, long weight) {
+    }
+}
@@ -25,6 +25,8 @@ import java.util.stream.Collectors;
 public class TagService {
 
     private final TagRepository tagRepository;
+    private final SuggestionService suggestionService;
+    private final ContentVersionService contentVersionService;
 
     /**
      * 获取所有标签
@@ -82,6 +84,7 @@ public class TagService {
         tag.setColor(color != null ? color : "#007bff");
 
         Tag savedTag = tagRepository.save(tag);
+        contentVersionService.taxonomyChanged();
         log.info("创建标签成功: {}", savedTag.getName());
         
         return TagDTO.from(savedTag);
@@ -91,7 +94,7 @@ public class TagService {
      * 更新标签
      */
     @Transactional
-    @CacheEvict(value = "tags", allEntries = true)
+    @CacheEvict(value = {"tags", "articles", "article", "feeds"}, allEntries = true)
     public TagDTO updateTag(Long id, String name, String color) {
         Tag tag = tagRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("标签不存在"));
@@ -105,6 +108,8 @@ public class TagService {
         tag.setColor(color != null ? color : "#007bff");
 
         Tag savedTag = tagRepository.save(tag);
+        suggestionService.onTagSaved(savedTag);
+        contentVersionService.taxonomyChanged();
         log.info("更新标签成功: {}", savedTag.getName());
         
         return TagDTO.from(savedTag);
@@ -114,12 +119,14 @@ public class TagService {
      * 删除标签
      */
     @Transactional
-    @CacheEvict(value = "tags", allEntries = true)
+    @CacheEvict(value = {"tags", "articles", "article", "feeds"}, allEntries = true)
     public void deleteTag(Long id) {
         Tag tag = tagRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("标签不存在"));
         
         tagRepository.delete(tag);
+        suggestionService.onTagRemoved(id);
+        contentVersionService.taxonomyChanged();
         log.info("删除标签成功: {}", tag.getName());
     }
 
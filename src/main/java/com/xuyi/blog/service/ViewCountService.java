@@ -0,0 +1,148 @@
+package com.xuyi.blog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章浏览量服务（写回缓冲）
+ * 浏览量先累加到内存计数器，定时批量写入数据库，避免热门文章的行锁竞争
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ViewCountService {
+
+    // 单条UPDATE语句最多包含的文章数
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final ContentVersionService contentVersionService;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次浏览
+     */
+    public void increment(Long articleId) {
+        counters.computeIfAbsent(articleId, id -> new Counter()).total.increment();
+    }
+
+    /**
+     * 获取尚未写入数据库的浏览量
+     */
+    public long getPending(Long articleId) {
+        Counter counter = counters.get(articleId);
+        return counter != null ? counter.pending() : 0L;
+    }
+
+    /**
+     * 定时将缓冲的浏览量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${blog.view-count.flush-interval:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭前写入剩余的浏览量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 批量写入缓冲的浏览量
+     * 计数器只累加不清零，写入成功后再推进已写入值，失败时下次重试，不会丢失计数
+     */
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        counters.forEach((id, counter) -> {
+            long delta = counter.pending();
+            if (delta > 0) {
+                deltas.put(id, delta);
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        for (int from = 0; from < ids.size(); from += FLUSH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + FLUSH_BATCH_SIZE, ids.size()));
+            try {
+                updateBatch(batch, deltas);
+                for (Long id : batch) {
+                    counters.get(id).flushed += deltas.get(id);
+                }
+                evictArticleCache(batch);
+                contentVersionService.viewsFlushed(batch);
+            } catch (Exception e) {
+                log.error("写入文章浏览量失败，将在下次重试: {} 篇文章", batch.size(), e);
+            }
+        }
+
+        log.debug("已写入 {} 篇文章的浏览量", deltas.size());
+    }
+
+    /**
+     * UPDATE articles SET view_count = view_count + CASE id WHEN ? THEN ? ... END WHERE id IN (...)
+     */
+    private void updateBatch(List<Long> batch, Map<Long, Long> deltas) {
+        StringBuilder sql = new StringBuilder("UPDATE articles SET view_count = view_count + CASE id");
+        List<Object> args = new ArrayList<>(batch.size() * 3);
+        for (Long id : batch) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(id);
+            args.add(deltas.get(id));
+        }
+        sql.append(" ELSE 0 END WHERE id IN (");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(batch.get(i));
+        }
+        sql.append(")");
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * 文章详情缓存中的浏览量已写入数据库，移除后下次读取时刷新
+     */
+    private void evictArticleCache(List<Long> ids) {
+        Cache cache = cacheManager.getCache("article");
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * 单篇文章的计数器
+     */
+    private static class Counter {
+        private final LongAdder total = new LongAdder();
+        // 仅在 flush 中修改（已加锁），读取方需要看到最新值
+        private volatile long flushed;
+
+        long pending() {
+            return total.sum() - flushed;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.util.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志写入服务
+ * 请求线程只把访问事件放入有界环形队列，由单个消费者线程按 (IP, 日期, URI) 聚合后批量写入 visit_logs
+ * 整批写入失败时逐行重试，只丢弃本身无法写入的行；数据库暂时不可用时保留整批，下次继续写入
+ *
+ * @author xuyi
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VisitIngestService {
+
+    private static final int MAX_IP_LENGTH = 45;
+    private static final int MAX_USER_AGENT_LENGTH = 1000;
+    private static final int MAX_REFERER_LENGTH = 500;
+    private static final int MAX_URI_LENGTH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blog.visit.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${blog.visit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${blog.visit.flush-interval:1000}")
+    private long flushInterval;
+
+    private MpscRingBuffer<VisitEvent> queue;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    // 数据库暂时不可用时未写入的聚合结果，只有消费者线程访问
+    private Map<VisitKey, VisitAggregate> pending = new LinkedHashMap<>();
+    private Thread consumer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new MpscRingBuffer<>(queueCapacity);
+
+        Gauge.builder("blog.visit.queue.depth", queue, MpscRingBuffer::size)
+                .description("待写入的访问事件数")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("blog.visit.dropped")
+                .description("队列已满被丢弃的访问事件数")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("blog.visit.written")
+                .description("已写入数据库的访问事件数")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("blog.visit.failed")
+                .description("数据无法写入被丢弃的访问事件数")
+                .register(meterRegistry);
+
+        running = true;
+        consumer = new Thread(this::consumeLoop, "ApexBlog-Visit-Consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+        log.info("访问日志写入队列已启动, 容量: {}", queue.capacity());
+    }
+
+    /**
+     * 应用关闭时写入队列中剩余的访问事件
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交访问事件，队列已满时丢弃并计数，不阻塞请求线程
+     */
+    public boolean submit(VisitEvent event) {
+        if (queue.offer(event)) {
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    private void consumeLoop() {
+        while (running) {
+            try {
+                if (drainBatch() == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushInterval));
+                }
+            } catch (Exception e) {
+                log.error("写入访问日志失败: {}", e.getMessage(), e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushInterval));
+            }
+        }
+
+        // 关闭前清空队列
+        try {
+            while (drainBatch() > 0) {
+                // 继续写入直到队列为空
+            }
+        } catch (Exception e) {
+            log.error("关闭时写入访问日志失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 取出一批事件聚合后写入，返回处理的事件数
+     * 上次未写入的聚合结果一并写入，积压满一批时不再取新事件，由队列满时的丢弃计数反映
+     */
+    private int drainBatch() {
+        Map<VisitKey, VisitAggregate> aggregates = pending;
+        pending = new LinkedHashMap<>();
+        int drained = 0;
+        while (drained < batchSize && aggregates.size() < batchSize) {
+            VisitEvent event = queue.poll();
+            if (event == null) {
+                break;
+            }
+            VisitKey key = new VisitKey(normalizeIp(event.ipAddress()), event.visitTime().toLocalDate(),
+                    truncate(event.requestUri(), MAX_URI_LENGTH));
+            aggregates.computeIfAbsent(key, k -> new VisitAggregate(event)).add(event);
+            drained++;
+        }
+
+        if (!aggregates.isEmpty()) {
+            write(aggregates);
+        }
+        return drained;
+    }
+
+    /**
+     * 写入聚合结果：先整批写入，失败时逐行重试
+     * 数据库暂时不可用时把未写入的部分留到下一批并抛出异常，其他错误只丢弃出错的那一行
+     */
+    private void write(Map<VisitKey, VisitAggregate> aggregates) {
+        List<Map.Entry<VisitKey, VisitAggregate>> rows = new ArrayList<>(aggregates.entrySet());
+        try {
+            upsert(rows);
+            writtenCounter.increment(countEvents(rows));
+            log.debug("批量写入访问日志: {} 行", rows.size());
+            return;
+        } catch (DataAccessException e) {
+            if (isRetryable(e)) {
+                pending.putAll(aggregates);
+                throw e;
+            }
+            log.warn("批量写入访问日志失败，逐行重试: {}", e.getMessage());
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            Map.Entry<VisitKey, VisitAggregate> row = rows.get(i);
+            try {
+                upsert(List.of(row));
+                writtenCounter.increment(row.getValue().count);
+            } catch (DataAccessException e) {
+                if (isRetryable(e)) {
+                    for (Map.Entry<VisitKey, VisitAggregate> remaining : rows.subList(i, rows.size())) {
+                        pending.put(remaining.getKey(), remaining.getValue());
+                    }
+                    throw e;
+                }
+                failedCounter.increment(row.getValue().count);
+                log.warn("丢弃无法写入的访问日志: IP={}, URI={}, 原因: {}",
+                        row.getKey().ipAddress(), row.getKey().requestUri(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单条多行 INSERT ... ON DUPLICATE KEY UPDATE 写入聚合结果
+     */
+    private void upsert(List<Map.Entry<VisitKey, VisitAggregate>> rows) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO visit_logs (ip_address, user_agent, referer, request_uri, visit_date, " +
+                "visit_count, first_visit_time, last_visit_time) VALUES ");
+        List<Object> args = new ArrayList<>(rows.size() * 8);
+
+        boolean first = true;
+        for (Map.Entry<VisitKey, VisitAggregate> entry : rows) {
+            VisitKey key = entry.getKey();
+            VisitAggregate aggregate = entry.getValue();
+            sql.append(first ? "(?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?)");
+            first = false;
+
+            args.add(key.ipAddress());
+            args.add(aggregate.userAgent);
+            args.add(aggregate.referer);
+            args.add(key.requestUri());
+            args.add(Date.valueOf(key.visitDate()));
+            args.add(aggregate.count);
+            args.add(Timestamp.valueOf(aggregate.firstVisitTime));
+            args.add(Timestamp.valueOf(aggregate.lastVisitTime));
+        }
+
+        sql.append(" ON DUPLICATE KEY UPDATE visit_count = visit_count + VALUES(visit_count), " +
+                   "last_visit_time = GREATEST(last_visit_time, VALUES(last_visit_time))");
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private static long countEvents(List<Map.Entry<VisitKey, VisitAggregate>> rows) {
+        long events = 0;
+        for (Map.Entry<VisitKey, VisitAggregate> row : rows) {
+            events += row.getValue().count;
+        }
+        return events;
+    }
+
+    /**
+     * 连接失败、锁超时等暂时性错误，稍后重试可以成功
+     */
+    private static boolean isRetryable(DataAccessException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * IP 取自 X-Forwarded-For 等请求头，可能被伪造成任意文本，超出列宽的部分截断
+     */
+    private static String normalizeIp(String ipAddress) {
+        if (ipAddress == null || ipAddress.isBlank()) {
+            return "unknown";
+        }
+        return truncate(ipAddress.strip(), MAX_IP_LENGTH);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    /**
+     * 访问事件，在请求线程中从请求提取
+     */
+    public record VisitEvent(String ipAddress, String userAgent, String referer, String requestUri,
+                             LocalDateTime visitTime) {
+    }
+
+    private record VisitKey(String ipAddress, LocalDate visitDate, String requestUri) {
+    }
+
+    private static class VisitAggregate {
+        private final String userAgent;
+        private final String referer;
+        private final LocalDateTime firstVisitTime;
+        private LocalDateTime lastVisitTime;
+        private int count;
+
+        VisitAggregate(VisitEvent event) {
+            this.userAgent = truncate(event.userAgent(), MAX_USER_AGENT_LENGTH);
+            this.referer = truncate(event.referer(), MAX_REFERER_LENGTH);
+            this.firstVisitTime = event.visitTime();
+            this.lastVisitTime = event.visitTime();
+        }
+
+        void add(VisitEvent event) {
+            count++;
+            if (event.visitTime().isAfter(lastVisitTime)) {
+                lastVisitTime = event.visitTime();
+            }
+        }
+    }
+}
@@ -1,21 +1,18 @@
 package com.xuyi.blog.service;
 
 import com.xuyi.blog.dto.VisitStatsDTO;
-import com.xuyi.blog.entity.VisitLog;
 import com.xuyi.blog.repository.ArticleRepository;
 import com.xuyi.blog.repository.VisitLogRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -30,37 +27,22 @@ public class VisitService {
 
     private final VisitLogRepository visitLogRepository;
     private final ArticleRepository articleRepository;
+    private final VisitIngestService visitIngestService;
 
     /**
-     * 记录访问日志（异步）
+     * 记录访问日志
+     * 在请求线程中提取访问信息后放入写入队列，由 VisitIngestService 批量落库
      */
-    @Async
-    @Transactional
     public void recordVisit(HttpServletRequest request) {
-        try {
-            String ipAddress = getClientIpAddress(request);
-            String userAgent = request.getHeader("User-Agent");
-            String referer = request.getHeader("Referer");
-            String requestUri = request.getRequestURI();
-            LocalDate today = LocalDate.now();
-
-            // 查找今天该IP的访问记录
-            Optional<VisitLog> existingLog = visitLogRepository.findByIpAddressAndVisitDate(ipAddress, today);
-
-            if (existingLog.isPresent()) {
-                // 如果已存在，增加访问次数
-                VisitLog visitLog = existingLog.get();
-                visitLog.incrementVisitCount();
-                visitLogRepository.save(visitLog);
-                log.debug("更新访问记录: IP={}, 访问次数={}", ipAddress, visitLog.getVisitCount());
-            } else {
-                // 如果不存在，创建新记录
-                VisitLog visitLog = new VisitLog(ipAddress, userAgent, referer, requestUri);
-                visitLogRepository.save(visitLog);
-                log.debug("创建访问记录: IP={}", ipAddress);
-            }
-        } catch (Exception e) {
-            log.error("记录访问日志失败: {}", e.getMessage(), e);
+        VisitIngestService.VisitEvent event = new VisitIngestService.VisitEvent(
+                getClientIpAddress(request),
+                request.getHeader("User-Agent"),
+                request.getHeader("Referer"),
+                request.getRequestURI(),
+                LocalDateTime.now());
+
+        if (!visitIngestService.submit(event)) {
+            log.debug("访问日志队列已满，丢弃访问记录: IP={}", event.ipAddress());
         }
     }
 
@@ -0,0 +1,180 @@
+package com.xuyi.blog.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick 多模式扫描器
+ * 所有规则预先编译为一个确定有限自动机，一次扫描即可判断文本是否包含任一规则，
+ * 扫描时按需解码 %XX、忽略 ASCII 大小写，不创建中间字符串
+ * 每条规则属于一个分类（最多 64 个），扫描时可用位掩码限定参与匹配的分类；
+ * 锚定结尾的规则只在文本末尾匹配（如文件扩展名）
+ *
+ * @author xuyi
+ */
+public final class AhoCorasickScanner {
+
+    public static final int NO_MATCH = -1;
+    private static final int ASCII = 128;
+
+    /**
+     * ASCII 字符到字符类的映射，规则中未出现的字符归为 0 类
+     */
+    private final int[] charClasses;
+    private final int classCount;
+    private final int[] transitions;
+    private final long[] outputs;
+    private final long[] suffixOutputs;
+
+    private AhoCorasickScanner(int[] charClasses, int classCount, int[] transitions,
+                               long[] outputs, long[] suffixOutputs) {
+        this.charClasses = charClasses;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.suffixOutputs = suffixOutputs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 扫描文本，返回最先命中的分类，未命中返回 {@link #NO_MATCH}
+     *
+     * @param text          待扫描的文本，可为 null
+     * @param percentDecode 是否把 %XX 解码后再匹配
+     * @param categoryMask  参与匹配的分类位掩码
+     */
+    public int scan(CharSequence text, boolean percentDecode, long categoryMask) {
+        if (text == null) {
+            return NO_MATCH;
+        }
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (percentDecode && c == '%' && i + 2 < length) {
+                int high = Character.digit(text.charAt(i + 1), 16);
+                int low = Character.digit(text.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    c = (char) (high << 4 | low);
+                    i += 2;
+                }
+            }
+            state = transitions[state * classCount + classOf(c)];
+            long hit = outputs[state] & categoryMask;
+            if (hit != 0) {
+                return Long.numberOfTrailingZeros(hit);
+            }
+        }
+        long hit = suffixOutputs[state] & categoryMask;
+        return hit != 0 ? Long.numberOfTrailingZeros(hit) : NO_MATCH;
+    }
+
+    private int classOf(char c) {
+        return c < ASCII ? charClasses[c] : 0;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 构建器：先构造 Trie，再按广度优先计算失败链接并展开为完整的状态转移表
+     */
+    public static final class Builder {
+
+        private final List<Map<Character, Integer>> children = new ArrayList<>();
+        private final List<long[]> masks = new ArrayList<>();
+
+        private Builder() {
+            newState();
+        }
+
+        /**
+         * 添加规则
+         *
+         * @param pattern  ASCII 规则文本，匹配时忽略大小写
+         * @param category 分类编号，0 到 63
+         * @param suffix   是否只在文本末尾匹配
+         */
+        public Builder add(String pattern, int category, boolean suffix) {
+            if (category < 0 || category >= Long.SIZE) {
+                throw new IllegalArgumentException("分类编号超出范围: " + category);
+            }
+            if (pattern == null || pattern.isEmpty()) {
+                throw new IllegalArgumentException("规则不能为空");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = lower(pattern.charAt(i));
+                if (c >= ASCII) {
+                    throw new IllegalArgumentException("规则只支持ASCII字符: " + pattern);
+                }
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = newState();
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            masks.get(state)[suffix ? 1 : 0] |= 1L << category;
+            return this;
+        }
+
+        public AhoCorasickScanner build() {
+            // 字符类：规则中出现过的字符各占一类，大小写共用
+            int[] charClasses = new int[ASCII];
+            int classCount = 1;
+            for (Map<Character, Integer> edges : children) {
+                for (char c : edges.keySet()) {
+                    if (charClasses[c] == 0) {
+                        charClasses[c] = classCount++;
+                    }
+                }
+            }
+            for (char c = 'A'; c <= 'Z'; c++) {
+                charClasses[c] = charClasses[lower(c)];
+            }
+
+            int stateCount = children.size();
+            int[] transitions = new int[stateCount * classCount];
+            int[] fail = new int[stateCount];
+            long[] outputs = new long[stateCount];
+            long[] suffixOutputs = new long[stateCount];
+
+            // 广度优先：父状态的失败链接总是先于子状态确定
+            Queue<Integer> queue = new ArrayDeque<>();
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] = masks.get(state)[0] | (state == 0 ? 0 : outputs[fail[state]]);
+                suffixOutputs[state] = masks.get(state)[1] | outputs[state] | (state == 0 ? 0 : suffixOutputs[fail[state]]);
+
+                Map<Character, Integer> edges = children.get(state);
+                for (int cls = 0; cls < classCount; cls++) {
+                    transitions[state * classCount + cls] = state == 0 ? 0 : transitions[fail[state] * classCount + cls];
+                }
+                for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                    int cls = charClasses[edge.getKey()];
+                    int child = edge.getValue();
+                    fail[child] = state == 0 ? 0 : transitions[fail[state] * classCount + cls];
+                    transitions[state * classCount + cls] = child;
+                    queue.add(child);
+                }
+            }
+            return new AhoCorasickScanner(charClasses, classCount, transitions, outputs, suffixOutputs);
+        }
+
+        private int newState() {
+            children.add(new HashMap<>());
+            masks.add(new long[2]);
+            return children.size() - 1;
+        }
+    }
+}
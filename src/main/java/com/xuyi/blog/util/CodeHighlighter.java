@@ -0,0 +1,179 @@
+package com.xuyi.blog.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 代码块服务端高亮
+ * 按语言的注释、字符串和关键字规则单遍扫描，输出带 hl-* 样式类的 span，其余字符原样转义；
+ * 未识别的语言只做 HTML 转义
+ *
+ * @author xuyi
+ */
+public final class CodeHighlighter {
+
+    private static final Map<String, Language> LANGUAGES = new HashMap<>();
+
+    static {
+        Language java = new Language("//", true, "\"'", false, Set.of(
+                "abstract", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+                "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "if",
+                "implements", "import", "instanceof", "int", "interface", "long", "new", "package", "private",
+                "protected", "public", "record", "return", "short", "static", "super", "switch", "synchronized",
+                "this", "throw", "throws", "try", "var", "void", "volatile", "while", "true", "false", "null"));
+        register(java, "java", "kotlin", "kt", "scala", "groovy", "c", "cpp", "c++", "h", "cs", "csharp");
+
+        Language js = new Language("//", true, "\"'`", false, Set.of(
+                "async", "await", "break", "case", "catch", "class", "const", "continue", "default", "delete",
+                "do", "else", "export", "extends", "finally", "for", "from", "function", "if", "import", "in",
+                "instanceof", "interface", "let", "new", "of", "return", "static", "super", "switch", "this",
+                "throw", "try", "type", "typeof", "var", "void", "while", "yield", "true", "false", "null",
+                "undefined"));
+        register(js, "js", "javascript", "jsx", "ts", "typescript", "tsx", "vue");
+
+        Language go = new Language("//", true, "\"'`", false, Set.of(
+                "break", "case", "chan", "const", "continue", "default", "defer", "else", "fallthrough", "for",
+                "func", "go", "goto", "if", "import", "interface", "map", "package", "range", "return", "select",
+                "struct", "switch", "type", "var", "true", "false", "nil"));
+        register(go, "go", "golang");
+
+        Language rust = new Language("//", true, "\"", false, Set.of(
+                "as", "async", "await", "break", "const", "continue", "crate", "else", "enum", "extern", "fn",
+                "for", "if", "impl", "in", "let", "loop", "match", "mod", "move", "mut", "pub", "ref", "return",
+                "self", "Self", "static", "struct", "trait", "type", "unsafe", "use", "where", "while", "true",
+                "false"));
+        register(rust, "rust", "rs");
+
+        Language python = new Language("#", false, "\"'", false, Set.of(
+                "and", "as", "assert", "async", "await", "break", "class", "continue", "def", "del", "elif",
+                "else", "except", "finally", "for", "from", "global", "if", "import", "in", "is", "lambda",
+                "nonlocal", "not", "or", "pass", "raise", "return", "try", "while", "with", "yield", "True",
+                "False", "None"));
+        register(python, "python", "py");
+
+        Language shell = new Language("#", false, "\"'", false, Set.of(
+                "case", "do", "done", "elif", "else", "esac", "export", "fi", "for", "function", "if", "in",
+                "local", "return", "then", "until", "while"));
+        register(shell, "bash", "sh", "shell", "zsh", "dockerfile", "yaml", "yml", "properties");
+
+        Language sql = new Language("--", true, "'\"`", true, Set.of(
+                "add", "all", "alter", "and", "as", "asc", "between", "by", "case", "create", "delete", "desc",
+                "distinct", "drop", "else", "end", "exists", "from", "group", "having", "in", "index", "inner",
+                "insert", "into", "is", "join", "key", "left", "like", "limit", "not", "null", "offset", "on",
+                "or", "order", "outer", "primary", "right", "select", "set", "table", "then", "union", "update",
+                "values", "when", "where", "with"));
+        register(sql, "sql", "mysql", "postgresql", "plsql");
+    }
+
+    private CodeHighlighter() {
+    }
+
+    private static void register(Language language, String... names) {
+        for (String name : names) {
+            LANGUAGES.put(name, language);
+        }
+    }
+
+    /**
+     * 高亮代码
+     *
+     * @param language 代码块声明的语言，可以为空
+     * @param code     代码原文
+     * @return 转义后的 HTML 片段
+     */
+    public static String highlight(String language, String code) {
+        Language lang = language != null ? LANGUAGES.get(language.toLowerCase(Locale.ROOT)) : null;
+        StringBuilder out = new StringBuilder(code.length() + code.length() / 4);
+        if (lang == null) {
+            escape(code, 0, code.length(), out);
+            return out.toString();
+        }
+
+        int length = code.length();
+        int i = 0;
+        while (i < length) {
+            char c = code.charAt(i);
+            if (code.startsWith(lang.lineComment, i)) {
+                int end = code.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                span("hl-comment", code, i, end, out);
+                i = end;
+            } else if (lang.blockComment && code.startsWith("/*", i)) {
+                int end = code.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                span("hl-comment", code, i, end, out);
+                i = end;
+            } else if (lang.quotes.indexOf(c) >= 0) {
+                int end = i + 1;
+                while (end < length && code.charAt(end) != c && (c == '`' || code.charAt(end) != '\n')) {
+                    end += code.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, length);
+                span("hl-string", code, i, end, out);
+                i = end;
+            } else if (Character.isDigit(c) && (i == 0 || !isWordChar(code.charAt(i - 1)))) {
+                int end = i + 1;
+                while (end < length && (Character.isLetterOrDigit(code.charAt(end)) || code.charAt(end) == '.'
+                        || code.charAt(end) == '_')) {
+                    end++;
+                }
+                span("hl-number", code, i, end, out);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+                while (end < length && isWordChar(code.charAt(end))) {
+                    end++;
+                }
+                String word = code.substring(i, end);
+                if (lang.keywords.contains(lang.ignoreCase ? word.toLowerCase(Locale.ROOT) : word)) {
+                    span("hl-keyword", code, i, end, out);
+                } else {
+                    escape(code, i, end, out);
+                }
+                i = end;
+            } else {
+                escape(code, i, i + 1, out);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isJavaIdentifierPart(c);
+    }
+
+    private static void span(String cssClass, String code, int start, int end, StringBuilder out) {
+        out.append("<span class=\"").append(cssClass).append("\">");
+        escape(code, start, end, out);
+        out.append("</span>");
+    }
+
+    private static void escape(String text, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * 语言规则
+     *
+     * @param lineComment  行注释前缀
+     * @param blockComment 是否支持 C 风格块注释
+     * @param quotes       字符串定界符
+     * @param ignoreCase   关键字是否大小写不敏感
+     * @param keywords     关键字，ignoreCase 时为小写
+     */
+    private record Language(String lineComment, boolean blockComment, String quotes, boolean ignoreCase,
+                            Set<String> keywords) {
+    }
+}
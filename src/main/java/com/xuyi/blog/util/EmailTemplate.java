@@ -0,0 +1,157 @@
+package com.xuyi.blog.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的邮件模板
+ * 模板只在加载时解析一次，拆分为字面量片段和 {{name}} 占位符；渲染时按顺序拼接，
+ * 耗时只与占位符数量和输出长度有关，不再对整封邮件做格式化或查找替换
+ *
+ * @author xuyi
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /**
+     * literals.length == names.length + 1，渲染结果为 literals[0] + value(names[0]) + literals[1] + ...
+     */
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private EmailTemplate(List<String> literals, List<String> names) {
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 解析模板，未闭合的 {{ 按普通文本处理
+     */
+    public static EmailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf(OPEN, pos);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            literal.append(source, pos, open);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            names.add(source.substring(open + OPEN.length(), close).trim());
+            pos = close + CLOSE.length();
+        }
+        literal.append(source, pos, source.length());
+        literals.add(literal.toString());
+        return new EmailTemplate(literals, names);
+    }
+
+    /**
+     * 代入部分占位符，返回新的模板；未给出的占位符保留，相邻字面量合并
+     * 用于把站点标题等固定值提前写入模板，之后每次渲染只处理剩下的占位符
+     */
+    public EmailTemplate bind(Map<String, String> values) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> boundNames = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            if (value != null) {
+                literal.append(value);
+            } else {
+                boundLiterals.add(literal.toString());
+                literal.setLength(0);
+                boundNames.add(names[i]);
+            }
+            literal.append(literals[i + 1]);
+        }
+        boundLiterals.add(literal.toString());
+        return new EmailTemplate(boundLiterals, boundNames);
+    }
+
+    /**
+     * 渲染模板，缺少的占位符输出为空
+     */
+    public String render(Map<String, String> values) {
+        String[] resolved = new String[names.length];
+        int length = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            resolved[i] = value != null ? value : "";
+            length += resolved[i].length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        out.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            out.append(resolved[i]).append(literals[i + 1]);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 只有一个变量时的渲染（如按收件人替换退订链接），不创建 Map
+     */
+    public String render(String name, String value) {
+        String resolved = value != null ? value : "";
+        int count = 0;
+        for (String placeholder : names) {
+            if (placeholder.equals(name)) {
+                count++;
+            }
+        }
+        StringBuilder out = new StringBuilder(literalLength + count * resolved.length());
+        render(name, value, out);
+        return out.toString();
+    }
+
+    /**
+     * 只有一个变量时的渲染，结果追加到调用方的缓冲区，便于群发时每个线程复用同一个缓冲区
+     */
+    public void render(String name, String value, StringBuilder out) {
+        String resolved = value != null ? value : "";
+        out.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                out.append(resolved);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    /**
+     * 模板中尚未代入的占位符名称
+     */
+    public Set<String> getPlaceholders() {
+        Set<String> placeholders = new LinkedHashSet<>();
+        Collections.addAll(placeholders, names);
+        return placeholders;
+    }
+
+    /**
+     * 还原为模板源文本，未代入的占位符保留 {{name}} 形式，可再次 {@link #compile}
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(literalLength + names.length * 16);
+        out.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            out.append(OPEN).append(names[i]).append(CLOSE).append(literals[i + 1]);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package com.xuyi.blog.util;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 订阅源流式写出器
+ * 基于 StAX 直接把 RSS 2.0 / Atom 1.0 写入输出流，不构建文档树，也不生成中间字符串
+ *
+ * @author xuyi
+ */
+public class FeedWriter {
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+    private static final String DC_NS = "http://purl.org/dc/elements/1.1/";
+
+    private final XMLStreamWriter writer;
+    private final Format format;
+
+    public FeedWriter(OutputStream out, Format format) throws XMLStreamException {
+        this.writer = OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+        this.format = format;
+    }
+
+    /**
+     * 写出 XML 声明和频道信息，之后逐条调用 {@link #writeItem}
+     */
+    public void startFeed(Channel channel) throws XMLStreamException {
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        if (format == Format.RSS) {
+            writer.writeStartElement("rss");
+            writer.writeAttribute("version", "2.0");
+            writer.writeNamespace("dc", DC_NS);
+            writer.writeStartElement("channel");
+            element("title", channel.title());
+            element("link", channel.link());
+            element("description", channel.description());
+            element("language", channel.language());
+            element("pubDate", rfc1123(channel.updated()));
+            element("dc", DC_NS, "creator", channel.author());
+        } else {
+            writer.writeStartElement("feed");
+            writer.writeDefaultNamespace(ATOM_NS);
+            element("title", channel.title());
+            link(channel.link());
+            element("subtitle", channel.description());
+            element("id", channel.link());
+            element("updated", iso(channel.updated()));
+            author(channel.author());
+        }
+    }
+
+    /**
+     * 写出一篇文章
+     */
+    public void writeItem(Item item) throws XMLStreamException {
+        if (format == Format.RSS) {
+            writer.writeStartElement("item");
+            element("title", item.title());
+            element("link", item.link());
+            element("description", item.content());
+            element("category", item.category());
+            element("pubDate", rfc1123(item.published()));
+            writer.writeStartElement("guid");
+            writer.writeAttribute("isPermaLink", "true");
+            writer.writeCharacters(item.link());
+            writer.writeEndElement();
+            element("dc", DC_NS, "creator", item.author());
+        } else {
+            writer.writeStartElement("entry");
+            element("title", item.title());
+            link(item.link());
+            element("id", item.link());
+            element("published", iso(item.published()));
+            element("updated", iso(item.updated() != null ? item.updated() : item.published()));
+            author(item.author());
+            if (item.category() != null) {
+                writer.writeEmptyElement("category");
+                writer.writeAttribute("term", clean(item.category()));
+            }
+            if (item.content() != null) {
+                writer.writeStartElement("summary");
+                writer.writeAttribute("type", "html");
+                writer.writeCharacters(clean(item.content()));
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * 结束文档并刷出缓冲，不关闭底层输出流
+     */
+    public void endFeed() throws XMLStreamException {
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private void element(String name, String text) throws XMLStreamException {
+        if (text != null) {
+            writer.writeStartElement(name);
+            writer.writeCharacters(clean(text));
+            writer.writeEndElement();
+        }
+    }
+
+    private void element(String prefix, String namespace, String name, String text) throws XMLStreamException {
+        if (text != null) {
+            writer.writeStartElement(prefix, name, namespace);
+            writer.writeCharacters(clean(text));
+            writer.writeEndElement();
+        }
+    }
+
+    private void link(String href) throws XMLStreamException {
+        writer.writeEmptyElement("link");
+        writer.writeAttribute("rel", "alternate");
+        writer.writeAttribute("href", href);
+    }
+
+    private void author(String name) throws XMLStreamException {
+        if (name != null) {
+            writer.writeStartElement("author");
+            element("name", name);
+            writer.writeEndElement();
+        }
+    }
+
+    private static String rfc1123(ZonedDateTime time) {
+        return time != null ? DateTimeFormatter.RFC_1123_DATE_TIME.format(time) : null;
+    }
+
+    private static String iso(ZonedDateTime time) {
+        return time != null ? DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(time) : null;
+    }
+
+    /**
+     * 去除 XML 1.0 不允许出现的控制字符，避免个别文章导致整个订阅源无法解析
+     */
+    private static String clean(String text) {
+        StringBuilder cleaned = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean valid = c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+            if (!valid && cleaned == null) {
+                cleaned = new StringBuilder(text.length()).append(text, 0, i);
+            } else if (valid && cleaned != null) {
+                cleaned.append(c);
+            }
+        }
+        return cleaned != null ? cleaned.toString() : text;
+    }
+
+    public enum Format {
+        RSS,
+        ATOM
+    }
+
+    /**
+     * 频道信息
+     */
+    public record Channel(String title, String link, String description, String language,
+                          String author, ZonedDateTime updated) {
+    }
+
+    /**
+     * 条目信息，content 为 HTML 片段
+     */
+    public record Item(String title, String link, String author, String category, String content,
+                       ZonedDateTime published, ZonedDateTime updated) {
+    }
+}
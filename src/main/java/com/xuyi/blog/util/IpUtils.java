@@ -3,6 +3,8 @@ package com.xuyi.blog.util;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Set;
+
 /**
  * IP工具类
  * 
@@ -73,6 +75,37 @@ public class IpUtils {
         return ip;
     }
 
+    /**
+     * 获取可用于封禁的客户端IP
+     * 转发头可以被客户端任意伪造，只有直连的对端是受信任的代理时才读取 X-Forwarded-For；
+     * 代理会把对端地址追加到末尾，因此从右往左跳过受信任的代理，取第一个不受信任的地址，
+     * 客户端自己写在最左边的伪造值不会被采用
+     *
+     * @param trustedProxies 受信任的代理地址
+     */
+    public static String getPeerClientIp(HttpServletRequest request, Set<String> trustedProxies) {
+        String peer = normalize(request.getRemoteAddr());
+        if (!trustedProxies.contains(peer)) {
+            return peer;
+        }
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (isValidIp(forwarded)) {
+            String[] hops = forwarded.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = normalize(hops[i].trim());
+                if (isValidIp(hop) && !trustedProxies.contains(hop)) {
+                    return hop;
+                }
+            }
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        return isValidIp(realIp) ? normalize(realIp.trim()) : peer;
+    }
+
+    private static String normalize(String ip) {
+        return LOCALHOST_IPV6.equals(ip) || "::1".equals(ip) ? LOCALHOST_IPV4 : ip;
+    }
+
     /**
      * 检查IP是否有效
      */
@@ -2,6 +2,8 @@ package com.xuyi.blog.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -24,8 +26,18 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * 密钥和解析器只构建一次，JwtParser 线程安全
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     /**
@@ -39,37 +51,16 @@ public class JwtUtil {
                 .subject(username)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * 从token中获取用户名
+     * 校验签名和有效期并返回声明，一次解析即可得到用户名和过期时间；无效时返回null
      */
-    public String getUsernameFromToken(String token) {
+    public Claims parseClaims(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getSubject();
-        } catch (JwtException e) {
-            log.error("获取用户名失败: {}", e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 验证token是否有效
-     */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (SecurityException e) {
             log.error("JWT签名无效: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -80,25 +71,33 @@ public class JwtUtil {
             log.error("不支持的JWT: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT参数为空: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT无效: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * 从token中获取用户名
+     */
+    public String getUsernameFromToken(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * 验证token是否有效
+     */
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
     }
 
     /**
      * 获取token过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return claims.getExpiration();
-        } catch (JwtException e) {
-            log.error("获取过期时间失败: {}", e.getMessage());
-            return null;
-        }
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getExpiration() : null;
     }
 
     /**
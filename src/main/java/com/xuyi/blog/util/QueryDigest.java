@@ -0,0 +1,140 @@
+package com.xuyi.blog.util;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个SQL指纹的汇总
+ * 次数、总耗时、行数用 LongAdder，最小/最大值用 LongAccumulator，耗时分布记入微秒精度的 HDR 直方图，
+ * 记录路径上没有锁。慢查询样本按蓄水池抽样保留固定条数，另外单独保留最慢的一条
+ *
+ * @author xuyi
+ */
+public class QueryDigest {
+
+    private static final int SAMPLE_SIZE = 5;
+    // 两位有效数字，误差不超过 1%
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final SqlFingerprint fingerprint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final ConcurrentHistogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final AtomicLong slowCount = new AtomicLong();
+    private final AtomicReferenceArray<SlowSample> samples = new AtomicReferenceArray<>(SAMPLE_SIZE);
+    private final AtomicReference<SlowSample> slowest = new AtomicReference<>();
+
+    public QueryDigest(SqlFingerprint fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 记录一次执行
+     *
+     * @param nanos 执行加读取耗时
+     * @param rows  返回或影响的行数
+     */
+    public void record(long nanos, long rows) {
+        count.increment();
+        totalNanos.add(nanos);
+        this.rows.add(rows);
+        minNanos.accumulate(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.recordValue(Math.max(1, nanos / 1000));
+    }
+
+    /**
+     * 记录一次慢查询样本：前 SAMPLE_SIZE 条直接保留，之后第 n 条以 SAMPLE_SIZE/n 的概率替换已有样本
+     */
+    public void recordSlow(SlowSample sample) {
+        long n = slowCount.incrementAndGet();
+        long slot = n <= SAMPLE_SIZE ? n - 1 : ThreadLocalRandom.current().nextLong(n);
+        if (slot < SAMPLE_SIZE) {
+            samples.set((int) slot, sample);
+        }
+        SlowSample current = slowest.get();
+        while ((current == null || current.nanos() < sample.nanos()) && !slowest.compareAndSet(current, sample)) {
+            current = slowest.get();
+        }
+    }
+
+    public SqlFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getMinNanos() {
+        long min = minNanos.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    /**
+     * 耗时分布的快照（微秒）
+     */
+    public Histogram histogramSnapshot() {
+        return histogram.copy();
+    }
+
+    /**
+     * 慢查询样本，最慢的一条在前，其余按耗时降序
+     */
+    public List<SlowSample> getSlowSamples() {
+        List<SlowSample> result = new ArrayList<>(SAMPLE_SIZE + 1);
+        SlowSample top = slowest.get();
+        if (top != null) {
+            result.add(top);
+        }
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            SlowSample sample = samples.get(i);
+            if (sample != null && sample != top) {
+                result.add(sample);
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowSample::nanos).reversed());
+        return result;
+    }
+
+    /**
+     * 慢查询样本
+     *
+     * @param sql         原始SQL
+     * @param requestPath 触发查询的请求路径，非请求线程时为线程名
+     * @param nanos       执行加读取耗时
+     * @param rows        返回或影响的行数
+     * @param timestamp   毫秒时间戳
+     */
+    public record SlowSample(String sql, String requestPath, long nanos, long rows, long timestamp) {
+    }
+}
@@ -0,0 +1,356 @@
+package com.xuyi.blog.util;
+
+/**
+ * SQL指纹
+ * 去掉注释、把字符串和数字字面量替换为 ?、连续的 ? 列表折叠为 ?+、空白合并为一个空格并转为小写，
+ * 多行 VALUES 中相同的元组折叠为 (...)+、CASE 中连续的 when ? then ? 折叠为 when ? then ?+，
+ * 只有字面量或批量行数不同的语句得到相同的归一化文本；指纹是归一化文本的 64 位 FNV-1a 哈希（16位十六进制）
+ *
+ * @author xuyi
+ */
+public final class SqlFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final String CASE_PAIR = " when ? then ?";
+
+    private final String normalized;
+    private final String fingerprint;
+    private final String queryType;
+
+    private SqlFingerprint(String normalized, String queryType) {
+        this.normalized = normalized;
+        this.fingerprint = hash(normalized);
+        this.queryType = queryType;
+    }
+
+    public static SqlFingerprint of(String sql) {
+        return new SqlFingerprint(normalize(sql), queryType(sql));
+    }
+
+    public String getNormalized() {
+        return normalized;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 查询类型（SELECT, INSERT, UPDATE, DELETE...），无法识别时为 UNKNOWN
+     */
+    public String getQueryType() {
+        return queryType;
+    }
+
+    /**
+     * 归一化SQL
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        int length = sql.length();
+        StringBuilder out = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                appendPlaceholder(out);
+            } else if (c == '"' || c == '`') {
+                // 引号标识符原样保留
+                int end = skipQuoted(sql, i, c);
+                out.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLine(sql, i);
+                appendSpace(out);
+            } else if (c == '#') {
+                i = skipLine(sql, i);
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(out);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(out);
+                i++;
+            } else if (c == '?') {
+                appendPlaceholder(out);
+                i++;
+            } else if (isDigit(c) && !endsWithIdentifier(out)) {
+                i = skipNumber(sql, i);
+                appendPlaceholder(out);
+            } else if (isIdentifierChar(c)) {
+                int start = i;
+                while (i < length && isIdentifierChar(sql.charAt(i))) {
+                    i++;
+                }
+                appendLowerCase(out, sql, start, i);
+            } else {
+                // 逗号前后不留空格，便于折叠 ?, ?, ?
+                if (c == ',' || c == ')') {
+                    trimTrailingSpace(out);
+                }
+                out.append(c);
+                if (c == ')') {
+                    foldTuple(out);
+                }
+                i++;
+            }
+        }
+        trimTrailingSpace(out);
+        return out.toString();
+    }
+
+    /**
+     * 识别查询类型，跳过前导空白、注释和括号
+     */
+    public static String queryType(String sql) {
+        if (sql == null) {
+            return "UNKNOWN";
+        }
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLine(sql, i);
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+        String keyword = sql.substring(start, i).toUpperCase();
+        switch (keyword) {
+            case "SELECT":
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "CREATE":
+            case "DROP":
+            case "ALTER":
+                return keyword;
+            case "WITH":
+                return "SELECT";
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希，输出固定 16 位十六进制
+     */
+    public static String hash(String text) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    @Override
+    public String toString() {
+        return fingerprint + " " + normalized;
+    }
+
+    /**
+     * 追加一个占位符；前面已是 "?," 时折叠为 ?+
+     */
+    private static void appendPlaceholder(StringBuilder out) {
+        int length = out.length();
+        if (length >= 2 && out.charAt(length - 1) == ',') {
+            char before = out.charAt(length - 2);
+            if (before == '?' || before == '+' && length >= 3 && out.charAt(length - 3) == '?') {
+                out.setLength(length - 1);
+                if (before == '?') {
+                    out.append('+');
+                }
+                return;
+            }
+        }
+        out.append('?');
+        foldCasePair(out);
+    }
+
+    /**
+     * 刚闭合的元组与前一个元组相同时折叠："(...),(...)" 变为 "(...)+"，之后相同的元组直接去掉
+     */
+    private static void foldTuple(StringBuilder out) {
+        int end = out.length();
+        int start = groupStart(out);
+        if (start < 1 || out.charAt(start - 1) != ',') {
+            return;
+        }
+        int comma = start - 1;
+        boolean folded = comma > 0 && out.charAt(comma - 1) == '+';
+        int groupLength = end - start;
+        int previousStart = (folded ? comma - 1 : comma) - groupLength;
+        if (previousStart < 0 || !regionEquals(out, previousStart, start, groupLength)) {
+            return;
+        }
+        out.setLength(comma);
+        if (!folded) {
+            out.append('+');
+        }
+    }
+
+    /**
+     * 刚追加的 when ? then ? 与前一个相同时折叠为 when ? then ?+，之后的直接去掉
+     */
+    private static void foldCasePair(StringBuilder out) {
+        int end = out.length();
+        int previousEnd = end - CASE_PAIR.length();
+        if (!endsWith(out, end, CASE_PAIR)) {
+            return;
+        }
+        if (endsWith(out, previousEnd, CASE_PAIR)) {
+            out.setLength(previousEnd);
+            out.append('+');
+        } else if (previousEnd > 0 && out.charAt(previousEnd - 1) == '+' && endsWith(out, previousEnd - 1, CASE_PAIR)) {
+            out.setLength(previousEnd);
+        }
+    }
+
+    /**
+     * 末尾右括号对应的左括号位置，不匹配时返回 -1
+     */
+    private static int groupStart(StringBuilder out) {
+        int depth = 0;
+        for (int i = out.length() - 1; i >= 0; i--) {
+            char c = out.charAt(i);
+            if (c == ')') {
+                depth++;
+            } else if (c == '(' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean endsWith(StringBuilder out, int end, String suffix) {
+        int start = end - suffix.length();
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (out.charAt(start + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(StringBuilder out, int first, int second, int length) {
+        for (int i = 0; i < length; i++) {
+            if (out.charAt(first + i) != out.charAt(second + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        int length = out.length();
+        if (length > 0 && out.charAt(length - 1) != ' ' && out.charAt(length - 1) != '('
+                && out.charAt(length - 1) != ',') {
+            out.append(' ');
+        }
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        int length = out.length();
+        if (length > 0 && out.charAt(length - 1) == ' ') {
+            out.setLength(length - 1);
+        }
+    }
+
+    private static void appendLowerCase(StringBuilder out, String sql, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = sql.charAt(i);
+            out.append(c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+        }
+    }
+
+    /**
+     * 跳过引号内容，支持重复引号和反斜杠转义，返回结束引号之后的位置
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote == '\'') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private static int skipLine(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    /**
+     * 跳过数字字面量：整数、小数、科学计数法和 0x 十六进制
+     */
+    private static int skipNumber(String sql, int start) {
+        int i = start;
+        int length = sql.length();
+        if (sql.charAt(i) == '0' && i + 1 < length && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+            i += 2;
+            while (i < length && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (isDigit(c) || c == '.') {
+                i++;
+            } else if ((c == 'e' || c == 'E') && i + 1 < length
+                    && (isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '-' || sql.charAt(i + 1) == '+')) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder out) {
+        int length = out.length();
+        return length > 0 && isIdentifierChar(out.charAt(length - 1));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
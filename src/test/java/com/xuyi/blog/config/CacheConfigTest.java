@@ -0,0 +1,145 @@
+package com.xuyi.blog.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.xuyi.blog.dto.ArticleDTO;
+import com.xuyi.blog.dto.TagDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cache.CacheManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓存配置测试类
+ * 校验按缓存名称覆盖的策略和按估算内存占用的淘汰
+ *
+ * @author xuyi
+ */
+class CacheConfigTest {
+
+    @Test
+    void testOverridesMergeWithDefaults() {
+        CacheProperties properties = bind(Map.of(
+                "blog.cache.defaults.maximum-size", "300",
+                "blog.cache.defaults.expire-after-write", "20m",
+                "blog.cache.caches.articles.maximum-size", "1000",
+                "blog.cache.caches.article.maximum-weight", "64MB",
+                "blog.cache.caches[visitStats].expire-after-write", "5m"));
+
+        // 未配置的项沿用默认值
+        CacheProperties.Spec articles = properties.resolve("articles");
+        assertEquals(1000L, articles.getMaximumSize());
+        assertEquals(Duration.ofMinutes(20), articles.getExpireAfterWrite());
+
+        // 配置了权重上限时不再限制条数
+        CacheProperties.Spec article = properties.resolve("article");
+        assertNull(article.getMaximumSize());
+        assertEquals(DataSize.ofMegabytes(64), article.getMaximumWeight());
+
+        // 驼峰的缓存名需要用方括号保留大小写
+        CacheProperties.Spec visitStats = properties.resolve("visitStats");
+        assertEquals(300L, visitStats.getMaximumSize());
+        assertEquals(Duration.ofMinutes(5), visitStats.getExpireAfterWrite());
+
+        assertSame(properties.getDefaults(), properties.resolve("tags"));
+    }
+
+    @Test
+    void testSizeOverrideReplacesDefaultWeight() {
+        CacheProperties properties = bind(Map.of(
+                "blog.cache.defaults.maximum-weight", "32MB",
+                "blog.cache.caches.tags.maximum-size", "100"));
+
+        CacheProperties.Spec tags = properties.resolve("tags");
+        assertEquals(100L, tags.getMaximumSize());
+        assertNull(tags.getMaximumWeight());
+        assertEquals(Duration.ofMinutes(30), tags.getExpireAfterWrite());
+    }
+
+    @Test
+    void testCacheManagerAppliesPerCacheSpecs() {
+        CacheProperties properties = bind(Map.of(
+                "blog.cache.caches.articles.maximum-size", "1000",
+                "blog.cache.caches.articles.expire-after-write", "10m",
+                "blog.cache.caches.article.maximum-weight", "1MB",
+                "blog.cache.caches.custom.maximum-size", "7"));
+        CacheManager cacheManager = new CacheConfig(properties).cacheManager();
+
+        Policy<Object, Object> articles = nativeCache(cacheManager, "articles").policy();
+        assertFalse(articles.eviction().orElseThrow().isWeighted());
+        assertEquals(1000, articles.eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(10), articles.expireAfterWrite().orElseThrow().getExpiresAfter());
+
+        Policy<Object, Object> article = nativeCache(cacheManager, "article").policy();
+        assertTrue(article.eviction().orElseThrow().isWeighted());
+        assertEquals(DataSize.ofMegabytes(1).toBytes(), article.eviction().orElseThrow().getMaximum());
+
+        // 默认策略，以及只出现在配置中的缓存也会注册
+        assertEquals(500, nativeCache(cacheManager, "tags").policy().eviction().orElseThrow().getMaximum());
+        assertEquals(7, nativeCache(cacheManager, "custom").policy().eviction().orElseThrow().getMaximum());
+        assertTrue(cacheManager.getCacheNames().contains("custom"));
+    }
+
+    @Test
+    void testWeightedCacheEvictsByEstimatedSize() {
+        CacheProperties properties = bind(Map.of("blog.cache.caches.article.maximum-weight", "64KB"));
+        Cache<Object, Object> cache = nativeCache(new CacheConfig(properties).cacheManager(), "article");
+
+        // 每篇约 20KB，条数远小于默认的 500 条上限，但三篇以上就超出权重
+        for (long id = 1; id <= 10; id++) {
+            cache.put(id, article(10_000));
+        }
+        cache.cleanUp();
+
+        Policy.Eviction<Object, Object> eviction = cache.policy().eviction().orElseThrow();
+        assertTrue(eviction.weightedSize().orElseThrow() <= DataSize.ofKilobytes(64).toBytes());
+        assertTrue(cache.estimatedSize() <= 3, "剩余 " + cache.estimatedSize() + " 篇");
+        assertTrue(cache.estimatedSize() >= 1);
+    }
+
+    @Test
+    void testWeigherCountsArticleText() {
+        CacheValueWeigher weigher = new CacheValueWeigher();
+
+        assertEquals(40 + 2 * 100, weigher.weigh("key", "x".repeat(100)));
+        int small = weigher.weigh(1L, article(100));
+        int large = weigher.weigh(1L, article(100_000));
+        assertTrue(large - small >= 2 * (100_000 - 100), "正文按实际长度计入");
+
+        // 集合按元素累加，未知类型按固定值计
+        assertTrue(weigher.weigh("list", List.of(article(1000), article(1000))) > 2 * 2 * 1000);
+        assertEquals(256, weigher.weigh("other", new Object()));
+        assertEquals(16, weigher.weigh("empty", List.of()));
+    }
+
+    private static ArticleDTO article(int contentLength) {
+        ArticleDTO article = new ArticleDTO();
+        article.setTitle("标题");
+        article.setContent("a".repeat(contentLength));
+        article.setTags(List.of(new TagDTO()));
+        return article;
+    }
+
+    /**
+     * 缓存管理器外层是事务感知代理，取底层的Caffeine缓存
+     */
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        assertNotNull(cache, name);
+        return (Cache<Object, Object>) cache.getNativeCache();
+    }
+
+    private static CacheProperties bind(Map<String, String> source) {
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("blog.cache", CacheProperties.class)
+                .orElseGet(CacheProperties::new);
+    }
+}
@@ -0,0 +1,200 @@
+package com.xuyi.blog.controller;
+
+import com.xuyi.blog.dto.QueryDigestDTO;
+import com.xuyi.blog.dto.QueryStatsDTO;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.exception.QueryBudgetExceededException;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.CategoryRepository;
+import com.xuyi.blog.repository.TagRepository;
+import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.service.QueryStatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 文章控制器查询预算测试
+ * 超出 @QueryBudget 或出现N+1时请求统计标记为超出预算，测试环境还会由 QueryBudgetFilter 在请求结束后抛出异常
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ArticleControllerQueryBudgetTest {
+
+    private static final int ARTICLE_COUNT = 24;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryStatsService queryStatsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Category category;
+    private Tag tag;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        // 同一事务内建数据，标签保持托管状态，避免级联持久化游离实体
+        transactionTemplate.executeWithoutResult(status -> seed());
+    }
+
+    private void seed() {
+        List<User> authors = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User author = new User("budget-author-" + i, "password");
+            author.setEmail("budget" + i + "@example.com");
+            authors.add(userRepository.save(author));
+        }
+
+        List<Category> categories = categoryRepository.saveAll(List.of(new Category("后端"), new Category("前端")));
+        List<Tag> tags = tagRepository.saveAll(List.of(new Tag("Java"), new Tag("Spring"), new Tag("MySQL")));
+
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            Article a = new Article("预算测试文章 " + i, "正文内容 " + i, authors.get(i % authors.size()));
+            a.setSummary("摘要 " + i);
+            a.setCategory(categories.get(i % categories.size()));
+            a.addTag(tags.get(i % tags.size()));
+            a.addTag(tags.get((i + 1) % tags.size()));
+            a.setIsTop(i == 0);
+            a.publish();
+            article = articleRepository.save(a);
+        }
+        category = categories.get(0);
+        tag = tags.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleRepository.deleteAll();
+        tagRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+        queryStatsService.clearStats();
+    }
+
+    @Test
+    void testListEndpointsWithinBudget() throws Exception {
+        assertWithinBudget("/articles?page=0&size=10");
+        assertWithinBudget("/articles/category/" + category.getId());
+        assertWithinBudget("/articles/tag/" + tag.getId());
+        assertWithinBudget("/articles/search?keyword=预算");
+        assertWithinBudget("/articles/top");
+        assertWithinBudget("/articles/latest");
+        assertWithinBudget("/articles/popular");
+    }
+
+    @Test
+    void testDetailEndpointsWithinBudget() throws Exception {
+        assertWithinBudget("/articles/" + article.getId());
+        assertWithinBudget("/articles/" + article.getId() + "/related");
+    }
+
+    @Test
+    void testListQueriesSkipArticleBody() throws Exception {
+        String[] urls = {
+                "/articles?page=0&size=10",
+                "/articles/category/" + category.getId(),
+                "/articles/tag/" + tag.getId(),
+                "/articles/latest",
+                "/articles/popular",
+                "/articles/" + article.getId() + "/related"
+        };
+        for (String url : urls) {
+            assertWithinBudget(url);
+            for (QueryDigestDTO digest : queryStatsService.getDigests(100)) {
+                assertFalse(digest.getNormalizedSql().matches(".*\\bcontent(_html)?\\b.*"),
+                        url + " 读取了正文列: " + digest.getNormalizedSql());
+            }
+        }
+    }
+
+    @Test
+    void testStatementCountIndependentOfPageSize() throws Exception {
+        String[] endpoints = {
+                "/articles?page=0&size=",
+                "/articles/category/" + category.getId() + "?page=0&size=",
+                "/articles/tag/" + tag.getId() + "?page=0&size="
+        };
+        // 两种页大小都取满页，分页都会发 count 查询，语句数只应取决于抓取计划
+        for (String endpoint : endpoints) {
+            int single = assertWithinBudget(endpoint + 1).getTotalQueries();
+            int full = assertWithinBudget(endpoint + 10).getTotalQueries();
+            assertEquals(single, full, endpoint + " 每页语句数随文章数增长");
+        }
+    }
+
+    @Test
+    void testBudgetViolationFailsRequest() {
+        // N+1 阈值调为 0，任意一条语句都算超出预算
+        ReflectionTestUtils.setField(queryStatsService, "nPlusOneThreshold", 0);
+        try {
+            cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+            Exception e = assertThrows(Exception.class, () -> mockMvc.perform(get("/articles/top")));
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof QueryBudgetExceededException)) {
+                cause = cause.getCause();
+            }
+            assertNotNull(cause, "超出预算的请求没有失败: " + e);
+            assertTrue(cause.getMessage().contains("ArticleController.getTopArticles"));
+        } finally {
+            ReflectionTestUtils.setField(queryStatsService, "nPlusOneThreshold", 5);
+        }
+    }
+
+    /**
+     * 清空缓存后请求接口，确认走到数据库时仍在预算内
+     */
+    private QueryStatsDTO assertWithinBudget(String url) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        queryStatsService.clearStats();
+
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+
+        List<QueryStatsDTO> stats = queryStatsService.getGlobalStats();
+        assertEquals(1, stats.size(), url);
+        QueryStatsDTO request = stats.get(0);
+        assertFalse(request.getBudgetExceeded(), url);
+        return request;
+    }
+}
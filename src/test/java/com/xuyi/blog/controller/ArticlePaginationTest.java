@@ -0,0 +1,112 @@
+package com.xuyi.blog.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 文章分页测试
+ * 发布时间相同的文章在偏移分页和游标分页之间必须保持同一顺序，从偏移页的游标继续时不跳过、不重复
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ArticlePaginationTest {
+
+    private static final int ARTICLE_COUNT = 7;
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        User author = new User("page-author", "password");
+        author.setEmail("page@example.com");
+        author = userRepository.save(author);
+
+        LocalDateTime publishedAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            Article article = new Article("同一时间发布 " + i, "正文 " + i, author);
+            article.publish();
+            // 前三篇和后四篇各自共用一个发布时间
+            article.setPublishedAt(i < 3 ? publishedAt : publishedAt.minusDays(1));
+            articleRepository.save(article);
+        }
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testCursorContinuesOffsetPageWithTiedPublishedAt() throws Exception {
+        List<Long> offsetOrder = new ArrayList<>();
+        for (int page = 0; page * PAGE_SIZE < ARTICLE_COUNT; page++) {
+            offsetOrder.addAll(ids(fetch("/articles?page=" + page + "&size=" + PAGE_SIZE)));
+        }
+        assertEquals(ARTICLE_COUNT, new HashSet<>(offsetOrder).size(), offsetOrder.toString());
+
+        // 第一页走偏移分页，之后沿 nextCursor 继续
+        List<Long> cursorOrder = new ArrayList<>();
+        JsonNode data = fetch("/articles?page=0&size=" + PAGE_SIZE);
+        cursorOrder.addAll(ids(data));
+        while (data.hasNonNull("nextCursor")) {
+            data = fetch("/articles?size=" + PAGE_SIZE + "&cursor=" + data.get("nextCursor").asText());
+            cursorOrder.addAll(ids(data));
+        }
+
+        assertEquals(offsetOrder, cursorOrder);
+    }
+
+    private JsonNode fetch(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("data");
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("content").forEach(article -> ids.add(article.get("id").asLong()));
+        return ids;
+    }
+}
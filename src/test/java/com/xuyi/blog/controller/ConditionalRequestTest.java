@@ -0,0 +1,239 @@
+package com.xuyi.blog.controller;
+
+import com.xuyi.blog.dto.ArticleRequestDTO;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.CategoryRepository;
+import com.xuyi.blog.repository.TagRepository;
+import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.service.ArticleService;
+import com.xuyi.blog.service.ContentVersionService;
+import com.xuyi.blog.service.TagService;
+import com.xuyi.blog.service.ViewCountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 条件请求测试
+ * 校验 ETag 在内容变化前保持不变、变化后立即失效，以及 304 响应的响应头
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ContentVersionService contentVersionService;
+
+    private final List<Article> articles = new ArrayList<>();
+    private Category category;
+    private Tag tag;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> seed());
+    }
+
+    private void seed() {
+        User author = new User("etag-author", "password");
+        author.setEmail("etag@example.com");
+        author = userRepository.save(author);
+        category = categoryRepository.save(new Category("后端"));
+        tag = tagRepository.save(new Tag("Java"));
+
+        articles.clear();
+        for (int i = 0; i < 2; i++) {
+            Article a = new Article("条件请求文章 " + i, "正文内容 " + i, author);
+            a.setCategory(category);
+            a.addTag(tag);
+            a.publish();
+            articles.add(articleRepository.save(a));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        viewCountService.flush();
+        articleRepository.deleteAll();
+        tagRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testNotModifiedBeforeControllerRuns() throws Exception {
+        String[] urls = {"/articles", "/articles/" + articles.get(0).getId(), "/categories", "/tags",
+                "/stats/articles/count"};
+        for (String url : urls) {
+            MockHttpServletResponse first = fetch(url, null);
+            assertEquals(200, first.getStatus(), url);
+            String etag = first.getHeader(HttpHeaders.ETAG);
+            assertNotNull(etag, url);
+            assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED), url);
+            assertEquals("no-cache, public", first.getHeader(HttpHeaders.CACHE_CONTROL), url);
+            assertEquals("Accept-Encoding", first.getHeader(HttpHeaders.VARY), url);
+
+            MockHttpServletResponse second = fetch(url, etag);
+            assertEquals(304, second.getStatus(), url);
+            assertEquals("", second.getContentAsString(), url);
+            assertEquals(etag, second.getHeader(HttpHeaders.ETAG), url);
+            assertEquals("no-cache, public", second.getHeader(HttpHeaders.CACHE_CONTROL), url);
+            assertEquals("Accept-Encoding", second.getHeader(HttpHeaders.VARY), url);
+        }
+    }
+
+    @Test
+    void testArticleChangeInvalidatesOnlyAffectedDetail() throws Exception {
+        Article edited = articles.get(0);
+        Article untouched = articles.get(1);
+        String listEtag = fetch("/articles", null).getHeader(HttpHeaders.ETAG);
+        String editedEtag = fetch("/articles/" + edited.getId(), null).getHeader(HttpHeaders.ETAG);
+        String untouchedEtag = fetch("/articles/" + untouched.getId(), null).getHeader(HttpHeaders.ETAG);
+        long version = articleRepository.findById(edited.getId()).orElseThrow().getVersion();
+
+        ArticleRequestDTO request = new ArticleRequestDTO();
+        request.setTitle("修改后的标题");
+        request.setContent("修改后的正文");
+        request.setCategoryId(category.getId());
+        request.setStatus("PUBLISHED");
+        request.setTagNames(List.of(tag.getName()));
+        // MockMvc 请求结束时会清空安全上下文，这里直接以管理员身份调用服务
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+        try {
+            articleService.updateArticle(edited.getId(), request);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        assertEquals(version + 1, articleRepository.findById(edited.getId()).orElseThrow().getVersion());
+        assertEquals(200, fetch("/articles", listEtag).getStatus());
+        assertEquals(200, fetch("/articles/" + edited.getId(), editedEtag).getStatus());
+        assertEquals(304, fetch("/articles/" + untouched.getId(), untouchedEtag).getStatus());
+    }
+
+    @Test
+    void testTaxonomyChangeInvalidatesDetailAndLists() throws Exception {
+        String detailUrl = "/articles/" + articles.get(0).getId();
+        String detailEtag = fetch(detailUrl, null).getHeader(HttpHeaders.ETAG);
+        String tagsEtag = fetch("/tags", null).getHeader(HttpHeaders.ETAG);
+
+        tagService.updateTag(tag.getId(), "Java 21", null);
+
+        MockHttpServletResponse detail = fetch(detailUrl, detailEtag);
+        assertEquals(200, detail.getStatus());
+        assertTrue(detail.getContentAsString().contains("Java 21"));
+        assertEquals(200, fetch("/tags", tagsEtag).getStatus());
+    }
+
+    @Test
+    void testCacheEvictionAndEpochWaitForCommit() throws Exception {
+        String etag = fetch("/tags", null).getHeader(HttpHeaders.ETAG);
+        Cache tags = cacheManager.getCache("tags");
+        assertNotNull(tags.get("all"));
+        long epoch = contentVersionService.getContentEpoch();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tagService.updateTag(tag.getId(), "Java 21", null);
+            // 提交前缓存和版本都不变，并发读取仍拿到一致的旧内容和旧 ETag
+            assertNotNull(tags.get("all"));
+            assertEquals(epoch, contentVersionService.getContentEpoch());
+        });
+
+        assertNull(tags.get("all"));
+        assertTrue(contentVersionService.getContentEpoch() > epoch);
+        MockHttpServletResponse response = fetch("/tags", etag);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Java 21"));
+    }
+
+    @Test
+    void testNotModifiedDetailStillCountsView() throws Exception {
+        Long id = articles.get(0).getId();
+        String etag = fetch("/articles/" + id, null).getHeader(HttpHeaders.ETAG);
+        long pending = viewCountService.getPending(id);
+
+        assertEquals(304, fetch("/articles/" + id, etag).getStatus());
+        assertEquals(pending + 1, viewCountService.getPending(id));
+
+        // 浏览量写回后详情的 ETag 失效，列表的 ETag 不受影响
+        String listEtag = fetch("/articles", null).getHeader(HttpHeaders.ETAG);
+        viewCountService.flush();
+        assertEquals(200, fetch("/articles/" + id, etag).getStatus());
+        assertEquals(304, fetch("/articles", listEtag).getStatus());
+    }
+
+    @Test
+    void testPolicyWithoutValidator() throws Exception {
+        MockHttpServletResponse overview = fetch("/stats/overview", null);
+        assertEquals(200, overview.getStatus());
+        assertEquals("max-age=60, public", overview.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNull(overview.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse withStats = fetch("/articles?includeStats=true", null);
+        assertEquals("no-store", withStats.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertNull(withStats.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse fetch(String url, String ifNoneMatch) throws Exception {
+        var request = get(url);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,118 @@
+package com.xuyi.blog.interceptor;
+
+import com.xuyi.blog.dto.QueryStatsDTO;
+import com.xuyi.blog.service.QueryStatsService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 查询计时数据源测试
+ *
+ * @author xuyi
+ */
+class QueryTimingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryStatsService queryStatsService;
+    private DataSource dataSource;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        queryStatsService = new QueryStatsService(meterRegistry);
+        ReflectionTestUtils.setField(queryStatsService, "maxFingerprints", 200);
+        ReflectionTestUtils.setField(queryStatsService, "digestCapacity", 500);
+        queryStatsService.initMetrics();
+
+        PreparedStatement select = mock(PreparedStatement.class);
+        when(select.executeQuery()).thenAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, true, true, false);
+            return resultSet;
+        });
+        PreparedStatement update = mock(PreparedStatement.class);
+        when(update.executeUpdate()).thenReturn(2);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                invocation.getArgument(0, String.class).startsWith("select") ? select : update);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        ObjectProvider<QueryStatsService> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(queryStatsService);
+        dataSource = new QueryTimingDataSource(target, provider);
+
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/articles")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testStatementsMeasuredPerRequest() throws Exception {
+        queryStatsService.startRequestStats();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (long id = 1; id <= 2; id++) {
+                try (PreparedStatement statement = connection.prepareStatement("select * from articles where id = ?")) {
+                    statement.setLong(1, id);
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                    resultSet.close();
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("update articles set view_count = ? where id = ?")) {
+                assertEquals(2, statement.executeUpdate());
+            }
+        }
+
+        QueryStatsDTO stats = queryStatsService.finishRequestStats();
+        assertNotNull(stats);
+        assertEquals(3, stats.getTotalQueries());
+        assertEquals(8, stats.getTotalRows(), "两次查询各3行，更新2行");
+        assertEquals(2, stats.getQueryTypeStats().get("SELECT"));
+        assertEquals(1, stats.getQueryTypeStats().get("UPDATE"));
+
+        // 同一指纹的两次查询计入同一个计时器
+        Timer selectTimer = meterRegistry.find("blog.db.query").tag("type", "SELECT").tag("phase", "execute").timer();
+        assertNotNull(selectTimer);
+        assertEquals(2, selectTimer.count());
+        assertEquals(1, meterRegistry.find("blog.db.connection.acquire").timer().count());
+    }
+
+    @Test
+    void testFingerprintTagsBounded() throws Exception {
+        ReflectionTestUtils.setField(queryStatsService, "maxFingerprints", 2);
+        try (Connection connection = dataSource.getConnection()) {
+            for (String table : new String[]{"a", "b", "c", "d"}) {
+                try (PreparedStatement statement = connection.prepareStatement("update " + table + " set x = ?")) {
+                    statement.executeUpdate();
+                }
+            }
+        }
+        assertEquals(3, meterRegistry.find("blog.db.query.rows").summaries().size(), "两个指纹加 other");
+    }
+}
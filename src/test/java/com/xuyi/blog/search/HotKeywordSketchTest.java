@@ -0,0 +1,91 @@
+package com.xuyi.blog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热门关键词统计测试类
+ *
+ * @author xuyi
+ */
+class HotKeywordSketchTest {
+
+    @Test
+    void testTopOrdersByFrequency() {
+        HotKeywordSketch sketch = new HotKeywordSketch(1024, 10);
+        add(sketch, "java", 30);
+        add(sketch, "redis", 10);
+        add(sketch, "微服务", 20);
+
+        assertEquals(List.of("java", "微服务", "redis"), keywords(sketch.top(10)));
+        assertEquals(List.of("java"), keywords(sketch.top(1)));
+    }
+
+    @Test
+    void testFrequentKeywordReplacesRareOneWhenFull() {
+        HotKeywordSketch sketch = new HotKeywordSketch(1024, 3);
+        add(sketch, "a", 5);
+        add(sketch, "b", 4);
+        add(sketch, "c", 1);
+        add(sketch, "d", 3);
+
+        assertEquals(List.of("a", "b", "d"), keywords(sketch.top(10)));
+    }
+
+    @Test
+    void testDecayLetsNewTrendsOvertake() {
+        HotKeywordSketch sketch = new HotKeywordSketch(1024, 10);
+        add(sketch, "java", 20);
+        sketch.decay(0.25);
+        add(sketch, "docker", 8);
+
+        assertEquals(List.of("docker", "java"), keywords(sketch.top(10)));
+
+        // 衰减到阈值以下的关键词移出热门表
+        sketch.decay(0.01);
+        assertTrue(sketch.top(10).isEmpty());
+    }
+
+    @Test
+    void testRepeatedDecayKeepsCountsAccurate() {
+        HotKeywordSketch sketch = new HotKeywordSketch(1024, 10);
+        // 缩放系数多次衰减后会换算回实际值，计数和顺序都不受影响
+        for (int i = 0; i < 100; i++) {
+            sketch.decay(0.5);
+            add(sketch, "java", 2);
+            add(sketch, "redis", 1);
+        }
+
+        List<HotKeywordSketch.Entry> top = sketch.top(10);
+        assertEquals(List.of("java", "redis"), keywords(top));
+        assertEquals(4.0, top.get(0).count(), 0.01);
+        assertEquals(2.0, top.get(1).count(), 0.01);
+    }
+
+    @Test
+    void testExportAndRestore() {
+        HotKeywordSketch sketch = new HotKeywordSketch(1024, 10);
+        add(sketch, "java", 5);
+        add(sketch, "mysql", 3);
+
+        HotKeywordSketch restored = new HotKeywordSketch(1024, 10);
+        restored.restore(sketch.exportCounters(), sketch.top(10));
+        add(restored, "mysql", 3);
+
+        assertEquals(List.of("mysql", "java"), keywords(restored.top(10)));
+        assertEquals(6.0, restored.top(1).get(0).count());
+    }
+
+    private static void add(HotKeywordSketch sketch, String keyword, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.add(keyword);
+        }
+    }
+
+    private static List<String> keywords(List<HotKeywordSketch.Entry> entries) {
+        return entries.stream().map(HotKeywordSketch.Entry::keyword).toList();
+    }
+}
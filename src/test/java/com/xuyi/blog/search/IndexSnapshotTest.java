@@ -0,0 +1,93 @@
+package com.xuyi.blog.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索索引快照文件测试类
+ *
+ * @author xuyi
+ */
+class IndexSnapshotTest {
+
+    @Test
+    void testWriteAndReopen(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("index.bin");
+        write(path, 42L);
+
+        IndexSnapshot snapshot = IndexSnapshot.open(path);
+        assertEquals(42L, snapshot.watermark());
+        assertEquals(2, snapshot.docCount());
+        assertEquals(7, snapshot.totalLength());
+        assertEquals("Java 并发", snapshot.title(snapshot.ordinalOf(2L)));
+        assertEquals(-1, snapshot.ordinalOf(3L));
+
+        int term = snapshot.findTerm("缓存");
+        assertEquals(2, snapshot.docFrequency(term));
+        StringBuilder postings = new StringBuilder();
+        snapshot.forEachPosting(term, (ordinal, frequency) ->
+                postings.append(snapshot.docId(ordinal)).append(':').append(frequency).append(' '));
+        assertEquals("1:2 2:1 ", postings.toString());
+        assertEquals(-1, snapshot.findTerm("redis"));
+    }
+
+    @Test
+    void testRewriteReplacesFileAtomically(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("index.bin");
+        write(path, 1L);
+        IndexSnapshot previous = IndexSnapshot.open(path);
+
+        write(path, 2L);
+
+        // 临时文件已改名，旧映射仍可读取
+        assertFalse(Files.exists(dir.resolve("index.bin.tmp")));
+        assertEquals(2L, IndexSnapshot.open(path).watermark());
+        assertEquals(1L, previous.watermark());
+        assertEquals("微服务架构", previous.title(previous.ordinalOf(1L)));
+    }
+
+    @Test
+    void testTruncatedFileRejected(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("index.bin");
+        write(path, 1L);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> IndexSnapshot.open(path));
+
+        Files.write(path, Arrays.copyOf(bytes, 40));
+        assertThrows(IOException.class, () -> IndexSnapshot.open(path));
+    }
+
+    @Test
+    void testCorruptFileRejected(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("index.bin");
+        write(path, 1L);
+        byte[] bytes = Files.readAllBytes(path);
+
+        // 倒排表中间的一个字节被改写
+        bytes[bytes.length - 2] ^= 0x10;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> IndexSnapshot.open(path));
+
+        Files.write(path, new byte[128]);
+        assertThrows(IOException.class, () -> IndexSnapshot.open(path));
+    }
+
+    private static void write(Path path, long watermark) throws IOException {
+        IndexSnapshot.write(path, watermark,
+                List.of(new IndexSnapshot.DocumentEntry(2L, 3, "Java 并发"),
+                        new IndexSnapshot.DocumentEntry(1L, 4, "微服务架构")),
+                Map.of("缓存", Map.of(2L, 1, 1L, 2),
+                        "java", Map.of(2L, 1)));
+    }
+}
@@ -0,0 +1,127 @@
+package com.xuyi.blog.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 倒排索引测试类
+ *
+ * @author xuyi
+ */
+class InvertedIndexTest {
+
+    @Test
+    void testTokenizeMixedText() {
+        List<String> tokens = SearchTokenizer.tokenizeQuery("Spring Boot微服务");
+
+        assertEquals(List.of("spring", "boot", "微服", "服务"), tokens);
+    }
+
+    @Test
+    void testSearchChineseByBigrams() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "微服务架构实践", "介绍微服务拆分");
+        index.put(2L, "数据库优化", "服务器参数调优");
+
+        InvertedIndex.SearchHits hits = index.search("微服务", 0, 10);
+
+        assertEquals(1, hits.total());
+        assertEquals(List.of(1L), hits.ids());
+    }
+
+    @Test
+    void testSingleChineseCharacterMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "算法", "排序");
+
+        assertEquals(List.of(1L), index.search("算", 0, 10).ids());
+    }
+
+    @Test
+    void testTitleMatchRanksHigher() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "日常随笔", "今天顺便学了一点 Java 的内容");
+        index.put(2L, "Java 并发编程", "线程池与锁");
+
+        InvertedIndex.SearchHits hits = index.search("java", 0, 10);
+
+        assertEquals(List.of(2L, 1L), hits.ids());
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "Redis 缓存", "缓存穿透");
+        index.put(1L, "Caffeine 缓存", "本地缓存");
+
+        assertEquals(0, index.search("redis", 0, 10).total());
+        assertEquals(1, index.search("caffeine", 0, 10).total());
+
+        index.remove(1L);
+        assertEquals(0, index.search("caffeine", 0, 10).total());
+        assertEquals(0, index.size());
+        assertEquals(0, index.termCount());
+    }
+
+    @Test
+    void testPaging() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.put(id, "Java " + id, "内容");
+        }
+
+        InvertedIndex.SearchHits hits = index.search("java", 2, 2);
+
+        assertEquals(5, hits.total());
+        assertEquals(2, hits.ids().size());
+    }
+
+    @Test
+    void testSnapshotRoundTrip(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("index.bin");
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "微服务架构", "服务拆分");
+        index.put(2L, "Java 并发", "线程池");
+        index.writeSnapshot(path, 1234L);
+
+        IndexSnapshot snapshot = IndexSnapshot.open(path);
+        assertEquals(1234L, snapshot.watermark());
+        assertEquals(2, snapshot.docCount());
+
+        InvertedIndex reloaded = new InvertedIndex();
+        reloaded.load(snapshot);
+        assertEquals(List.of(1L), reloaded.search("微服务", 0, 10).ids());
+        assertEquals("Java 并发", reloaded.getTitle(2L));
+    }
+
+    @Test
+    void testChangesAfterSnapshotOverrideBase(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("index.bin");
+        InvertedIndex index = new InvertedIndex();
+        index.put(1L, "Redis 缓存", "缓存穿透");
+        index.put(2L, "MySQL 索引", "B+树");
+        index.put(3L, "Docker 部署", "容器");
+        index.writeSnapshot(path, 0L);
+
+        // 修改快照中的文档、删除文档后再次写入
+        index.put(1L, "Caffeine 缓存", "本地缓存");
+        index.retainAll(Set.of(1L, 2L));
+        assertEquals(0, index.search("redis", 0, 10).total());
+        assertEquals(List.of(1L), index.search("caffeine", 0, 10).ids());
+        assertEquals(0, index.search("docker", 0, 10).total());
+        assertEquals(2, index.size());
+
+        index.writeSnapshot(path, 0L);
+        InvertedIndex reloaded = new InvertedIndex();
+        reloaded.load(IndexSnapshot.open(path));
+        assertEquals(2, reloaded.size());
+        assertEquals(List.of(1L), reloaded.search("缓存", 0, 10).ids());
+        assertEquals(List.of(2L), reloaded.search("mysql", 0, 10).ids());
+    }
+}
@@ -0,0 +1,60 @@
+package com.xuyi.blog.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索建议补全树测试类
+ *
+ * @author xuyi
+ */
+class SuggestionTrieTest {
+
+    @Test
+    void testCompleteOrdersByWeight() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add("Spring Boot 入门", 10);
+        trie.add("Spring Cloud 实战", 50);
+        trie.add("Spring", 30);
+        trie.add("Redis", 100);
+
+        assertEquals(List.of("Spring Cloud 实战", "Spring", "Spring Boot 入门"), trie.complete("spr", 10));
+        assertEquals(List.of("Spring Cloud 实战"), trie.complete("SPRING", 1));
+        assertTrue(trie.complete("mysql", 10).isEmpty());
+    }
+
+    @Test
+    void testChinesePrefix() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add("微服务架构", 5);
+        trie.add("微信小程序", 8);
+
+        assertEquals(List.of("微信小程序", "微服务架构"), trie.complete("微", 10));
+        assertEquals(List.of("微服务架构"), trie.complete("微服", 10));
+    }
+
+    @Test
+    void testSharedTextAndRemoval() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add("Java", 10);
+        trie.add("Java", 200);
+        trie.add("JavaScript", 100);
+
+        // 两个来源权重累加
+        assertEquals(List.of("Java", "JavaScript"), trie.complete("ja", 10));
+
+        trie.remove("Java", 200);
+        assertEquals(List.of("JavaScript", "Java"), trie.complete("ja", 10));
+
+        trie.remove("Java", 10);
+        assertEquals(List.of("JavaScript"), trie.complete("ja", 10));
+        assertEquals(1, trie.size());
+
+        trie.remove("JavaScript", 100);
+        assertEquals(0, trie.size());
+        assertTrue(trie.complete("j", 10).isEmpty());
+    }
+}
@@ -1,7 +1,16 @@
 package com.xuyi.blog.security;
 
+import com.xuyi.blog.config.RateLimitProperties;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -59,4 +68,79 @@ class AntiSpamFilterTest {
         assertEquals(59, info1.getRemainingRequestsPerMinute(), "客户端1每分钟剩余请求数应为59");
         assertEquals(59, info2.getRemainingRequestsPerMinute(), "客户端2每分钟剩余请求数应为59");
     }
+
+    @Test
+    void testRejectsWhenMinuteLimitReachedAndRefills() {
+        AtomicLong clock = new AtomicLong();
+        InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter(new RateLimitProperties(), clock::get);
+        String clientId = "192.168.1.102";
+
+        for (int i = 0; i < 60; i++) {
+            assertTrue(rateLimiter.isAllowed(clientId), "每分钟前60个请求都应该被允许");
+        }
+        assertFalse(rateLimiter.isAllowed(clientId), "第61个请求应该被限流");
+        // 被拒绝的请求不占用每小时的名额
+        assertEquals(940, rateLimiter.getRateLimitInfo(clientId).getRemainingRequestsPerHour());
+
+        // 滑动窗口按发放间隔逐个恢复名额
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(rateLimiter.isAllowed(clientId), "1秒后应恢复一个名额");
+        assertFalse(rateLimiter.isAllowed(clientId));
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(60, rateLimiter.getRateLimitInfo(clientId).getRemainingRequestsPerMinute());
+    }
+
+    @Test
+    void testRoutePolicy() {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName("login");
+        route.setPaths(List.of("/auth/login"));
+        route.setPerMinute(3);
+        properties.getRoutes().add(route);
+        InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter(properties, () -> 0L);
+        String clientId = "192.168.1.103";
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.isAllowed(clientId, "/auth/login"));
+        }
+        assertFalse(rateLimiter.isAllowed(clientId, "/auth/login"), "登录接口超过路由限制");
+        assertTrue(rateLimiter.isAllowed(clientId, "/articles"), "其他接口使用独立的默认策略");
+
+        InMemoryRateLimiter.RateLimitInfo info = rateLimiter.getRateLimitInfo(clientId, "/auth/login");
+        assertEquals("login", info.getPolicy());
+        assertEquals(3, info.getLimitPerMinute());
+        assertEquals(1000, info.getLimitPerHour(), "未配置的窗口沿用默认策略");
+        assertEquals(59, rateLimiter.getRateLimitInfo(clientId, "/articles").getRemainingRequestsPerMinute());
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedLimit() throws InterruptedException {
+        InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter(new RateLimitProperties(), () -> 0L);
+        String clientId = "192.168.1.104";
+        AtomicInteger allowed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (rateLimiter.isAllowed(clientId)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(60, allowed.get(), "并发请求下放行数应恰好等于每分钟限制");
+    }
 }
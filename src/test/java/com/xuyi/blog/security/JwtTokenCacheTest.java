@@ -0,0 +1,83 @@
+package com.xuyi.blog.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 已验证token缓存测试
+ *
+ * @author xuyi
+ */
+class JwtTokenCacheTest {
+
+    private JwtTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JwtTokenCache();
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttl", 60_000L);
+        cache.init();
+    }
+
+    @Test
+    void testCachedUntilTokenExpires() {
+        UserDetails admin = user("admin");
+        cache.put("token-a", claims("admin", 60_000), admin);
+
+        JwtTokenCache.CachedToken cached = cache.get("token-a");
+        assertNotNull(cached);
+        assertSame(admin, cached.userDetails());
+        assertEquals("admin", cached.claims().getSubject());
+        assertNull(cache.get("token-b"));
+
+        // 已过期的token不缓存
+        cache.put("token-expired", claims("admin", -1_000), admin);
+        assertNull(cache.get("token-expired"));
+    }
+
+    @Test
+    void testEvictUserOnPasswordChange() {
+        cache.put("token-a", claims("admin", 60_000), user("admin"));
+        cache.put("token-b", claims("admin", 60_000), user("admin"));
+        cache.put("token-c", claims("editor", 60_000), user("editor"));
+
+        cache.evictUser("admin");
+
+        assertNull(cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertNotNull(cache.get("token-c"));
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttl", 50L);
+        cache.init();
+        cache.put("token-a", claims("admin", 60_000), user("admin"));
+        assertNotNull(cache.get("token-a"));
+
+        // 缓存时长短于token有效期时，到期后要重新验证并读取用户信息
+        Thread.sleep(100);
+        assertNull(cache.get("token-a"));
+    }
+
+    private static Claims claims(String username, long ttlMillis) {
+        return Jwts.claims()
+                .subject(username)
+                .expiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .build();
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("x").roles("ADMIN").build();
+    }
+}
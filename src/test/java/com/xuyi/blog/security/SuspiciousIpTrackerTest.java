@@ -0,0 +1,87 @@
+package com.xuyi.blog.security;
+
+import com.xuyi.blog.dto.SuspiciousIpDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可疑IP跟踪器测试
+ *
+ * @author xuyi
+ */
+class SuspiciousIpTrackerTest {
+
+    private SuspiciousIpTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SuspiciousIpTracker();
+        ReflectionTestUtils.setField(tracker, "width", 4096);
+        ReflectionTestUtils.setField(tracker, "capacity", 8);
+        ReflectionTestUtils.setField(tracker, "reportThreshold", 3.0);
+        ReflectionTestUtils.setField(tracker, "banThreshold", 5.0);
+        ReflectionTestUtils.setField(tracker, "banDuration", 60000L);
+        ReflectionTestUtils.setField(tracker, "halfLife", 60000L);
+        ReflectionTestUtils.setField(tracker, "decayInterval", 60000L);
+        tracker.init();
+    }
+
+    @Test
+    void testBanAfterThreshold() {
+        String ip = "10.0.0.1";
+        for (int i = 0; i < 4; i++) {
+            assertFalse(tracker.record(ip, "SQL注入尝试"));
+        }
+        assertFalse(tracker.isBanned(ip));
+
+        assertTrue(tracker.record(ip, "SQL注入尝试"), "第5次达到封禁阈值");
+        assertTrue(tracker.isBanned(ip));
+        assertFalse(tracker.isBanned("10.0.0.2"));
+
+        List<SuspiciousIpDTO> ips = tracker.getSuspiciousIps(10);
+        assertEquals(1, ips.size());
+        assertEquals(ip, ips.get(0).getIp());
+        assertEquals(1, ips.get(0).getBans());
+        assertNotNull(ips.get(0).getBannedUntil());
+
+        tracker.clearSuspiciousIps();
+        assertFalse(tracker.isBanned(ip));
+        assertTrue(tracker.getSuspiciousIps(10).isEmpty());
+    }
+
+    @Test
+    void testOffenderTableStaysBounded() {
+        // 大量伪造地址各出现几次，违规表不超过容量
+        for (int i = 0; i < 1000; i++) {
+            String ip = "172.16." + (i >> 8) + "." + (i & 0xff);
+            for (int j = 0; j < 3; j++) {
+                tracker.record(ip, "XSS攻击尝试");
+            }
+        }
+        assertTrue(tracker.getSuspiciousIps(Integer.MAX_VALUE).size() <= 8);
+    }
+
+    @Test
+    void testDecayForgetsInactiveIps() {
+        String ip = "10.0.0.3";
+        for (int i = 0; i < 3; i++) {
+            tracker.record(ip, "路径遍历攻击");
+        }
+        assertEquals(1, tracker.getSuspiciousIps(10).size());
+
+        // 每次衰减一个半衰期：3 -> 1.5 -> 0.75 -> 0.375
+        for (int i = 0; i < 3; i++) {
+            tracker.decay();
+        }
+        assertTrue(tracker.getSuspiciousIps(10).isEmpty());
+
+        // 衰减后的计数不会立刻触发封禁
+        assertFalse(tracker.record(ip, "路径遍历攻击"));
+        assertFalse(tracker.isBanned(ip));
+    }
+}
@@ -0,0 +1,76 @@
+package com.xuyi.blog.security;
+
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.service.AuthService;
+import com.xuyi.blog.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * token 吊销测试
+ * 修改密码后，之前签发的 token 即使签名有效、已被缓存过，也不能再通过认证
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenRevocationTest {
+
+    private static final String USERNAME = "revoke-admin";
+    private static final String PASSWORD = "oldPassword123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User(USERNAME, authService.encodePassword(PASSWORD));
+        user.setEmail("revoke@example.com");
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testPasswordChangeRevokesEarlierTokens() throws Exception {
+        String oldToken = jwtUtil.generateToken(USERNAME);
+        assertEquals(200, profileStatus(oldToken));
+
+        // token 的签发时间精确到秒，等到下一秒再修改密码
+        Thread.sleep(1100);
+        authService.changePassword(USERNAME, PASSWORD, "newPassword456", "newPassword456");
+
+        int status = profileStatus(oldToken);
+        assertTrue(status == 401 || status == 403, String.valueOf(status));
+        assertEquals(200, profileStatus(jwtUtil.generateToken(USERNAME)));
+    }
+
+    private int profileStatus(String token) throws Exception {
+        return mockMvc.perform(get("/admin/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus();
+    }
+}
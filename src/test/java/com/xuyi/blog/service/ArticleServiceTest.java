@@ -1,5 +1,6 @@
 package com.xuyi.blog.service;
 
+import com.xuyi.blog.dto.ArticleCursor;
 import com.xuyi.blog.dto.ArticleDTO;
 import com.xuyi.blog.dto.ArticleRequestDTO;
 import com.xuyi.blog.dto.ArticleSummaryDTO;
@@ -52,6 +53,27 @@ class ArticleServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BlogStatsService blogStatsService;
+
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private SuggestionService suggestionService;
+
+    @Mock
+    private MarkdownService markdownService;
+
+    @Mock
+    private ArticleSummaryAssembler summaryAssembler;
+
+    @Mock
+    private ContentVersionService contentVersionService;
+
     @InjectMocks
     private ArticleService articleService;
 
@@ -78,11 +100,12 @@ class ArticleServiceTest {
     void testGetPublishedArticles() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Article> articlePage = new PageImpl<>(List.of(testArticle));
+        Page<ArticleSummaryDTO> articlePage = new PageImpl<>(List.of(ArticleSummaryDTO.from(testArticle)));
         
-        when(articleRepository.findByStatusOrderByIsTopDescPublishedAtDesc(
+        when(articleRepository.findPublishedSummaries(
                 eq(Article.ArticleStatus.PUBLISHED), eq(pageable)))
                 .thenReturn(articlePage);
+        when(blogStatsService.getTotalArticles()).thenReturn(1L);
 
         // When
         PageResponse<ArticleSummaryDTO> result = articleService.getPublishedArticles(0, 10);
@@ -93,14 +116,47 @@ class ArticleServiceTest {
         assertEquals(1, result.getContent().size());
         assertEquals("测试文章", result.getContent().get(0).getTitle());
         
-        verify(articleRepository).findByStatusOrderByIsTopDescPublishedAtDesc(
+        verify(articleRepository).findPublishedSummaries(
                 eq(Article.ArticleStatus.PUBLISHED), eq(pageable));
     }
 
+    @Test
+    void testGetPublishedArticlesAfterCursor() {
+        // Given
+        Article nextArticle = new Article("下一篇", "内容", testUser);
+        nextArticle.setId(2L);
+        nextArticle.setIsTop(false);
+        nextArticle.setStatus(Article.ArticleStatus.PUBLISHED);
+        nextArticle.setPublishedAt(testArticle.getPublishedAt().minusDays(1));
+
+        String cursor = ArticleCursor.of(testArticle).encode();
+        when(articleRepository.findPublishedSummariesAfter(eq(Article.ArticleStatus.PUBLISHED), eq(false),
+                eq(testArticle.getPublishedAt()), eq(1L), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(ArticleSummaryDTO.from(nextArticle)));
+        when(blogStatsService.getTotalArticles()).thenReturn(2L);
+
+        // When
+        PageResponse<ArticleSummaryDTO> result = articleService.getPublishedArticlesAfter(cursor, 1);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals("下一篇", result.getContent().get(0).getTitle());
+        assertEquals(2, result.getTotalElements());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetPublishedArticlesWithInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            articleService.getPublishedArticlesAfter("not-a-cursor", 10);
+        });
+    }
+
     @Test
     void testGetArticleById() {
         // Given
-        when(articleRepository.findById(1L)).thenReturn(Optional.of(testArticle));
+        when(articleRepository.findDetailById(1L)).thenReturn(Optional.of(testArticle));
 
         // When
         ArticleDTO result = articleService.getArticleById(1L);
@@ -111,20 +167,20 @@ class ArticleServiceTest {
         assertEquals("测试内容", result.getContent());
         assertEquals("xuyi", result.getAuthor().getUsername());
         
-        verify(articleRepository).findById(1L);
+        verify(articleRepository).findDetailById(1L);
     }
 
     @Test
     void testGetArticleByIdNotFound() {
         // Given
-        when(articleRepository.findById(1L)).thenReturn(Optional.empty());
+        when(articleRepository.findDetailById(1L)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> {
             articleService.getArticleById(1L);
         });
         
-        verify(articleRepository).findById(1L);
+        verify(articleRepository).findDetailById(1L);
     }
 
     @Test
@@ -210,7 +266,7 @@ class ArticleServiceTest {
         articleService.incrementViewCount(1L);
 
         // Then
-        verify(articleRepository).incrementViewCount(1L);
+        verify(viewCountService).increment(1L);
     }
 
     @Test
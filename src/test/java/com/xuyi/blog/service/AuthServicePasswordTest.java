@@ -2,12 +2,16 @@ package com.xuyi.blog.service;
 
 import com.xuyi.blog.entity.User;
 import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.security.JwtTokenCache;
+import com.xuyi.blog.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +32,12 @@ public class AuthServicePasswordTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JwtTokenCache jwtTokenCache;
+
     private User testUser;
     private final String originalPassword = "oldPassword123";
     private final String newPassword = "newPassword456";
@@ -56,6 +66,28 @@ public class AuthServicePasswordTest {
         assertFalse(authService.validatePassword(originalPassword, updatedUser.getPassword()));
     }
 
+    @Test
+    void testTokenCacheEvictedAfterCommit() {
+        String token = jwtUtil.generateToken(testUser.getUsername());
+        UserDetails userDetails = org.springframework.security.core.userdetails.User
+                .withUsername(testUser.getUsername()).password(testUser.getPassword()).roles("ADMIN").build();
+        jwtTokenCache.put(token, jwtUtil.parseClaims(token), userDetails);
+
+        authService.changePassword(testUser.getUsername(), originalPassword, newPassword, newPassword);
+
+        // 提交前清除会让并发请求读到旧用户后把token放回缓存，因此提交后才清除
+        assertNotNull(jwtTokenCache.get(token));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertNull(jwtTokenCache.get(token));
+
+        // 删除已提交的测试用户
+        TestTransaction.start();
+        userRepository.deleteById(testUser.getId());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
     @Test
     void testChangePasswordWithWrongCurrentPassword() {
         // 当前密码错误
@@ -0,0 +1,136 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.EmailSubscriber;
+import com.xuyi.blog.repository.EmailSubscriberRepository;
+import com.xuyi.blog.repository.MailBatchRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 邮箱订阅服务测试类
+ * 校验新文章通知在事务提交后分段加入发件队列，以及中断后从批次记录的进度继续
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailSubscriberServiceTest {
+
+    private static final int SUBSCRIBERS = 5;
+
+    @Autowired
+    private EmailSubscriberService emailSubscriberService;
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailSubscriberRepository emailSubscriberRepository;
+
+    @Autowired
+    private MailBatchRepository mailBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<EmailSubscriber> subscribers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 每段两人，五个订阅者分三段加入
+        ReflectionTestUtils.setField(emailSubscriberService, "chunkSize", 2);
+        subscribers.clear();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            subscribers.add(emailSubscriberRepository.save(new EmailSubscriber("reader" + i + "@example.com")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(emailSubscriberService, "chunkSize", 500);
+        jdbcTemplate.update("DELETE FROM mail_queue");
+        mailBatchRepository.deleteAll();
+        emailSubscriberRepository.deleteAll();
+    }
+
+    @Test
+    void testSubscribersEnqueuedInChunksAfterCommit() throws InterruptedException {
+        Article article = new Article("新文章", "正文", null);
+
+        Long batchId = transactionTemplate.execute(status -> {
+            emailSubscriberService.notifyNewArticle(article);
+            Long id = mailQueueService.getUnfinishedFanOuts().get(0);
+            // 提交前只有批次，收件人在提交后才加入
+            assertEquals(0, countQueued(id));
+            return id;
+        });
+
+        awaitFanOut(batchId);
+        assertEquals(SUBSCRIBERS, countQueued(batchId));
+        assertEquals(SUBSCRIBERS, countDistinctRecipients(batchId));
+    }
+
+    @Test
+    void testRollbackSendsNothing() {
+        transactionTemplate.executeWithoutResult(status -> {
+            emailSubscriberService.notifyNewArticle(new Article("回滚的文章", "正文", null));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, mailBatchRepository.count());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mail_queue", Long.class));
+    }
+
+    @Test
+    void testInterruptedFanOutResumesFromCursor() throws InterruptedException {
+        Long batchId = emailService.createNewArticleBatch(new Article("中断的文章", "正文", null));
+        // 模拟第一段加入后进程退出
+        List<MailQueueService.Recipient> firstChunk = new ArrayList<>();
+        for (EmailSubscriber subscriber : subscribers.subList(0, 2)) {
+            firstChunk.add(emailService.buildRecipient(subscriber.getEmail(), subscriber.getToken()));
+        }
+        mailQueueService.enqueue(batchId, firstChunk, subscribers.get(1).getId());
+        assertEquals(subscribers.get(1).getId(), mailQueueService.getFanOutCursor(batchId));
+
+        emailSubscriberService.resumeFanOuts();
+
+        awaitFanOut(batchId);
+        assertEquals(SUBSCRIBERS, countQueued(batchId));
+        assertEquals(SUBSCRIBERS, countDistinctRecipients(batchId));
+    }
+
+    private void awaitFanOut(Long batchId) throws InterruptedException {
+        for (int i = 0; i < 100 && mailQueueService.getFanOutCursor(batchId) != null; i++) {
+            Thread.sleep(50);
+        }
+        assertNull(mailQueueService.getFanOutCursor(batchId));
+    }
+
+    private long countQueued(Long batchId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mail_queue WHERE batch_id = ?", Long.class, batchId);
+    }
+
+    private long countDistinctRecipients(Long batchId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT recipient) FROM mail_queue WHERE batch_id = ?", Long.class, batchId);
+    }
+}
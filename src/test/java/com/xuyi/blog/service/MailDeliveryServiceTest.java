@@ -0,0 +1,248 @@
+package com.xuyi.blog.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 邮件投递服务测试类，使用本地的简易SMTP服务器代替真实邮件服务器
+ *
+ * @author xuyi
+ */
+class MailDeliveryServiceTest {
+
+    private FakeSmtpServer server;
+    private MailDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeSmtpServer(Set.of("nobody@example.com"));
+        deliveryService = createService(server.getPort(), 100);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        deliveryService.shutdown();
+        server.close();
+    }
+
+    @Test
+    void testBatchReusesOneConnection() {
+        List<MailDeliveryService.DeliveryResult> results = deliveryService.deliver(mails(5));
+
+        assertEquals(5, results.size());
+        assertTrue(results.stream().allMatch(MailDeliveryService.DeliveryResult::success));
+        assertEquals(5, server.getMessages().size());
+        assertEquals(1, server.getConnections());
+        assertTrue(server.getMessages().get(0).contains("reader0@example.com"));
+
+        // 下一组复用池中的连接
+        deliveryService.deliver(mails(3));
+        assertEquals(8, server.getMessages().size());
+        assertEquals(1, server.getConnections());
+        // 复用连接前不发送 NOOP 探测
+        assertEquals(0, server.getNoops());
+    }
+
+    @Test
+    void testIdleConnectionRebuilt() {
+        ReflectionTestUtils.setField(deliveryService, "connectionIdleTimeout", 0L);
+
+        deliveryService.deliver(mails(1));
+        deliveryService.deliver(mails(1));
+
+        assertEquals(2, server.getMessages().size());
+        assertEquals(2, server.getConnections());
+    }
+
+    @Test
+    void testBodiesRenderedPerRecipientInReusedBuffer() {
+        List<MailDeliveryService.OutgoingMail> mails = new ArrayList<>();
+        String[] bodies = {"<p>long-body-for-first-reader</p>", "<p>second</p>"};
+        for (int i = 0; i < bodies.length; i++) {
+            String body = bodies[i];
+            mails.add(new MailDeliveryService.OutgoingMail((long) i, "reader" + i + "@example.com", "主题",
+                    out -> out.append(body)));
+        }
+
+        deliveryService.deliver(mails);
+
+        // 第二封复用第一封的缓冲区，不能残留前一封的内容
+        assertTrue(server.getMessages().get(0).contains(bodies[0]));
+        assertTrue(server.getMessages().get(1).contains(bodies[1]));
+        assertFalse(server.getMessages().get(1).contains("long-body"));
+    }
+
+    @Test
+    void testRejectedRecipientFailsPermanently() {
+        List<MailDeliveryService.OutgoingMail> mails = new ArrayList<>(mails(2));
+        mails.add(1, new MailDeliveryService.OutgoingMail(99L, "nobody@example.com", "主题", "<p>正文</p>"));
+
+        List<MailDeliveryService.DeliveryResult> results = deliveryService.deliver(mails);
+
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertTrue(results.get(1).permanent());
+        assertEquals(99L, results.get(1).taskId());
+        assertTrue(results.get(2).success());
+        assertEquals(2, server.getMessages().size());
+    }
+
+    @Test
+    void testConnectionRecycledAfterLimit() {
+        deliveryService = createService(server.getPort(), 2);
+
+        deliveryService.deliver(mails(5));
+
+        assertEquals(5, server.getMessages().size());
+        assertEquals(3, server.getConnections());
+    }
+
+    @Test
+    void testUnreachableServerIsRetryable() throws IOException {
+        int port = server.getPort();
+        server.close();
+        deliveryService = createService(port, 100);
+
+        List<MailDeliveryService.DeliveryResult> results = deliveryService.deliver(mails(3));
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().noneMatch(result -> result.success() || result.permanent()));
+    }
+
+    private static MailDeliveryService createService(int port, int messagesPerConnection) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(port);
+        mailSender.setDefaultEncoding("UTF-8");
+
+        MailDeliveryService service = new MailDeliveryService(mailSender);
+        ReflectionTestUtils.setField(service, "fromEmail", "blog@example.com");
+        ReflectionTestUtils.setField(service, "ratePerSecond", 0);
+        ReflectionTestUtils.setField(service, "messagesPerConnection", messagesPerConnection);
+        ReflectionTestUtils.setField(service, "connectionIdleTimeout", 60000L);
+        return service;
+    }
+
+    private static List<MailDeliveryService.OutgoingMail> mails(int count) {
+        List<MailDeliveryService.OutgoingMail> mails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mails.add(new MailDeliveryService.OutgoingMail((long) i, "reader" + i + "@example.com",
+                    "新文章发布", "<p>你好</p>"));
+        }
+        return mails;
+    }
+
+    /**
+     * 只实现发送流程所需命令的SMTP服务器，记录连接数和收到的邮件
+     */
+    private static class FakeSmtpServer {
+
+        private final ServerSocket serverSocket;
+        private final Set<String> rejected;
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger noops = new AtomicInteger();
+
+        FakeSmtpServer(Set<String> rejected) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.rejected = rejected;
+            Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConnections() {
+            return connections.get();
+        }
+
+        int getNoops() {
+            return noops.get();
+        }
+
+        List<String> getMessages() {
+            return messages;
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> handle(socket), "fake-smtp-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("RCPT TO")) {
+                        boolean reject = rejected.stream().anyMatch(line::contains);
+                        reply(out, reject ? "550 No such user" : "250 OK");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            data.append(line).append('\n');
+                        }
+                        messages.add(data.toString());
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("NOOP")) {
+                        noops.incrementAndGet();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        // MAIL FROM、RSET
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // 客户端断开
+            }
+        }
+
+        private static void reply(PrintWriter out, String response) {
+            out.print(response + "\r\n");
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.xuyi.blog.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发件队列服务测试类
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MailQueueServiceTest {
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM mail_queue");
+    }
+
+    @Test
+    void testMailOfMissingBatchDoesNotStayClaimed() throws InterruptedException {
+        mailQueueService.enqueue(-1L, List.of(
+                new MailQueueService.Recipient("reader@example.com", "http://localhost/unsubscribe")));
+
+        // 批次不存在的邮件直接标记失败，不会一直停留在 SENDING
+        String status = null;
+        for (int i = 0; i < 100 && !"FAILED".equals(status); i++) {
+            Thread.sleep(100);
+            status = jdbcTemplate.queryForObject("SELECT status FROM mail_queue WHERE batch_id = -1", String.class);
+        }
+        assertEquals("FAILED", status);
+        assertEquals("批次不存在", jdbcTemplate.queryForObject(
+                "SELECT last_error FROM mail_queue WHERE batch_id = -1", String.class));
+    }
+}
@@ -0,0 +1,165 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.MarkdownPreviewDTO;
+import com.xuyi.blog.dto.MarkdownPreviewRequestDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编辑器增量预览测试
+ * 每次编辑后把返回的块拼接到客户端持有的结果上，与整篇渲染逐块比对
+ *
+ * @author xuyi
+ */
+class MarkdownPreviewServiceTest {
+
+    private MarkdownService markdownService;
+    private MarkdownPreviewService previewService;
+    private List<String> clientBlocks;
+    private String document;
+
+    @BeforeEach
+    void setUp() {
+        markdownService = new MarkdownService(null, null);
+        previewService = new MarkdownPreviewService(markdownService);
+        ReflectionTestUtils.setField(previewService, "maxSessions", 10L);
+        ReflectionTestUtils.setField(previewService, "sessionTtl", 60_000L);
+        previewService.init();
+
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            markdown.append("## 第 ").append(i).append(" 节\n\n")
+                    .append("这是第 ").append(i).append(" 段正文，包含 **粗体** 和 `代码`。\n\n")
+                    .append("- 列表项 A\n- 列表项 B\n\n");
+        }
+        document = markdown.toString();
+        assertTrue(document.length() > 10_000);
+
+        MarkdownPreviewDTO first = preview(null, null);
+        assertTrue(first.isFull());
+        clientBlocks = new ArrayList<>(first.getBlocks());
+    }
+
+    @Test
+    void testEditInsideParagraph() {
+        MarkdownPreviewDTO result = edit(document.indexOf("第 100 段") + 4, 0, "（已修改）");
+
+        assertFalse(result.isFull());
+        assertTrue(result.getBlocks().size() <= 5);
+        assertMatchesFullRender();
+    }
+
+    @Test
+    void testSplitAndMergeParagraphs() {
+        int paragraph = document.indexOf("这是第 50 段");
+        edit(paragraph + 6, 0, "\n\n新段落 ");
+        assertMatchesFullRender();
+
+        // 删除空行，段落与下一块合并
+        int blank = document.indexOf("\n\n新段落");
+        MarkdownPreviewDTO result = edit(blank, 2, " ");
+        assertFalse(result.isFull());
+        assertMatchesFullRender();
+    }
+
+    @Test
+    void testUnclosedFenceFallsBackToFullRender() {
+        MarkdownPreviewDTO result = edit(document.indexOf("## 第 20 节"), 0, "```java\n");
+        assertTrue(result.isFull());
+        assertMatchesFullRender();
+
+        // 补上结束围栏后恢复增量
+        result = edit(document.indexOf("这是第 20 段"), 0, "```\n\n");
+        assertMatchesFullRender();
+        result = edit(document.indexOf("这是第 150 段"), 0, "修改 ");
+        assertFalse(result.isFull());
+        assertMatchesFullRender();
+    }
+
+    @Test
+    void testUnclosedHtmlBlockFallsBackToFullRender() {
+        // 注释块跨过空行一直延续到 -->，之后的段落和列表都并入同一个 HTML 块
+        int paragraph = document.indexOf("这是第 30 段");
+        MarkdownPreviewDTO result = edit(paragraph, 0, "<!-- ");
+        assertTrue(result.isFull());
+        assertMatchesFullRender();
+
+        // 闭合后恢复增量
+        edit(document.indexOf("\n", paragraph), 0, " -->");
+        assertMatchesFullRender();
+        result = edit(document.indexOf("这是第 150 段"), 0, "修改 ");
+        assertFalse(result.isFull());
+        assertMatchesFullRender();
+
+        result = edit(document.indexOf("这是第 60 段"), 0, "<pre>\n");
+        assertTrue(result.isFull());
+        assertMatchesFullRender();
+    }
+
+    @Test
+    void testDuplicateHeadingIdsMatchFullRender() {
+        // 改成与前面的标题同名，锚点要按整篇编号为 xxx-1
+        int heading = document.indexOf("## 第 150 节") + 5;
+        MarkdownPreviewDTO result = edit(heading, 3, "20");
+        assertTrue(result.isFull());
+        assertMatchesFullRender();
+
+        // 改回后原来的编号也要撤销
+        result = edit(heading, 2, "150");
+        assertTrue(result.isFull());
+        assertMatchesFullRender();
+
+        // 与其他标题不同名时仍然增量渲染
+        result = edit(document.indexOf("## 第 80 节") + 5, 2, "八十");
+        assertFalse(result.isFull());
+        assertMatchesFullRender();
+    }
+
+    @Test
+    void testMismatchedRangeFallsBackToFullRender() {
+        document = document.replace("第 10 段", "第十段");
+        MarkdownPreviewDTO result = preview(0, 0);
+        assertTrue(result.isFull());
+        clientBlocks = new ArrayList<>(result.getBlocks());
+        assertMatchesFullRender();
+    }
+
+    /**
+     * 在 start 处删除 length 个字符并插入 text，按返回结果更新客户端的块
+     */
+    private MarkdownPreviewDTO edit(int start, int length, String text) {
+        document = document.substring(0, start) + text + document.substring(start + length);
+        MarkdownPreviewDTO result = preview(start, start + text.length());
+        if (result.isFull()) {
+            clientBlocks = new ArrayList<>(result.getBlocks());
+        } else {
+            List<String> replaced = clientBlocks.subList(result.getFrom(), result.getFrom() + result.getRemoved());
+            replaced.clear();
+            replaced.addAll(result.getBlocks());
+        }
+        assertEquals(result.getTotalBlocks(), clientBlocks.size());
+        return result;
+    }
+
+    private MarkdownPreviewDTO preview(Integer editStart, Integer editEnd) {
+        MarkdownPreviewRequestDTO request = new MarkdownPreviewRequestDTO();
+        request.setSessionId("editor-1");
+        request.setContent(document);
+        request.setEditStart(editStart);
+        request.setEditEnd(editEnd);
+        return previewService.preview("admin", request);
+    }
+
+    private void assertMatchesFullRender() {
+        List<String> expected = markdownService.renderBlocks(document, 0).stream()
+                .map(MarkdownService.RenderedBlock::html)
+                .toList();
+        assertEquals(expected, clientBlocks);
+    }
+}
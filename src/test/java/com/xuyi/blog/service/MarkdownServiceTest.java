@@ -0,0 +1,104 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.entity.Article;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Markdown 渲染服务测试
+ *
+ * @author xuyi
+ */
+class MarkdownServiceTest {
+
+    private final MarkdownService markdownService = new MarkdownService(null, null);
+
+    @Test
+    void testRenderSanitizesAndHighlights() {
+        String markdown = """
+                # 标题 <b>一</b>
+
+                <script>alert(1)</script>
+
+                [点我](javascript:alert(1)) [正常](https://example.com)
+
+                ```java
+                // 注释
+                String s = "a<b";
+                return 42;
+                ```
+                """;
+
+        MarkdownService.RenderedMarkdown rendered = markdownService.render(markdown);
+        String html = rendered.html();
+
+        assertFalse(html.contains("<script>"), html);
+        assertTrue(html.contains("&lt;script&gt;"), html);
+        assertFalse(html.contains("javascript:"), html);
+        assertTrue(html.contains("href=\"https://example.com\""), html);
+        assertTrue(html.contains("<code class=\"language-java\">"), html);
+        assertTrue(html.contains("<span class=\"hl-comment\">// 注释</span>"), html);
+        assertTrue(html.contains("<span class=\"hl-string\">&quot;a&lt;b&quot;</span>"), html);
+        assertTrue(html.contains("<span class=\"hl-keyword\">return</span> <span class=\"hl-number\">42</span>"), html);
+    }
+
+    @Test
+    void testEncodedSchemesAreBlocked() {
+        String[] vectors = {
+                "[a](javascript&#58;alert(1))",
+                "[a](&#x6A;avascript:alert(1))",
+                "[a](java&#9;script:alert(1))",
+                "<javascript:alert(1)>",
+                "![a](data:image/svg+xml;base64,PHN2Zz4=)"
+        };
+        for (String markdown : vectors) {
+            String html = markdownService.render(markdown).html();
+            assertFalse(html.contains("href="), markdown + " -> " + html);
+            assertFalse(html.contains("src="), markdown + " -> " + html);
+        }
+
+        String html = markdownService.render("[站内](/articles/1) [锚点](#安装) [邮件](mailto:a@example.com)").html();
+        assertTrue(html.contains("href=\"/articles/1\""), html);
+        assertTrue(html.contains("href=\"#安装\""), html);
+        assertTrue(html.contains("href=\"mailto:a@example.com\""), html);
+    }
+
+    @Test
+    void testHeadingAnchorsAndToc() {
+        String markdown = """
+                ## 安装
+                ### 依赖
+                ### 配置
+                ## 使用
+                """;
+
+        MarkdownService.RenderedMarkdown rendered = markdownService.render(markdown);
+
+        assertTrue(rendered.html().contains("<h2 id=\"安装\"><a href=\"#安装\" class=\"heading-anchor\"></a>安装</h2>"),
+                rendered.html());
+        assertEquals("<nav class=\"toc\"><ul><li><a href=\"#安装\">安装</a>"
+                        + "<ul><li><a href=\"#依赖\">依赖</a></li><li><a href=\"#配置\">配置</a></li></ul></li>"
+                        + "<li><a href=\"#使用\">使用</a></li></ul></nav>",
+                rendered.tocHtml());
+        assertNull(markdownService.render("没有标题的正文").tocHtml());
+    }
+
+    @Test
+    void testRenderOnlyWhenContentChanged() {
+        Article article = new Article();
+        article.setContent("# 第一版");
+        assertTrue(markdownService.renderIfChanged(article));
+        String hash = article.getContentHash();
+        assertEquals(64, hash.length());
+
+        article.setContentHtml("<p>已渲染</p>");
+        assertFalse(markdownService.renderIfChanged(article));
+        assertEquals("<p>已渲染</p>", article.getContentHtml());
+
+        article.setContent("# 第二版");
+        assertTrue(markdownService.renderIfChanged(article));
+        assertNotEquals(hash, article.getContentHash());
+        assertTrue(article.getContentHtml().contains("第二版"));
+    }
+}
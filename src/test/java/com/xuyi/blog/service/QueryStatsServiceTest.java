@@ -0,0 +1,175 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.QueryDigestDTO;
+import com.xuyi.blog.dto.QueryStatsDTO;
+import com.xuyi.blog.exception.QueryBudgetExceededException;
+import com.xuyi.blog.interceptor.QueryBudgetFilter;
+import com.xuyi.blog.interceptor.QueryStatsWebInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询统计服务测试
+ *
+ * @author xuyi
+ */
+class QueryStatsServiceTest {
+
+    private QueryStatsService queryStatsService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryStatsService = new QueryStatsService(meterRegistry);
+        ReflectionTestUtils.setField(queryStatsService, "maxFingerprints", 200);
+        ReflectionTestUtils.setField(queryStatsService, "digestCapacity", 500);
+        ReflectionTestUtils.setField(queryStatsService, "digestIdleTimeout", 3600000L);
+        ReflectionTestUtils.setField(queryStatsService, "nPlusOneThreshold", 5);
+        queryStatsService.initMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testDigestSortedByTotalTime() {
+        // 只有字面量不同的语句归入同一指纹
+        for (int id = 1; id <= 10; id++) {
+            queryStatsService.recordQuery("select * from articles where id = " + id, 0, ms(2), ms(1), 1);
+        }
+        queryStatsService.recordQuery("select count(*) from visit_logs", 0, ms(20), 0, 1);
+
+        List<QueryDigestDTO> digests = queryStatsService.getDigests(10);
+        assertEquals(2, digests.size());
+        QueryDigestDTO top = digests.get(0);
+        assertEquals("select * from articles where id = ?", top.getNormalizedSql());
+        assertEquals(10, top.getCount());
+        assertEquals(30.0, top.getTotalTime(), 0.001);
+        assertEquals(3.0, top.getP50(), 0.05);
+        assertEquals(0, top.getSlowCount());
+        assertEquals(20.0, digests.get(1).getTotalTime(), 0.001);
+
+        queryStatsService.clearStats();
+        assertTrue(queryStatsService.getDigests(10).isEmpty());
+    }
+
+    @Test
+    void testOneOffStatementsDoNotEvictFrequentDigests() {
+        ReflectionTestUtils.setField(queryStatsService, "digestCapacity", 100);
+        queryStatsService.initMetrics();
+        for (int i = 0; i < 20; i++) {
+            for (int table = 0; table < 50; table++) {
+                queryStatsService.recordQuery("select * from frequent_" + table + " where id = " + i, 0, ms(1), 0, 1);
+            }
+        }
+        // 大量只执行一次的新语句
+        for (int table = 0; table < 1000; table++) {
+            queryStatsService.recordQuery("select * from once_" + table, 0, ms(1), 0, 1);
+        }
+
+        List<String> kept = queryStatsService.getDigests(1000).stream().map(QueryDigestDTO::getNormalizedSql).toList();
+        assertTrue(kept.size() <= 100, String.valueOf(kept.size()));
+        for (int table = 0; table < 50; table++) {
+            assertTrue(kept.contains("select * from frequent_" + table + " where id = ?"), kept.toString());
+        }
+    }
+
+    @Test
+    void testQuietDigestsExpire() throws InterruptedException {
+        ReflectionTestUtils.setField(queryStatsService, "digestIdleTimeout", 50L);
+        queryStatsService.initMetrics();
+        queryStatsService.recordQuery("select * from articles where id = 1", 0, ms(1), 0, 1);
+        assertEquals(1, queryStatsService.getDigests(10).size());
+
+        Thread.sleep(100);
+        assertTrue(queryStatsService.getDigests(10).isEmpty());
+    }
+
+    @Test
+    void testSlowQueryCapturedWithRequestPath() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/articles/search")));
+        queryStatsService.startRequestStats();
+        queryStatsService.recordQuery("select * from articles where title like ?", 0, ms(150), ms(10), 3);
+        queryStatsService.recordQuery("select * from articles where title like ?", 0, ms(5), 0, 3);
+        assertEquals(1, queryStatsService.finishRequestStats().getSlowQueries());
+
+        QueryDigestDTO digest = queryStatsService.getDigests(1).get(0);
+        assertEquals(1, digest.getSlowCount());
+        assertEquals(1, digest.getSlowSamples().size());
+        assertEquals("/api/articles/search", digest.getSlowSamples().get(0).getRequestPath());
+        assertEquals(160.0, digest.getSlowSamples().get(0).getExecutionTime(), 0.001);
+
+        // 非请求线程记录线程名
+        queryStatsService.recordQuery("update articles set view_count = ?", 0, ms(120), 0, 1);
+        QueryDigestDTO update = queryStatsService.getDigests(10).stream()
+                .filter(d -> "UPDATE".equals(d.getQueryType())).findFirst().orElseThrow();
+        assertTrue(update.getSlowSamples().get(0).getRequestPath().startsWith("thread:"));
+    }
+
+    @Test
+    void testNPlusOneAndBudgetReported() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/articles")));
+        queryStatsService.startRequestStats();
+        queryStatsService.bindEndpoint("ArticleController.getArticles", 6, -1);
+        queryStatsService.recordQuery("select * from articles limit 10", 0, ms(1), 0, 10);
+        for (long id = 1; id <= 6; id++) {
+            queryStatsService.recordQuery("select * from article_tags where article_id = " + id, 0, ms(1), 0, 2);
+        }
+
+        QueryStatsDTO stats = queryStatsService.finishRequestStats();
+        assertTrue(stats.getBudgetExceeded());
+        assertEquals(6, stats.getRepeatedQueries().get("select * from article_tags where article_id = ?"));
+        assertEquals(1, stats.getRepeatedQueries().size());
+        assertEquals(1.0, meterRegistry.get("blog.db.n_plus_one")
+                .tag("endpoint", "ArticleController.getArticles").counter().count());
+        assertEquals(1.0, meterRegistry.get("blog.db.query.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void testBudgetFailsInStrictMode() {
+        ReflectionTestUtils.setField(queryStatsService, "failOnBudgetExceeded", true);
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/articles/top")));
+        queryStatsService.startRequestStats();
+        queryStatsService.bindEndpoint("ArticleController.getTopArticles", 2, -1);
+        queryStatsService.recordQuery("select * from articles where is_top = 1", 0, ms(1), 0, 1);
+        queryStatsService.recordQuery("select * from categories where id = 1", 0, ms(1), 0, 1);
+
+        // 上报发生在 JDBC 代理的 close 路径上，只记录不抛出
+        assertDoesNotThrow(() -> queryStatsService.recordQuery("select * from users where id = 1", 0, ms(1), 0, 1));
+
+        // 拦截器只记录统计，异常由外层过滤器在请求结束后抛出
+        QueryStatsWebInterceptor interceptor = new QueryStatsWebInterceptor(queryStatsService);
+        QueryBudgetFilter filter = new QueryBudgetFilter(queryStatsService);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/articles/top");
+        FilterChain chain = (req, res) -> assertDoesNotThrow(() -> interceptor.afterCompletion(
+                (HttpServletRequest) req, (HttpServletResponse) res, null, null));
+        QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), chain));
+        assertTrue(e.getMessage().contains("ArticleController.getTopArticles"));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
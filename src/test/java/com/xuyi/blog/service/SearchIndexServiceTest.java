@@ -0,0 +1,145 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.UserRepository;
+import com.xuyi.blog.search.IndexSnapshot;
+import com.xuyi.blog.search.InvertedIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索索引服务测试类
+ * 启动时从快照加载并回放水位线之后的修改，快照损坏时全量重建
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SearchIndexServiceTest {
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path dir;
+
+    private Path path;
+    private SearchIndexService searchIndexService;
+    private Article edited;
+    private Article unpublished;
+    private Article unchanged;
+    private long watermark;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User author = userRepository.save(new User("search-author", "password"));
+        edited = articleRepository.save(published(new Article("Redis 缓存", "缓存穿透", author)));
+        unpublished = articleRepository.save(published(new Article("Docker 部署", "容器", author)));
+        unchanged = articleRepository.save(published(new Article("MySQL 索引", "B+树", author)));
+
+        // 快照生成于一小时前，之后修改了标题、下线了一篇文章
+        LocalDateTime snapshotTime = LocalDateTime.now().minusHours(1);
+        watermark = snapshotTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        path = dir.resolve("index.bin");
+        InvertedIndex base = new InvertedIndex();
+        base.put(edited.getId(), edited.getTitle(), edited.getContent());
+        base.put(unpublished.getId(), unpublished.getTitle(), unpublished.getContent());
+        base.writeSnapshot(path, watermark);
+
+        edited.setTitle("Caffeine 缓存");
+        articleRepository.save(edited);
+        unpublished.setStatus(Article.ArticleStatus.DRAFT);
+        articleRepository.save(unpublished);
+        // 未修改的文章不在快照中，只有全量重建才会出现
+        jdbcTemplate.update("UPDATE articles SET updated_at = ? WHERE id = ?",
+                snapshotTime.minusHours(1), unchanged.getId());
+
+        searchIndexService = new SearchIndexService(articleRepository);
+        ReflectionTestUtils.setField(searchIndexService, "indexPath", path.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testReplayChangesAfterWatermark() {
+        searchIndexService.initialize();
+
+        assertEquals(List.of("Caffeine 缓存"), searchIndexService.searchTitles("缓存", 10));
+        assertEquals(List.of(), searchIndexService.searchTitles("redis", 10));
+        assertEquals(List.of(), searchIndexService.searchTitles("docker", 10));
+        assertEquals(List.of(), searchIndexService.searchTitles("mysql", 10));
+    }
+
+    @Test
+    void testReplayedChangesSurviveNextSnapshot() throws Exception {
+        searchIndexService.initialize();
+        searchIndexService.scheduledSnapshot();
+
+        IndexSnapshot snapshot = IndexSnapshot.open(path);
+        assertTrue(snapshot.watermark() > watermark);
+        assertEquals(1, snapshot.docCount());
+        assertEquals("Caffeine 缓存", snapshot.title(snapshot.ordinalOf(edited.getId())));
+    }
+
+    @Test
+    void testTruncatedSnapshotFallsBackToRebuild() throws Exception {
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        searchIndexService.initialize();
+
+        assertRebuilt();
+    }
+
+    @Test
+    void testCorruptSnapshotFallsBackToRebuild() throws Exception {
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(path, bytes);
+
+        searchIndexService.initialize();
+
+        assertRebuilt();
+    }
+
+    private void assertRebuilt() throws Exception {
+        assertEquals(List.of("Caffeine 缓存"), searchIndexService.searchTitles("缓存", 10));
+        assertEquals(List.of("MySQL 索引"), searchIndexService.searchTitles("mysql", 10));
+        assertEquals(List.of(), searchIndexService.searchTitles("docker", 10));
+        // 重建后写入了完整的新快照
+        assertEquals(2, IndexSnapshot.open(path).docCount());
+    }
+
+    private static Article published(Article article) {
+        article.publish();
+        return article;
+    }
+}
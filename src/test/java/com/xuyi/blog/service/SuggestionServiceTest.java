@@ -0,0 +1,149 @@
+package com.xuyi.blog.service;
+
+import com.xuyi.blog.dto.ArticleRequestDTO;
+import com.xuyi.blog.entity.Article;
+import com.xuyi.blog.entity.Category;
+import com.xuyi.blog.entity.Tag;
+import com.xuyi.blog.entity.User;
+import com.xuyi.blog.repository.ArticleRepository;
+import com.xuyi.blog.repository.CategoryRepository;
+import com.xuyi.blog.repository.TagRepository;
+import com.xuyi.blog.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索建议服务测试
+ * 文章改换分类、标签或被删除后，原来的分类和标签立即按新的文章数计权；回滚的修改不进入补全树和搜索索引
+ *
+ * @author xuyi
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SuggestionServiceTest {
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Article article;
+    private Category backend;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User author = userRepository.save(new User("suggest-author", "password"));
+            Category frontend = categoryRepository.save(new Category("前端框架"));
+            backend = categoryRepository.save(new Category("后端开发"));
+            Tag vue = tagRepository.save(new Tag("Vue"));
+
+            Article a = new Article("一篇文章", "正文", author);
+            a.setCategory(frontend);
+            a.addTag(vue);
+            a.publish();
+            article = articleRepository.save(a);
+        });
+        suggestionService.rebuild();
+        // 以管理员身份直接调用服务
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_ADMIN"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        articleRepository.deleteAll();
+        tagRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+        suggestionService.rebuild();
+        searchIndexService.rebuild();
+    }
+
+    @Test
+    void testPreviousCategoryAndTagsRecountedOnUpdate() {
+        assertEquals(List.of("前端框架"), suggestionService.suggest("前端", 5));
+        assertEquals(List.of("Vue"), suggestionService.suggest("vu", 5));
+
+        ArticleRequestDTO request = new ArticleRequestDTO();
+        request.setTitle(article.getTitle());
+        request.setContent("正文");
+        request.setCategoryId(backend.getId());
+        request.setStatus("PUBLISHED");
+        request.setTagNames(List.of("Spring"));
+        articleService.updateArticle(article.getId(), request);
+
+        assertEquals(List.of(), suggestionService.suggest("前端", 5));
+        assertEquals(List.of(), suggestionService.suggest("vu", 5));
+        assertEquals(List.of("后端开发"), suggestionService.suggest("后端", 5));
+        assertEquals(List.of("Spring"), suggestionService.suggest("spr", 5));
+    }
+
+    @Test
+    void testRolledBackUpdateLeavesIndexUnchanged() {
+        articleService.updateArticle(article.getId(), request("提交的标题", "Vue"));
+        assertEquals(List.of("提交的标题"), searchIndexService.searchTitles("提交", 10));
+
+        // 事务回滚（如并发编辑时版本校验失败），内存中的索引和补全树保持提交时的内容
+        transactionTemplate.executeWithoutResult(status -> {
+            articleService.updateArticle(article.getId(), request("回滚的标题", "Spring"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of("提交的标题"), searchIndexService.searchTitles("提交", 10));
+        assertEquals(List.of(), searchIndexService.searchTitles("回滚", 10));
+        assertEquals(List.of("提交的标题"), suggestionService.suggest("提交", 5));
+        assertEquals(List.of(), suggestionService.suggest("回滚", 5));
+        assertEquals(List.of("Vue"), suggestionService.suggest("vu", 5));
+        assertEquals(List.of(), suggestionService.suggest("spr", 5));
+    }
+
+    @Test
+    void testCategoryAndTagsRecountedOnDelete() {
+        articleService.deleteArticle(article.getId());
+
+        assertEquals(List.of(), suggestionService.suggest("前端", 5));
+        assertEquals(List.of(), suggestionService.suggest("vu", 5));
+        assertEquals(List.of(), suggestionService.suggest("一篇", 5));
+    }
+
+    private ArticleRequestDTO request(String title, String tagName) {
+        ArticleRequestDTO request = new ArticleRequestDTO();
+        request.setTitle(title);
+        request.setContent("正文");
+        request.setStatus("PUBLISHED");
+        request.setTagNames(List.of(tagName));
+        return request;
+    }
+}
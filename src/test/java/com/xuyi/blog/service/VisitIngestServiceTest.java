@@ -0,0 +1,120 @@
+package com.xuyi.blog.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 访问日志写入服务测试类
+ * 校验伪造的超长请求头被截断，以及一行写入失败时不会丢弃同批其他访客的记录
+ *
+ * @author xuyi
+ */
+class VisitIngestServiceTest {
+
+    private static final String BAD_URI = "/bad";
+
+    private FakeJdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private VisitIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new FakeJdbcTemplate();
+        meterRegistry = new SimpleMeterRegistry();
+        service = new VisitIngestService(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(service, "queueCapacity", 64);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        // 消费者空闲时等待一个间隔，期间提交的事件归入同一批
+        ReflectionTestUtils.setField(service, "flushInterval", 200L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void testSpoofedHeadersTruncated() throws InterruptedException {
+        submit("1.2.3.4, ".repeat(20), "/a", "Mozilla ".repeat(500));
+
+        List<Object> row = awaitRows(1).get(0);
+        assertEquals(45, ((String) row.get(0)).length());
+        assertEquals(1000, ((String) row.get(1)).length());
+    }
+
+    @Test
+    void testFailedRowDoesNotDropBatch() throws InterruptedException {
+        submit("10.0.0.1", "/a", "UA");
+        submit("10.0.0.2", BAD_URI, "UA");
+        submit("10.0.0.3", "/c", "UA");
+
+        List<List<Object>> rows = awaitRows(2);
+        assertEquals(List.of("/a", "/c"), rows.stream().map(row -> row.get(3)).toList());
+        assertEquals(1.0, meterRegistry.counter("blog.visit.failed").count());
+        assertEquals(2.0, meterRegistry.counter("blog.visit.written").count());
+    }
+
+    @Test
+    void testBatchKeptWhileDatabaseUnavailable() throws InterruptedException {
+        jdbcTemplate.unavailable = 3;
+        submit("10.0.0.1", "/a", "UA");
+        submit("10.0.0.2", "/b", "UA");
+
+        List<List<Object>> rows = awaitRows(2);
+        assertEquals(List.of("/a", "/b"), rows.stream().map(row -> row.get(3)).toList());
+        assertEquals(0.0, meterRegistry.counter("blog.visit.failed").count());
+    }
+
+    private void submit(String ip, String uri, String userAgent) {
+        assertTrue(service.submit(new VisitIngestService.VisitEvent(ip, userAgent, null, uri, LocalDateTime.now())));
+    }
+
+    private List<List<Object>> awaitRows(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && jdbcTemplate.rows.size() < count; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, jdbcTemplate.rows.size());
+        return jdbcTemplate.rows;
+    }
+
+    /**
+     * 按多行 INSERT 的参数拆分记录写入的行；URI 为 /bad 的行违反约束，unavailable 次数内模拟数据库不可用
+     */
+    private static class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final List<List<Object>> rows = Collections.synchronizedList(new ArrayList<>());
+        private volatile int unavailable;
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (unavailable > 0) {
+                unavailable--;
+                throw new DataAccessResourceFailureException("连接失败");
+            }
+            List<List<Object>> batch = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 8) {
+                batch.add(Arrays.asList(args).subList(i, i + 8));
+            }
+            if (batch.stream().anyMatch(row -> BAD_URI.equals(row.get(3)))) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            rows.addAll(batch);
+            return batch.size();
+        }
+    }
+}
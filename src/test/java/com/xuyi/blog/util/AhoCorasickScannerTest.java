@@ -0,0 +1,73 @@
+package com.xuyi.blog.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多模式扫描器测试类
+ *
+ * @author xuyi
+ */
+class AhoCorasickScannerTest {
+
+    private static final int SQL = 0;
+    private static final int TRAVERSAL = 1;
+    private static final int EXTENSION = 2;
+    private static final long ALL = -1L;
+
+    private final AhoCorasickScanner scanner = AhoCorasickScanner.builder()
+            .add("union", SQL, false)
+            .add("sleep(", SQL, false)
+            .add("../", TRAVERSAL, false)
+            .add("..\\", TRAVERSAL, false)
+            .add(".php", EXTENSION, true)
+            .add(".jsp", EXTENSION, true)
+            .build();
+
+    @Test
+    void testMatchesIgnoringCase() {
+        assertEquals(SQL, scanner.scan("/articles?q=1 UNION select", false, ALL));
+        assertEquals(SQL, scanner.scan("id=SlEeP(5)", false, ALL));
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("/articles/42?page=1", false, ALL));
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan(null, false, ALL));
+    }
+
+    @Test
+    void testOverlappingPatternsFoundThroughFailureLinks() {
+        // "..../" 中途失配后需沿失败链接继续匹配 "../"
+        assertEquals(TRAVERSAL, scanner.scan("/files/..../etc", false, ALL));
+        assertEquals(SQL, scanner.scan("ununion", false, ALL));
+    }
+
+    @Test
+    void testPercentDecodingOnTheFly() {
+        assertEquals(TRAVERSAL, scanner.scan("/files/%2e%2E%2fetc/passwd", true, ALL));
+        assertEquals(TRAVERSAL, scanner.scan("/files/..%5Cwindows", true, ALL));
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("/files/%2e%2e%2fetc", false, ALL));
+        // 不完整的转义按原样处理
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("/search?q=100%", true, ALL));
+        assertEquals(SQL, scanner.scan("q=%55nion", true, ALL));
+    }
+
+    @Test
+    void testSuffixPatternsOnlyMatchAtEnd() {
+        assertEquals(EXTENSION, scanner.scan("/upload/shell.PHP", false, ALL));
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("/upload/shell.php/view", false, ALL));
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("/articles/jsp-tutorial", false, ALL));
+    }
+
+    @Test
+    void testCategoryMask() {
+        long pathOnly = 1L << TRAVERSAL | 1L << EXTENSION;
+        assertEquals(AhoCorasickScanner.NO_MATCH, scanner.scan("q=union", false, pathOnly));
+        assertEquals(TRAVERSAL, scanner.scan("q=union&f=../x", false, pathOnly));
+    }
+
+    @Test
+    void testRejectsInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickScanner.builder().add("", 0, false));
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickScanner.builder().add("x", 64, false));
+        assertThrows(IllegalArgumentException.class, () -> AhoCorasickScanner.builder().add("注入", 0, false));
+    }
+}
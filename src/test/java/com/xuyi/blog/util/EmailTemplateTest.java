@@ -0,0 +1,62 @@
+package com.xuyi.blog.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 邮件模板测试类
+ *
+ * @author xuyi
+ */
+class EmailTemplateTest {
+
+    @Test
+    void testRenderReplacesEveryOccurrence() {
+        EmailTemplate template = EmailTemplate.compile("<a href=\"{{url}}\">{{ title }}</a> {{url}}");
+
+        assertEquals(Set.of("url", "title"), template.getPlaceholders());
+        assertEquals("<a href=\"/a\">标题</a> /a", template.render(Map.of("url", "/a", "title", "标题")));
+        assertEquals("<a href=\"\"></a> ", template.render(Map.of()));
+    }
+
+    @Test
+    void testBindKeepsRemainingPlaceholders() {
+        EmailTemplate template = EmailTemplate.compile("{{blog}} - {{title}} <a href=\"{{unsubscribe_url}}\">退订</a>")
+                .bind(Map.of("blog", "博客", "title", "新文章"));
+
+        assertEquals(Set.of("unsubscribe_url"), template.getPlaceholders());
+        assertEquals("博客 - 新文章 <a href=\"{{unsubscribe_url}}\">退订</a>", template.toString());
+        assertEquals("博客 - 新文章 <a href=\"/u?token=1\">退订</a>", template.render("unsubscribe_url", "/u?token=1"));
+
+        // 还原后的源文本可以再次编译
+        EmailTemplate recompiled = EmailTemplate.compile(template.toString());
+        assertEquals(template.render("unsubscribe_url", "/x"), recompiled.render("unsubscribe_url", "/x"));
+    }
+
+    @Test
+    void testRenderIntoReusedBuffer() {
+        EmailTemplate template = EmailTemplate.compile("<a href=\"{{unsubscribe_url}}\">退订</a> {{other}}");
+        StringBuilder buffer = new StringBuilder();
+
+        template.render("unsubscribe_url", "/u?token=1", buffer);
+        assertEquals(template.render("unsubscribe_url", "/u?token=1"), buffer.toString());
+
+        // 复用前清空，结果与单独渲染一致
+        buffer.setLength(0);
+        template.render("unsubscribe_url", null, buffer);
+        assertEquals("<a href=\"\">退订</a> ", buffer.toString());
+    }
+
+    @Test
+    void testLiteralTextIsPreserved() {
+        EmailTemplate template = EmailTemplate.compile("width: 100%; {{ 未闭合");
+
+        assertTrue(template.getPlaceholders().isEmpty());
+        assertEquals("width: 100%; {{ 未闭合", template.render(Map.of()));
+        assertEquals("", EmailTemplate.compile("").render(Map.of()));
+    }
+}
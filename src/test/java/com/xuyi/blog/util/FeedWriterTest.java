@@ -0,0 +1,81 @@
+package com.xuyi.blog.util;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订阅源流式写出器测试类
+ *
+ * @author xuyi
+ */
+class FeedWriterTest {
+
+    private static final ZonedDateTime TIME = ZonedDateTime.of(2024, 5, 1, 8, 30, 0, 0, ZoneOffset.ofHours(8));
+
+    @Test
+    void testRssOutputIsWellFormed() throws Exception {
+        Document document = parse(write(FeedWriter.Format.RSS));
+        Element item = (Element) document.getElementsByTagName("item").item(0);
+
+        assertEquals("rss", document.getDocumentElement().getTagName());
+        assertEquals("Java <泛型> & 通配符", text(item, "title"));
+        assertEquals("<p>正文</p>", text(item, "description"));
+        assertEquals("Wed, 1 May 2024 08:30:00 +0800", text(item, "pubDate"));
+        assertEquals("作者", item.getElementsByTagNameNS("http://purl.org/dc/elements/1.1/", "creator")
+                .item(0).getTextContent());
+    }
+
+    @Test
+    void testAtomOutputIsWellFormed() throws Exception {
+        Document document = parse(write(FeedWriter.Format.ATOM));
+        Element entry = (Element) document.getElementsByTagNameNS("http://www.w3.org/2005/Atom", "entry").item(0);
+
+        assertEquals("feed", document.getDocumentElement().getLocalName());
+        assertEquals("http://www.w3.org/2005/Atom", document.getDocumentElement().getNamespaceURI());
+        assertEquals("2024-05-01T08:30:00+08:00", text(entry, "published"));
+        assertEquals("后端", ((Element) entry.getElementsByTagName("category").item(0)).getAttribute("term"));
+    }
+
+    @Test
+    void testInvalidXmlCharactersAreRemoved() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FeedWriter writer = new FeedWriter(out, FeedWriter.Format.RSS);
+        writer.startFeed(new FeedWriter.Channel("博客", "https://example.com", "描述", "zh-CN", "xuyi", null));
+        writer.writeItem(new FeedWriter.Item("控制\u0001字符", "https://example.com/articles/1",
+                null, null, "正文\u000B", TIME, null));
+        writer.endFeed();
+
+        Element item = (Element) parse(out.toByteArray()).getElementsByTagName("item").item(0);
+        assertEquals("控制字符", text(item, "title"));
+        assertEquals("正文", text(item, "description"));
+    }
+
+    private static byte[] write(FeedWriter.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FeedWriter writer = new FeedWriter(out, format);
+        writer.startFeed(new FeedWriter.Channel("博客", "https://example.com", "描述", "zh-CN", "xuyi", TIME));
+        writer.writeItem(new FeedWriter.Item("Java <泛型> & 通配符", "https://example.com/articles/1",
+                "作者", "后端", "<p>正文</p>", TIME, TIME));
+        writer.endFeed();
+        return out.toByteArray();
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private static String text(Element parent, String name) {
+        return parent.getElementsByTagName(name).item(0).getTextContent();
+    }
+}
@@ -0,0 +1,51 @@
+package com.xuyi.blog.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IP工具类测试
+ *
+ * @author xuyi
+ */
+class IpUtilsTest {
+
+    private static final Set<String> TRUSTED = Set.of("127.0.0.1", "10.0.0.2");
+
+    @Test
+    void testForwardedHeaderIgnoredFromUntrustedPeer() {
+        MockHttpServletRequest request = request("203.0.113.7", "198.51.100.1");
+        request.addHeader("X-Real-IP", "198.51.100.1");
+
+        assertEquals("203.0.113.7", IpUtils.getPeerClientIp(request, TRUSTED));
+    }
+
+    @Test
+    void testSpoofedLeftmostValueSkippedBehindProxy() {
+        // 客户端伪造了 198.51.100.1，代理追加了真实对端 203.0.113.7
+        MockHttpServletRequest request = request("127.0.0.1", "198.51.100.1, 203.0.113.7");
+        assertEquals("203.0.113.7", IpUtils.getPeerClientIp(request, TRUSTED));
+
+        // 两层受信任代理
+        request = request("10.0.0.2", "198.51.100.1, 203.0.113.7, 127.0.0.1");
+        assertEquals("203.0.113.7", IpUtils.getPeerClientIp(request, TRUSTED));
+    }
+
+    @Test
+    void testTrustedPeerWithoutForwardedHeader() {
+        assertEquals("127.0.0.1", IpUtils.getPeerClientIp(request("0:0:0:0:0:0:0:1", null), TRUSTED));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,62 @@
+package com.xuyi.blog.util;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL指纹汇总测试
+ *
+ * @author xuyi
+ */
+class QueryDigestTest {
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        QueryDigest digest = new QueryDigest(SqlFingerprint.of("select * from articles where id = ?"));
+        int threads = 4;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                // 1ms..100ms 均匀分布
+                for (int i = 0; i < perThread; i++) {
+                    digest.record(TimeUnit.MILLISECONDS.toNanos(i % 100 + 1), 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, digest.getCount());
+        assertEquals(threads * perThread, digest.getRows());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), digest.getMinNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), digest.getMaxNanos());
+        assertEquals(threads * perThread * TimeUnit.MILLISECONDS.toNanos(5050) / 100, digest.getTotalNanos());
+
+        Histogram histogram = digest.histogramSnapshot();
+        assertEquals(50_000, histogram.getValueAtPercentile(50), 50_000 * 0.01);
+        assertEquals(95_000, histogram.getValueAtPercentile(95), 95_000 * 0.01);
+        assertEquals(99_000, histogram.getValueAtPercentile(99), 99_000 * 0.01);
+    }
+
+    @Test
+    void testSlowSamplesBounded() {
+        QueryDigest digest = new QueryDigest(SqlFingerprint.of("select * from tags"));
+        for (int i = 1; i <= 1000; i++) {
+            digest.recordSlow(new QueryDigest.SlowSample("select * from tags", "/api/tags/" + i, i, 0, i));
+        }
+        assertEquals(1000, digest.getSlowCount());
+
+        List<QueryDigest.SlowSample> samples = digest.getSlowSamples();
+        assertTrue(samples.size() <= 6);
+        assertEquals(1000, samples.get(0).nanos(), "最慢的样本总是保留");
+        assertEquals("/api/tags/1000", samples.get(0).requestPath());
+    }
+}
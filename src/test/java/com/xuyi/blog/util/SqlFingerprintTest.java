@@ -0,0 +1,81 @@
+package com.xuyi.blog.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL指纹测试
+ *
+ * @author xuyi
+ */
+class SqlFingerprintTest {
+
+    @Test
+    void testLiteralsNormalized() {
+        String a = SqlFingerprint.normalize("SELECT * FROM articles  WHERE id = 42 AND title = 'it''s'");
+        String b = SqlFingerprint.normalize("select *\n  from articles where id=7 and title='other' -- 注释");
+        assertEquals("select * from articles where id = ? and title = ?", a);
+        assertEquals("select * from articles where id=? and title=?", b);
+
+        assertEquals(SqlFingerprint.of("SELECT 1 FROM t WHERE id = 1").getFingerprint(),
+                SqlFingerprint.of("select 2 from t where id = 99").getFingerprint());
+        assertNotEquals(SqlFingerprint.of("select * from tags").getFingerprint(),
+                SqlFingerprint.of("select * from categories").getFingerprint());
+        assertEquals(16, SqlFingerprint.hash("").length());
+    }
+
+    @Test
+    void testListsCollapsed() {
+        assertEquals("select a1_0.id from tags a1_0 where a1_0.id in (?+)",
+                SqlFingerprint.normalize("select a1_0.id from tags a1_0 where a1_0.id in (?, ?, ?, ?)"));
+        assertEquals(SqlFingerprint.normalize("delete from t where id in (1, 2)"),
+                SqlFingerprint.normalize("delete from t where id in (3,4,5,6,7)"));
+        assertEquals("insert into `t` (a,b) values (?+)",
+                SqlFingerprint.normalize("/* insert */ INSERT INTO `t` (a, b) VALUES (?, 0x1F)"));
+    }
+
+    @Test
+    void testRepeatedTuplesCollapsed() {
+        String twoRows = "INSERT INTO visit_logs (ip_address, visit_date) VALUES (?, ?), (?, ?) " +
+                "ON DUPLICATE KEY UPDATE visit_count = visit_count + VALUES(visit_count)";
+        String threeRows = "INSERT INTO visit_logs (ip_address, visit_date) VALUES (?, ?), (?, ?), (?, ?) " +
+                "ON DUPLICATE KEY UPDATE visit_count = visit_count + VALUES(visit_count)";
+        assertEquals("insert into visit_logs (ip_address,visit_date) values (?+)+ " +
+                "on duplicate key update visit_count = visit_count + values(visit_count)",
+                SqlFingerprint.normalize(threeRows));
+        assertEquals(SqlFingerprint.of(twoRows).getFingerprint(), SqlFingerprint.of(threeRows).getFingerprint());
+
+        // 字面量不同、嵌套函数调用的元组同样折叠
+        assertEquals("insert into mail_queue (a,b,c) values (?,now())+",
+                SqlFingerprint.normalize("insert into mail_queue (a, b, c) values (1, now()), (2, now()), ('x', now())"));
+        // 形状不同的元组保留
+        assertEquals("insert into t (a,b) values (?+),(?,now())",
+                SqlFingerprint.normalize("insert into t (a, b) values (?, ?), (?, now())"));
+        assertEquals("select greatest(a,b),greatest(a,b) from t",
+                SqlFingerprint.normalize("select greatest(a, b), greatest(a, b) from t"));
+    }
+
+    @Test
+    void testCaseChainsCollapsed() {
+        String two = "UPDATE articles SET view_count = view_count + CASE id WHEN ? THEN ? WHEN ? THEN ? " +
+                "ELSE 0 END WHERE id IN (?, ?)";
+        String three = "UPDATE articles SET view_count = view_count + CASE id WHEN ? THEN ? WHEN ? THEN ? " +
+                "WHEN ? THEN ? ELSE 0 END WHERE id IN (?, ?, ?)";
+        assertEquals("update articles set view_count = view_count + case id when ? then ?+ else ? end where id in (?+)",
+                SqlFingerprint.normalize(three));
+        assertEquals(SqlFingerprint.of(two).getFingerprint(), SqlFingerprint.of(three).getFingerprint());
+
+        // then 后不是占位符的分支不折叠
+        assertEquals("select case when ? then a when ? then b end from t",
+                SqlFingerprint.normalize("select case when 1 then a when 2 then b end from t"));
+    }
+
+    @Test
+    void testQueryType() {
+        assertEquals("SELECT", SqlFingerprint.queryType("  /* hint */ (select 1)"));
+        assertEquals("SELECT", SqlFingerprint.queryType("WITH x AS (select 1) select * from x"));
+        assertEquals("UPDATE", SqlFingerprint.queryType("update articles set view_count = view_count + ?"));
+        assertEquals("UNKNOWN", SqlFingerprint.queryType("call proc()"));
+    }
+}